@@ -0,0 +1,123 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import net.percederberg.mibble.MibLoader;
+import net.percederberg.mibble.MibLoaderException;
+
+/**
+ * Shared helper methods for the benchmarks. The MIB fixtures are
+ * read from the bundled MIB corpora in the source tree, so the
+ * benchmarks must be run from the project base directory.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+final class BenchUtil {
+
+    /**
+     * The bundled IETF MIB directory.
+     */
+    static final File IETF_DIR = new File("src/mibs/ietf");
+
+    /**
+     * The bundled IANA MIB directory.
+     */
+    static final File IANA_DIR = new File("src/mibs/iana");
+
+    /**
+     * The test MIB directory.
+     */
+    static final File TEST_DIR = new File("test/mibs");
+
+    /**
+     * Creates a new helper (not used).
+     */
+    private BenchUtil() {
+        // Nothing to do here
+    }
+
+    /**
+     * Returns a named MIB fixture directory.
+     *
+     * @param name           the fixture name ("ietf", "iana" or "test")
+     *
+     * @return the fixture directory
+     *
+     * @throws IllegalArgumentException if the fixture name was unknown
+     */
+    static File getDir(String name) {
+        if (name.equals("ietf")) {
+            return IETF_DIR;
+        } else if (name.equals("iana")) {
+            return IANA_DIR;
+        } else if (name.equals("test")) {
+            return TEST_DIR;
+        } else {
+            throw new IllegalArgumentException("unknown fixture: " + name);
+        }
+    }
+
+    /**
+     * Returns all MIB files in a directory, sorted by name.
+     *
+     * @param dir            the directory to list
+     *
+     * @return the list of MIB files
+     *
+     * @throws IOException if the directory couldn't be read
+     */
+    static File[] listFiles(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("couldn't read directory: " + dir +
+                                  " (run from the project directory)");
+        }
+        ArrayList<File> res = new ArrayList<>();
+        for (File file : files) {
+            if (file.isFile() && !file.getName().startsWith(".")) {
+                res.add(file);
+            }
+        }
+        files = res.toArray(new File[res.size()]);
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * Loads all MIB files in a directory. Files that fail to load
+     * are ignored, since some of the test MIBs contain deliberate
+     * errors.
+     *
+     * @param loader         the MIB loader to use
+     * @param files          the MIB files to load
+     *
+     * @return the number of MIB files successfully loaded
+     *
+     * @throws IOException if a MIB file couldn't be read
+     */
+    static int loadAll(MibLoader loader, File[] files) throws IOException {
+        int count = 0;
+        for (File file : files) {
+            try {
+                loader.load(file);
+                count++;
+            } catch (MibLoaderException ignore) {
+                // Errors are expected for some files
+            }
+        }
+        return count;
+    }
+}
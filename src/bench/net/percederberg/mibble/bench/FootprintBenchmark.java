@@ -0,0 +1,150 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.percederberg.mibble.MibLoader;
+
+/**
+ * Benchmarks for the memory footprint of loaded MIBs. The retained
+ * heap is measured after loading all MIB files in a directory, and
+ * reported with JMH auxiliary counters (as bytes per loaded MIB and
+ * in total). The heap measurement forces garbage collection, so the
+ * time reported is not meaningful.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class FootprintBenchmark {
+
+    /**
+     * The MIB directory fixture to load.
+     */
+    @Param({ "iana", "ietf", "test" })
+    public String dir;
+
+    /**
+     * The lean mode flag.
+     */
+    @Param({ "false", "true" })
+    public boolean lean;
+
+    /**
+     * The MIB files in the directory fixture.
+     */
+    private File[] files;
+
+    /**
+     * Lists the MIB directory fixture files.
+     *
+     * @throws IOException if the directory couldn't be read
+     */
+    @Setup
+    public void setup() throws IOException {
+        files = BenchUtil.listFiles(BenchUtil.getDir(dir));
+    }
+
+    /**
+     * Loads all MIB files in the directory and measures the heap
+     * retained by the MIB loader.
+     *
+     * @param heap           the heap measurement counters
+     *
+     * @return the MIB loader used
+     *
+     * @throws IOException if a MIB file couldn't be read
+     */
+    @Benchmark
+    public MibLoader load(Heap heap) throws IOException {
+        long before = usedHeap();
+        MibLoader loader = new MibLoader();
+        loader.setLeanMode(lean);
+        loader.addDir(BenchUtil.getDir(dir));
+        int count = BenchUtil.loadAll(loader, files);
+        long bytes = usedHeap() - before;
+        heap.totalBytes = bytes;
+        heap.mibCount = loader.getAllMibs().length;
+        heap.bytesPerMib = bytes / Math.max(count, 1);
+        return loader;
+    }
+
+    /**
+     * Returns the used heap size after garbage collection.
+     *
+     * @return the used heap size (in bytes)
+     */
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+
+
+    /**
+     * The heap measurement counters. The values are set by each
+     * benchmark invocation, and are reset before each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+
+        /**
+         * The retained heap for all loaded MIBs (in bytes).
+         */
+        public long totalBytes;
+
+        /**
+         * The average retained heap per MIB file loaded (in bytes).
+         */
+        public long bytesPerMib;
+
+        /**
+         * The total number of MIB modules loaded, including imports.
+         */
+        public long mibCount;
+
+        /**
+         * Resets the counters.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            totalBytes = 0;
+            bytesPerMib = 0;
+            mibCount = 0;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.percederberg.mibble.Mib;
+import net.percederberg.mibble.MibLoader;
+import net.percederberg.mibble.MibLoaderException;
+
+/**
+ * Benchmarks for loading a single MIB. Each invocation uses a new
+ * MIB loader, so all imported MIB modules are loaded as well.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+
+    /**
+     * The name of the MIB to load. Ranges from a small MIB with few
+     * imports to one of the largest bundled IETF MIBs.
+     */
+    @Param({ "SNMPv2-MIB", "IF-MIB", "RMON2-MIB", "VDSL2-LINE-MIB" })
+    public String mib;
+
+    /**
+     * The fast parsing flag.
+     */
+    @Param({ "true", "false" })
+    public boolean fast;
+
+    /**
+     * Loads a single named MIB from the bundled resources.
+     *
+     * @return the loaded MIB
+     *
+     * @throws IOException if the MIB couldn't be read
+     * @throws MibLoaderException if the MIB couldn't be loaded
+     */
+    @Benchmark
+    public Mib loadMib() throws IOException, MibLoaderException {
+        MibLoader loader = new MibLoader();
+        loader.setFastParsing(fast);
+        return loader.load(mib);
+    }
+}
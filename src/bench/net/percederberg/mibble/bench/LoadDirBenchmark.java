@@ -0,0 +1,94 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.percederberg.mibble.MibLoader;
+
+/**
+ * Benchmarks for loading all MIB files in a directory. Each
+ * invocation uses a new MIB loader.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoadDirBenchmark {
+
+    /**
+     * The MIB directory fixture to load.
+     */
+    @Param({ "iana", "ietf", "test" })
+    public String dir;
+
+    /**
+     * The fast parsing flag.
+     */
+    @Param({ "true", "false" })
+    public boolean fast;
+
+    /**
+     * The number of loader threads.
+     */
+    @Param({ "1" })
+    public int threads;
+
+    /**
+     * The MIB files in the directory fixture.
+     */
+    private File[] files;
+
+    /**
+     * Lists the MIB directory fixture files.
+     *
+     * @throws IOException if the directory couldn't be read
+     */
+    @Setup
+    public void setup() throws IOException {
+        files = BenchUtil.listFiles(BenchUtil.getDir(dir));
+    }
+
+    /**
+     * Loads all MIB files in the directory.
+     *
+     * @return the MIB loader used
+     *
+     * @throws IOException if a MIB file couldn't be read
+     */
+    @Benchmark
+    public MibLoader loadDir() throws IOException {
+        MibLoader loader = new MibLoader();
+        loader.setFastParsing(fast);
+        loader.setParallelism(threads);
+        loader.addDir(BenchUtil.getDir(dir));
+        BenchUtil.loadAll(loader, files);
+        return loader;
+    }
+}
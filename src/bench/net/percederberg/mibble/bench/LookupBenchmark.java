@@ -0,0 +1,181 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.percederberg.mibble.Mib;
+import net.percederberg.mibble.MibLoader;
+import net.percederberg.mibble.MibLoaderException;
+import net.percederberg.mibble.value.ObjectIdentifierValue;
+
+/**
+ * Benchmarks for OID lookups. All the OIDs searched contain instance
+ * suffixes (table row indices or scalar ".0" suffixes), so that only
+ * partial matches are found in the OID tree. Each benchmark
+ * invocation searches all the OIDs once.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    /**
+     * The MIB names to load.
+     */
+    private static final String[] MIBS = {
+        "SNMPv2-MIB", "IF-MIB", "IP-MIB", "RMON2-MIB"
+    };
+
+    /**
+     * The numeric OIDs to search for. The first entry in each row is
+     * the MIB to search (an index into the MIBS array).
+     */
+    private static final String[][] OIDS = {
+        { "0", "1.3.6.1.2.1.1.3.0" },                 // sysUpTime.0
+        { "0", "1.3.6.1.2.1.1.9.1.3.4" },             // sysORDescr.4
+        { "1", "1.3.6.1.2.1.2.2.1.2.5" },             // ifDescr.5
+        { "1", "1.3.6.1.2.1.2.2.1.10.1001" },         // ifInOctets
+        { "1", "1.3.6.1.2.1.31.1.1.1.6.10101" },      // ifHCInOctets
+        { "2", "1.3.6.1.2.1.4.20.1.2.192.168.1.1" },  // ipAdEntIfIndex
+        { "2", "1.3.6.1.2.1.4.34.1.3.1.4.10.0.0.1" }, // ipAddressIfIndex
+        { "3", "1.3.6.1.2.1.16.11.2.1.4.1.2.3.4" },   // protocolDirDescr
+        { "3", "1.3.6.1.2.1.16.14.1.1.2.7" }          // hlHostControlDataSource
+    };
+
+    /**
+     * The MIB loader used.
+     */
+    private MibLoader loader;
+
+    /**
+     * The MIB to search for each OID.
+     */
+    private Mib[] mibs;
+
+    /**
+     * The numeric OID strings.
+     */
+    private String[] oids;
+
+    /**
+     * The numeric OID arcs.
+     */
+    private int[][] arcs;
+
+    /**
+     * Loads the MIB fixtures and parses the OIDs.
+     *
+     * @throws IOException if a MIB couldn't be read
+     * @throws MibLoaderException if a MIB couldn't be loaded
+     */
+    @Setup
+    public void setup() throws IOException, MibLoaderException {
+        loader = new MibLoader();
+        Mib[] loaded = new Mib[MIBS.length];
+        for (int i = 0; i < MIBS.length; i++) {
+            loaded[i] = loader.load(MIBS[i]);
+        }
+        mibs = new Mib[OIDS.length];
+        oids = new String[OIDS.length];
+        arcs = new int[OIDS.length][];
+        for (int i = 0; i < OIDS.length; i++) {
+            mibs[i] = loaded[Integer.parseInt(OIDS[i][0])];
+            oids[i] = OIDS[i][1];
+            arcs[i] = parseArcs(OIDS[i][1]);
+        }
+    }
+
+    /**
+     * Searches the OID tree with numeric OID strings.
+     *
+     * @param bh             the black hole for results
+     */
+    @Benchmark
+    public void findDescendantString(Blackhole bh) {
+        ObjectIdentifierValue root = loader.getRootOid();
+        for (int i = 0; i < oids.length; i++) {
+            bh.consume(root.findDescendant(oids[i]));
+        }
+    }
+
+    /**
+     * Searches the OID tree with numeric OID arcs.
+     *
+     * @param bh             the black hole for results
+     */
+    @Benchmark
+    public void findDescendantArcs(Blackhole bh) {
+        ObjectIdentifierValue root = loader.getRootOid();
+        for (int i = 0; i < arcs.length; i++) {
+            bh.consume(root.findDescendant(arcs[i], 0, arcs[i].length));
+        }
+    }
+
+    /**
+     * Searches each MIB for the symbol with the longest matching OID.
+     *
+     * @param bh             the black hole for results
+     */
+    @Benchmark
+    public void mibGetSymbolByOid(Blackhole bh) {
+        for (int i = 0; i < oids.length; i++) {
+            bh.consume(mibs[i].getSymbolByOid(oids[i]));
+        }
+    }
+
+    /**
+     * Searches all loaded MIBs for the symbol with the longest
+     * matching OID.
+     *
+     * @param bh             the black hole for results
+     */
+    @Benchmark
+    public void loaderGetSymbolByOid(Blackhole bh) {
+        for (int i = 0; i < arcs.length; i++) {
+            bh.consume(loader.getSymbolByOid(arcs[i], 0, arcs[i].length));
+        }
+    }
+
+    /**
+     * Parses a numeric OID string into an array of arcs.
+     *
+     * @param oid            the numeric OID string
+     *
+     * @return the array of OID arcs
+     */
+    private static int[] parseArcs(String oid) {
+        String[] parts = oid.split("\\.");
+        int[] res = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            res[i] = Integer.parseInt(parts[i]);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.percederberg.mibble.Mib;
+import net.percederberg.mibble.MibLoader;
+import net.percederberg.mibble.MibLoaderException;
+import net.percederberg.mibble.MibWriter;
+
+/**
+ * Benchmarks for MIB formatting. The formatted output is counted and
+ * discarded, so only the formatting itself is measured.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+
+    /**
+     * The name of the MIB to print.
+     */
+    @Param({ "SNMPv2-MIB", "IF-MIB", "RMON2-MIB" })
+    public String mib;
+
+    /**
+     * The print margin, or zero (0) for none.
+     */
+    @Param({ "0", "70" })
+    public int margin;
+
+    /**
+     * The loaded MIB.
+     */
+    private Mib loaded;
+
+    /**
+     * Loads the MIB fixture.
+     *
+     * @throws IOException if the MIB couldn't be read
+     * @throws MibLoaderException if the MIB couldn't be loaded
+     */
+    @Setup
+    public void setup() throws IOException, MibLoaderException {
+        loaded = new MibLoader().load(mib);
+    }
+
+    /**
+     * Prints the MIB.
+     *
+     * @return the number of characters printed
+     */
+    @Benchmark
+    public long print() {
+        CountingWriter out = new CountingWriter();
+        MibWriter writer = new MibWriter(out, margin);
+        writer.print(loaded);
+        writer.close();
+        return out.count;
+    }
+
+
+    /**
+     * A writer that only counts the characters written.
+     */
+    private static class CountingWriter extends Writer {
+
+        /**
+         * The number of characters written.
+         */
+        long count = 0;
+
+        /**
+         * Writes a single character.
+         *
+         * @param c              the character to write
+         */
+        public void write(int c) {
+            count++;
+        }
+
+        /**
+         * Writes a portion of a character array.
+         *
+         * @param buf            the character array
+         * @param off            the offset to start from
+         * @param len            the number of characters to write
+         */
+        public void write(char[] buf, int off, int len) {
+            count += len;
+        }
+
+        /**
+         * Writes a portion of a string.
+         *
+         * @param str            the string
+         * @param off            the offset to start from
+         * @param len            the number of characters to write
+         */
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        /**
+         * Flushes the writer. Does nothing.
+         */
+        public void flush() {
+            // Nothing to do here
+        }
+
+        /**
+         * Closes the writer. Does nothing.
+         */
+        public void close() {
+            // Nothing to do here
+        }
+    }
+}
@@ -17,7 +17,7 @@ import net.percederberg.mibble.value.ObjectIdentifierValue;
  * A default MIB context.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 class DefaultContext implements MibContext {
@@ -126,6 +126,56 @@ class DefaultContext implements MibContext {
         return match;
     }
 
+    /**
+     * Searches the OID tree for the best matching value. The
+     * returned OID value will be the longest matching OID value, but
+     * doesn't have to be an exact match. The search requires the
+     * full numeric OID value (from the root).
+     *
+     * @param oid            the numeric OID arcs to search for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the best matching OID value, or
+     *         null if no partial match was found
+     *
+     * @since 2.11
+     */
+    public ObjectIdentifierValue findOid(int[] oid, int offset, int length) {
+        String root;
+        if (length <= 0) {
+            return null;
+        } else if (oid[offset] == 0) {
+            root = CCITT;
+        } else if (oid[offset] == 1) {
+            root = ISO;
+        } else if (oid[offset] == 2) {
+            root = JOINT_ISO_CCITT;
+        } else {
+            return null;
+        }
+        MibValue value = ((MibValueSymbol) symbols.get(root)).getValue();
+        return ((ObjectIdentifierValue) value).findDescendant(oid,
+                                                              offset,
+                                                              length);
+    }
+
+    /**
+     * Publishes all staged changes to the OID tree. This makes any
+     * OID values added or removed by the MIB loader visible to
+     * other threads.
+     *
+     * @see ObjectIdentifierValue#publishChildren()
+     *
+     * @since 2.11
+     */
+    void publishOids() {
+        for (MibSymbol symbol : symbols.values()) {
+            MibValue value = ((MibValueSymbol) symbol).getValue();
+            ((ObjectIdentifierValue) value).publishChildren();
+        }
+    }
+
     /**
      * Returns a string representation of this object.
      *
@@ -24,7 +24,7 @@ import net.percederberg.mibble.value.ObjectIdentifierValue;
  * {@link MibLoader MIB loader}.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  *
  * @see <a href="http://www.ietf.org/rfc/rfc3411.txt">RFC 3411 - An
@@ -42,6 +42,12 @@ public class Mib implements MibContext {
      */
     private MibLoaderLog log;
 
+    /**
+     * The MIB source. This is used to identify the input source if
+     * the MIB needs to be read again.
+     */
+    private MibSource source = null;
+
     /**
      * The MIB file reference.
      */
@@ -75,9 +81,9 @@ public class Mib implements MibContext {
     private String footerComment = null;
 
     /**
-     * The MIB source text (split into lines).
+     * The MIB source text, or null if not available.
      */
-    private ArrayList<String> text = new ArrayList<>();
+    private MibText text = null;
 
     /**
      * The references to imported MIB files.
@@ -193,12 +199,36 @@ public class Mib implements MibContext {
         }
     }
 
+    /**
+     * Unlinks the OID values of this MIB from the OID tree. The OID
+     * value removals are staged until the OID tree is published, and
+     * the MIB is otherwise left unmodified. This method should be
+     * called (and the OID tree published) before clearing the MIB,
+     * so that concurrent readers of the OID tree never find a
+     * partially cleared OID value.
+     *
+     * @see #clear()
+     *
+     * @since 2.11
+     */
+    void unlink() {
+        if (symbolList != null) {
+            for (MibSymbol symbol : symbolList) {
+                if (symbol instanceof MibValueSymbol) {
+                    ((MibValueSymbol) symbol).unlink();
+                }
+            }
+        }
+    }
+
     /**
      * Clears and prepares this MIB for garbage collection. This method
      * will recursively clear all associated symbols, making sure that
      * no data structures references symbols from this MIB. Obviously,
      * this method shouldn't be called unless all dependent MIBs have
      * been cleared first.
+     *
+     * @see #unlink()
      */
     void clear() {
         loader = null;
@@ -313,6 +343,17 @@ public class Mib implements MibContext {
         return fileRef.getFile();
     }
 
+    /**
+     * Returns the MIB file reference.
+     *
+     * @return the MIB file reference
+     *
+     * @since 2.11
+     */
+    MibFileRef getFileRef() {
+        return fileRef;
+    }
+
     /**
      * Sets the MIB file reference. This method should only be called
      * by the MIB analysis classes.
@@ -326,6 +367,34 @@ public class Mib implements MibContext {
         }
     }
 
+    /**
+     * Returns the MIB source. This is the input source that the MIB
+     * was read from.
+     *
+     * @return the MIB source, or
+     *         null if not available
+     *
+     * @since 2.11
+     */
+    MibSource getSource() {
+        return source;
+    }
+
+    /**
+     * Sets the MIB source. This method should only be called by the
+     * MIB loader.
+     *
+     * @param source         the MIB source
+     *
+     * @since 2.11
+     */
+    void setSource(MibSource source) {
+        this.source = source;
+        if (text != null) {
+            text.setSource(source);
+        }
+    }
+
     /**
      * Returns the MIB loader used when loading this MIB.
      *
@@ -344,6 +413,18 @@ public class Mib implements MibContext {
         return log;
     }
 
+    /**
+     * Sets the loader log used when loading this MIB. This method
+     * should only be called by the MIB loader.
+     *
+     * @param log            the loader log to use
+     *
+     * @since 2.11
+     */
+    void setLog(MibLoaderLog log) {
+        this.log = log;
+    }
+
     /**
      * Returns the SMI version used for defining this MIB. This
      * number can be either 1 (for SMIv1) or 2 (for SMIv2). It is set
@@ -370,15 +451,23 @@ public class Mib implements MibContext {
     }
 
     /**
-     * Returns the unparsed input MIB text.
+     * Returns the unparsed input MIB text. The text isn't available
+     * if the MIB was loaded in lean mode.
      *
-     * @return the raw MIB file text
+     * @return the raw MIB file text, or
+     *         null if not available
+     *
+     * @see MibLoader#setLeanMode(boolean)
      *
      * @since 2.10
      */
     public String getText() {
+        ArrayList<String> lines = (text == null) ? null : text.getLines();
+        if (lines == null) {
+            return null;
+        }
         StringBuilder buffer = new StringBuilder();
-        for (String line : text) {
+        for (String line : lines) {
             buffer.append(line);
             buffer.append('\n');
         }
@@ -390,16 +479,21 @@ public class Mib implements MibContext {
      *
      * @param ref            the MIB file reference
      *
-     * @return the raw MIB text for the reference
+     * @return the raw MIB text for the reference, or
+     *         null if not available
      *
      * @since 2.10
      */
     String getText(MibFileRef ref) {
+        ArrayList<String> lines = (text == null) ? null : text.getLines();
+        if (lines == null) {
+            return null;
+        }
         int from = ref.lineCommentStart - this.fileRef.lineCommentStart;
         int to = ref.lineEnd - this.fileRef.lineCommentStart;
         StringBuilder buffer = new StringBuilder();
         for (int i = from; i <= to; i++) {
-            buffer.append(text.get(i));
+            buffer.append(lines.get(i));
             buffer.append('\n');
         }
         return buffer.toString();
@@ -407,18 +501,43 @@ public class Mib implements MibContext {
 
     /**
      * Sets the unparsed input MIB text. This method should only be
-     * called by the MIB analysis classes.
+     * called by the MIB analysis classes. The text is kept in memory
+     * until the MIB source is set, after which it will be re-read
+     * from the source when needed.
      *
      * @param text           the raw MIB file text
+     * @param line           the first text line in the MIB source
+     * @param column         the first text column in the MIB source
      *
-     * @since 2.10
+     * @since 2.11
      */
-    void setText(String text) {
-        this.text.clear();
-        String[] lines = text.split("[ \\t\\r]*\\n");
-        for (String line : lines) {
-            this.text.add(line);
-        }
+    void setText(String text, int line, int column) {
+        this.text = new MibText(text, line, column);
+    }
+
+    /**
+     * Returns the unparsed input MIB text container.
+     *
+     * @return the MIB text container, or
+     *         null if not available
+     *
+     * @since 2.11
+     */
+    MibText getMibText() {
+        return text;
+    }
+
+    /**
+     * Sets the unparsed input MIB text container. This method should
+     * only be called by the MIB loader, when restoring a MIB from a
+     * snapshot.
+     *
+     * @param text           the MIB text container, or null
+     *
+     * @since 2.11
+     */
+    void setMibText(MibText text) {
+        this.text = text;
     }
 
     /**
@@ -503,6 +622,18 @@ public class Mib implements MibContext {
         return null;
     }
 
+    /**
+     * Returns all MIB import references, including the implicit
+     * ones without any imported symbols.
+     *
+     * @return a list of all imports
+     *
+     * @since 2.11
+     */
+    List<MibImport> getImports() {
+        return imports;
+    }
+
     /**
      * Adds a reference to an imported MIB file.
      *
@@ -652,6 +783,26 @@ public class Mib implements MibContext {
         symbolNameMap.put(symbol.getName(), symbol);
     }
 
+    /**
+     * Adds a value symbol to the symbol value map. Only value
+     * symbols with either a number or an object identifier value
+     * are added. This method should only be called by the MIB
+     * loader, when restoring a MIB from a snapshot (as the map is
+     * otherwise populated by validate()).
+     *
+     * @param symbol         the value symbol to add
+     *
+     * @since 2.11
+     */
+    void addSymbolValue(MibValueSymbol symbol) {
+        MibValue value = symbol.getValue();
+        if (value instanceof NumberValue ||
+            value instanceof ObjectIdentifierValue) {
+
+            symbolValueMap.put(value.toString(), symbol);
+        }
+    }
+
     /**
      * Searches for a named MIB symbol. This method is required to
      * implement the MibContext interface but returns the same results
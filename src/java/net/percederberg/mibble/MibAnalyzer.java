@@ -76,7 +76,7 @@ import net.percederberg.mibble.value.ValueReference;
  * is encountered.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 class MibAnalyzer extends Asn1Analyzer {
@@ -101,6 +101,12 @@ class MibAnalyzer extends Asn1Analyzer {
      */
     private MibLoaderLog log;
 
+    /**
+     * The lean mode flag. If set, no MIB text, comments,
+     * descriptions or references are stored.
+     */
+    private boolean lean;
+
     /**
      * The current MIB module being analyzed.
      */
@@ -133,6 +139,25 @@ class MibAnalyzer extends Asn1Analyzer {
      */
     private HashSet<Token> commentTokens = new HashSet<>();
 
+    /**
+     * The MIB module text collector. Used for releasing tokens once
+     * each symbol has been analyzed.
+     */
+    private MibTextCollector moduleText =
+        new MibTextCollector(commentTokens);
+
+    /**
+     * The last token in the most recent MIB module.
+     */
+    private Token lastToken = null;
+
+    /**
+     * The list of imported MIB names found. The names are added in
+     * the order they are encountered, and are scheduled for loading
+     * by the MIB loader once the analysis is complete.
+     */
+    private ArrayList<String> importNames = new ArrayList<>();
+
     /**
      * Creates a new MIB file analyzer.
      *
@@ -144,6 +169,7 @@ class MibAnalyzer extends Asn1Analyzer {
         this.file = file;
         this.loader = loader;
         this.log = log;
+        this.lean = loader.isLeanMode();
     }
 
     /**
@@ -157,6 +183,9 @@ class MibAnalyzer extends Asn1Analyzer {
         contextStack.clear();
         implicitTags = true;
         commentTokens.clear();
+        moduleText.reset();
+        lastToken = null;
+        importNames = new ArrayList<>();
     }
 
     /**
@@ -168,6 +197,18 @@ class MibAnalyzer extends Asn1Analyzer {
         return mibs;
     }
 
+    /**
+     * Returns the list of imported MIB names found during analysis.
+     * The MIB loader is responsible for scheduling these for loading.
+     *
+     * @return a list of imported MIB names
+     *
+     * @since 2.11
+     */
+    public ArrayList<String> getImportNames() {
+        return importNames;
+    }
+
     /**
      * Adds the binary number as a node value. This method will
      * convert the binary string to either an Integer, a Long, or a
@@ -180,15 +221,7 @@ class MibAnalyzer extends Asn1Analyzer {
     protected Node exitBinaryString(Token node) {
         String str = node.getImage();
         str = str.substring(1, str.length() - 2);
-        if (str.length() == 0) {
-            node.addValue(new Integer(0));
-        } else if (str.length() < 32) {
-            node.addValue(new Integer(Integer.parseInt(str, 2)));
-        } else if (str.length() < 64) {
-            node.addValue(new Long(Long.parseLong(str, 2)));
-        } else {
-            node.addValue(new BigInteger(str, 2));
-        }
+        node.addValue(MibAnalyzerUtil.parseBinaryNumber(str));
         node.addValue(str);
         return node;
     }
@@ -205,15 +238,7 @@ class MibAnalyzer extends Asn1Analyzer {
     protected Node exitHexadecimalString(Token node) {
         String str = node.getImage();
         str = str.substring(1, str.length() - 2);
-        if (str.length() == 0) {
-            node.addValue(new Integer(0));
-        } else if (str.length() < 8) {
-            node.addValue(new Integer(Integer.parseInt(str, 16)));
-        } else if (str.length() < 16) {
-            node.addValue(new Long(Long.parseLong(str, 16)));
-        } else {
-            node.addValue(new BigInteger(str, 16));
-        }
+        node.addValue(MibAnalyzerUtil.parseHexNumber(str));
         node.addValue(str);
         return node;
     }
@@ -228,12 +253,7 @@ class MibAnalyzer extends Asn1Analyzer {
      * @return the node to add to the parse tree
      */
     protected Node exitQuotedString(Token node) {
-        String str = node.getImage();
-        str = str.substring(1, str.length() - 1);
-        if (str.indexOf("\"\"") >= 0) {
-            str = str.replace("\"\"", "\"");
-        }
-        node.addValue(str);
+        node.addValue(MibAnalyzerUtil.parseQuotedString(node.getImage()));
         return node;
     }
 
@@ -258,14 +278,7 @@ class MibAnalyzer extends Asn1Analyzer {
      * @return the node to add to the parse tree
      */
     protected Node exitNumberString(Token node) {
-        String str = node.getImage();
-        if (str.length() < 10) {
-            node.addValue(new Integer(str));
-        } else if (str.length() < 19) {
-            node.addValue(new Long(str));
-        } else {
-            node.addValue(new BigInteger(str));
-        }
+        node.addValue(MibAnalyzerUtil.parseNumber(node.getImage()));
         return node;
     }
 
@@ -277,8 +290,9 @@ class MibAnalyzer extends Asn1Analyzer {
      * @return the node to add to the parse tree
      */
     protected Node exitStart(Production node) {
-        String comment = MibAnalyzerUtil.getCommentsFooter(node, commentTokens);
-        if (currentMib != null) {
+        if (currentMib != null && lastToken != null && !lean) {
+            String comment = MibAnalyzerUtil.getCommentsFooter(lastToken,
+                                                               commentTokens);
             currentMib.setFooterComment(comment);
         }
         return null;
@@ -298,7 +312,8 @@ class MibAnalyzer extends Asn1Analyzer {
 
     /**
      * Sets the MIB name to the module identifier string value. Also
-     * removes this node from the parse tree.
+     * collects the remaining module text and removes this node from
+     * the parse tree.
      *
      * @param node           the node being exited
      *
@@ -312,11 +327,18 @@ class MibAnalyzer extends Asn1Analyzer {
         MibFileRef fileRef = MibAnalyzerUtil.getFileRef(file, node);
         currentMib.setName(getStringValue(getChildAt(node, 0), 0));
         currentMib.setFileRef(fileRef);
-        currentMib.setText(MibAnalyzerUtil.getText(node));
-        String str = MibAnalyzerUtil.getComments(node, commentTokens);
-        currentMib.setHeaderComment(str);
+        lastToken = MibAnalyzerUtil.findLastToken(node);
+        if (!lean && moduleText.isStarted()) {
+            moduleText.finish(lastToken);
+            Token start = moduleText.getTextStart();
+            currentMib.setText(moduleText.getText(),
+                               start.getStartLine(),
+                               start.getStartColumn());
+            currentMib.setHeaderComment(moduleText.getComments(lastToken));
+            moduleText.reset();
+        }
         mibs.add(currentMib);
-        return node;
+        return null;
     }
 
     /**
@@ -331,6 +353,9 @@ class MibAnalyzer extends Asn1Analyzer {
     protected Node exitModuleIdentifier(Production node)
         throws ParseException {
 
+        if (!lean && !moduleText.isStarted()) {
+            moduleText.start(MibAnalyzerUtil.findFirstToken(node));
+        }
         node.addValue(getStringValue(getChildAt(node, 0), 0));
         return node;
     }
@@ -400,7 +425,7 @@ class MibAnalyzer extends Asn1Analyzer {
             String module = isSMIv2 ? "SNMPv2-SMI" : "RFC1155-SMI";
             List<String> empty = Collections.<String> emptyList();
             MibImport imp = new MibImport(loader, ref, module, empty);
-            loader.scheduleLoad(imp.getName());
+            importNames.add(imp.getName());
             currentMib.addImport(imp);
             imports.add(imp);
         }
@@ -446,7 +471,7 @@ class MibAnalyzer extends Asn1Analyzer {
         }
 
         // Schedule MIB loading
-        loader.scheduleLoad(module);
+        importNames.add(module);
 
         // Add reference to MIB and node
         currentMib.addImport(imp);
@@ -505,7 +530,8 @@ class MibAnalyzer extends Asn1Analyzer {
         // Create macro symbol
         MibFileRef ref = MibAnalyzerUtil.getFileRef(file, node);
         MibMacroSymbol symbol = new MibMacroSymbol(ref, currentMib, name);
-        symbol.setComment(MibAnalyzerUtil.getComments(node, commentTokens));
+        symbol.setComment(getComments(node));
+        releaseTokens(node);
 
         return null;
     }
@@ -554,7 +580,8 @@ class MibAnalyzer extends Asn1Analyzer {
         // Create type symbol
         MibType type = (MibType) getValue(getChildAt(node, 2), 0);
         MibTypeSymbol symbol = new MibTypeSymbol(ref, currentMib, name, type);
-        symbol.setComment(MibAnalyzerUtil.getComments(node, commentTokens));
+        symbol.setComment(getComments(node));
+        releaseTokens(node);
 
         return null;
     }
@@ -1011,7 +1038,7 @@ class MibAnalyzer extends Asn1Analyzer {
                 child.getStartColumn());
         }
         MibType type = new ElementType(name, (MibType) getValue(child, 0));
-        type.setComment(MibAnalyzerUtil.getComments(node, commentTokens));
+        type.setComment(getComments(node));
         node.addValue(type);
         return node;
     }
@@ -1055,7 +1082,7 @@ class MibAnalyzer extends Asn1Analyzer {
             Node child = node.getChildAt(i);
             if (child.getId() == Asn1Constants.NAMED_NUMBER) {
                 MibValueSymbol symbol = (MibValueSymbol) child.getValue(0);
-                String str = MibAnalyzerUtil.getComments(child, commentTokens);
+                String str = getComments(child);
                 symbol.setComment(str);
             }
         }
@@ -1355,7 +1382,8 @@ class MibAnalyzer extends Asn1Analyzer {
         MibType type = (MibType) getValue(getChildAt(node, 1), 0);
         MibValue value = (MibValue) getValue(getChildAt(node, 3), 0);
         MibValueSymbol symbol = new MibValueSymbol(ref, currentMib, name, type, value);
-        symbol.setComment(MibAnalyzerUtil.getComments(node, commentTokens));
+        symbol.setComment(getComments(node));
+        releaseTokens(node);
 
         return null;
     }
@@ -1500,7 +1528,7 @@ class MibAnalyzer extends Asn1Analyzer {
         } else {
             number = (Number) getValue(getChildAt(node, 0), 0);
         }
-        node.addValue(new NumberValue(number));
+        node.addValue(loader.getPool().getNumberValue(number));
         return node;
     }
 
@@ -1786,7 +1814,7 @@ class MibAnalyzer extends Asn1Analyzer {
         String update = getStringValue(getChildAt(node, 1), 0);
         String org = getStringValue(getChildAt(node, 2), 0);
         String contact = getStringValue(getChildAt(node, 3), 0);
-        String desc = getStringValue(getChildAt(node, 4), 0);
+        String desc = getTextValue(getChildAt(node, 4));
         ArrayList<SnmpRevision> revisions = new ArrayList<>();
         for (int i = 5; i < node.getChildCount(); i++) {
             revisions.add((SnmpRevision) getValue(getChildAt(node, i), 0));
@@ -1813,10 +1841,10 @@ class MibAnalyzer extends Asn1Analyzer {
 
         currentMib.setSmiVersion(2);
         SnmpStatus status = (SnmpStatus) getValue(getChildAt(node, 1), 0);
-        String desc = getStringValue(getChildAt(node, 2), 0);
+        String desc = getTextValue(getChildAt(node, 2));
         String ref = null;
         if (node.getChildCount() > 3) {
-            ref = getStringValue(getChildAt(node, 3), 0);
+            ref = getTextValue(getChildAt(node, 3));
         }
         node.addValue(new SnmpObjectIdentity(status, desc, ref));
         return node;
@@ -1873,10 +1901,10 @@ class MibAnalyzer extends Asn1Analyzer {
                 if (syntax instanceof MibContext) {
                     popContext();
                 }
-                syntax.setComment(MibAnalyzerUtil.getComments(child, commentTokens));
+                syntax.setComment(getComments(child));
                 break;
             case Asn1Constants.SNMP_UNITS_PART:
-                units = getStringValue(child, 0);
+                units = loader.getPool().intern(getStringValue(child, 0));
                 break;
             case Asn1Constants.SNMP_ACCESS_PART:
                 access = (SnmpAccess) getValue(child, 0);
@@ -1885,10 +1913,10 @@ class MibAnalyzer extends Asn1Analyzer {
                 status = (SnmpStatus) getValue(child, 0);
                 break;
             case Asn1Constants.SNMP_DESCR_PART:
-                desc = getStringValue(child, 0);
+                desc = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_REFER_PART:
-                ref = getStringValue(child, 0);
+                ref = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_INDEX_PART:
                 index = getValue(child, 0);
@@ -1949,10 +1977,10 @@ class MibAnalyzer extends Asn1Analyzer {
                 status = (SnmpStatus) getValue(child, 0);
                 break;
             case Asn1Constants.SNMP_DESCR_PART:
-                desc = getStringValue(child, 0);
+                desc = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_REFER_PART:
-                ref = getStringValue(child, 0);
+                ref = getTextValue(child);
                 break;
             default:
                 // Ignore other nodes
@@ -1991,10 +2019,10 @@ class MibAnalyzer extends Asn1Analyzer {
                 vars = child.getAllValues();
                 break;
             case Asn1Constants.SNMP_DESCR_PART:
-                desc = getStringValue(child, 0);
+                desc = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_REFER_PART:
-                ref = getStringValue(child, 0);
+                ref = getTextValue(child);
                 break;
             default:
                 // Ignore other nodes
@@ -2026,20 +2054,20 @@ class MibAnalyzer extends Asn1Analyzer {
             Node child = node.getChildAt(i);
             switch (child.getId()) {
             case Asn1Constants.SNMP_DISPLAY_PART:
-                display = getStringValue(child, 0);
+                display = loader.getPool().intern(getStringValue(child, 0));
                 break;
             case Asn1Constants.SNMP_STATUS_PART:
                 status = (SnmpStatus) getValue(child, 0);
                 break;
             case Asn1Constants.SNMP_DESCR_PART:
-                desc = getStringValue(child, 0);
+                desc = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_REFER_PART:
-                ref = getStringValue(child, 0);
+                ref = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_SYNTAX_PART:
                 syntax = (MibType) getValue(child, 0);
-                syntax.setComment(MibAnalyzerUtil.getComments(child, commentTokens));
+                syntax.setComment(getComments(child));
                 break;
             default:
                 // Ignore other nodes
@@ -2068,10 +2096,10 @@ class MibAnalyzer extends Asn1Analyzer {
         currentMib.setSmiVersion(2);
         ArrayList<MibValue> objects = (ArrayList<MibValue>) getValue(getChildAt(node, 1), 0);
         SnmpStatus status = (SnmpStatus) getValue(getChildAt(node, 2), 0);
-        String desc = getStringValue(getChildAt(node, 3), 0);
+        String desc = getTextValue(getChildAt(node, 3));
         String ref = null;
         if (node.getChildCount() > 4) {
-            ref = getStringValue(getChildAt(node, 4), 0);
+            ref = getTextValue(getChildAt(node, 4));
         }
         node.addValue(new SnmpObjectGroup(objects, status, desc, ref));
         return node;
@@ -2092,10 +2120,10 @@ class MibAnalyzer extends Asn1Analyzer {
         currentMib.setSmiVersion(2);
         ArrayList<MibValue> notifications = getChildAt(node, 1).getAllValues();
         SnmpStatus status = (SnmpStatus) getValue(getChildAt(node, 2), 0);
-        String desc = getStringValue(getChildAt(node, 3), 0);
+        String desc = getTextValue(getChildAt(node, 3));
         String ref = null;
         if (node.getChildCount() > 4) {
-            ref = getStringValue(getChildAt(node, 4), 0);
+            ref = getTextValue(getChildAt(node, 4));
         }
         node.addValue(new SnmpNotificationGroup(notifications,
                                                 status,
@@ -2128,10 +2156,10 @@ class MibAnalyzer extends Asn1Analyzer {
                 status = (SnmpStatus) getValue(child, 0);
                 break;
             case Asn1Constants.SNMP_DESCR_PART:
-                desc = getStringValue(child, 0);
+                desc = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_REFER_PART:
-                ref = getStringValue(child, 0);
+                ref = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_MODULE_PART:
                 modules.add((SnmpModule) getValue(child, 0));
@@ -2175,10 +2203,10 @@ class MibAnalyzer extends Asn1Analyzer {
                 status = (SnmpStatus) getValue(child, 0);
                 break;
             case Asn1Constants.SNMP_DESCR_PART:
-                desc = getStringValue(child, 0);
+                desc = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_REFER_PART:
-                ref = getStringValue(child, 0);
+                ref = getTextValue(child);
                 break;
             case Asn1Constants.SNMP_MODULE_SUPPORT_PART:
                 modules.add((SnmpModuleSupport) getValue(child, 0));
@@ -2256,9 +2284,9 @@ class MibAnalyzer extends Asn1Analyzer {
         throws ParseException {
 
         MibValue value = (MibValue) getValue(getChildAt(node, 1), 0);
-        String desc = getStringValue(getChildAt(node, 3), 0);
+        String desc = getTextValue(getChildAt(node, 3));
         SnmpRevision rev = new SnmpRevision(value, desc);
-        rev.setComment(MibAnalyzerUtil.getComments(node, commentTokens));
+        rev.setComment(getComments(node));
         node.addValue(rev);
         return node;
     }
@@ -2547,7 +2575,7 @@ class MibAnalyzer extends Asn1Analyzer {
             Node child = node.getChildAt(i);
             switch (child.getId()) {
             case Asn1Constants.MODULE:
-                comment = MibAnalyzerUtil.getComments(child, commentTokens);
+                comment = getComments(child);
                 break;
             case Asn1Constants.SNMP_MODULE_IMPORT:
                 name = getStringValue(child, 0);
@@ -2586,7 +2614,7 @@ class MibAnalyzer extends Asn1Analyzer {
 
         // Load referenced module
         String module = getStringValue(getChildAt(node, 0), 0);
-        loader.scheduleLoad(module);
+        importNames.add(module);
 
         // Create module reference and context
         MibFileRef ref = MibAnalyzerUtil.getFileRef(file, node);
@@ -2636,9 +2664,9 @@ class MibAnalyzer extends Asn1Analyzer {
         throws ParseException {
 
         MibValue value = (MibValue) getValue(getChildAt(node, 1), 0);
-        String desc = getStringValue(getChildAt(node, 2), 0);
+        String desc = getTextValue(getChildAt(node, 2));
         SnmpCompliance comp = new SnmpCompliance(true, value, null, null, null, desc);
-        comp.setComment(MibAnalyzerUtil.getComments(node, commentTokens));
+        comp.setComment(getComments(node));
         node.addValue(comp);
         return node;
     }
@@ -2668,24 +2696,24 @@ class MibAnalyzer extends Asn1Analyzer {
                 break;
             case Asn1Constants.SNMP_SYNTAX_PART:
                 syntax = (MibType) getValue(child, 0);
-                syntax.setComment(MibAnalyzerUtil.getComments(child, commentTokens));
+                syntax.setComment(getComments(child));
                 break;
             case Asn1Constants.SNMP_WRITE_SYNTAX_PART:
                 write = (MibType) getValue(child, 0);
-                write.setComment(MibAnalyzerUtil.getComments(child, commentTokens));
+                write.setComment(getComments(child));
                 break;
             case Asn1Constants.SNMP_ACCESS_PART:
                 access = (SnmpAccess) getValue(child, 0);
                 break;
             case Asn1Constants.SNMP_DESCR_PART:
-                desc = getStringValue(child, 0);
+                desc = getTextValue(child);
                 break;
             default:
                 // Ignore other nodes
             }
         }
         SnmpCompliance comp = new SnmpCompliance(false, value, syntax, write, access, desc);
-        comp.setComment(MibAnalyzerUtil.getComments(node, commentTokens));
+        comp.setComment(getComments(node));
         node.addValue(comp);
         return node;
     }
@@ -2805,11 +2833,11 @@ class MibAnalyzer extends Asn1Analyzer {
                 if (syntax instanceof MibContext) {
                     popContext();
                 }
-                syntax.setComment(MibAnalyzerUtil.getComments(child, commentTokens));
+                syntax.setComment(getComments(child));
                 break;
             case Asn1Constants.SNMP_WRITE_SYNTAX_PART:
                 write = (MibType) getValue(child, 0);
-                write.setComment(MibAnalyzerUtil.getComments(child, commentTokens));
+                write.setComment(getComments(child));
                 break;
             case Asn1Constants.SNMP_ACCESS_PART:
                 access = (SnmpAccess) getValue(child, 0);
@@ -2821,7 +2849,7 @@ class MibAnalyzer extends Asn1Analyzer {
                 defVal = (MibValue) getValue(child, 0);
                 break;
             case Asn1Constants.SNMP_DESCR_PART:
-                desc = getStringValue(child, 0);
+                desc = getTextValue(child);
                 break;
             default:
                 // Ignore other nodes
@@ -2884,4 +2912,55 @@ class MibAnalyzer extends Asn1Analyzer {
     private void popContext() {
         contextStack.remove(contextStack.size() - 1);
     }
+
+    /**
+     * Returns all the comments associated with a specified node. In
+     * lean mode, comments are not processed and null is always
+     * returned.
+     *
+     * @param node           the production or token node
+     *
+     * @return the comment string, or
+     *         null if no comments were found
+     *
+     * @see MibAnalyzerUtil#getComments(Node, HashSet)
+     */
+    private String getComments(Node node) {
+        if (lean) {
+            return null;
+        }
+        return MibAnalyzerUtil.getComments(node, commentTokens);
+    }
+
+    /**
+     * Releases all tokens before the last token in a node. The MIB
+     * module text and any remaining comments are collected before
+     * the tokens are released. In lean mode, no tokens are linked
+     * and this method does nothing.
+     *
+     * @param node           the production node
+     *
+     * @see MibTextCollector#release(Token)
+     */
+    private void releaseTokens(Node node) {
+        if (!lean && moduleText.isStarted()) {
+            moduleText.release(MibAnalyzerUtil.findLastToken(node));
+        }
+    }
+
+    /**
+     * Returns the description or reference string value of a node.
+     * In lean mode, these strings are not stored and an empty string
+     * is always returned.
+     *
+     * @param node           the node containing the string value
+     *
+     * @return the string value, or
+     *         an empty string in lean mode
+     *
+     * @throws ParseException if the node didn't contain a string
+     */
+    private String getTextValue(Node node) throws ParseException {
+        return lean ? "" : getStringValue(node, 0);
+    }
 }
@@ -9,6 +9,7 @@
 package net.percederberg.mibble;
 
 import java.io.File;
+import java.math.BigInteger;
 import java.util.HashSet;
 
 import net.percederberg.grammatica.parser.Node;
@@ -20,7 +21,7 @@ import net.percederberg.mibble.asn1.Asn1Constants;
  * Helper and utility functions for the MIB file analyzer.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.9
  */
 class MibAnalyzerUtil {
@@ -52,6 +53,89 @@ class MibAnalyzerUtil {
         }
     }
 
+    /**
+     * Parses a binary number string. The number will be returned as
+     * either an Integer, a Long, or a BigInteger.
+     *
+     * @param str            the binary digits (without quotes)
+     *
+     * @return the number value
+     *
+     * @since 2.11
+     */
+    static Number parseBinaryNumber(String str) {
+        if (str.length() == 0) {
+            return new Integer(0);
+        } else if (str.length() < 32) {
+            return new Integer(Integer.parseInt(str, 2));
+        } else if (str.length() < 64) {
+            return new Long(Long.parseLong(str, 2));
+        } else {
+            return new BigInteger(str, 2);
+        }
+    }
+
+    /**
+     * Parses a hexadecimal number string. The number will be
+     * returned as either an Integer, a Long, or a BigInteger.
+     *
+     * @param str            the hexadecimal digits (without quotes)
+     *
+     * @return the number value
+     *
+     * @since 2.11
+     */
+    static Number parseHexNumber(String str) {
+        if (str.length() == 0) {
+            return new Integer(0);
+        } else if (str.length() < 8) {
+            return new Integer(Integer.parseInt(str, 16));
+        } else if (str.length() < 16) {
+            return new Long(Long.parseLong(str, 16));
+        } else {
+            return new BigInteger(str, 16);
+        }
+    }
+
+    /**
+     * Parses a decimal number string. The number will be returned as
+     * either an Integer, a Long, or a BigInteger.
+     *
+     * @param str            the decimal digits
+     *
+     * @return the number value
+     *
+     * @since 2.11
+     */
+    static Number parseNumber(String str) {
+        if (str.length() < 10) {
+            return Integer.valueOf(str);
+        } else if (str.length() < 19) {
+            return new Long(str);
+        } else {
+            return new BigInteger(str);
+        }
+    }
+
+    /**
+     * Parses a quoted string. The quotation marks will be removed,
+     * and any double marks inside the string will be replaced with
+     * a single mark.
+     *
+     * @param str            the quoted string
+     *
+     * @return the unquoted string
+     *
+     * @since 2.11
+     */
+    static String parseQuotedString(String str) {
+        str = str.substring(1, str.length() - 1);
+        if (str.indexOf("\"\"") >= 0) {
+            str = str.replace("\"\"", "\"");
+        }
+        return str;
+    }
+
     /**
      * Returns the MIB file reference for a production node.
      *
@@ -64,7 +148,7 @@ class MibAnalyzerUtil {
         MibFileRef ref = new MibFileRef(file,
                                         node.getStartLine(),
                                         node.getStartColumn());
-        Token comment = findCommentTokenBefore(node, null);
+        Token comment = findCommentTokenBefore(findFirstToken(node), null);
         if (comment != null) {
             ref.lineCommentStart = comment.getStartLine();
         }
@@ -72,6 +156,29 @@ class MibAnalyzerUtil {
         return ref;
     }
 
+    /**
+     * Returns the MIB file reference for a sequence of tokens.
+     *
+     * @param file           the MIB file
+     * @param first          the first token
+     * @param last           the last token
+     *
+     * @return the MIB file reference
+     *
+     * @since 2.11
+     */
+    static MibFileRef getFileRef(File file, Token first, Token last) {
+        MibFileRef ref = new MibFileRef(file,
+                                        first.getStartLine(),
+                                        first.getStartColumn());
+        Token comment = findCommentTokenBefore(first, null);
+        if (comment != null) {
+            ref.lineCommentStart = comment.getStartLine();
+        }
+        ref.lineEnd = last.getEndLine();
+        return ref;
+    }
+
     /**
      * Returns a string containing the raw input text for a node.
      * This is created by concatenating the sequence of tokens that
@@ -84,12 +191,24 @@ class MibAnalyzerUtil {
      * @since 2.10
      */
     static String getText(Node node) {
+        return getText(findFirstToken(node), findLastToken(node));
+    }
+
+    /**
+     * Returns a string containing the raw input text for a sequence
+     * of tokens. This includes any comment tokens before the first
+     * token.
+     *
+     * @param first          the first token
+     * @param lastToken      the last token
+     *
+     * @return the input string
+     *
+     * @since 2.11
+     */
+    static String getText(Token first, Token lastToken) {
         StringBuilder buffer = new StringBuilder();
-        Token token = findCommentTokenBefore(node, null);
-        if (token == null) {
-            token = findFirstToken(node);
-        }
-        Token lastToken = findLastToken(node);
+        Token token = getTextStart(first);
         while (token != null && token != lastToken) {
             buffer.append(token.getImage());
             token = token.getNextToken();
@@ -100,6 +219,37 @@ class MibAnalyzerUtil {
         return buffer.toString();
     }
 
+    /**
+     * Returns the first token in the raw input text for a node. This
+     * is the first comment token before the node, if any.
+     *
+     * @param node           the production or token node
+     *
+     * @return the first input text token, or
+     *         null if not found
+     *
+     * @since 2.11
+     */
+    static Token getTextStart(Node node) {
+        return getTextStart(findFirstToken(node));
+    }
+
+    /**
+     * Returns the first token in the raw input text starting at a
+     * token. This is the first comment token before the token, if
+     * any.
+     *
+     * @param first          the first token
+     *
+     * @return the first input text token
+     *
+     * @since 2.11
+     */
+    static Token getTextStart(Token first) {
+        Token token = findCommentTokenBefore(first, null);
+        return (token == null) ? first : token;
+    }
+
     /**
      * Returns all the comments associated with a specified node. If
      * there are multiple comment lines, these will be concatenated
@@ -115,21 +265,88 @@ class MibAnalyzerUtil {
      *         null if no comments were found
      */
     static String getComments(Node node, HashSet<Token> marked) {
-        String comment = "";
-        Token token = findCommentTokenBefore(node, marked);
-        String str = processComments(token, marked);
-        if (str != null) {
-            comment = str;
-        }
-        str = processCommentsInside(node, marked);
-        if (str != null) {
+        return getComments(findFirstToken(node), findLastToken(node), marked);
+    }
+
+    /**
+     * Returns all the comments associated with a sequence of tokens.
+     * This method works just like the one for production nodes.
+     *
+     * @param first          the first token
+     * @param last           the last token
+     * @param marked         the processed token set (modified)
+     *
+     * @return the comment string, or
+     *         null if no comments were found
+     *
+     * @see #getComments(Node, HashSet)
+     *
+     * @since 2.11
+     */
+    static String getComments(Token first,
+                              Token last,
+                              HashSet<Token> marked) {
+
+        Token token = findCommentTokenBefore(first, marked);
+        String before = processComments(token, marked);
+        String inside = processCommentsInside(first, last, marked);
+        return joinComments(before, inside, last, marked);
+    }
+
+    /**
+     * Returns all the comments associated with a sequence of tokens,
+     * using previously collected comments for the tokens inside the
+     * sequence. This method is used when the tokens inside the
+     * sequence are no longer available.
+     *
+     * @param first          the first token
+     * @param inside         the comments inside the sequence, or null
+     * @param last           the last token
+     * @param marked         the processed token set (modified)
+     *
+     * @return the comment string, or
+     *         null if no comments were found
+     *
+     * @see MibTextCollector
+     *
+     * @since 2.11
+     */
+    static String getComments(Token first,
+                              String inside,
+                              Token last,
+                              HashSet<Token> marked) {
+
+        Token token = findCommentTokenBefore(first, marked);
+        String before = processComments(token, marked);
+        return joinComments(before, inside, last, marked);
+    }
+
+    /**
+     * Joins the comments before and inside a sequence of tokens with
+     * any comments after the last token (on the same line).
+     *
+     * @param before         the comments before the tokens, or null
+     * @param inside         the comments inside the tokens, or null
+     * @param last           the last token
+     * @param marked         the processed token set (modified)
+     *
+     * @return the comment string, or
+     *         null if no comments were found
+     */
+    private static String joinComments(String before,
+                                       String inside,
+                                       Token last,
+                                       HashSet<Token> marked) {
+
+        String comment = (before == null) ? "" : before;
+        if (inside != null) {
             if (comment.length() > 0) {
                 comment += "\n\n";
             }
-            comment += str;
+            comment += inside;
         }
-        token = findCommentTokenAfter(node, true);
-        str = processComments(token, marked);
+        Token token = findCommentTokenAfter(last, true);
+        String str = processComments(token, marked);
         if (str != null) {
             if (comment.length() > 0) {
                 comment += "\n\n";
@@ -151,7 +368,22 @@ class MibAnalyzerUtil {
      *         null if no comments were found
      */
     static String getCommentsFooter(Node node, HashSet<Token> marked) {
-        return processComments(findCommentTokenAfter(node, false), marked);
+        return getCommentsFooter(findLastToken(node), marked);
+    }
+
+    /**
+     * Returns all the footer comments after the specified token.
+     *
+     * @param last           the last token
+     * @param marked         the processed token set (modified)
+     *
+     * @return the comment string, or
+     *         null if no comments were found
+     *
+     * @since 2.11
+     */
+    static String getCommentsFooter(Token last, HashSet<Token> marked) {
+        return processComments(findCommentTokenAfter(last, false), marked);
     }
 
     /**
@@ -183,20 +415,22 @@ class MibAnalyzerUtil {
     }
 
     /**
-     * Reads all unprocessed comment tokens inside the specified node.
-     * Note that only comment tokens not in the processed set will be
-     * returned by this method.
+     * Reads all unprocessed comment tokens inside a sequence of
+     * tokens. Note that only comment tokens not in the processed set
+     * will be returned by this method.
      *
-     * @param node           the production or token node
+     * @param token          the first token
+     * @param last           the last token
      * @param marked         the processed token set (modified)
      *
      * @return the comment text (without '--' prefixes), or
      *         null if no comments were found
      */
-    private static String processCommentsInside(Node node, HashSet<Token> marked) {
+    private static String processCommentsInside(Token token,
+                                                Token last,
+                                                HashSet<Token> marked) {
+
         StringBuilder buffer = new StringBuilder();
-        Token token = findFirstToken(node);
-        Token last = findLastToken(node);
         while (token != null && token != last) {
             if (token.getId() == Asn1Constants.COMMENT && !marked.contains(token)) {
                 marked.add(token);
@@ -217,7 +451,7 @@ class MibAnalyzerUtil {
      * @return the first token in the production, or
      *         null if none was found
      */
-    private static Token findFirstToken(Node node) {
+    static Token findFirstToken(Node node) {
         while (node instanceof Production) {
             node = node.getChildAt(0);
         }
@@ -232,7 +466,7 @@ class MibAnalyzerUtil {
      * @return the last token in the production, or
      *         null if none was found
      */
-    private static Token findLastToken(Node node) {
+    static Token findLastToken(Node node) {
         while (node instanceof Production) {
             node = node.getChildAt(node.getChildCount() - 1);
         }
@@ -240,19 +474,20 @@ class MibAnalyzerUtil {
     }
 
     /**
-     * Returns the first comment token before the specified node.
+     * Returns the first comment token before the specified token.
      * Optionally, a set of tokens to skip may be provided to stop
      * the search if found.
      *
-     * @param node           the production node
+     * @param token          the first token
      * @param skip           the set of tokens to skip, or null
      *
      * @return the first comment token found, or
      *         null if no comment token found
      */
-    private static Token findCommentTokenBefore(Node node, HashSet<Token> skip) {
+    private static Token findCommentTokenBefore(Token token,
+                                                HashSet<Token> skip) {
+
         Token comment = null;
-        Token token = findFirstToken(node);
         if (token == null) {
             return null;
         }
@@ -272,17 +507,18 @@ class MibAnalyzerUtil {
 
 
     /**
-     * Returns the first comment token after the specified node.
+     * Returns the first comment token after the specified token.
      * Optionally, only tokens on the same line are checked.
      *
-     * @param node           the production node
+     * @param token          the last token
      * @param sameline       the same line number flag
      *
      * @return the first comment token found, or
      *         null if no comment token found
      */
-    private static Token findCommentTokenAfter(Node node, boolean sameline) {
-        Token token = findLastToken(node);
+    private static Token findCommentTokenAfter(Token token,
+                                               boolean sameline) {
+
         if (token == null) {
             return null;
         }
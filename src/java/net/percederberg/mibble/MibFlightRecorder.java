@@ -0,0 +1,306 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A MIB loader listener emitting Java Flight Recorder (JFR) events.
+ * One event is emitted for each search path directory scan, and one
+ * for each MIB module loaded (with the parse, initialize and
+ * validate times). The events are only created when enabled in a
+ * running recording, so the cost is negligible otherwise.<p>
+ *
+ * This listener is added automatically to all MIB loaders if the
+ * JFR API is available in the Java runtime. Events are enabled in
+ * recordings by their names, for example
+ * "net.percederberg.mibble.MibLoad".
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+class MibFlightRecorder implements MibLoaderListener {
+
+    /**
+     * The shared listener instance, or null if the JFR API isn't
+     * available.
+     */
+    static final MibFlightRecorder INSTANCE = create();
+
+    /**
+     * Creates the shared listener instance. This checks that the
+     * JFR API is available in the Java runtime.
+     *
+     * @return the new listener, or
+     *         null if the JFR API isn't available
+     */
+    private static MibFlightRecorder create() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return new MibFlightRecorder();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * The parse and initialize times for MIB modules not yet
+     * validated. The map is indexed by MIB module identity, since
+     * several loaders may load MIB modules with the same name.
+     */
+    private Map<Mib,long[]> pending = new IdentityHashMap<>();
+
+    /**
+     * Creates a new JFR listener.
+     */
+    private MibFlightRecorder() {
+        // Nothing to do here
+    }
+
+    /**
+     * Called when a search path directory has been scanned.
+     *
+     * @param locator        the MIB locator for the directory
+     * @param content        the content scan flag
+     * @param files          the number of files scanned
+     * @param indexHits      the number of files found in the index
+     * @param indexMisses    the number of files read (not in index)
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void dirScanned(MibLocator locator,
+                           boolean content,
+                           int files,
+                           int indexHits,
+                           int indexMisses,
+                           long nanos) {
+
+        ScanEvent event = new ScanEvent();
+        if (event.shouldCommit()) {
+            event.dir = locator.getDir().toString();
+            event.content = content;
+            event.files = files;
+            event.indexHits = indexHits;
+            event.indexMisses = indexMisses;
+            event.scanTime = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Called when a MIB name has been searched for in the search
+     * path.
+     *
+     * @param name           the MIB name
+     * @param src            the MIB source found, or null if not found
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibLocated(String name, MibSource src, long nanos) {
+        // Included in the directory scan events
+    }
+
+    /**
+     * Called when a MIB source has been tokenized and parsed.
+     *
+     * @param src            the MIB source
+     * @param mibs           the MIB modules created, or
+     *                       null if the source couldn't be parsed
+     * @param chars          the number of characters read
+     * @param tokens         the number of tokens produced
+     * @param symbols        the number of MIB symbols created
+     * @param fast           the fast SMI parser flag
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibParsed(MibSource src,
+                          List<Mib> mibs,
+                          long chars,
+                          long tokens,
+                          int symbols,
+                          boolean fast,
+                          long nanos) {
+
+        if (mibs != null && new LoadEvent().isEnabled()) {
+            synchronized (pending) {
+                for (Mib mib : mibs) {
+                    pending.put(mib, new long[] { nanos, 0 });
+                }
+            }
+        }
+    }
+
+    /**
+     * Called when a MIB module has been initialized.
+     *
+     * @param mib            the MIB module
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibInitialized(Mib mib, long nanos) {
+        synchronized (pending) {
+            long[] times = pending.get(mib);
+            if (times != null) {
+                times[1] = nanos;
+            }
+        }
+    }
+
+    /**
+     * Called when a MIB module has been validated.
+     *
+     * @param mib            the MIB module
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibValidated(Mib mib, long nanos) {
+        long[] times;
+        synchronized (pending) {
+            times = pending.remove(mib);
+        }
+        LoadEvent event = new LoadEvent();
+        if (times != null && event.shouldCommit()) {
+            MibSource src = mib.getSource();
+            event.name = mib.getName();
+            if (src != null && src.getURL() != null) {
+                event.source = src.getURL().toString();
+            } else if (src != null && src.getFile() != null) {
+                event.source = src.getFile().toString();
+            }
+            event.parseTime = times[0];
+            event.initializeTime = times[1];
+            event.validateTime = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Called when a reload operation has determined the MIB modules
+     * to reload. No event is emitted for this.
+     *
+     * @param mibs           the MIB modules to reload
+     * @param fallback       the fallback flag, true if indirectly
+     *                       dependent MIB modules are also reloaded
+     */
+    public void reloadStarted(List<Mib> mibs, boolean fallback) {
+        // Nothing to do here
+    }
+
+    /**
+     * Called when a load (or reload) operation has completed.
+     *
+     * @param mibs           the MIB modules parsed
+     * @param errors         the number of errors found
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void loadCompleted(List<Mib> mibs, int errors, long nanos) {
+        synchronized (pending) {
+            for (Mib mib : mibs) {
+                pending.remove(mib);
+            }
+        }
+    }
+
+
+    /**
+     * A MIB module load event.
+     */
+    @Name("net.percederberg.mibble.MibLoad")
+    @Label("MIB Load")
+    @Category("Mibble")
+    @Description("A MIB module loaded, with the time for each phase")
+    static class LoadEvent extends Event {
+
+        /**
+         * The MIB module name.
+         */
+        @Label("MIB Name")
+        String name;
+
+        /**
+         * The MIB source file or URL.
+         */
+        @Label("Source")
+        String source;
+
+        /**
+         * The time to tokenize and parse the MIB source.
+         */
+        @Label("Parse Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long parseTime;
+
+        /**
+         * The time to initialize the MIB module.
+         */
+        @Label("Initialize Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long initializeTime;
+
+        /**
+         * The time to validate the MIB module.
+         */
+        @Label("Validate Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long validateTime;
+    }
+
+
+    /**
+     * A search path directory scan event.
+     */
+    @Name("net.percederberg.mibble.DirectoryScan")
+    @Label("MIB Directory Scan")
+    @Category("Mibble")
+    @Description("A MIB search path directory scanned for MIB files")
+    static class ScanEvent extends Event {
+
+        /**
+         * The directory or resource path.
+         */
+        @Label("Directory")
+        String dir;
+
+        /**
+         * The content scan flag.
+         */
+        @Label("Content Scan")
+        boolean content;
+
+        /**
+         * The number of files scanned.
+         */
+        @Label("Files")
+        int files;
+
+        /**
+         * The number of files found in the directory index.
+         */
+        @Label("Index Hits")
+        int indexHits;
+
+        /**
+         * The number of files read (not found in the index).
+         */
+        @Label("Index Misses")
+        int indexMisses;
+
+        /**
+         * The time to scan the directory.
+         */
+        @Label("Scan Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long scanTime;
+    }
+}
@@ -15,7 +15,7 @@ import java.util.List;
  * and a number of symbols in it.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.6
  */
 public class MibImport implements MibContext {
@@ -65,6 +65,18 @@ public class MibImport implements MibContext {
         this.symbols = symbols;
     }
 
+    /**
+     * Sets the referenced MIB. This method should only be called by
+     * the MIB loader, when restoring a MIB from a snapshot.
+     *
+     * @param mib            the referenced MIB, or null
+     *
+     * @since 2.11
+     */
+    void setMib(Mib mib) {
+        this.mib = mib;
+    }
+
     /**
      * Initializes the MIB import. This will resolve all referenced
      * symbols.  This method will be called by the MIB loader.
@@ -72,7 +84,7 @@ public class MibImport implements MibContext {
      * @param log            the MIB loader log
      */
     public void initialize(MibLoaderLog log) {
-        mib = loader.getMib(name);
+        mib = loader.findMib(name);
         if (mib == null) {
             String msg = "couldn't find referenced MIB '" + name + "', " +
                          "skipping import of " + symbols.size() + " symbols";
@@ -116,6 +128,17 @@ public class MibImport implements MibContext {
         return symbols != null;
     }
 
+    /**
+     * Returns the import file reference.
+     *
+     * @return the import file reference
+     *
+     * @since 2.11
+     */
+    MibFileRef getFileRef() {
+        return fileRef;
+    }
+
     /**
      * Returns the imported MIB name.
      *
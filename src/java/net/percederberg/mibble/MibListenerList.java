@@ -0,0 +1,173 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A list of MIB loader listeners. This class forwards all listener
+ * calls to each listener in the list. The list is safe for use by
+ * concurrent threads, and may be modified while calls are being
+ * forwarded.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+class MibListenerList implements MibLoaderListener {
+
+    /**
+     * The listeners in the list.
+     */
+    private CopyOnWriteArrayList<MibLoaderListener> listeners =
+        new CopyOnWriteArrayList<>();
+
+    /**
+     * Checks if the list is empty.
+     *
+     * @return true if the list has no listeners, or
+     *         false otherwise
+     */
+    boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    /**
+     * Adds a listener to the list. A listener already in the list
+     * will not be added again.
+     *
+     * @param listener       the listener to add
+     */
+    void add(MibLoaderListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Removes a listener from the list.
+     *
+     * @param listener       the listener to remove
+     */
+    void remove(MibLoaderListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Called when a search path directory has been scanned.
+     *
+     * @param locator        the MIB locator for the directory
+     * @param content        the content scan flag
+     * @param files          the number of files scanned
+     * @param indexHits      the number of files found in the index
+     * @param indexMisses    the number of files read (not in index)
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void dirScanned(MibLocator locator,
+                           boolean content,
+                           int files,
+                           int indexHits,
+                           int indexMisses,
+                           long nanos) {
+
+        for (MibLoaderListener l : listeners) {
+            l.dirScanned(locator, content, files, indexHits, indexMisses,
+                         nanos);
+        }
+    }
+
+    /**
+     * Called when a MIB name has been searched for in the search
+     * path.
+     *
+     * @param name           the MIB name
+     * @param src            the MIB source found, or null if not found
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibLocated(String name, MibSource src, long nanos) {
+        for (MibLoaderListener l : listeners) {
+            l.mibLocated(name, src, nanos);
+        }
+    }
+
+    /**
+     * Called when a MIB source has been tokenized and parsed.
+     *
+     * @param src            the MIB source
+     * @param mibs           the MIB modules created, or
+     *                       null if the source couldn't be parsed
+     * @param chars          the number of characters read
+     * @param tokens         the number of tokens produced
+     * @param symbols        the number of MIB symbols created
+     * @param fast           the fast SMI parser flag
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibParsed(MibSource src,
+                          List<Mib> mibs,
+                          long chars,
+                          long tokens,
+                          int symbols,
+                          boolean fast,
+                          long nanos) {
+
+        for (MibLoaderListener l : listeners) {
+            l.mibParsed(src, mibs, chars, tokens, symbols, fast, nanos);
+        }
+    }
+
+    /**
+     * Called when a MIB module has been initialized.
+     *
+     * @param mib            the MIB module
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibInitialized(Mib mib, long nanos) {
+        for (MibLoaderListener l : listeners) {
+            l.mibInitialized(mib, nanos);
+        }
+    }
+
+    /**
+     * Called when a MIB module has been validated.
+     *
+     * @param mib            the MIB module
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibValidated(Mib mib, long nanos) {
+        for (MibLoaderListener l : listeners) {
+            l.mibValidated(mib, nanos);
+        }
+    }
+
+    /**
+     * Called when a reload operation has determined the MIB modules
+     * to reload.
+     *
+     * @param mibs           the MIB modules to reload
+     * @param fallback       the fallback flag, true if indirectly
+     *                       dependent MIB modules are also reloaded
+     */
+    public void reloadStarted(List<Mib> mibs, boolean fallback) {
+        for (MibLoaderListener l : listeners) {
+            l.reloadStarted(mibs, fallback);
+        }
+    }
+
+    /**
+     * Called when a load (or reload) operation has completed.
+     *
+     * @param mibs           the MIB modules parsed
+     * @param errors         the number of errors found
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void loadCompleted(List<Mib> mibs, int errors, long nanos) {
+        for (MibLoaderListener l : listeners) {
+            l.loadCompleted(mibs, errors, nanos);
+        }
+    }
+}
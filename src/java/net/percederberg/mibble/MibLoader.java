@@ -14,11 +14,21 @@ import java.io.IOException;
 import java.io.Reader;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
+import net.percederberg.grammatica.parser.ParseException;
 import net.percederberg.grammatica.parser.ParserCreationException;
 import net.percederberg.grammatica.parser.ParserLogException;
 
@@ -48,11 +58,26 @@ import net.percederberg.mibble.value.ObjectIdentifierValue;
  * and it is therefore recommended to always name the MIB files
  * according to their module name.<p>
  *
- * The MIB loader is not thread-safe, i.e. it cannot be used
- * concurrently in multiple threads.
+ * The MIB loader can optionally parse multiple MIB files in
+ * parallel, using a pool of worker threads. See the
+ * setParallelism() method for details.<p>
+ *
+ * The MIB loader is thread-safe. All operations that modify the
+ * loader state (i.e. loading or unloading MIB files and changing
+ * the search path) are serialized by an internal lock. The methods
+ * for retrieving loaded MIB modules and searching the OID tree never
+ * block. Instead they use an immutable map of loaded MIB modules,
+ * published when each load or unload operation completes. The OID
+ * tree is shared by all MIB modules, but changes to it are staged
+ * and only published together with the map of loaded MIB modules.
+ * OID searches made while a load or unload operation is in progress
+ * will therefore not find OID values from a partially loaded MIB
+ * module, or from a MIB file that will fail to load. See
+ * ObjectIdentifierValue for the exact visibility guarantees. The MIB
+ * modules returned should be treated as read-only.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class MibLoader {
@@ -63,7 +88,8 @@ public class MibLoader {
      * cache. If a MIB isn't found among these directories, the
      * resource directories will be attempted.
      */
-    private ArrayList<MibLocator> dirCaches = new ArrayList<>();
+    private CopyOnWriteArrayList<MibLocator> dirCaches =
+        new CopyOnWriteArrayList<>();
 
     /**
      * The MIB file resource directories. This is a list of Java class
@@ -71,35 +97,116 @@ public class MibLoader {
      * directories can be used to store MIB files as resources inside
      * a JAR file.
      */
-    private ArrayList<String> resources = new ArrayList<>();
+    private CopyOnWriteArrayList<String> resources =
+        new CopyOnWriteArrayList<>();
+
+    /**
+     * The MIB directory watch flag. If set, all directories in the
+     * MIB search path are watched for changes.
+     */
+    private boolean watching = false;
+
+    /**
+     * The load new MIB files flag. Only used when watching the MIB
+     * directories for changes.
+     */
+    private boolean watchLoad = false;
+
+    /**
+     * The directory for MIB directory content index files, or null
+     * if the directory content caches aren't persisted.
+     */
+    private File indexDir = null;
 
     /**
      * The MIB files loaded. This maps the MIB names to the loaded
      * MIB objects (loaded with this loaded). This is used to avoid
-     * loading duplicate MIB files.
+     * loading duplicate MIB files. This map also contains the MIB
+     * files currently being loaded, and should only be accessed
+     * while holding the loader lock.
      */
     private LinkedHashMap<String,Mib> mibs = new LinkedHashMap<>();
 
+    /**
+     * The published MIB files loaded. This is an unmodifiable copy
+     * of the loaded MIB files map, replaced whenever a load or
+     * unload operation completes. It is used by all public methods
+     * returning loaded MIB files, so they can be called without
+     * locking.
+     */
+    private volatile Map<String,Mib> published = Collections.emptyMap();
+
+    /**
+     * The loader lock. All operations modifying the loader state are
+     * serialized by this lock.
+     */
+    private final Object lock = new Object();
+
     /**
      * The queue of MIB files to load. This queue contains either
      * MIB module names or MibSource objects.
      */
     private ArrayList<Object> queue = new ArrayList<>();
 
+    /**
+     * The MIB files being replaced by a reload. These MIB files are
+     * no longer in the loaded MIB files map, but remain published
+     * until the reload has completed. This list should only be
+     * accessed while holding the loader lock.
+     */
+    private ArrayList<Mib> replaced = new ArrayList<>();
+
     /**
      * The default MIB context.
      */
-    private DefaultContext context = new DefaultContext();
+    private volatile DefaultContext context = new DefaultContext();
+
+    /**
+     * The number of threads to use when parsing MIB files. If set to
+     * one (1), all MIB files are parsed sequentially in the calling
+     * thread.
+     */
+    private int parallelism = 1;
+
+    /**
+     * The lean mode flag. If set, MIB text, comments, descriptions
+     * and references are not stored when loading MIB files.
+     */
+    private boolean lean = false;
+
+    /**
+     * The fast parsing flag. If set, MIB files are first parsed with
+     * the fast SMI parser, and only parsed with the full ASN.1 parser
+     * if unsupported constructs or errors are found.
+     */
+    private boolean fastParsing = true;
+
+    /**
+     * The ASN.1 parsers available for (re)use. A parser is removed
+     * from this pool while parsing a MIB file and returned afterwards,
+     * so that each concurrently parsed MIB file uses its own parser.
+     */
+    private ConcurrentLinkedQueue<Asn1Parser> parsers =
+        new ConcurrentLinkedQueue<>();
+
+    /**
+     * The pool of shared strings and values. Used by the parsers to
+     * avoid duplicate copies of identical objects in different MIBs.
+     */
+    private MibPool pool = new MibPool();
 
     /**
-     * The ASN.1 parser used (and reused) for all MIB files.
+     * The list of loader listeners.
      */
-    private Asn1Parser parser = null;
+    private MibListenerList listeners = new MibListenerList();
 
     /**
      * Creates a new MIB loader.
      */
     public MibLoader() {
+        if (MibFlightRecorder.INSTANCE != null) {
+            listeners.add(MibFlightRecorder.INSTANCE);
+        }
         addResourceDir("mibs/iana");
         addResourceDir("mibs/ietf");
     }
@@ -158,8 +265,16 @@ public class MibLoader {
         if (dir == null) {
             dir = new File(".");
         }
-        if (!hasDir(dir) && dir.isDirectory()) {
-            dirCaches.add(new MibLocator(dir));
+        synchronized (lock) {
+            if (!hasDir(dir) && dir.isDirectory()) {
+                MibLocator cache = new MibLocator(dir);
+                cache.setListener(listeners);
+                cache.setIndexDir(indexDir);
+                if (watching) {
+                    watch(cache);
+                }
+                dirCaches.add(cache);
+            }
         }
     }
 
@@ -199,10 +314,12 @@ public class MibLoader {
      * @param dir            the directory to remove
      */
     public void removeDir(File dir) {
-        for (int i = 0; i < dirCaches.size(); i++) {
-            MibLocator cache = dirCaches.get(i);
-            if (cache.getDir().equals(dir)) {
-                dirCaches.remove(i--);
+        synchronized (lock) {
+            for (MibLocator cache : dirCaches) {
+                if (cache.getDir().equals(dir)) {
+                    cache.stopWatch();
+                    dirCaches.remove(cache);
+                }
             }
         }
     }
@@ -211,7 +328,133 @@ public class MibLoader {
      * Removes all directories from the MIB search path.
      */
     public void removeAllDirs() {
-        dirCaches.clear();
+        synchronized (lock) {
+            for (MibLocator cache : dirCaches) {
+                cache.stopWatch();
+            }
+            dirCaches.clear();
+        }
+    }
+
+    /**
+     * Checks if the MIB search path directories are being watched
+     * for changes.
+     *
+     * @return true if the directories are being watched, or
+     *         false otherwise
+     *
+     * @see #startWatch(boolean)
+     *
+     * @since 2.11
+     */
+    public boolean isWatching() {
+        synchronized (lock) {
+            return watching;
+        }
+    }
+
+    /**
+     * Returns the directory for MIB directory content index files.
+     *
+     * @return the index file directory, or
+     *         null if the content caches aren't persisted
+     *
+     * @see #setIndexDir(File)
+     *
+     * @since 2.11
+     */
+    public File getIndexDir() {
+        synchronized (lock) {
+            return indexDir;
+        }
+    }
+
+    /**
+     * Sets the directory for MIB directory content index files. When
+     * MIB files are searched for by their content, the first lines
+     * of each file in the search path directories are read. If an
+     * index directory is set, the MIB names found are stored in an
+     * index file (one per search path directory) in this directory,
+     * so that only new or modified files need to be read the next
+     * time. The index directory is created if needed, and should be
+     * a private cache directory (i.e. not a MIB directory). By
+     * default, no index files are written.
+     *
+     * @param dir            the index file directory, or
+     *                       null to disable the index files
+     *
+     * @see MibLocator#setIndexDir(File)
+     *
+     * @since 2.11
+     */
+    public void setIndexDir(File dir) {
+        synchronized (lock) {
+            indexDir = dir;
+            for (MibLocator cache : dirCaches) {
+                cache.setIndexDir(dir);
+            }
+        }
+    }
+
+    /**
+     * Starts watching the MIB search path directories for changes.
+     * Any directories added later will also be watched. When a MIB
+     * file is added, modified or removed, the directory cache is
+     * updated in the background without a full directory rescan.
+     * Previously loaded MIB files that are modified will also be
+     * reloaded automatically. Note that any errors when loading or
+     * reloading MIB files in the background are ignored, and that
+     * directories that cannot be watched are silently skipped.
+     *
+     * @param load           the load new MIB files flag
+     *
+     * @see #stopWatch()
+     * @see #reload(File)
+     * @see MibLocator#startWatch(MibLoader, boolean)
+     *
+     * @since 2.11
+     */
+    public void startWatch(boolean load) {
+        synchronized (lock) {
+            if (watching && watchLoad != load) {
+                stopWatch();
+            }
+            watching = true;
+            watchLoad = load;
+            for (MibLocator cache : dirCaches) {
+                watch(cache);
+            }
+        }
+    }
+
+    /**
+     * Stops watching the MIB search path directories for changes.
+     *
+     * @see #startWatch(boolean)
+     *
+     * @since 2.11
+     */
+    public void stopWatch() {
+        synchronized (lock) {
+            watching = false;
+            for (MibLocator cache : dirCaches) {
+                cache.stopWatch();
+            }
+        }
+    }
+
+    /**
+     * Starts watching a MIB directory for changes. Any errors are
+     * ignored, leaving the directory without a watch.
+     *
+     * @param cache          the MIB directory cache
+     */
+    private void watch(MibLocator cache) {
+        try {
+            cache.startWatch(this, watchLoad);
+        } catch (IOException ignore) {
+            // Do nothing, directory cannot be watched
+        }
     }
 
     /**
@@ -265,9 +508,7 @@ public class MibLoader {
      * @since 2.3
      */
     public void addResourceDir(String dir) {
-        if (!hasResourceDir(dir)) {
-            resources.add(dir);
-        }
+        resources.addIfAbsent(dir);
     }
 
     /**
@@ -280,7 +521,9 @@ public class MibLoader {
      * @since 2.3
      */
     public void removeResourceDir(String dir) {
-        resources.remove(dir);
+        synchronized (lock) {
+            resources.remove(dir);
+        }
     }
 
     /**
@@ -292,7 +535,9 @@ public class MibLoader {
      * @since 2.3
      */
     public void removeAllResourceDirs() {
-        resources.clear();
+        synchronized (lock) {
+            resources.clear();
+        }
     }
 
     /**
@@ -309,9 +554,149 @@ public class MibLoader {
      * @see #unloadAll()
      */
     public void reset() {
-        mibs.clear();
-        queue.clear();
-        context = new DefaultContext();
+        synchronized (lock) {
+            mibs.clear();
+            queue.clear();
+            pool.clear();
+            context = new DefaultContext();
+            publish();
+        }
+    }
+
+    /**
+     * Returns the number of threads used when parsing MIB files.
+     *
+     * @return the number of parser threads
+     *
+     * @see #setParallelism(int)
+     *
+     * @since 2.11
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads used when parsing MIB files. By
+     * default, all MIB files are parsed sequentially in the calling
+     * thread. With a value above one (1), the MIB files found in the
+     * load queue are instead tokenized, parsed and analyzed in
+     * parallel by a pool of worker threads (each with its own
+     * parser). The imports found are then loaded in the same manner,
+     * until no more MIB files remain. The MIB modules are thereafter
+     * initialized and validated sequentially in dependency order.<p>
+     *
+     * The results of a parallel load are identical to a sequential
+     * load, with the exception that MIB files may occasionally be
+     * parsed only to be discarded (i.e. if another MIB file in the
+     * queue defined the same MIB module name).
+     *
+     * @param threads        the number of parser threads, or
+     *                       zero (0) for one per available processor
+     *
+     * @since 2.11
+     */
+    public void setParallelism(int threads) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        this.parallelism = threads;
+    }
+
+    /**
+     * Checks if lean mode is used when loading MIB files.
+     *
+     * @return true if lean mode is used, or
+     *         false otherwise
+     *
+     * @see #setLeanMode(boolean)
+     *
+     * @since 2.11
+     */
+    public boolean isLeanMode() {
+        return lean;
+    }
+
+    /**
+     * Sets the lean mode flag used when loading MIB files. In lean
+     * mode, the raw MIB text, all comments, and any DESCRIPTION and
+     * REFERENCE strings are discarded during parsing, substantially
+     * reducing memory usage. The DESCRIPTION and REFERENCE strings
+     * present in the MIB file are replaced by empty strings, so they
+     * are never null when required by the MIB syntax. The MIB
+     * symbols, types, values and the OID tree are otherwise
+     * identical. The parser token list is
+     * also turned off, so comments cannot be recovered later.<p>
+     *
+     * The lean mode flag only affects MIB files loaded after this
+     * call. By default, lean mode is not used.
+     *
+     * @param lean           the new lean mode flag
+     *
+     * @see Mib#getText()
+     * @see MibSymbol#getComment()
+     *
+     * @since 2.11
+     */
+    public void setLeanMode(boolean lean) {
+        this.lean = lean;
+    }
+
+    /**
+     * Checks if fast parsing is used when loading MIB files.
+     *
+     * @return true if fast parsing is used, or
+     *         false otherwise
+     *
+     * @see #setFastParsing(boolean)
+     *
+     * @since 2.11
+     */
+    public boolean isFastParsing() {
+        return fastParsing;
+    }
+
+    /**
+     * Sets the fast parsing flag used when loading MIB files. When
+     * enabled, MIB files are first parsed by a dedicated SMI parser
+     * that creates the MIB symbols directly from the tokens, without
+     * building a parse tree. Files containing ASN.1 constructs not
+     * used in SMIv1 or SMIv2 (or containing errors) are parsed again
+     * with the full ASN.1 parser, so the results are always the
+     * same. By default, fast parsing is used.
+     *
+     * @param fast           the new fast parsing flag
+     *
+     * @since 2.11
+     */
+    public void setFastParsing(boolean fast) {
+        this.fastParsing = fast;
+    }
+
+    /**
+     * Adds a loader listener. The listener will be notified with
+     * timings and counters for each phase of all subsequent load
+     * operations. A listener already added will not be added again.
+     *
+     * @param listener       the listener to add
+     *
+     * @see MibLoaderStats
+     *
+     * @since 2.11
+     */
+    public void addListener(MibLoaderListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a loader listener.
+     *
+     * @param listener       the listener to remove
+     *
+     * @since 2.11
+     */
+    public void removeListener(MibLoaderListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -324,6 +709,15 @@ public class MibLoader {
         return context;
     }
 
+    /**
+     * Returns the pool of shared strings and values.
+     *
+     * @return the pool of shared strings and values
+     */
+    MibPool getPool() {
+        return pool;
+    }
+
     /**
      * Searches the OID tree from the loaded MIB files for the best
      * matching value. The returned OID value will be the longest
@@ -342,6 +736,50 @@ public class MibLoader {
         return context.findOid(oid);
     }
 
+    /**
+     * Searches the OID tree from the loaded MIB files for the best
+     * matching value. The returned OID value will be the longest
+     * matching OID value, but doesn't have to be an exact match. The
+     * search requires the full numeric OID value (from the root).
+     * Unlike getOid(String), this method doesn't create any objects.
+     *
+     * @param oid            the numeric OID arcs to search for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the best matching OID value, or
+     *         null if no partial match was found
+     *
+     * @see ObjectIdentifierValue#find(int[], int, int)
+     * @since 2.11
+     */
+    public ObjectIdentifierValue getOid(int[] oid, int offset, int length) {
+        return context.findOid(oid, offset, length);
+    }
+
+    /**
+     * Searches the OID tree from the loaded MIB files for the best
+     * matching value symbol. The returned match contains the symbol
+     * with the longest matching OID value, and any remaining OID
+     * arcs (normally an instance suffix). This method searches all
+     * loaded MIB files at once, using the shared OID tree. It is
+     * therefore more efficient than calling Mib.getSymbolByOid()
+     * for each loaded MIB.
+     *
+     * @param oid            the numeric OID arcs to search for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the MIB symbol match found, or
+     *         null if no matching symbol was found
+     *
+     * @see Mib#getSymbolByOid(String)
+     * @since 2.11
+     */
+    public MibOidMatch getSymbolByOid(int[] oid, int offset, int length) {
+        return MibOidMatch.find(context, oid, offset, length);
+    }
+
     /**
      * Returns the "iso" root object identifier value (OID). This OID
      * is the root for SNMP objects. Note that "ccitt" and
@@ -372,7 +810,7 @@ public class MibLoader {
      *         null otherwise
      */
     public Mib getMib(String name) {
-        return mibs.get(name);
+        return published.get(name);
     }
 
     /**
@@ -392,7 +830,7 @@ public class MibLoader {
      * @since 2.3
      */
     public Mib getMib(File file) {
-        for (Mib mib : mibs.values()) {
+        for (Mib mib : published.values()) {
             if (mib.equals(file)) {
                 return mib;
             }
@@ -403,14 +841,15 @@ public class MibLoader {
     /**
      * Returns a map of all MIB names and MIB files. If no MIB files
      * have been loaded, an empty map will be returned. The map is
-     * ordered by load order.
+     * ordered by load order. The map returned is unmodifiable and
+     * will not reflect any subsequent load or unload operations.
      *
      * @return a map of MIB names to MIB objects
      *
      * @since 2.10
      */
     public Map<String,Mib> getMibs() {
-        return mibs;
+        return published;
     }
 
     /**
@@ -427,7 +866,7 @@ public class MibLoader {
      */
     public Map<String,Mib> getMibs(File file) {
         LinkedHashMap<String,Mib> res = new LinkedHashMap<>();
-        for (Mib mib : mibs.values()) {
+        for (Mib mib : published.values()) {
             if (mib.equals(file)) {
                 res.put(mib.getName(), mib);
             }
@@ -450,7 +889,7 @@ public class MibLoader {
      */
     public Map<String,Mib> getMibs(boolean loaded) {
         LinkedHashMap<String,Mib> res = new LinkedHashMap<>();
-        for (Mib mib : mibs.values()) {
+        for (Mib mib : published.values()) {
             if (mib.isLoaded() == loaded) {
                 res.put(mib.getName(), mib);
             }
@@ -467,7 +906,8 @@ public class MibLoader {
      * @since 2.2
      */
     public Mib[] getAllMibs() {
-        return mibs.values().toArray(new Mib[mibs.size()]);
+        Map<String,Mib> map = published;
+        return map.values().toArray(new Mib[map.size()]);
     }
 
     /**
@@ -488,18 +928,20 @@ public class MibLoader {
      *             correctly
      */
     public Mib load(String name) throws IOException, MibLoaderException {
-        Mib mib = getMib(name);
-        if (mib == null) {
-            MibSource src = locate(name);
-            if (src == null) {
-                throw new FileNotFoundException("couldn't locate MIB: '" +
-                                                name + "'");
-            }
-            mib = load(src);
-        } else {
-            mib.setLoaded(true);
+        synchronized (lock) {
+            Mib mib = mibs.get(name);
+            if (mib == null) {
+                MibSource src = locate(name);
+                if (src == null) {
+                    throw new FileNotFoundException("couldn't locate MIB: '" +
+                                                    name + "'");
+                }
+                mib = load(src);
+            } else {
+                mib.setLoaded(true);
+            }
+            return mib;
         }
-        return mib;
     }
 
     /**
@@ -521,14 +963,17 @@ public class MibLoader {
      *             correctly
      */
     public Mib load(File file) throws IOException, MibLoaderException {
-        Map<String, Mib> found = getMibs(file);
-        for (Mib mib : found.values()) {
-            mib.setLoaded(true);
-        }
-        if (found.size() <= 0) {
-            return load(new MibSource(file));
-        } else {
-            return found.values().iterator().next();
+        synchronized (lock) {
+            Mib first = null;
+            for (Mib mib : mibs.values()) {
+                if (mib.equals(file)) {
+                    mib.setLoaded(true);
+                    if (first == null) {
+                        first = mib;
+                    }
+                }
+            }
+            return (first == null) ? load(new MibSource(file)) : first;
         }
     }
 
@@ -597,9 +1042,99 @@ public class MibLoader {
      * @since 2.10
      */
     public Mib load(MibSource src) throws IOException, MibLoaderException {
-        queue.clear();
-        queue.add(src);
-        return loadQueue();
+        synchronized (lock) {
+            try {
+                queue.clear();
+                queue.add(src);
+                return loadQueue();
+            } finally {
+                publish();
+            }
+        }
+    }
+
+    /**
+     * Reloads a MIB file. If the MIB file hasn't been loaded
+     * previously, this is equivalent to load(). Otherwise, the MIB
+     * modules in the file and the MIB modules importing them are
+     * unloaded and parsed again from their original sources. All
+     * other MIB modules are left untouched. See reload(Mib) for
+     * details.
+     *
+     * @param file           the MIB file
+     *
+     * @return the first MIB module reloaded
+     *
+     * @throws IOException if the MIB file couldn't be read
+     * @throws MibLoaderException if the MIB file couldn't be loaded
+     *             correctly
+     *
+     * @see #reload(Mib)
+     *
+     * @since 2.11
+     */
+    public Mib reload(File file) throws IOException, MibLoaderException {
+        synchronized (lock) {
+            Mib mib = findMib(file);
+            return (mib == null) ? load(file) : reload(mib);
+        }
+    }
+
+    /**
+     * Reloads a MIB module. The MIB module, any other MIB modules
+     * from the same file and the MIB modules directly importing them
+     * are parsed again from their original sources and then replace
+     * the previous MIB modules. All other MIB modules are left
+     * untouched. The explicitly loaded flag is kept for each MIB
+     * module reloaded.<p>
+     *
+     * The previous MIB modules remain published while the new ones
+     * are loaded, so concurrent readers will see either the previous
+     * or the new MIB modules (and OID tree symbols), but never a
+     * partially reloaded OID tree. Unchanged OID values are reused
+     * and connected to the new MIB symbols. Note that both the
+     * previous and the new MIB modules are kept in memory during
+     * the reload.<p>
+     *
+     * The importing MIB modules must also be reloaded, since their
+     * symbols hold direct references to the types and values of the
+     * imported MIB modules (and their OID values may be placed in
+     * the OID tree of the imported MIB modules). For the same
+     * reason, if other MIB modules import the directly importing
+     * MIB modules (or define some of the same OID values), the
+     * reload falls back to reloading all MIB modules depending on
+     * the reloaded MIB module (directly or indirectly). Reloading a
+     * widely imported MIB module may therefore reload most of the
+     * loaded MIB modules. For example, reloading SNMPv2-SMI or
+     * SNMPv2-TC normally reloads almost all loaded MIB modules,
+     * which is as slow as (and uses twice the memory of) loading all
+     * of them again. The MIB modules to reload and any fallback are
+     * reported to the loader listeners with reloadStarted().<p>
+     *
+     * Note that any previous references to the reloaded MIB
+     * modules should not be used after calling this method. If the
+     * reloaded MIB files contain errors, an exception is thrown and
+     * the previous MIB modules are kept loaded.
+     *
+     * @param mib            the MIB module
+     *
+     * @return the first MIB module reloaded
+     *
+     * @throws IOException if some MIB file couldn't be read, or if
+     *             a MIB wasn't loaded from a file or URL
+     * @throws MibLoaderException if some MIB file couldn't be loaded
+     *             correctly
+     *
+     * @since 2.11
+     */
+    public Mib reload(Mib mib) throws IOException, MibLoaderException {
+        synchronized (lock) {
+            try {
+                return reloadMib(mib);
+            } finally {
+                publish();
+            }
+        }
     }
 
     /**
@@ -621,7 +1156,9 @@ public class MibLoader {
      * @since 2.3
      */
     public void unload(String name) throws MibLoaderException {
-        unload(getMib(name));
+        synchronized (lock) {
+            unload(mibs.get(name));
+        }
     }
 
     /**
@@ -643,13 +1180,8 @@ public class MibLoader {
      * @since 2.3
      */
     public void unload(File file) throws MibLoaderException {
-        Iterator<Mib> iter = mibs.values().iterator();
-        while (iter.hasNext()) {
-            Mib mib = iter.next();
-            if (mib.equals(file)) {
-                unload(mib);
-                return;
-            }
+        synchronized (lock) {
+            unload(findMib(file));
         }
     }
 
@@ -672,15 +1204,20 @@ public class MibLoader {
      * @since 2.3
      */
     public void unload(Mib mib) throws MibLoaderException {
-        if (mib != null) {
-            Mib[] referers = mib.getImportingMibs();
-            if (referers.length > 0) {
-                String msg = "cannot be unloaded due to reference in " +
-                             referers[0];
-                throw new MibLoaderException(msg);
-            }
-            mibs.remove(mib.getName());
-            mib.clear();
+        synchronized (lock) {
+            if (mib != null) {
+                Mib[] referers = mib.getImportingMibs();
+                if (referers.length > 0) {
+                    String msg = "cannot be unloaded due to reference in " +
+                                 referers[0];
+                    throw new MibLoaderException(msg);
+                }
+                mibs.remove(mib.getName());
+                mib.unlink();
+                publish();
+                mib.clear();
+                context.publishOids();
+            }
         }
     }
 
@@ -701,11 +1238,415 @@ public class MibLoader {
      * @since 2.9
      */
     public void unloadAll() {
-        Iterator<Mib> iter = mibs.values().iterator();
-        while (iter.hasNext()) {
-            iter.next().clear();
+        synchronized (lock) {
+            ArrayList<Mib> list = new ArrayList<>(mibs.values());
+            reset();
+            for (Mib mib : list) {
+                mib.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of all loaded MIBs to a file. The snapshot
+     * contains a compact binary image of the MIB modules, symbols,
+     * types and the object identifier tree. It can be restored with
+     * loadSnapshot() without parsing the MIB files again, which is
+     * normally much faster. The snapshot is keyed by a digest of the
+     * MIB source files, making it possible to detect when the MIB
+     * files have been modified.
+     *
+     * @param file           the snapshot file to write
+     *
+     * @throws IOException if the snapshot file couldn't be written,
+     *             or if a MIB source file couldn't be read
+     *
+     * @see #loadSnapshot(File)
+     *
+     * @since 2.11
+     */
+    public void saveSnapshot(File file) throws IOException {
+        synchronized (lock) {
+            MibSnapshot.write(file, context, mibs.values());
+        }
+    }
+
+    /**
+     * Restores a snapshot of loaded MIBs from a file. This replaces
+     * all MIBs in this loader with the ones from the snapshot (see
+     * reset() for details). If the snapshot file doesn't exist, was
+     * created by an incompatible version, or if any of the MIB source
+     * files have been modified, this method returns false without
+     * modifying the loader. A typical usage pattern is shown below:
+     *
+     * <pre>
+     * if (!loader.loadSnapshot(snapshotFile)) {
+     *     loader.load(mibFile);
+     *     loader.saveSnapshot(snapshotFile);
+     * }
+     * </pre>
+     *
+     * @param file           the snapshot file to read
+     *
+     * @return true if the snapshot was restored, or
+     *         false if not found or outdated
+     *
+     * @throws IOException if the snapshot file couldn't be read
+     *
+     * @see #saveSnapshot(File)
+     *
+     * @since 2.11
+     */
+    public boolean loadSnapshot(File file) throws IOException {
+        synchronized (lock) {
+            DefaultContext ctx = new DefaultContext();
+            ArrayList<Mib> list = MibSnapshot.read(file, this, ctx);
+            if (list == null) {
+                return false;
+            }
+            mibs.clear();
+            queue.clear();
+            context = ctx;
+            for (Mib mib : list) {
+                mibs.put(mib.getName(), mib);
+            }
+            publish();
+        }
+        return true;
+    }
+
+    /**
+     * Writes a memory-mapped OID index file. The index contains a
+     * flat copy of the OID tree for all loaded MIBs, which can be
+     * opened and searched with MibOidIndex without loading or
+     * parsing any MIB files. The index is not automatically updated
+     * when MIBs are loaded or unloaded.
+     *
+     * @param file           the index file to write
+     *
+     * @throws IOException if the index file couldn't be written
+     *
+     * @see MibOidIndex#open(File)
+     *
+     * @since 2.11
+     */
+    public void saveOidIndex(File file) throws IOException {
+        synchronized (lock) {
+            MibOidIndex.write(context, file);
+        }
+    }
+
+    /**
+     * Returns a loaded MIB file. Differing from getMib(), this
+     * method also returns MIB files currently being loaded. It
+     * should only be called while holding the loader lock (i.e.
+     * while loading MIB files).
+     *
+     * @param name           the MIB (module) name
+     *
+     * @return the MIB module if found, or
+     *         null otherwise
+     *
+     * @since 2.11
+     */
+    Mib findMib(String name) {
+        return mibs.get(name);
+    }
+
+    /**
+     * Checks if a MIB file is being replaced by a reload. The
+     * replaced MIB files are kept published until the new MIB files
+     * have been loaded, and their OID values are then transferred to
+     * the new MIB files. This method should only be called while
+     * holding the loader lock (i.e. while loading MIB files).
+     *
+     * @param mib            the MIB module to check
+     *
+     * @return true if the MIB module is being replaced, or
+     *         false otherwise
+     *
+     * @since 2.11
+     */
+    boolean isReplaced(Mib mib) {
+        for (Mib other : replaced) {
+            if (other == mib) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a loaded MIB file. Differing from getMib(), this
+     * method also returns MIB files currently being loaded. It
+     * should only be called while holding the loader lock.
+     *
+     * @param file           the MIB file
+     *
+     * @return the first MIB module if found, or
+     *         null otherwise
+     *
+     * @since 2.11
+     */
+    private Mib findMib(File file) {
+        for (Mib mib : mibs.values()) {
+            if (mib.equals(file)) {
+                return mib;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Publishes the loaded MIB files. This publishes any staged
+     * changes to the OID tree and replaces the published map of
+     * loaded MIB files with a copy of the current one. It should
+     * only be called while holding the loader lock.
+     */
+    private void publish() {
+        context.publishOids();
+        published = Collections.unmodifiableMap(new LinkedHashMap<>(mibs));
+    }
+
+    /**
+     * Reloads a MIB module and all MIB modules depending on it. This
+     * method should only be called while holding the loader lock.
+     *
+     * @param mib            the MIB module
+     *
+     * @return the first MIB module reloaded
+     *
+     * @throws IOException if some MIB file couldn't be read, or if
+     *             a MIB wasn't loaded from a file or URL
+     * @throws MibLoaderException if some MIB file couldn't be loaded
+     *             correctly
+     */
+    private Mib reloadMib(Mib mib) throws IOException, MibLoaderException {
+
+        // Find affected MIBs (same source and direct importers)
+        ArrayList<Mib> affected = new ArrayList<>();
+        affected.add(mib);
+        for (Mib other : mibs.values()) {
+            if (other != mib && mib.getSource() != null &&
+                mib.getSource().equals(other.getSource())) {
+
+                affected.add(other);
+            }
+        }
+        int modified = affected.size();
+        for (int i = 0; i < modified; i++) {
+            for (Mib other : affected.get(i).getImportingMibs()) {
+                if (!affected.contains(other)) {
+                    affected.add(other);
+                }
+            }
+        }
+
+        // Fall back to all dependent MIBs (importing or sharing OIDs)
+        boolean fallback = false;
+        for (int i = 0; i < affected.size(); i++) {
+            for (Mib other : affected.get(i).getImportingMibs()) {
+                if (!affected.contains(other)) {
+                    affected.add(other);
+                    fallback = true;
+                }
+            }
+            if (i == affected.size() - 1) {
+                for (Mib other : mibs.values()) {
+                    if (!affected.contains(other) &&
+                        isSharingOids(other, affected)) {
+
+                        affected.add(other);
+                        fallback = true;
+                    }
+                }
+            }
+        }
+        listeners.reloadStarted(Collections.unmodifiableList(affected),
+                                fallback);
+
+        // Check and store sources and loaded flags (in load order)
+        ArrayList<MibSource> sources = new ArrayList<>();
+        HashMap<String,Boolean> flags = new HashMap<>();
+        for (Mib other : mibs.values()) {
+            if (!affected.contains(other)) {
+                continue;
+            }
+            MibSource src = other.getSource();
+            boolean readable = src != null &&
+                               (src.getFile() != null || src.getURL() != null);
+            if (!readable) {
+                throw new IOException("couldn't reload MIB '" +
+                                      other.getName() + "', as it " +
+                                      "wasn't loaded from a file or URL");
+            }
+            if (!sources.contains(src)) {
+                sources.add(src);
+            }
+            flags.put(other.getName(), Boolean.valueOf(other.isLoaded()));
+        }
+
+        // Load MIB sources again (in original order), keeping the
+        // affected MIBs published until all sources have been loaded
+        LinkedHashMap<String,Mib> previous = new LinkedHashMap<>(mibs);
+        for (Mib other : affected) {
+            mibs.remove(other.getName());
+            replaced.add(other);
+        }
+        MibLoaderLog log = new MibLoaderLog();
+        boolean success = false;
+        try {
+            for (MibSource src : sources) {
+                queue.clear();
+                queue.add(src);
+                try {
+                    loadQueue();
+                } catch (MibLoaderException e) {
+                    log.addAll(e.getLog());
+                }
+            }
+            success = (log.errorCount() == 0);
+        } finally {
+            ArrayList<Mib> added = new ArrayList<>();
+            for (Mib other : mibs.values()) {
+                if (previous.get(other.getName()) != other) {
+                    added.add(other);
+                }
+            }
+            if (success) {
+                for (Mib other : added) {
+                    transferOids(other);
+                }
+                replaced.clear();
+                remove(affected);
+            } else {
+                replaced.clear();
+                mibs.clear();
+                mibs.putAll(previous);
+                remove(added);
+            }
+        }
+        Mib res = null;
+        for (Mib other : mibs.values()) {
+            Boolean loaded = flags.get(other.getName());
+            if (loaded != null) {
+                other.setLoaded(loaded.booleanValue());
+            }
+            if (res == null && other.getSource() != null &&
+                other.getSource().equals(mib.getSource())) {
+
+                res = other;
+            }
+        }
+        if (log.errorCount() > 0) {
+            throw new MibLoaderException(log);
+        }
+        return res;
+    }
+
+    /**
+     * Transfers the OID values from replaced MIBs to a new MIB. The
+     * OID values defined by the new MIB are reused from the previous
+     * MIB (with the same name) when reloading, and are connected to
+     * the new MIB symbols once the reload has completed. This method
+     * should only be called while holding the loader lock.
+     *
+     * @param mib            the new MIB module
+     *
+     * @see #isReplaced(Mib)
+     */
+    private void transferOids(Mib mib) {
+        for (MibSymbol symbol : mib.getAllSymbols()) {
+            if (symbol instanceof MibValueSymbol) {
+                MibValue value = ((MibValueSymbol) symbol).getValue();
+                if (value instanceof ObjectIdentifierValue) {
+                    ObjectIdentifierValue oid = (ObjectIdentifierValue) value;
+                    if (oid.getSymbol() != null && isReplaced(oid.getMib())) {
+                        oid.setSymbol((MibValueSymbol) symbol);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a list of MIBs. The MIBs must already have been removed
+     * from the map of loaded MIBs. The OID values of the MIBs are
+     * first unlinked (importing MIBs first), and then published
+     * together with the loaded MIBs map. Only after that are the MIBs
+     * cleared, so that concurrent readers never see partially
+     * cleared MIB data. This method should only be called while
+     * holding the loader lock.
+     *
+     * @param list           the list of MIB modules to remove
+     */
+    private void remove(List<Mib> list) {
+        ArrayList<Mib> remaining = new ArrayList<>(list);
+        while (remaining.size() > 0) {
+            Mib next = remaining.get(0);
+            for (Mib other : remaining) {
+                if (!isImported(other, remaining)) {
+                    next = other;
+                    break;
+                }
+            }
+            remaining.remove(next);
+            next.unlink();
+        }
+        publish();
+        for (Mib mib : list) {
+            mib.clear();
+        }
+    }
+
+    /**
+     * Checks if a MIB has OID values connected to symbols in any
+     * MIB in a list. This happens when the same OID value is defined
+     * in more than one MIB, in which case the OID value belongs to
+     * the symbol first defining it.
+     *
+     * @param mib            the MIB module to check
+     * @param list           the list of MIB modules
+     *
+     * @return true if the MIB shares OID values with a MIB in the
+     *         list, or
+     *         false otherwise
+     */
+    private boolean isSharingOids(Mib mib, List<Mib> list) {
+        for (MibSymbol symbol : mib.getAllSymbols()) {
+            if (symbol instanceof MibValueSymbol) {
+                MibValue value = ((MibValueSymbol) symbol).getValue();
+                if (value instanceof ObjectIdentifierValue) {
+                    MibValueSymbol owner;
+                    owner = ((ObjectIdentifierValue) value).getSymbol();
+                    if (owner != null && owner != symbol &&
+                        list.contains(owner.getMib())) {
+
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a MIB is imported by any other MIB in a list.
+     *
+     * @param mib            the MIB module to check
+     * @param list           the list of MIB modules
+     *
+     * @return true if the MIB is imported by another MIB in the
+     *         list, or
+     *         false otherwise
+     */
+    private boolean isImported(Mib mib, List<Mib> list) {
+        for (Mib other : list) {
+            if (other != mib && other.getImport(mib.getName()) != null) {
+                return true;
+            }
         }
-        reset();
+        return false;
     }
 
     /**
@@ -718,7 +1659,7 @@ public class MibLoader {
      * @param name           the MIB name (filename without extension)
      */
     void scheduleLoad(String name) {
-        if (getMib(name) == null && !queue.contains(name)) {
+        if (mibs.get(name) == null && !queue.contains(name)) {
             queue.add(name);
         }
     }
@@ -738,54 +1679,41 @@ public class MibLoader {
     private Mib loadQueue() throws IOException, MibLoaderException {
 
         // Parse MIB files in queue
+        long start = System.nanoTime();
         MibLoaderLog log = new MibLoaderLog();
         ArrayList<Mib> processed = new ArrayList<>();
-        Mib firstMib = null;
-        while (queue.size() > 0) {
-            try {
-                boolean loaded = false;
-                MibSource src = null;
-                Object obj = queue.get(0);
-                if (obj instanceof MibSource) {
-                    loaded = true;
-                    src = (MibSource) obj;
-                } else if (getMib((String) obj) == null) {
-                    src = locate((String) obj);
-                }
-                if (src != null && getMib(src.getFile()) == null) {
-                    List<Mib> list = parseMib(src, log);
-                    for (Mib mib : list) {
-                        mib.setLoaded(loaded);
-                        mibs.put(mib.getName(), mib);
-                        if (firstMib == null) {
-                            firstMib = mib;
-                        }
-                    }
-                    processed.addAll(list);
-                }
-            } catch (MibLoaderException e) {
-                // Do nothing, errors are already in the log
-            }
-            queue.remove(0);
+        if (parallelism > 1) {
+            parseQueueParallel(log, processed);
+        } else {
+            parseQueue(log, processed);
         }
 
         // Initialize all parsed MIB files in reverse order
         for (int i = processed.size() - 1; i >= 0; i--) {
+            Mib mib = processed.get(i);
+            long time = System.nanoTime();
             try {
-                processed.get(i).initialize();
+                mib.initialize();
             } catch (MibLoaderException e) {
                 // Do nothing, errors are already in the log
             }
+            listeners.mibInitialized(mib, System.nanoTime() - time);
         }
 
         // Validate all parsed MIB files in reverse order
         for (int i = processed.size() - 1; i >= 0; i--) {
+            Mib mib = processed.get(i);
+            long time = System.nanoTime();
             try {
-                processed.get(i).validate();
+                mib.validate();
             } catch (MibLoaderException e) {
                 // Do nothing, errors are already in the log
             }
+            listeners.mibValidated(mib, System.nanoTime() - time);
         }
+        listeners.loadCompleted(processed,
+                                log.errorCount(),
+                                System.nanoTime() - start);
 
         // Handle errors
         if (log.errorCount() > 0) {
@@ -796,16 +1724,155 @@ public class MibLoader {
             throw new MibLoaderException(log);
         }
 
-        return firstMib;
+        return processed.isEmpty() ? null : processed.get(0);
+    }
+
+    /**
+     * Parses all MIB files in the loader queue sequentially. New
+     * entries will be added to the queue while parsing, as a result
+     * of importing other MIB files.
+     *
+     * @param log            the MIB log to use for errors
+     * @param processed      the list of parsed MIB modules
+     *
+     * @throws IOException if the MIB couldn't be found
+     */
+    private void parseQueue(MibLoaderLog log, List<Mib> processed)
+        throws IOException {
+
+        while (queue.size() > 0) {
+            ParseTask task = createTask(queue.get(0), log);
+            if (task != null) {
+                try {
+                    List<Mib> list = null;
+                    try {
+                        list = task.call();
+                    } finally {
+                        task.scheduleImports();
+                    }
+                    for (Mib mib : list) {
+                        mib.setLoaded(task.loaded);
+                        mibs.put(mib.getName(), mib);
+                    }
+                    processed.addAll(list);
+                } catch (MibLoaderException e) {
+                    // Do nothing, errors are already in the log
+                }
+            }
+            queue.remove(0);
+        }
+    }
+
+    /**
+     * Parses all MIB files in the loader queue in parallel. The queue
+     * is processed in batches, where all the MIB files in the current
+     * queue are parsed concurrently. Once all these MIB files have
+     * been parsed, the results are processed in queue order (and the
+     * imported MIB names scheduled for loading). New batches are then
+     * processed until the queue is empty.
+     *
+     * @param log            the MIB log to use for errors
+     * @param processed      the list of parsed MIB modules
+     *
+     * @throws IOException if the MIB couldn't be found
+     */
+    private void parseQueueParallel(MibLoaderLog log, List<Mib> processed)
+        throws IOException {
+
+        ThreadFactory factory = new ParseThreadFactory();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                                                                factory);
+        try {
+            while (queue.size() > 0) {
+                int size = queue.size();
+                ArrayList<ParseTask> tasks = new ArrayList<>();
+                ArrayList<Future<ArrayList<Mib>>> results = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    MibLoaderLog taskLog = new MibLoaderLog();
+                    ParseTask task = createTask(queue.get(i), taskLog);
+                    if (task != null && !tasks.contains(task)) {
+                        tasks.add(task);
+                        results.add(executor.submit(task));
+                    }
+                }
+                for (int i = 0; i < tasks.size(); i++) {
+                    ParseTask task = tasks.get(i);
+                    List<Mib> list = null;
+                    try {
+                        list = results.get(i).get();
+                    } catch (InterruptedException e) {
+                        throw new IOException("interrupted while parsing " +
+                                              task.src.getFile(), e);
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof IOException) {
+                            throw (IOException) cause;
+                        } else if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        } else if (cause instanceof Error) {
+                            throw (Error) cause;
+                        }
+                        // Do nothing, errors are already in the log
+                    }
+                    if (!task.isDuplicate()) {
+                        log.addAll(task.log);
+                        task.scheduleImports();
+                        for (int j = 0; list != null && j < list.size(); j++) {
+                            Mib mib = list.get(j);
+                            mib.setLog(log);
+                            mib.setLoaded(task.loaded);
+                            mibs.put(mib.getName(), mib);
+                            processed.add(mib);
+                        }
+                    } else if (list != null) {
+                        for (Mib mib : list) {
+                            mib.clear();
+                        }
+                    }
+                }
+                queue.subList(0, size).clear();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a parse task for a loader queue entry. If the queue
+     * entry has already been loaded or couldn't be located, null
+     * will be returned.
+     *
+     * @param obj            the queue entry (name or MIB source)
+     * @param log            the MIB log to use for errors
+     *
+     * @return the parse task created, or
+     *         null if no parsing is needed
+     */
+    private ParseTask createTask(Object obj, MibLoaderLog log) {
+        ParseTask task = null;
+        if (obj instanceof MibSource) {
+            task = new ParseTask(null, (MibSource) obj, log);
+        } else if (mibs.get((String) obj) == null) {
+            MibSource src = locate((String) obj);
+            if (src != null) {
+                task = new ParseTask((String) obj, src, log);
+            }
+        }
+        if (task != null && findMib(task.src.getFile()) != null) {
+            task = null;
+        }
+        return task;
     }
 
     /**
      * Parses a MIB input source and returns the MIB modules found.
      * This method may read the MIB either from file, URL or input
-     * stream.
+     * stream. This method is thread-safe, as each call uses a
+     * separate parser and analyzer.
      *
      * @param src            the MIB source to parse
      * @param log            the MIB log to use for errors
+     * @param imports        the list of imported MIB names found
      *
      * @return the list of MIB modules created
      *
@@ -813,33 +1880,112 @@ public class MibLoader {
      * @throws MibLoaderException if the MIB couldn't be parsed
      *             or analyzed correctly
      */
-    private ArrayList<Mib> parseMib(MibSource src, MibLoaderLog log)
+    private ArrayList<Mib> parseMib(MibSource src,
+                                    MibLoaderLog log,
+                                    List<String> imports)
         throws IOException, MibLoaderException {
 
+        long start = System.nanoTime();
+        long chars = 0;
+        long tokens = 0;
+        boolean fast = false;
+        ArrayList<Mib> res = null;
         MibAnalyzer analyzer = new MibAnalyzer(src.getFile(), this, log);
-        try (
-            Reader input = src.getReader();
-        ) {
-            if (parser == null) {
-                parser = new Asn1Parser(input, analyzer);
-                parser.getTokenizer().setUseTokenList(true);
-            } else {
-                parser.reset(input, analyzer);
+        Asn1Parser parser = parsers.poll();
+        MibTokenizer tokenizer = null;
+        try {
+            if (fastParsing) {
+                try (
+                    Reader input = src.getReader();
+                ) {
+                    parser = initParser(parser, input, analyzer);
+                    tokenizer = (MibTokenizer) parser.getTokenizer();
+                    MibSmiParser smi =
+                        new MibSmiParser(src.getFile(), this, log, tokenizer);
+                    res = smi.parse();
+                    fast = true;
+                    imports.addAll(smi.getImportNames());
+                    for (Mib mib : res) {
+                        mib.setSource(src);
+                    }
+                    return res;
+                } catch (ParseException e) {
+                    // Unsupported construct or error, use ASN.1 parser
+                    chars += tokenizer.getCharCount();
+                    tokens += tokenizer.getTokenCount();
+                    tokenizer = null;
+                }
+            }
+            try (
+                Reader input = src.getReader();
+            ) {
+                parser = initParser(parser, input, analyzer);
+                tokenizer = (MibTokenizer) parser.getTokenizer();
+                parser.parse();
+                res = analyzer.getMibs();
+                for (Mib mib : res) {
+                    mib.setSource(src);
+                }
+                return res;
             }
-            parser.parse();
-            return analyzer.getMibs();
         } catch (ParserCreationException e) {
             String msg = "parser creation error in ASN.1 parser: " +
                          e.getMessage();
             log.addInternalError(msg);
+            parser = null;
             throw new MibLoaderException(log);
         } catch (ParserLogException e) {
             log.addAll(src.getFile(), e);
             throw new MibLoaderException(log);
         } finally {
+            if (tokenizer != null) {
+                chars += tokenizer.getCharCount();
+                tokens += tokenizer.getTokenCount();
+            }
+            imports.addAll(analyzer.getImportNames());
             analyzer.reset();
+            if (parser != null) {
+                parsers.offer(parser);
+            }
+            if (!listeners.isEmpty()) {
+                int symbols = 0;
+                for (int i = 0; res != null && i < res.size(); i++) {
+                    symbols += res.get(i).getAllSymbols().size();
+                }
+                listeners.mibParsed(src, res, chars, tokens, symbols, fast,
+                                    System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Initializes an ASN.1 parser for reading a new input stream. If
+     * no parser is available, a new one will be created.
+     *
+     * @param parser         the parser to reuse, or null for none
+     * @param input          the input stream to read from
+     * @param analyzer       the MIB analyzer to use
+     *
+     * @return the initialized ASN.1 parser
+     *
+     * @throws ParserCreationException if the parser couldn't be
+     *             created
+     */
+    private Asn1Parser initParser(Asn1Parser parser,
+                                  Reader input,
+                                  MibAnalyzer analyzer)
+        throws ParserCreationException {
+
+        if (parser == null) {
+            parser = MibTokenizer.createParser(input, analyzer);
+        } else {
+            parser.reset(input, analyzer);
         }
+        parser.getTokenizer().setUseTokenList(!lean);
+        ((MibTokenizer) parser.getTokenizer()).setPool(pool);
+        return parser;
     }
+
     /**
      * Searches for a MIB in the search path. The name specified
      * should be the MIB name. If a matching file name isn't found in
@@ -854,6 +2000,22 @@ public class MibLoader {
      *         null if no MIB was found
      */
     private MibSource locate(String name) {
+        long start = System.nanoTime();
+        MibSource src = search(name);
+        listeners.mibLocated(name, src, System.nanoTime() - start);
+        return src;
+    }
+
+    /**
+     * Searches for a MIB in the search path. This method performs
+     * the actual search for locate().
+     *
+     * @param name           the MIB name
+     *
+     * @return the MIB found, or
+     *         null if no MIB was found
+     */
+    private MibSource search(String name) {
         for (MibLocator cache : dirCaches) {
             MibSource src = cache.findByName(name);
             if (src != null) {
@@ -875,4 +2037,139 @@ public class MibLoader {
         }
         return null;
     }
+
+
+    /**
+     * A MIB parse task. This class encapsulates the parsing of a
+     * single MIB source, making it possible to run it in a separate
+     * thread.
+     */
+    private class ParseTask implements Callable<ArrayList<Mib>> {
+
+        /**
+         * The MIB name from the loader queue, or null if the MIB
+         * source was explicitly loaded.
+         */
+        private String name;
+
+        /**
+         * The MIB source to parse.
+         */
+        private MibSource src;
+
+        /**
+         * The explicitly loaded flag.
+         */
+        private boolean loaded;
+
+        /**
+         * The MIB loader log to use.
+         */
+        private MibLoaderLog log;
+
+        /**
+         * The imported MIB names found.
+         */
+        private ArrayList<String> imports = new ArrayList<>();
+
+        /**
+         * Creates a new MIB parse task.
+         *
+         * @param name           the MIB name, or null
+         * @param src            the MIB source to parse
+         * @param log            the MIB loader log to use
+         */
+        ParseTask(String name, MibSource src, MibLoaderLog log) {
+            this.name = name;
+            this.src = src;
+            this.loaded = (name == null);
+            this.log = log;
+        }
+
+        /**
+         * Checks if this object is equal to another. This method
+         * will only return true for another parse task with the
+         * same MIB source.
+         *
+         * @param obj            the object to compare with
+         *
+         * @return true if the object is equal to this, or
+         *         false otherwise
+         */
+        public boolean equals(Object obj) {
+            return obj instanceof ParseTask &&
+                   src.equals(((ParseTask) obj).src);
+        }
+
+        /**
+         * Returns the hash code value for the object.
+         *
+         * @return the hash code value for the object
+         */
+        public int hashCode() {
+            return src.hashCode();
+        }
+
+        /**
+         * Parses the MIB source. Any imported MIB names found will be
+         * stored in this task, but not scheduled for loading.
+         *
+         * @return the list of MIB modules created
+         *
+         * @throws IOException if the MIB couldn't be found
+         * @throws MibLoaderException if the MIB couldn't be parsed
+         *             or analyzed correctly
+         *
+         * @see #scheduleImports()
+         */
+        public ArrayList<Mib> call() throws IOException, MibLoaderException {
+            return parseMib(src, log, imports);
+        }
+
+        /**
+         * Checks if the parse results duplicate MIB modules already
+         * loaded. This happens if the MIB source (or the MIB name
+         * from the queue) was loaded by another parse task.
+         *
+         * @return true if the results should be discarded, or
+         *         false otherwise
+         */
+        boolean isDuplicate() {
+            if (name != null && mibs.get(name) != null) {
+                return true;
+            } else {
+                return findMib(src.getFile()) != null;
+            }
+        }
+
+        /**
+         * Schedules all imported MIB names for loading.
+         */
+        void scheduleImports() {
+            for (String name : imports) {
+                scheduleLoad(name);
+            }
+        }
+    }
+
+    /**
+     * A thread factory for the parallel MIB parser threads. The
+     * threads created are daemon threads, so as to not prevent the
+     * JVM from exiting.
+     */
+    private static class ParseThreadFactory implements ThreadFactory {
+
+        /**
+         * Creates a new parser thread.
+         *
+         * @param r              the runnable to execute
+         *
+         * @return the new thread
+         */
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "mibble-parser");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
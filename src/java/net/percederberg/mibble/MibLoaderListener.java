@@ -0,0 +1,134 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.util.List;
+
+/**
+ * A MIB loader listener. This interface receives timings and counters
+ * for each phase of loading MIB files, making it possible to find
+ * slow MIB files or to export load metrics to other systems. A
+ * listener is added to a MIB loader with addListener().<p>
+ *
+ * The loading of a MIB file (and its imports) proceeds in phases.
+ * First, each MIB name is located in the search path, which may
+ * require scanning the search path directories. Each MIB source is
+ * then tokenized and parsed, after which all the parsed MIB modules
+ * are initialized and validated. Finally, the load operation is
+ * completed. All timings are in nanoseconds.<p>
+ *
+ * The listener methods are called synchronously from the thread
+ * performing the work, so they should return quickly. When parallel
+ * loading is used, mibParsed() is called from the parser threads,
+ * and may therefore be called concurrently.
+ *
+ * @see MibLoader#addListener(MibLoaderListener)
+ * @see MibLoaderStats
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public interface MibLoaderListener {
+
+    /**
+     * Called when a search path directory has been scanned. This
+     * happens the first time a directory is searched, either by file
+     * name or by file content. Content scans read the first lines of
+     * each file, unless the file was found unmodified in the
+     * directory index file (an index cache hit). Index files are
+     * only used if enabled with MibLoader.setIndexDir().
+     *
+     * @param locator        the MIB locator for the directory
+     * @param content        the content scan flag
+     * @param files          the number of files scanned
+     * @param indexHits      the number of files found in the index
+     * @param indexMisses    the number of files read (not in index)
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    void dirScanned(MibLocator locator,
+                    boolean content,
+                    int files,
+                    int indexHits,
+                    int indexMisses,
+                    long nanos);
+
+    /**
+     * Called when a MIB name has been searched for in the search
+     * path. The elapsed time includes any directory scans.
+     *
+     * @param name           the MIB name
+     * @param src            the MIB source found, or null if not found
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    void mibLocated(String name, MibSource src, long nanos);
+
+    /**
+     * Called when a MIB source has been tokenized and parsed. The
+     * counters include the work for both parsers if the fast SMI
+     * parser failed and the source was parsed again.
+     *
+     * @param src            the MIB source
+     * @param mibs           the MIB modules created, or
+     *                       null if the source couldn't be parsed
+     * @param chars          the number of characters read
+     * @param tokens         the number of tokens produced
+     * @param symbols        the number of MIB symbols created
+     * @param fast           the fast SMI parser flag, true if the
+     *                       fast parser was used successfully
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    void mibParsed(MibSource src,
+                   List<Mib> mibs,
+                   long chars,
+                   long tokens,
+                   int symbols,
+                   boolean fast,
+                   long nanos);
+
+    /**
+     * Called when a MIB module has been initialized.
+     *
+     * @param mib            the MIB module
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    void mibInitialized(Mib mib, long nanos);
+
+    /**
+     * Called when a MIB module has been validated.
+     *
+     * @param mib            the MIB module
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    void mibValidated(Mib mib, long nanos);
+
+    /**
+     * Called when a reload operation has determined the MIB modules
+     * to reload. Normally only the modified MIB modules and the MIB
+     * modules directly importing them are reloaded. If other MIB
+     * modules depend on these (or define some of the same OID
+     * values), the reload falls back to reloading all dependent MIB
+     * modules.
+     *
+     * @param mibs           the MIB modules to reload
+     * @param fallback       the fallback flag, true if indirectly
+     *                       dependent MIB modules are also reloaded
+     */
+    void reloadStarted(List<Mib> mibs, boolean fallback);
+
+    /**
+     * Called when a load (or reload) operation has completed. The
+     * MIB modules may have been discarded if errors were found.
+     *
+     * @param mibs           the MIB modules parsed
+     * @param errors         the number of errors found
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    void loadCompleted(List<Mib> mibs, int errors, long nanos);
+}
@@ -0,0 +1,568 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A MIB loader statistics collector. This listener sums up the
+ * timings and counters for all load operations, and also keeps the
+ * total load time for each MIB module. All values are cumulative
+ * until reset() is called. The statistics are safe to read while
+ * MIB files are being loaded (also in parallel).<p>
+ *
+ * The phase timings are measured separately, so their sum may differ
+ * somewhat from the total load time. The locate time includes any
+ * directory scan time. All timings are in nanoseconds.
+ *
+ * @see MibLoader#addListener(MibLoaderListener)
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class MibLoaderStats implements MibLoaderListener {
+
+    /**
+     * The directory scan phase.
+     */
+    public static final int SCAN = 0;
+
+    /**
+     * The MIB locate phase.
+     */
+    public static final int LOCATE = 1;
+
+    /**
+     * The MIB tokenize and parse phase.
+     */
+    public static final int PARSE = 2;
+
+    /**
+     * The MIB initialize phase.
+     */
+    public static final int INITIALIZE = 3;
+
+    /**
+     * The MIB validate phase.
+     */
+    public static final int VALIDATE = 4;
+
+    /**
+     * The complete load operation.
+     */
+    public static final int LOAD = 5;
+
+    /**
+     * The number of phases (including the complete load).
+     */
+    private static final int PHASES = 6;
+
+    /**
+     * The phase counts (indexed by phase).
+     */
+    private AtomicLong[] counts = new AtomicLong[PHASES];
+
+    /**
+     * The phase timings (indexed by phase).
+     */
+    private AtomicLong[] times = new AtomicLong[PHASES];
+
+    /**
+     * The number of files scanned in search path directories.
+     */
+    private AtomicLong filesScanned = new AtomicLong();
+
+    /**
+     * The number of directory index cache hits.
+     */
+    private AtomicLong indexHits = new AtomicLong();
+
+    /**
+     * The number of directory index cache misses.
+     */
+    private AtomicLong indexMisses = new AtomicLong();
+
+    /**
+     * The number of MIB names not found in the search path.
+     */
+    private AtomicLong notFound = new AtomicLong();
+
+    /**
+     * The number of MIB sources parsed by the fast SMI parser.
+     */
+    private AtomicLong fastParsed = new AtomicLong();
+
+    /**
+     * The number of MIB sources that failed to parse.
+     */
+    private AtomicLong parseFailures = new AtomicLong();
+
+    /**
+     * The number of characters read.
+     */
+    private AtomicLong chars = new AtomicLong();
+
+    /**
+     * The number of tokens produced.
+     */
+    private AtomicLong tokens = new AtomicLong();
+
+    /**
+     * The number of MIB symbols created.
+     */
+    private AtomicLong symbols = new AtomicLong();
+
+    /**
+     * The number of errors found.
+     */
+    private AtomicLong errors = new AtomicLong();
+
+    /**
+     * The number of reload operations.
+     */
+    private AtomicLong reloads = new AtomicLong();
+
+    /**
+     * The number of reload operations that also reloaded indirectly
+     * dependent MIB modules.
+     */
+    private AtomicLong reloadFallbacks = new AtomicLong();
+
+    /**
+     * The total time for each MIB module. This map is indexed by
+     * the MIB module name.
+     */
+    private ConcurrentHashMap<String,AtomicLong> mibTimes =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new MIB loader statistics collector.
+     */
+    public MibLoaderStats() {
+        for (int i = 0; i < PHASES; i++) {
+            counts[i] = new AtomicLong();
+            times[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Resets all the statistics to zero.
+     */
+    public void reset() {
+        for (int i = 0; i < PHASES; i++) {
+            counts[i].set(0);
+            times[i].set(0);
+        }
+        filesScanned.set(0);
+        indexHits.set(0);
+        indexMisses.set(0);
+        notFound.set(0);
+        fastParsed.set(0);
+        parseFailures.set(0);
+        chars.set(0);
+        tokens.set(0);
+        symbols.set(0);
+        errors.set(0);
+        reloads.set(0);
+        reloadFallbacks.set(0);
+        mibTimes.clear();
+    }
+
+    /**
+     * Returns the number of times a phase has been performed. For
+     * the initialize and validate phases, this is the number of MIB
+     * modules processed. For the parse phase, it is the number of
+     * MIB sources parsed.
+     *
+     * @param phase          the phase (for example PARSE)
+     *
+     * @return the phase count
+     */
+    public long getCount(int phase) {
+        return counts[phase].get();
+    }
+
+    /**
+     * Returns the total time spent in a phase.
+     *
+     * @param phase          the phase (for example PARSE)
+     *
+     * @return the total phase time (in nanoseconds)
+     */
+    public long getTime(int phase) {
+        return times[phase].get();
+    }
+
+    /**
+     * Returns the number of files scanned in search path directories.
+     *
+     * @return the number of files scanned
+     */
+    public long getFilesScanned() {
+        return filesScanned.get();
+    }
+
+    /**
+     * Returns the number of directory index cache hits. Each hit is
+     * a file that didn't have to be read when scanning a directory
+     * by file content.
+     *
+     * @return the number of index cache hits
+     */
+    public long getIndexHits() {
+        return indexHits.get();
+    }
+
+    /**
+     * Returns the number of directory index cache misses. Each miss
+     * is a file that had to be read when scanning a directory by file
+     * content.
+     *
+     * @return the number of index cache misses
+     */
+    public long getIndexMisses() {
+        return indexMisses.get();
+    }
+
+    /**
+     * Returns the number of MIB names not found in the search path.
+     *
+     * @return the number of MIB names not found
+     */
+    public long getNotFound() {
+        return notFound.get();
+    }
+
+    /**
+     * Returns the number of MIB sources parsed by the fast SMI
+     * parser. The remaining MIB sources were parsed by the ASN.1
+     * parser.
+     *
+     * @return the number of MIB sources parsed by the fast parser
+     */
+    public long getFastParsed() {
+        return fastParsed.get();
+    }
+
+    /**
+     * Returns the number of MIB sources that couldn't be parsed.
+     *
+     * @return the number of MIB sources that couldn't be parsed
+     */
+    public long getParseFailures() {
+        return parseFailures.get();
+    }
+
+    /**
+     * Returns the number of characters read when parsing.
+     *
+     * @return the number of characters read
+     */
+    public long getChars() {
+        return chars.get();
+    }
+
+    /**
+     * Returns the number of tokens produced when parsing. This
+     * includes whitespace and comment tokens.
+     *
+     * @return the number of tokens produced
+     */
+    public long getTokens() {
+        return tokens.get();
+    }
+
+    /**
+     * Returns the number of MIB symbols created.
+     *
+     * @return the number of MIB symbols created
+     */
+    public long getSymbols() {
+        return symbols.get();
+    }
+
+    /**
+     * Returns the number of errors found in load operations.
+     *
+     * @return the number of errors found
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Returns the number of reload operations.
+     *
+     * @return the number of reload operations
+     */
+    public long getReloads() {
+        return reloads.get();
+    }
+
+    /**
+     * Returns the number of reload operations that fell back to
+     * reloading also the indirectly dependent MIB modules.
+     *
+     * @return the number of reload fallbacks
+     *
+     * @see MibLoaderListener#reloadStarted(List, boolean)
+     */
+    public long getReloadFallbacks() {
+        return reloadFallbacks.get();
+    }
+
+    /**
+     * Returns the total time for a MIB module. This is the sum of
+     * the parse, initialize and validate times. If several MIB
+     * modules were parsed from the same source, the parse time is
+     * divided equally between them.
+     *
+     * @param name           the MIB module name
+     *
+     * @return the total MIB time (in nanoseconds), or
+     *         zero (0) if the MIB module wasn't found
+     */
+    public long getMibTime(String name) {
+        AtomicLong time = mibTimes.get(name);
+        return (time == null) ? 0 : time.get();
+    }
+
+    /**
+     * Returns the total times for all MIB modules. The returned map
+     * is a copy, and is indexed by the MIB module name.
+     *
+     * @return the map of MIB module names and times (in nanoseconds)
+     *
+     * @see #getMibTime(String)
+     */
+    public Map<String,Long> getMibTimes() {
+        HashMap<String,Long> res = new HashMap<>();
+        for (Map.Entry<String,AtomicLong> e : mibTimes.entrySet()) {
+            res.put(e.getKey(), e.getValue().get());
+        }
+        return Collections.unmodifiableMap(res);
+    }
+
+    /**
+     * Returns a string representation of the statistics.
+     *
+     * @return a string representation of the statistics
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("load: ");
+        appendPhase(buffer, LOAD);
+        buffer.append(", errors ");
+        buffer.append(getErrors());
+        buffer.append("\nscan: ");
+        appendPhase(buffer, SCAN);
+        buffer.append(", files ");
+        buffer.append(getFilesScanned());
+        buffer.append(", index hits ");
+        buffer.append(getIndexHits());
+        buffer.append(", index misses ");
+        buffer.append(getIndexMisses());
+        buffer.append("\nlocate: ");
+        appendPhase(buffer, LOCATE);
+        buffer.append(", not found ");
+        buffer.append(getNotFound());
+        buffer.append("\nparse: ");
+        appendPhase(buffer, PARSE);
+        buffer.append(", fast ");
+        buffer.append(getFastParsed());
+        buffer.append(", failed ");
+        buffer.append(getParseFailures());
+        buffer.append(", chars ");
+        buffer.append(getChars());
+        buffer.append(", tokens ");
+        buffer.append(getTokens());
+        buffer.append(", symbols ");
+        buffer.append(getSymbols());
+        buffer.append("\ninitialize: ");
+        appendPhase(buffer, INITIALIZE);
+        buffer.append("\nvalidate: ");
+        appendPhase(buffer, VALIDATE);
+        buffer.append("\nreload: ");
+        buffer.append(getReloads());
+        buffer.append(", fallbacks ");
+        buffer.append(getReloadFallbacks());
+        return buffer.toString();
+    }
+
+    /**
+     * Appends the count and time for a phase to a string buffer.
+     *
+     * @param buffer         the string buffer to append to
+     * @param phase          the phase
+     */
+    private void appendPhase(StringBuilder buffer, int phase) {
+        buffer.append(getCount(phase));
+        buffer.append(" in ");
+        buffer.append(getTime(phase) / 1000000);
+        buffer.append(" ms");
+    }
+
+    /**
+     * Called when a search path directory has been scanned.
+     *
+     * @param locator        the MIB locator for the directory
+     * @param content        the content scan flag
+     * @param files          the number of files scanned
+     * @param indexHits      the number of files found in the index
+     * @param indexMisses    the number of files read (not in index)
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void dirScanned(MibLocator locator,
+                           boolean content,
+                           int files,
+                           int indexHits,
+                           int indexMisses,
+                           long nanos) {
+
+        addPhase(SCAN, nanos);
+        this.filesScanned.addAndGet(files);
+        this.indexHits.addAndGet(indexHits);
+        this.indexMisses.addAndGet(indexMisses);
+    }
+
+    /**
+     * Called when a MIB name has been searched for in the search
+     * path.
+     *
+     * @param name           the MIB name
+     * @param src            the MIB source found, or null if not found
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibLocated(String name, MibSource src, long nanos) {
+        addPhase(LOCATE, nanos);
+        if (src == null) {
+            notFound.incrementAndGet();
+        }
+    }
+
+    /**
+     * Called when a MIB source has been tokenized and parsed.
+     *
+     * @param src            the MIB source
+     * @param mibs           the MIB modules created, or
+     *                       null if the source couldn't be parsed
+     * @param chars          the number of characters read
+     * @param tokens         the number of tokens produced
+     * @param symbols        the number of MIB symbols created
+     * @param fast           the fast SMI parser flag
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibParsed(MibSource src,
+                          List<Mib> mibs,
+                          long chars,
+                          long tokens,
+                          int symbols,
+                          boolean fast,
+                          long nanos) {
+
+        addPhase(PARSE, nanos);
+        this.chars.addAndGet(chars);
+        this.tokens.addAndGet(tokens);
+        this.symbols.addAndGet(symbols);
+        if (fast) {
+            fastParsed.incrementAndGet();
+        }
+        if (mibs == null) {
+            parseFailures.incrementAndGet();
+        } else if (mibs.size() > 0) {
+            for (Mib mib : mibs) {
+                addMibTime(mib, nanos / mibs.size());
+            }
+        }
+    }
+
+    /**
+     * Called when a MIB module has been initialized.
+     *
+     * @param mib            the MIB module
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibInitialized(Mib mib, long nanos) {
+        addPhase(INITIALIZE, nanos);
+        addMibTime(mib, nanos);
+    }
+
+    /**
+     * Called when a MIB module has been validated.
+     *
+     * @param mib            the MIB module
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void mibValidated(Mib mib, long nanos) {
+        addPhase(VALIDATE, nanos);
+        addMibTime(mib, nanos);
+    }
+
+    /**
+     * Called when a reload operation has determined the MIB modules
+     * to reload.
+     *
+     * @param mibs           the MIB modules to reload
+     * @param fallback       the fallback flag, true if indirectly
+     *                       dependent MIB modules are also reloaded
+     */
+    public void reloadStarted(List<Mib> mibs, boolean fallback) {
+        reloads.incrementAndGet();
+        if (fallback) {
+            reloadFallbacks.incrementAndGet();
+        }
+    }
+
+    /**
+     * Called when a load (or reload) operation has completed.
+     *
+     * @param mibs           the MIB modules parsed
+     * @param errors         the number of errors found
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    public void loadCompleted(List<Mib> mibs, int errors, long nanos) {
+        addPhase(LOAD, nanos);
+        this.errors.addAndGet(errors);
+    }
+
+    /**
+     * Adds a phase timing.
+     *
+     * @param phase          the phase
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    private void addPhase(int phase, long nanos) {
+        counts[phase].incrementAndGet();
+        times[phase].addAndGet(nanos);
+    }
+
+    /**
+     * Adds time to the total for a MIB module.
+     *
+     * @param mib            the MIB module
+     * @param nanos          the elapsed time (in nanoseconds)
+     */
+    private void addMibTime(Mib mib, long nanos) {
+        AtomicLong time = mibTimes.get(mib.getName());
+        if (time == null) {
+            time = new AtomicLong();
+            AtomicLong prev = mibTimes.putIfAbsent(mib.getName(), time);
+            if (prev != null) {
+                time = prev;
+            }
+        }
+        time.addAndGet(nanos);
+    }
+}
@@ -8,17 +8,38 @@
 
 package net.percederberg.mibble;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
@@ -30,10 +51,22 @@ import java.util.regex.Pattern;
  * internal caches; one based on file names, and one based on the
  * first few lines of file content. Each of these caches are created
  * upon first use and the content cache is normally a secondary
- * alternative due to the performance penalty when created.
+ * alternative due to the performance penalty when created.<p>
+ *
+ * A file directory locator can optionally watch the directory for
+ * changes (see startWatch()). The caches are then updated in place
+ * by a background thread whenever files are added, modified or
+ * removed. The locator is safe for use by multiple threads.<p>
+ *
+ * For file directories, the content cache can optionally be
+ * persisted to an index file in a separate cache directory (see
+ * setIndexDir()). The index stores the size and modification time
+ * of each file, so that only new or modified files need to be read
+ * when the content cache is created the next time. No files are
+ * ever written to the MIB directory itself.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.10
  */
 public class MibLocator {
@@ -43,6 +76,21 @@ public class MibLocator {
      */
     private static final Pattern NAME = Pattern.compile("[a-zA-Z][a-zA-Z0-9-_]*");
 
+    /**
+     * The directory content index file name prefix.
+     */
+    private static final String INDEX_PREFIX = "mibble-index-";
+
+    /**
+     * The directory content index file magic number.
+     */
+    private static final int INDEX_MAGIC = 0x4D49424C;
+
+    /**
+     * The directory content index file format version.
+     */
+    private static final int INDEX_VERSION = 2;
+
     /**
      * The optional class loader to use for locating MIB files. If
      * set, the MIB modules are searched as resources via this loader
@@ -60,13 +108,30 @@ public class MibLocator {
      * The file name cache. This cache is indexed by upper-case MIB
      * name and points to the MIB source.
      */
-    private HashMap<String,MibSource> nameCache = null;
+    private volatile Map<String,MibSource> nameCache = null;
 
     /**
      * The content cache. This cache is indexed by the MIB name read
      * from the file and points to the MIB source.
      */
-    private HashMap<String,MibSource> contentCache = null;
+    private volatile Map<String,MibSource> contentCache = null;
+
+    /**
+     * The directory for content index files, or null if the
+     * content cache isn't persisted.
+     */
+    private volatile File indexDir = null;
+
+    /**
+     * The directory watch service, or null if not watching.
+     */
+    private WatchService watcher = null;
+
+    /**
+     * The loader listener notified of directory scans, or null for
+     * none.
+     */
+    private MibLoaderListener listener = null;
 
     /**
      * Creates a new MIB module locator for a file directory.
@@ -90,6 +155,65 @@ public class MibLocator {
         this.dir = new File(path);
     }
 
+    /**
+     * Sets the loader listener to notify of directory scans.
+     *
+     * @param listener       the loader listener, or null for none
+     */
+    void setListener(MibLoaderListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the directory for content index files.
+     *
+     * @return the index file directory, or
+     *         null if the content cache isn't persisted
+     *
+     * @see #setIndexDir(File)
+     *
+     * @since 2.11
+     */
+    public File getIndexDir() {
+        return indexDir;
+    }
+
+    /**
+     * Sets the directory for content index files. If set, the
+     * content cache for a file directory is persisted to an index
+     * file in this directory (created if needed). The index file
+     * name is derived from the MIB directory path, so the same
+     * index directory can be shared by several MIB directories.
+     * By default, the content cache isn't persisted. This setting
+     * has no effect for resource paths.
+     *
+     * @param dir            the index file directory, or
+     *                       null to not persist the content cache
+     *
+     * @since 2.11
+     */
+    public void setIndexDir(File dir) {
+        this.indexDir = dir;
+    }
+
+    /**
+     * Returns the content index file for a MIB directory.
+     *
+     * @param dir            the MIB file directory
+     *
+     * @return the index file, or
+     *         null if the content cache isn't persisted
+     */
+    private File getIndexFile(File dir) {
+        File cacheDir = indexDir;
+        if (cacheDir == null) {
+            return null;
+        }
+        String path = dir.getAbsolutePath();
+        String hash = Integer.toHexString(path.hashCode());
+        return new File(cacheDir, INDEX_PREFIX + hash);
+    }
+
     /**
      * Checks if the class loader is used for locating resources.
      *
@@ -141,18 +265,16 @@ public class MibLocator {
      * @return a map of MIB module names to files
      */
     public Map<String,MibSource> getNameMap() {
-        if (nameCache == null) {
-            nameCache = new HashMap<>();
-            URL url = this.getUrl();
-            if (url == null) {
-                // No files found
-            } else if (url.getProtocol().equals("jar")) {
-                nameCache.putAll(readJar(url, this.dir.toString(), false));
-            } else if (url.getProtocol().equals("file")) {
-                nameCache.putAll(readDir(new File(url.getPath()), false));
+        Map<String,MibSource> map = nameCache;
+        if (map == null) {
+            synchronized (this) {
+                if (nameCache == null) {
+                    nameCache = readMap(false);
+                }
+                map = nameCache;
             }
         }
-        return nameCache;
+        return map;
     }
 
     /**
@@ -166,18 +288,49 @@ public class MibLocator {
      * @return a map of MIB module names to files
      */
     public Map<String,MibSource> getContentMap() {
-        if (contentCache == null) {
-            contentCache = new HashMap<>();
-            URL url = this.getUrl();
-            if (url == null) {
-                // No files found
-            } else if (url.getProtocol().equals("jar")) {
-                contentCache.putAll(readJar(url, this.dir.toString(), true));
-            } else if (url.getProtocol().equals("file")) {
-                contentCache.putAll(readDir(new File(url.getPath()), true));
+        Map<String,MibSource> map = contentCache;
+        if (map == null) {
+            synchronized (this) {
+                if (contentCache == null) {
+                    contentCache = readMap(true);
+                }
+                map = contentCache;
             }
         }
-        return contentCache;
+        return map;
+    }
+
+    /**
+     * Creates a MIB file name or content map. The map returned is
+     * safe for concurrent updates.
+     *
+     * @param readContent    the read MIB content flag
+     *
+     * @return a map of MIB module names to MIB sources
+     */
+    private Map<String,MibSource> readMap(boolean readContent) {
+        long start = System.nanoTime();
+        ScanCount count = new ScanCount();
+        ConcurrentHashMap<String,MibSource> res = new ConcurrentHashMap<>();
+        URL url = this.getUrl();
+        if (url == null) {
+            // No files found
+        } else if (url.getProtocol().equals("jar")) {
+            res.putAll(readJar(url, this.dir.toString(), readContent, count));
+        } else if (url.getProtocol().equals("file")) {
+            File path = new File(url.getPath());
+            File index = readContent ? getIndexFile(path) : null;
+            res.putAll(readDir(path, readContent, index, count));
+        }
+        if (listener != null) {
+            listener.dirScanned(this,
+                                readContent,
+                                count.files,
+                                count.hits,
+                                count.misses,
+                                System.nanoTime() - start);
+        }
+        return res;
     }
 
     /**
@@ -209,6 +362,190 @@ public class MibLocator {
         return getContentMap().get(mibName);
     }
 
+    /**
+     * Checks if the directory is being watched for changes.
+     *
+     * @return true if the directory is being watched, or
+     *         false otherwise
+     *
+     * @see #startWatch(MibLoader, boolean)
+     *
+     * @since 2.11
+     */
+    public synchronized boolean isWatching() {
+        return watcher != null;
+    }
+
+    /**
+     * Starts watching the directory for changes. A background
+     * (daemon) thread will update the name and content caches
+     * whenever a file in the directory is added, modified or
+     * removed. This avoids rescanning the directory when new MIB
+     * files are added. Resource directories cannot be watched, so
+     * this method does nothing for them.<p>
+     *
+     * If a MIB loader is specified, any MIB file modified in the
+     * directory will also be reloaded in the background (if it was
+     * previously loaded). See MibLoader.reload() for details. New
+     * MIB files may optionally also be loaded. Note that any errors
+     * when loading or reloading MIB files are ignored.
+     *
+     * @param loader         the MIB loader to update, or null
+     * @param load           the load new MIB files flag
+     *
+     * @throws IOException if the directory couldn't be watched
+     *
+     * @see #stopWatch()
+     * @see MibLoader#reload(File)
+     *
+     * @since 2.11
+     */
+    public synchronized void startWatch(final MibLoader loader,
+                                        final boolean load)
+        throws IOException {
+
+        if (watcher != null || isResourceDir()) {
+            return;
+        }
+        final WatchService ws = FileSystems.getDefault().newWatchService();
+        try {
+            dir.toPath().register(ws,
+                                  StandardWatchEventKinds.ENTRY_CREATE,
+                                  StandardWatchEventKinds.ENTRY_MODIFY,
+                                  StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            ws.close();
+            throw e;
+        }
+        watcher = ws;
+        Thread thread = new Thread("mibble-watch-" + dir.getName()) {
+            public void run() {
+                watch(ws, loader, load);
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the directory for changes. The background
+     * thread will terminate shortly after this call.
+     *
+     * @see #startWatch(MibLoader, boolean)
+     *
+     * @since 2.11
+     */
+    public synchronized void stopWatch() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException ignore) {
+                // Do nothing
+            }
+            watcher = null;
+        }
+    }
+
+    /**
+     * Processes directory change events until the watch service is
+     * closed. Events are collected for a short while, so that a
+     * burst of changes to the same file is only handled once.
+     *
+     * @param ws             the directory watch service
+     * @param loader         the MIB loader to update, or null
+     * @param load           the load new MIB files flag
+     */
+    private void watch(WatchService ws, MibLoader loader, boolean load) {
+        File base = dir.getAbsoluteFile();
+        try {
+            while (true) {
+                LinkedHashMap<File,Boolean> changes = new LinkedHashMap<>();
+                WatchKey key = ws.take();
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            synchronized (this) {
+                                nameCache = null;
+                                contentCache = null;
+                            }
+                        } else {
+                            String name = event.context().toString();
+                            File file = new File(base, name);
+                            boolean deleted = event.kind() ==
+                                StandardWatchEventKinds.ENTRY_DELETE;
+                            changes.put(file, Boolean.valueOf(!deleted));
+                        }
+                    }
+                    if (!key.reset()) {
+                        return;
+                    }
+                    key = ws.poll(100, TimeUnit.MILLISECONDS);
+                }
+                for (Map.Entry<File,Boolean> e : changes.entrySet()) {
+                    update(e.getKey());
+                    if (loader != null && e.getValue().booleanValue()) {
+                        reload(loader, e.getKey(), load);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watch stopped
+        }
+    }
+
+    /**
+     * Updates the name and content caches for a file. Any previous
+     * entries for the file are removed, and new entries are added
+     * if the file exists.
+     *
+     * @param file           the file added, modified or removed
+     */
+    private void update(File file) {
+        if (file.getName().startsWith(INDEX_PREFIX)) {
+            return;
+        }
+        MibSource src = new MibSource(file);
+        Map<String,MibSource> map = nameCache;
+        if (map != null) {
+            map.values().removeAll(Collections.singleton(src));
+            String mibName = guessMibName(file.getPath());
+            if (mibName != null && file.isFile()) {
+                map.put(mibName, src);
+            }
+        }
+        map = contentCache;
+        if (map != null) {
+            map.values().removeAll(Collections.singleton(src));
+            String mibName = readMibName(file);
+            if (mibName != null) {
+                map.put(mibName, src);
+            }
+        }
+    }
+
+    /**
+     * Reloads a modified MIB file in a MIB loader. If the file
+     * hasn't been loaded previously, it is only loaded if the load
+     * flag is set. Any errors are ignored.
+     *
+     * @param loader         the MIB loader to update
+     * @param file           the file added or modified
+     * @param load           the load new MIB files flag
+     */
+    private static void reload(MibLoader loader, File file, boolean load) {
+        try {
+            if (loader.getMib(file) != null) {
+                loader.reload(file);
+            } else if (loader.getMib(file.getAbsoluteFile()) != null) {
+                loader.reload(file.getAbsoluteFile());
+            } else if (load && file.isFile() && readMibName(file) != null) {
+                loader.load(file);
+            }
+        } catch (Exception ignore) {
+            // Do nothing, errors are ignored
+        }
+    }
+
     /**
      * Finds all MIB files found in directory. The MIB names are
      * either guessed from the file names or read from the content.
@@ -216,20 +553,55 @@ public class MibLocator {
      *
      * @param dir            the file directory
      * @param readContent    the read MIB content flag
+     * @param indexFile      the content index file, or null for none
+     * @param count          the scan counters to update
      *
      * @return a map of MIB module names to MIB sources
      */
-    private static Map<String,MibSource> readDir(File dir, boolean readContent) {
+    private static Map<String,MibSource> readDir(File dir,
+                                                 boolean readContent,
+                                                 File indexFile,
+                                                 ScanCount count) {
+
         HashMap<String,MibSource> res = new HashMap<>();
         File[] files = dir.listFiles();
-        if (files != null) {
+        if (files != null && readContent) {
+            HashMap<String,IndexEntry> index = new HashMap<>();
+            if (indexFile != null) {
+                index = readIndex(indexFile, dir);
+            }
+            HashMap<String,IndexEntry> found = new HashMap<>();
+            boolean modified = false;
             for (File file : files) {
-                String mibName = null;
-                if (!readContent) {
-                    mibName = guessMibName(file.getName());
+                if (file.getName().startsWith(INDEX_PREFIX)) {
+                    continue;
+                }
+                IndexEntry entry = index.get(file.getName());
+                count.files++;
+                if (entry == null || !entry.matches(file)) {
+                    entry = new IndexEntry(file, readMibName(file));
+                    modified = true;
+                    count.misses++;
                 } else {
-                    mibName = readMibName(file);
+                    count.hits++;
+                }
+                found.put(file.getName(), entry);
+                if (entry.mibName != null) {
+                    res.put(entry.mibName, new MibSource(file));
                 }
+            }
+            if (indexFile != null &&
+                (modified || found.size() != index.size())) {
+
+                writeIndex(indexFile, dir, found);
+            }
+        } else if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith(INDEX_PREFIX)) {
+                    continue;
+                }
+                count.files++;
+                String mibName = guessMibName(file.getName());
                 if (mibName != null) {
                     res.put(mibName, new MibSource(file));
                 }
@@ -238,6 +610,98 @@ public class MibLocator {
         return res;
     }
 
+    /**
+     * Reads a directory content index file. If the file doesn't
+     * exist, couldn't be read or was created for another directory,
+     * an empty index is returned.
+     *
+     * @param file           the index file
+     * @param dir            the file directory
+     *
+     * @return the map of file names to index entries
+     */
+    private static HashMap<String,IndexEntry> readIndex(File file, File dir) {
+        HashMap<String,IndexEntry> res = new HashMap<>();
+        try (
+            InputStream is = new FileInputStream(file);
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(is));
+        ) {
+            if (in.readInt() != INDEX_MAGIC ||
+                in.readInt() != INDEX_VERSION ||
+                !in.readUTF().equals(dir.getAbsolutePath())) {
+                return res;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String fileName = in.readUTF();
+                IndexEntry entry = new IndexEntry();
+                entry.size = in.readLong();
+                entry.lastModified = in.readLong();
+                entry.mibName = in.readUTF();
+                if (entry.mibName.length() == 0) {
+                    entry.mibName = null;
+                }
+                res.put(fileName, entry);
+            }
+        } catch (FileNotFoundException ignore) {
+            // Do nothing, no index file
+        } catch (IOException e) {
+            res.clear();
+        }
+        return res;
+    }
+
+    /**
+     * Writes a directory content index file. The file is written
+     * atomically by first writing a temporary file. Any errors (such
+     * as a read-only directory) are ignored.
+     *
+     * @param file           the index file
+     * @param dir            the file directory
+     * @param index          the map of file names to index entries
+     */
+    private static void writeIndex(File file,
+                                   File dir,
+                                   Map<String,IndexEntry> index) {
+
+        File cacheDir = file.getParentFile();
+        cacheDir.mkdirs();
+        if (!cacheDir.canWrite()) {
+            return;
+        }
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(file.getName(), ".tmp", cacheDir);
+            try (
+                FileOutputStream os = new FileOutputStream(tmp);
+                DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(os));
+            ) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(INDEX_VERSION);
+                out.writeUTF(dir.getAbsolutePath());
+                out.writeInt(index.size());
+                for (Map.Entry<String,IndexEntry> e : index.entrySet()) {
+                    IndexEntry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.lastModified);
+                    out.writeUTF(entry.mibName == null ? "" : entry.mibName);
+                }
+            }
+            Files.move(tmp.toPath(),
+                       file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ignore) {
+            // Do nothing, index is only an optimization
+        } finally {
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
     /**
      * Finds all MIB files found in a JAR URL. The MIB names are
      * either guessed from the file names or read from the content.
@@ -246,12 +710,14 @@ public class MibLocator {
      * @param url            the JAR URL (resource URL)
      * @param prefix         the path prefix
      * @param readContent    the read MIB content flag
+     * @param count          the scan counters to update
      *
      * @return a map of MIB module names to MIB sources
      */
     private static Map<String,MibSource> readJar(URL url,
                                                  String prefix,
-                                                 boolean readContent) {
+                                                 boolean readContent,
+                                                 ScanCount count) {
 
         HashMap<String,MibSource> res = new HashMap<>();
         try (
@@ -264,10 +730,12 @@ public class MibLocator {
                 if (path.startsWith(prefix)) {
                     URL resUrl = new URL(urlBase + "!/" + path);
                     String mibName = null;
+                    count.files++;
                     if (!readContent) {
                         mibName = guessMibName(path);
                     } else {
                         mibName = readMibName(resUrl);
+                        count.misses++;
                     }
                     if (mibName != null) {
                         res.put(mibName, new MibSource(path, resUrl));
@@ -372,4 +840,82 @@ public class MibLocator {
         }
         return null;
     }
+
+
+    /**
+     * A set of directory scan counters.
+     */
+    private static class ScanCount {
+
+        /**
+         * The number of files scanned.
+         */
+        public int files = 0;
+
+        /**
+         * The number of files found unmodified in the index.
+         */
+        public int hits = 0;
+
+        /**
+         * The number of files read (not found in the index).
+         */
+        public int misses = 0;
+    }
+
+
+    /**
+     * A directory content index entry. Each entry contains the MIB
+     * name read from a file, together with the file size and
+     * modification time used to detect changes.
+     */
+    private static class IndexEntry {
+
+        /**
+         * The file size (in bytes).
+         */
+        public long size;
+
+        /**
+         * The file last modification time.
+         */
+        public long lastModified;
+
+        /**
+         * The MIB name read from the file, or null for none.
+         */
+        public String mibName;
+
+        /**
+         * Creates a new empty index entry.
+         */
+        public IndexEntry() {
+            // Nothing to initialize
+        }
+
+        /**
+         * Creates a new index entry for a file.
+         *
+         * @param file           the file
+         * @param mibName        the MIB name read, or null
+         */
+        public IndexEntry(File file, String mibName) {
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+            this.mibName = mibName;
+        }
+
+        /**
+         * Checks if this entry is still valid for a file.
+         *
+         * @param file           the file to check
+         *
+         * @return true if the file size and modification time match,
+         *         or false otherwise
+         */
+        public boolean matches(File file) {
+            return size == file.length() &&
+                   lastModified == file.lastModified();
+        }
+    }
 }
@@ -0,0 +1,757 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import net.percederberg.mibble.snmp.SnmpAgentCapabilities;
+import net.percederberg.mibble.snmp.SnmpModuleCompliance;
+import net.percederberg.mibble.snmp.SnmpModuleIdentity;
+import net.percederberg.mibble.snmp.SnmpNotificationGroup;
+import net.percederberg.mibble.snmp.SnmpNotificationType;
+import net.percederberg.mibble.snmp.SnmpObjectGroup;
+import net.percederberg.mibble.snmp.SnmpObjectIdentity;
+import net.percederberg.mibble.snmp.SnmpObjectType;
+import net.percederberg.mibble.value.ObjectIdentifierValue;
+
+/**
+ * A read-only, memory-mapped object identifier (OID) index. The
+ * index file contains a flat copy of the OID tree in a MIB loader,
+ * with the numeric arcs, names, owning MIB names, symbol kinds and
+ * syntax tags for each node. The index file is created with
+ * MibLoader.saveOidIndex() and opened with open().<p>
+ *
+ * The index is queried directly from the memory-mapped file, so no
+ * objects are created when the file is opened or when searching the
+ * tree. Instead, each OID node is identified by an int handle
+ * (the node position in the file). Only the name lookups create new
+ * string objects. As the file is mapped read-only, several processes
+ * on the same host may share the same (page-cached) index file. An
+ * OID index instance is safe for use by multiple threads.<p>
+ *
+ * The file format consists of a header, a table of fixed-size node
+ * records and a string table. The node records are stored in
+ * breadth-first order, so that the children of each node are stored
+ * consecutively and ordered by their numeric arc value. Node zero
+ * is an unnamed root node, with the "ccitt", "iso" and
+ * "joint-iso-ccitt" nodes as children.
+ *
+ * @see MibLoader#saveOidIndex(File)
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class MibOidIndex {
+
+    /**
+     * The node kind for an OID without a symbol.
+     */
+    public static final int KIND_NONE = 0;
+
+    /**
+     * The node kind for a plain OBJECT IDENTIFIER value symbol (or
+     * any other symbol type not listed separately).
+     */
+    public static final int KIND_VALUE = 1;
+
+    /**
+     * The node kind for an SNMP OBJECT-TYPE symbol.
+     */
+    public static final int KIND_OBJECT_TYPE = 2;
+
+    /**
+     * The node kind for an SNMP OBJECT-IDENTITY symbol.
+     */
+    public static final int KIND_OBJECT_IDENTITY = 3;
+
+    /**
+     * The node kind for an SNMP MODULE-IDENTITY symbol.
+     */
+    public static final int KIND_MODULE_IDENTITY = 4;
+
+    /**
+     * The node kind for an SNMP NOTIFICATION-TYPE symbol.
+     */
+    public static final int KIND_NOTIFICATION_TYPE = 5;
+
+    /**
+     * The node kind for an SNMP OBJECT-GROUP symbol.
+     */
+    public static final int KIND_OBJECT_GROUP = 6;
+
+    /**
+     * The node kind for an SNMP NOTIFICATION-GROUP symbol.
+     */
+    public static final int KIND_NOTIFICATION_GROUP = 7;
+
+    /**
+     * The node kind for an SNMP MODULE-COMPLIANCE symbol.
+     */
+    public static final int KIND_MODULE_COMPLIANCE = 8;
+
+    /**
+     * The node kind for an SNMP AGENT-CAPABILITIES symbol.
+     */
+    public static final int KIND_AGENT_CAPABILITIES = 9;
+
+    /**
+     * The node flag for a scalar OBJECT-TYPE symbol.
+     */
+    public static final int FLAG_SCALAR = 0x01;
+
+    /**
+     * The node flag for a table OBJECT-TYPE symbol.
+     */
+    public static final int FLAG_TABLE = 0x02;
+
+    /**
+     * The node flag for a table row OBJECT-TYPE symbol.
+     */
+    public static final int FLAG_TABLE_ROW = 0x04;
+
+    /**
+     * The node flag for a table column OBJECT-TYPE symbol.
+     */
+    public static final int FLAG_TABLE_COLUMN = 0x08;
+
+    /**
+     * The index file magic number.
+     */
+    private static final int MAGIC = 0x4D49424F;
+
+    /**
+     * The index file format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The index file header size (in bytes).
+     */
+    private static final int HEADER_SIZE = 24;
+
+    /**
+     * The node record size (in bytes).
+     */
+    private static final int NODE_SIZE = 32;
+
+    /**
+     * The node record offset for the numeric arc value.
+     */
+    private static final int NODE_ARC = 0;
+
+    /**
+     * The node record offset for the parent node handle.
+     */
+    private static final int NODE_PARENT = 4;
+
+    /**
+     * The node record offset for the first child node handle.
+     */
+    private static final int NODE_FIRST_CHILD = 8;
+
+    /**
+     * The node record offset for the number of children.
+     */
+    private static final int NODE_CHILD_COUNT = 12;
+
+    /**
+     * The node record offset for the name string offset.
+     */
+    private static final int NODE_NAME = 16;
+
+    /**
+     * The node record offset for the MIB name string offset.
+     */
+    private static final int NODE_MIB = 20;
+
+    /**
+     * The node record offset for the symbol kind byte.
+     */
+    private static final int NODE_KIND = 24;
+
+    /**
+     * The node record offset for the symbol flags byte.
+     */
+    private static final int NODE_FLAGS = 25;
+
+    /**
+     * The node record offset for the syntax tag category byte.
+     */
+    private static final int NODE_TAG_CATEGORY = 26;
+
+    /**
+     * The node record offset for the syntax tag value.
+     */
+    private static final int NODE_TAG_VALUE = 28;
+
+    /**
+     * The memory-mapped index file buffer.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The number of node records.
+     */
+    private int nodes;
+
+    /**
+     * The string table offset.
+     */
+    private int strings;
+
+    /**
+     * Opens an OID index file. The file contents is memory-mapped
+     * and the file itself is closed before returning.
+     *
+     * @param file           the index file
+     *
+     * @return the OID index
+     *
+     * @throws IOException if the file couldn't be read, or if it
+     *             isn't a valid OID index file
+     */
+    public static MibOidIndex open(File file) throws IOException {
+        try (
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+        ) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                            0,
+                                            channel.size());
+            if (buffer.limit() < HEADER_SIZE ||
+                buffer.getInt(0) != MAGIC ||
+                buffer.getInt(4) != VERSION ||
+                buffer.getInt(16) + buffer.getInt(20) != buffer.limit()) {
+
+                throw new IOException("invalid OID index file: " + file);
+            }
+            return new MibOidIndex(buffer);
+        }
+    }
+
+    /**
+     * Writes an OID index file for all OID trees in a MIB context.
+     * The file is written atomically, by first writing a temporary
+     * file in the same directory and then renaming it.
+     *
+     * @param context        the default MIB context
+     * @param file           the index file
+     *
+     * @throws IOException if the file couldn't be written
+     */
+    static void write(DefaultContext context, File file)
+        throws IOException {
+
+        String[] roots = {
+            DefaultContext.CCITT,
+            DefaultContext.ISO,
+            DefaultContext.JOINT_ISO_CCITT
+        };
+        ArrayList<ObjectIdentifierValue> list = new ArrayList<>();
+        IdentityHashMap<ObjectIdentifierValue,Integer> handles =
+            new IdentityHashMap<>();
+        list.add(null);
+        for (String name : roots) {
+            MibSymbol symbol = context.findSymbol(name, false);
+            MibValue value = ((MibValueSymbol) symbol).getValue();
+            list.add((ObjectIdentifierValue) value);
+        }
+        for (int i = 1; i < list.size(); i++) {
+            ObjectIdentifierValue oid = list.get(i);
+            handles.put(oid, Integer.valueOf(i));
+            for (int j = 0; j < oid.getChildCount(); j++) {
+                list.add(oid.getChild(j));
+            }
+        }
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        DataOutputStream strings = new DataOutputStream(table);
+        HashMap<String,Integer> offsets = new HashMap<>();
+        int[] names = new int[list.size()];
+        int[] mibs = new int[list.size()];
+        names[0] = -1;
+        mibs[0] = -1;
+        for (int i = 1; i < list.size(); i++) {
+            ObjectIdentifierValue oid = list.get(i);
+            Mib mib = oid.getMib();
+            names[i] = writeString(strings, offsets, oid.getName());
+            mibs[i] = writeString(strings,
+                                  offsets,
+                                  (mib == null) ? null : mib.getName());
+        }
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (
+                FileOutputStream os = new FileOutputStream(tmp);
+                DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(os));
+            ) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(list.size());
+                out.writeInt(HEADER_SIZE);
+                out.writeInt(HEADER_SIZE + list.size() * NODE_SIZE);
+                out.writeInt(table.size());
+                writeNode(out, -1, -1, 1, roots.length, -1, -1, null);
+                int child = 1 + roots.length;
+                for (int i = 1; i < list.size(); i++) {
+                    ObjectIdentifierValue oid = list.get(i);
+                    Integer parent = handles.get(oid.getParent());
+                    writeNode(out,
+                              oid.getValue(),
+                              (parent == null) ? 0 : parent.intValue(),
+                              child,
+                              oid.getChildCount(),
+                              names[i],
+                              mibs[i],
+                              oid.getSymbol());
+                    child += oid.getChildCount();
+                }
+                table.writeTo(out);
+            }
+            Files.move(tmp.toPath(),
+                       file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Writes a node record to an index file.
+     *
+     * @param out            the output stream
+     * @param arc            the numeric arc value
+     * @param parent         the parent node handle, or -1
+     * @param firstChild     the first child node handle
+     * @param childCount     the number of children
+     * @param name           the name string offset, or -1
+     * @param mib            the MIB name string offset, or -1
+     * @param symbol         the value symbol, or null
+     *
+     * @throws IOException if the node couldn't be written
+     */
+    private static void writeNode(DataOutputStream out,
+                                  int arc,
+                                  int parent,
+                                  int firstChild,
+                                  int childCount,
+                                  int name,
+                                  int mib,
+                                  MibValueSymbol symbol)
+        throws IOException {
+
+        int         kind = KIND_NONE;
+        int         flags = 0;
+        MibTypeTag  tag = null;
+
+        if (symbol != null) {
+            MibType type = symbol.getType();
+            kind = KIND_VALUE;
+            if (type instanceof SnmpObjectType) {
+                kind = KIND_OBJECT_TYPE;
+                tag = ((SnmpObjectType) type).getSyntax().getTag();
+                if (symbol.isTable()) {
+                    flags = FLAG_TABLE;
+                } else if (symbol.isTableRow()) {
+                    flags = FLAG_TABLE_ROW;
+                } else if (symbol.isTableColumn()) {
+                    flags = FLAG_TABLE_COLUMN;
+                } else {
+                    flags = FLAG_SCALAR;
+                }
+            } else if (type instanceof SnmpObjectIdentity) {
+                kind = KIND_OBJECT_IDENTITY;
+            } else if (type instanceof SnmpModuleIdentity) {
+                kind = KIND_MODULE_IDENTITY;
+            } else if (type instanceof SnmpNotificationType) {
+                kind = KIND_NOTIFICATION_TYPE;
+            } else if (type instanceof SnmpObjectGroup) {
+                kind = KIND_OBJECT_GROUP;
+            } else if (type instanceof SnmpNotificationGroup) {
+                kind = KIND_NOTIFICATION_GROUP;
+            } else if (type instanceof SnmpModuleCompliance) {
+                kind = KIND_MODULE_COMPLIANCE;
+            } else if (type instanceof SnmpAgentCapabilities) {
+                kind = KIND_AGENT_CAPABILITIES;
+            }
+        }
+        out.writeInt(arc);
+        out.writeInt(parent);
+        out.writeInt(firstChild);
+        out.writeInt(childCount);
+        out.writeInt(name);
+        out.writeInt(mib);
+        out.writeByte(kind);
+        out.writeByte(flags);
+        out.writeByte(tag == null ? -1 : tag.getCategory());
+        out.writeByte(0);
+        out.writeInt(tag == null ? 0 : tag.getValue());
+    }
+
+    /**
+     * Writes a string to the string table. Each string is only
+     * written once, so repeated strings will reuse the same offset.
+     *
+     * @param out            the string table output stream
+     * @param offsets        the map of previously written strings
+     * @param str            the string to write, or null
+     *
+     * @return the string table offset, or
+     *         -1 if the string was null
+     *
+     * @throws IOException if the string couldn't be written
+     */
+    private static int writeString(DataOutputStream out,
+                                   HashMap<String,Integer> offsets,
+                                   String str)
+        throws IOException {
+
+        if (str == null) {
+            return -1;
+        }
+        Integer offset = offsets.get(str);
+        if (offset == null) {
+            byte[] data = str.getBytes(StandardCharsets.UTF_8);
+            offset = Integer.valueOf(out.size());
+            out.writeShort(data.length);
+            out.write(data);
+            offsets.put(str, offset);
+        }
+        return offset.intValue();
+    }
+
+    /**
+     * Creates a new OID index.
+     *
+     * @param buffer         the index file buffer
+     */
+    private MibOidIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.nodes = buffer.getInt(8);
+        this.strings = buffer.getInt(16);
+    }
+
+    /**
+     * Returns the number of OID nodes in the index. This includes
+     * the unnamed root node (with handle zero).
+     *
+     * @return the number of OID nodes
+     */
+    public int getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Searches the index for the best matching OID node. The search
+     * returns the node for the longest prefix of the numeric OID
+     * that is present in the index. Any remaining OID arcs are
+     * typically an instance suffix (such as a table row index).
+     *
+     * @param oid            the numeric OID arcs (from the root)
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the best matching OID node handle, or
+     *         -1 if no partial match was found
+     */
+    public int find(int[] oid, int offset, int length) {
+        int node = 0;
+        for (int i = 0; i < length; i++) {
+            int child = findChild(node, oid[offset + i]);
+            if (child < 0) {
+                break;
+            }
+            node = child;
+        }
+        return node == 0 ? -1 : node;
+    }
+
+    /**
+     * Searches the index for an exact OID node match.
+     *
+     * @param oid            the numeric OID arcs (from the root)
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the matching OID node handle, or
+     *         -1 if no exact match was found
+     */
+    public int findExact(int[] oid, int offset, int length) {
+        int node = find(oid, offset, length);
+        if (node > 0 && getDepth(node) == length) {
+            return node;
+        }
+        return -1;
+    }
+
+    /**
+     * Searches for a child node by its numeric arc value. This
+     * method uses binary search.
+     *
+     * @param node           the parent node handle
+     * @param arc            the child arc value
+     *
+     * @return the child node handle, or
+     *         -1 if not found
+     */
+    public int findChild(int node, int arc) {
+        int low = getInt(node, NODE_FIRST_CHILD);
+        int high = low + getInt(node, NODE_CHILD_COUNT) - 1;
+        while (low <= high) {
+            int pos = (low + high) >>> 1;
+            int value = getInt(pos, NODE_ARC);
+            if (value == arc) {
+                return pos;
+            } else if (value < arc) {
+                low = pos + 1;
+            } else {
+                high = pos - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the numeric arc value of an OID node.
+     *
+     * @param node           the node handle
+     *
+     * @return the numeric arc value
+     */
+    public int getArc(int node) {
+        return getInt(node, NODE_ARC);
+    }
+
+    /**
+     * Returns the parent of an OID node.
+     *
+     * @param node           the node handle
+     *
+     * @return the parent node handle, or
+     *         -1 for the unnamed root node
+     */
+    public int getParent(int node) {
+        return getInt(node, NODE_PARENT);
+    }
+
+    /**
+     * Returns the number of children of an OID node.
+     *
+     * @param node           the node handle
+     *
+     * @return the number of child nodes
+     */
+    public int getChildCount(int node) {
+        return getInt(node, NODE_CHILD_COUNT);
+    }
+
+    /**
+     * Returns a child of an OID node. The children are ordered by
+     * their numeric arc value.
+     *
+     * @param node           the node handle
+     * @param index          the child position, starting from 0
+     *
+     * @return the child node handle
+     *
+     * @throws IndexOutOfBoundsException if the child index was out
+     *             of range
+     */
+    public int getChild(int node, int index) {
+        if (index < 0 || index >= getInt(node, NODE_CHILD_COUNT)) {
+            throw new IndexOutOfBoundsException("child index: " + index);
+        }
+        return getInt(node, NODE_FIRST_CHILD) + index;
+    }
+
+    /**
+     * Returns the depth of an OID node, i.e. the number of numeric
+     * arcs from the root.
+     *
+     * @param node           the node handle
+     *
+     * @return the number of OID arcs for the node
+     */
+    public int getDepth(int node) {
+        int depth = 0;
+        while (node > 0) {
+            depth++;
+            node = getInt(node, NODE_PARENT);
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the numeric OID arcs of an OID node.
+     *
+     * @param node           the node handle
+     *
+     * @return an array with the numeric OID arcs (from the root)
+     */
+    public int[] getOid(int node) {
+        int[] res = new int[getDepth(node)];
+        for (int i = res.length - 1; i >= 0; i--) {
+            res[i] = getInt(node, NODE_ARC);
+            node = getInt(node, NODE_PARENT);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the name of an OID node.
+     *
+     * @param node           the node handle
+     *
+     * @return the OID node name, or
+     *         null if the node has no name
+     */
+    public String getName(int node) {
+        return getString(getInt(node, NODE_NAME));
+    }
+
+    /**
+     * Returns the name of the MIB defining an OID node.
+     *
+     * @param node           the node handle
+     *
+     * @return the MIB name, or
+     *         null if the node has no symbol
+     */
+    public String getMibName(int node) {
+        return getString(getInt(node, NODE_MIB));
+    }
+
+    /**
+     * Returns the symbol kind of an OID node.
+     *
+     * @param node           the node handle
+     *
+     * @return the symbol kind, or
+     *         KIND_NONE if the node has no symbol
+     *
+     * @see #KIND_NONE
+     * @see #KIND_VALUE
+     * @see #KIND_OBJECT_TYPE
+     */
+    public int getKind(int node) {
+        return buffer.get(position(node) + NODE_KIND);
+    }
+
+    /**
+     * Returns the symbol flags of an OID node. The flags are only
+     * set for OBJECT-TYPE symbols.
+     *
+     * @param node           the node handle
+     *
+     * @return the symbol flags, or
+     *         zero (0) if not an OBJECT-TYPE symbol
+     *
+     * @see #FLAG_SCALAR
+     * @see #FLAG_TABLE
+     * @see #FLAG_TABLE_ROW
+     * @see #FLAG_TABLE_COLUMN
+     */
+    public int getFlags(int node) {
+        return buffer.get(position(node) + NODE_FLAGS);
+    }
+
+    /**
+     * Returns the syntax tag category of an OID node. The syntax
+     * tag is only set for OBJECT-TYPE symbols.
+     *
+     * @param node           the node handle
+     *
+     * @return the syntax tag category, or
+     *         -1 if the node has no syntax tag
+     *
+     * @see MibTypeTag#getCategory()
+     */
+    public int getSyntaxTagCategory(int node) {
+        return buffer.get(position(node) + NODE_TAG_CATEGORY);
+    }
+
+    /**
+     * Returns the syntax tag value of an OID node. The syntax tag
+     * is only set for OBJECT-TYPE symbols.
+     *
+     * @param node           the node handle
+     *
+     * @return the syntax tag value
+     *
+     * @see MibTypeTag#getValue()
+     */
+    public int getSyntaxTagValue(int node) {
+        return getInt(node, NODE_TAG_VALUE);
+    }
+
+    /**
+     * Returns the file position of a node record.
+     *
+     * @param node           the node handle
+     *
+     * @return the node record file position
+     *
+     * @throws IndexOutOfBoundsException if the node handle was out
+     *             of range
+     */
+    private int position(int node) {
+        if (node < 0 || node >= nodes) {
+            throw new IndexOutOfBoundsException("OID node: " + node);
+        }
+        return HEADER_SIZE + node * NODE_SIZE;
+    }
+
+    /**
+     * Returns an integer field from a node record.
+     *
+     * @param node           the node handle
+     * @param field          the node record field offset
+     *
+     * @return the field value
+     */
+    private int getInt(int node, int field) {
+        return buffer.getInt(position(node) + field);
+    }
+
+    /**
+     * Returns a string from the string table.
+     *
+     * @param offset         the string table offset, or -1
+     *
+     * @return the string found, or
+     *         null if the offset was -1
+     */
+    private String getString(int offset) {
+        if (offset < 0) {
+            return null;
+        }
+        int pos = strings + offset;
+        byte[] data = new byte[buffer.getShort(pos) & 0xFFFF];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = buffer.get(pos + 2 + i);
+        }
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.util.Arrays;
+
+import net.percederberg.mibble.value.ObjectIdentifierValue;
+
+/**
+ * A MIB symbol match for a numeric OID. This class contains the
+ * MIB value symbol with the longest matching OID value, and any
+ * remaining OID arcs not part of the symbol OID. The remaining OID
+ * arcs are normally an instance suffix, such as ".0" for a scalar
+ * value or a table row index.
+ *
+ * @see MibLoader#getSymbolByOid(int[], int, int)
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class MibOidMatch {
+
+    /**
+     * The matching OID value.
+     */
+    private ObjectIdentifierValue oid;
+
+    /**
+     * The remaining OID arcs (the instance suffix).
+     */
+    private int[] suffix;
+
+    /**
+     * Creates a new MIB symbol match.
+     *
+     * @param oid            the matching OID value
+     * @param suffix         the remaining OID arcs
+     */
+    MibOidMatch(ObjectIdentifierValue oid, int[] suffix) {
+        this.oid = oid;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Checks if the match was exact, i.e. if there are no remaining
+     * OID arcs.
+     *
+     * @return true if the OID matched the symbol exactly, or
+     *         false otherwise
+     */
+    public boolean isExact() {
+        return suffix.length == 0;
+    }
+
+    /**
+     * Returns the matching MIB value symbol.
+     *
+     * @return the matching MIB value symbol
+     */
+    public MibValueSymbol getSymbol() {
+        return oid.getSymbol();
+    }
+
+    /**
+     * Returns the matching OID value. This is the OID value of the
+     * matching MIB value symbol.
+     *
+     * @return the matching OID value
+     */
+    public ObjectIdentifierValue getOid() {
+        return oid;
+    }
+
+    /**
+     * Returns the number of remaining OID arcs.
+     *
+     * @return the number of remaining OID arcs
+     */
+    public int getSuffixLength() {
+        return suffix.length;
+    }
+
+    /**
+     * Returns the remaining OID arcs. These are the numeric OID
+     * values following the symbol OID, normally representing an
+     * instance suffix.
+     *
+     * @return a copy of the remaining OID arcs
+     */
+    public int[] getSuffix() {
+        return suffix.clone();
+    }
+
+    /**
+     * Returns a remaining OID arc.
+     *
+     * @param index          the suffix position, starting from 0
+     *
+     * @return the remaining OID arc value
+     *
+     * @throws IndexOutOfBoundsException if the index was out of range
+     */
+    public int getSuffix(int index) {
+        return suffix[index];
+    }
+
+    /**
+     * Returns a string representation of this object.
+     *
+     * @return a string representation of this object
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(getSymbol().getName());
+        for (int value : suffix) {
+            buffer.append(".");
+            buffer.append(value);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Searches the OID tree for the longest matching MIB value
+     * symbol. OID values without a symbol, or with a symbol not
+     * belonging to any MIB (such as the OID tree roots), will be
+     * skipped in the search.
+     *
+     * @param context        the default MIB context
+     * @param oid            the numeric OID arcs to search for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the MIB symbol match found, or
+     *         null if no matching symbol was found
+     */
+    static MibOidMatch find(DefaultContext context,
+                            int[] oid,
+                            int offset,
+                            int length) {
+
+        ObjectIdentifierValue match = context.findOid(oid, offset, length);
+        while (match != null &&
+               (match.getSymbol() == null || match.getMib() == null)) {
+
+            match = match.getParent();
+        }
+        if (match == null) {
+            return null;
+        }
+        int depth = 0;
+        for (ObjectIdentifierValue p = match; p != null; p = p.getParent()) {
+            depth++;
+        }
+        int[] suffix = Arrays.copyOfRange(oid, offset + depth, offset + length);
+        return new MibOidMatch(match, suffix);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.percederberg.mibble.value.NumberValue;
+
+/**
+ * A pool of shared immutable objects. Each MIB loader has its own
+ * pool, used when parsing MIB files to share identical identifier
+ * strings and number values across all the loaded MIB modules. The
+ * pool is safe for use by concurrent parsers.<p>
+ *
+ * Only objects that are never modified after creation may be added
+ * to the pool. Number values qualify, since value references always
+ * create a new copy of the referenced value. Types, constraints and
+ * value references are bound to a MIB context and file location, so
+ * they are never shared.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+class MibPool {
+
+    /**
+     * The map of shared strings.
+     */
+    private ConcurrentHashMap<String,String> strings =
+        new ConcurrentHashMap<>();
+
+    /**
+     * The map of shared number values. The map is indexed by the
+     * number, so that numbers of different classes (such as Integer
+     * and Long) are kept apart.
+     */
+    private ConcurrentHashMap<Number,NumberValue> numbers =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Returns a shared string equal to the specified one. If no
+     * such string exists in the pool, the string will be added.
+     *
+     * @param str            the string, or null
+     *
+     * @return the shared string, or
+     *         null if the string was null
+     */
+    String intern(String str) {
+        if (str == null) {
+            return null;
+        }
+        String prev = strings.putIfAbsent(str, str);
+        return (prev == null) ? str : prev;
+    }
+
+    /**
+     * Returns a shared number value for the specified number. If no
+     * such value exists in the pool, a new one will be created.
+     *
+     * @param number         the number
+     *
+     * @return the shared number value
+     */
+    NumberValue getNumberValue(Number number) {
+        NumberValue value = numbers.get(number);
+        if (value == null) {
+            value = new NumberValue(number);
+            NumberValue prev = numbers.putIfAbsent(number, value);
+            if (prev != null) {
+                value = prev;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes all objects from the pool. Objects already shared are
+     * unaffected.
+     */
+    void clear() {
+        strings.clear();
+        numbers.clear();
+    }
+}
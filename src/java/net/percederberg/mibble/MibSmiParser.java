@@ -0,0 +1,1968 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import net.percederberg.grammatica.parser.ParseException;
+import net.percederberg.grammatica.parser.Token;
+import net.percederberg.mibble.asn1.Asn1Constants;
+import net.percederberg.mibble.snmp.SnmpAccess;
+import net.percederberg.mibble.snmp.SnmpAgentCapabilities;
+import net.percederberg.mibble.snmp.SnmpCompliance;
+import net.percederberg.mibble.snmp.SnmpIndex;
+import net.percederberg.mibble.snmp.SnmpModule;
+import net.percederberg.mibble.snmp.SnmpModuleCompliance;
+import net.percederberg.mibble.snmp.SnmpModuleIdentity;
+import net.percederberg.mibble.snmp.SnmpModuleSupport;
+import net.percederberg.mibble.snmp.SnmpNotificationGroup;
+import net.percederberg.mibble.snmp.SnmpNotificationType;
+import net.percederberg.mibble.snmp.SnmpObjectGroup;
+import net.percederberg.mibble.snmp.SnmpObjectIdentity;
+import net.percederberg.mibble.snmp.SnmpObjectType;
+import net.percederberg.mibble.snmp.SnmpRevision;
+import net.percederberg.mibble.snmp.SnmpStatus;
+import net.percederberg.mibble.snmp.SnmpTextualConvention;
+import net.percederberg.mibble.snmp.SnmpTrapType;
+import net.percederberg.mibble.snmp.SnmpVariation;
+import net.percederberg.mibble.type.BitSetType;
+import net.percederberg.mibble.type.BooleanType;
+import net.percederberg.mibble.type.ChoiceType;
+import net.percederberg.mibble.type.CompoundConstraint;
+import net.percederberg.mibble.type.Constraint;
+import net.percederberg.mibble.type.ElementType;
+import net.percederberg.mibble.type.IntegerType;
+import net.percederberg.mibble.type.NullType;
+import net.percederberg.mibble.type.ObjectIdentifierType;
+import net.percederberg.mibble.type.RealType;
+import net.percederberg.mibble.type.SequenceOfType;
+import net.percederberg.mibble.type.SequenceType;
+import net.percederberg.mibble.type.SizeConstraint;
+import net.percederberg.mibble.type.StringType;
+import net.percederberg.mibble.type.TypeReference;
+import net.percederberg.mibble.type.ValueConstraint;
+import net.percederberg.mibble.type.ValueRangeConstraint;
+import net.percederberg.mibble.value.BinaryNumberValue;
+import net.percederberg.mibble.value.BitSetValue;
+import net.percederberg.mibble.value.BooleanValue;
+import net.percederberg.mibble.value.HexNumberValue;
+import net.percederberg.mibble.value.NullValue;
+import net.percederberg.mibble.value.NumberValue;
+import net.percederberg.mibble.value.ObjectIdentifierValue;
+import net.percederberg.mibble.value.StringValue;
+import net.percederberg.mibble.value.ValueReference;
+
+/**
+ * A fast SMI parser. This class parses the common subset of ASN.1
+ * used by SMIv1 and SMIv2 MIB files, creating the MIB modules and
+ * symbols directly from the token stream. No parse tree is created,
+ * but the result is identical to the one produced by the MIB file
+ * analyzer.<p>
+ *
+ * Any unsupported construct (or syntax error) causes a parse
+ * exception to be thrown, after which the MIB file should be parsed
+ * again with the standard ASN.1 parser. This also covers all
+ * analysis errors, so that error messages are only produced by the
+ * standard parser. No changes are made to the MIB loader (or log)
+ * until the whole file has been successfully parsed.
+ *
+ * @see MibAnalyzer
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+class MibSmiParser implements Asn1Constants {
+
+    /**
+     * The MIB file being parsed.
+     */
+    private File file;
+
+    /**
+     * The MIB loader using this parser.
+     */
+    private MibLoader loader;
+
+    /**
+     * The MIB loader log.
+     */
+    private MibLoaderLog log;
+
+    /**
+     * The log of warnings found during parsing. These are added to
+     * the MIB loader log once parsing has completed.
+     */
+    private MibLoaderLog warnings = new MibLoaderLog();
+
+    /**
+     * The lean mode flag. If set, no MIB text, comments,
+     * descriptions or references are stored.
+     */
+    private boolean lean;
+
+    /**
+     * The MIB tokenizer to read tokens from.
+     */
+    private MibTokenizer tokenizer;
+
+    /**
+     * The look-ahead token buffer.
+     */
+    private Token[] lookahead = new Token[3];
+
+    /**
+     * The number of tokens in the look-ahead buffer.
+     */
+    private int lookaheadCount = 0;
+
+    /**
+     * The last token consumed.
+     */
+    private Token last = null;
+
+    /**
+     * The list of MIB modules found.
+     */
+    private ArrayList<Mib> mibs = new ArrayList<>();
+
+    /**
+     * The current MIB module being parsed.
+     */
+    private Mib currentMib = null;
+
+    /**
+     * The base MIB symbol context. This context will be extended
+     * when parsing the import list.
+     */
+    private MibContext baseContext = null;
+
+    /**
+     * The MIB context stack.
+     *
+     * @see MibAnalyzer
+     */
+    private ArrayList<MibContext> contextStack = new ArrayList<>();
+
+    /**
+     * The implicit tags flag.
+     */
+    private boolean implicitTags = true;
+
+    /**
+     * The set of processed comment tokens.
+     */
+    private HashSet<Token> commentTokens = new HashSet<>();
+
+    /**
+     * The MIB module text collector. Used for releasing tokens once
+     * each symbol has been parsed.
+     */
+    private MibTextCollector moduleText =
+        new MibTextCollector(commentTokens);
+
+    /**
+     * The list of imported MIB names found.
+     */
+    private ArrayList<String> importNames = new ArrayList<>();
+
+    /**
+     * Creates a new fast SMI parser.
+     *
+     * @param file           the MIB file being parsed
+     * @param loader         the MIB loader using this parser
+     * @param log            the MIB loader log to use
+     * @param tokenizer      the MIB tokenizer to read from
+     */
+    MibSmiParser(File file,
+                 MibLoader loader,
+                 MibLoaderLog log,
+                 MibTokenizer tokenizer) {
+
+        this.file = file;
+        this.loader = loader;
+        this.log = log;
+        this.lean = loader.isLeanMode();
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Parses the MIB file.
+     *
+     * @return the list of MIB modules found
+     *
+     * @throws ParseException if the MIB file contained unsupported
+     *             constructs or errors
+     */
+    ArrayList<Mib> parse() throws ParseException {
+        do {
+            parseModuleDefinition();
+        } while (peek(0) != null);
+        if (!lean) {
+            String comment = MibAnalyzerUtil.getCommentsFooter(last,
+                                                               commentTokens);
+            currentMib.setFooterComment(comment);
+        }
+        log.addAll(warnings);
+        return mibs;
+    }
+
+    /**
+     * Returns the list of imported MIB names found during parsing.
+     * The MIB loader is responsible for scheduling these for loading.
+     *
+     * @return a list of imported MIB names
+     */
+    ArrayList<String> getImportNames() {
+        return importNames;
+    }
+
+    /**
+     * Parses a module definition. A new MIB module will be created
+     * and added to the list of MIB modules.
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private void parseModuleDefinition() throws ParseException {
+        Token first = peek(0);
+        currentMib = new Mib(loader, log);
+        baseContext = loader.getDefaultContext();
+        baseContext = new CompoundContext(currentMib, baseContext);
+        pushContext(baseContext);
+        String name = parseModuleIdentifier().getImage();
+        if (!lean) {
+            moduleText.start(first);
+        }
+        expect(DEFINITIONS);
+        if (peekId(0) == EXPLICIT || peekId(0) == IMPLICIT) {
+            implicitTags = (next().getId() == IMPLICIT);
+            expect(TAGS);
+        }
+        expect(DEFINITION);
+        expect(BEGIN);
+        if (peekId(0) != END) {
+            parseModuleBody();
+        }
+        expect(END);
+        currentMib.setName(name);
+        currentMib.setFileRef(getFileRef(first, last));
+        if (!lean) {
+            moduleText.finish(last);
+            Token start = moduleText.getTextStart();
+            currentMib.setText(moduleText.getText(),
+                               start.getStartLine(),
+                               start.getStartColumn());
+            currentMib.setHeaderComment(moduleText.getComments(last));
+            moduleText.reset();
+        }
+        mibs.add(currentMib);
+    }
+
+    /**
+     * Parses a module identifier. Module identifiers with an object
+     * identifier value are not supported.
+     *
+     * @return the module identifier token
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private Token parseModuleIdentifier() throws ParseException {
+        Token token = expect(IDENTIFIER_STRING);
+        if (peekId(0) == LEFT_BRACE) {
+            throw unsupported(peek(0));
+        }
+        return token;
+    }
+
+    /**
+     * Parses the module body, i.e. the exports, imports and all the
+     * assignments.
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private void parseModuleBody() throws ParseException {
+        if (peekId(0) == EXPORTS) {
+            next();
+            if (peekId(0) != SEMI_COLON) {
+                parseSymbolList();
+            }
+            expect(SEMI_COLON);
+        }
+        if (peekId(0) == IMPORTS) {
+            parseImportList();
+        }
+        do {
+            parseAssignment();
+        } while (peekId(0) != END);
+    }
+
+    /**
+     * Parses the import list. All imported MIB modules will be added
+     * to the MIB context.
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private void parseImportList() throws ParseException {
+        Token first = expect(IMPORTS);
+        ArrayList<MibImport> imports = new ArrayList<>();
+        while (peekId(0) != SEMI_COLON) {
+            imports.add(parseSymbolsFromModule());
+        }
+        expect(SEMI_COLON);
+        boolean importsSMI = false;
+        boolean isSMIv2 = false;
+        for (MibImport imp : imports) {
+            String name = imp.getName();
+            importsSMI |= name.equals("RFC1065-SMI") ||
+                          name.equals("RFC1155-SMI") ||
+                          name.equals("SNMPv2-SMI");
+            isSMIv2 |= name.equals("SNMPv2-SMI") ||
+                       name.equals("SNMPv2-TC") ||
+                       name.equals("SNMPv2-CONF");
+        }
+        if (!importsSMI) {
+            MibFileRef ref = getFileRef(first, last);
+            String module = isSMIv2 ? "SNMPv2-SMI" : "RFC1155-SMI";
+            List<String> empty = Collections.<String> emptyList();
+            MibImport imp = new MibImport(loader, ref, module, empty);
+            importNames.add(imp.getName());
+            currentMib.addImport(imp);
+            imports.add(imp);
+        }
+        if (isSMIv2) {
+            currentMib.setSmiVersion(2);
+        }
+        MibContext current = loader.getDefaultContext();
+        for (int i = imports.size() - 1; i >= 0; i--) {
+            current = new CompoundContext(imports.get(i), current);
+        }
+        baseContext = new CompoundContext(currentMib, current);
+        popContext();
+        pushContext(baseContext);
+    }
+
+    /**
+     * Parses the symbols imported from a single MIB module.
+     *
+     * @return the MIB import created
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibImport parseSymbolsFromModule() throws ParseException {
+        ArrayList<String> symbols = parseSymbolList();
+        expect(FROM);
+        Token token = parseModuleIdentifier();
+        String module = token.getImage();
+        MibFileRef ref = getFileRef(token, token);
+        MibImport imp = new MibImport(loader, ref, module, symbols);
+        if (module.equals("RFC1065-SMI")) {
+            warnings.addWarning(ref, "RFC1065-SMI is obsoleted by RFC1155-SMI");
+        }
+        importNames.add(module);
+        currentMib.addImport(imp);
+        return imp;
+    }
+
+    /**
+     * Parses a comma-separated list of symbol names.
+     *
+     * @return the list of symbol names
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private ArrayList<String> parseSymbolList() throws ParseException {
+        ArrayList<String> symbols = new ArrayList<>();
+        while (true) {
+            if (!isSymbolName(peekId(0))) {
+                throw unsupported(peek(0));
+            }
+            symbols.add(next().getImage());
+            if (peekId(0) != COMMA) {
+                return symbols;
+            }
+            next();
+        }
+    }
+
+    /**
+     * Parses a macro, type or value assignment. The corresponding
+     * symbol will be added to the current MIB module, and all tokens
+     * before the last one will be released.
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private void parseAssignment() throws ParseException {
+        if (peekId(1) == MACRO) {
+            parseMacroDefinition();
+        } else if (peekId(0) != IDENTIFIER_STRING) {
+            throw unsupported(peek(0));
+        } else if (peekId(1) == DEFINITION) {
+            parseTypeAssignment();
+        } else {
+            parseValueAssignment();
+        }
+        if (!lean) {
+            moduleText.release(last);
+        }
+        if (peekId(0) == SEMI_COLON) {
+            next();
+        }
+    }
+
+    /**
+     * Parses a macro definition. Only macro definitions with a
+     * macro body are supported.
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private void parseMacroDefinition() throws ParseException {
+        Token first = peek(0);
+        if (!isSymbolName(first.getId())) {
+            throw unsupported(first);
+        }
+        String name = next().getImage();
+        expect(MACRO);
+        expect(DEFINITION);
+        expect(BEGIN);
+        while (peekId(0) != END) {
+            if (!isMacroBodyElement(peekId(0))) {
+                throw unsupported(peek(0));
+            }
+            next();
+        }
+        expect(END);
+        checkSymbolName(name, first);
+        MibFileRef ref = getFileRef(first, last);
+        MibMacroSymbol symbol = new MibMacroSymbol(ref, currentMib, name);
+        symbol.setComment(getComments(first, last));
+    }
+
+    /**
+     * Parses a type assignment.
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private void parseTypeAssignment() throws ParseException {
+        Token first = next();
+        String name = first.getImage();
+        expect(DEFINITION);
+        MibType type = parseType();
+        MibFileRef ref = getFileRef(first, last);
+        checkSymbolName(name, first);
+        if (!Character.isUpperCase(name.charAt(0))) {
+            warnings.addWarning(ref,
+                                "type identifier '" + name + "' doesn't " +
+                                "start with an uppercase character");
+        }
+        MibTypeSymbol symbol = new MibTypeSymbol(ref, currentMib, name, type);
+        symbol.setComment(getComments(first, last));
+    }
+
+    /**
+     * Parses a value assignment.
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private void parseValueAssignment() throws ParseException {
+        Token first = next();
+        String name = first.getImage();
+        MibType type = parseType();
+        expect(DEFINITION);
+        MibValue value = parseValue();
+        MibFileRef ref = getFileRef(first, last);
+        checkSymbolName(name, first);
+        if (!Character.isLowerCase(name.charAt(0))) {
+            warnings.addWarning(ref,
+                                "value identifier '" + name + "' doesn't " +
+                                "start with a lowercase character");
+        }
+        MibValueSymbol symbol = new MibValueSymbol(ref,
+                                                   currentMib,
+                                                   name,
+                                                   type,
+                                                   value);
+        symbol.setComment(getComments(first, last));
+    }
+
+    /**
+     * Parses a type. This method also handles the SNMP macro types.
+     *
+     * @return the MIB type found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseType() throws ParseException {
+        Object value = null;
+        switch (peekId(0)) {
+        case IDENTIFIER_STRING:
+            return parseDefinedType();
+        case NULL:
+            next();
+            return new NullType();
+        case BOOLEAN:
+            next();
+            return new BooleanType();
+        case REAL:
+            next();
+            return new RealType();
+        case INTEGER:
+            next();
+            if (peekId(0) == LEFT_BRACE || peekId(0) == LEFT_PAREN) {
+                value = parseValueOrConstraintList();
+            }
+            if (value instanceof ArrayList) {
+                return new IntegerType((ArrayList<?>) value);
+            } else if (value != null) {
+                return new IntegerType((Constraint) value);
+            } else {
+                return new IntegerType();
+            }
+        case OBJECT:
+            next();
+            expect(IDENTIFIER);
+            return new ObjectIdentifierType();
+        case OCTET:
+            next();
+            expect(STRING);
+            if (peekId(0) == LEFT_PAREN) {
+                return new StringType(parseConstraintList());
+            }
+            return new StringType();
+        case BIT:
+        case BITS:
+            if (next().getId() == BIT) {
+                expect(STRING);
+            }
+            if (peekId(0) == LEFT_BRACE || peekId(0) == LEFT_PAREN) {
+                value = parseValueOrConstraintList();
+            }
+            if (value instanceof ArrayList) {
+                return new BitSetType((ArrayList<?>) value);
+            } else if (value != null) {
+                return new BitSetType((Constraint) value);
+            } else {
+                return new BitSetType();
+            }
+        case SEQUENCE:
+            next();
+            if (peekId(0) == LEFT_BRACE) {
+                next();
+                ArrayList<ElementType> elements = new ArrayList<>();
+                if (peekId(0) != RIGHT_BRACE) {
+                    elements = parseElementTypeList();
+                }
+                expect(RIGHT_BRACE);
+                return new SequenceType(elements);
+            }
+            if (peekId(0) == LEFT_PAREN) {
+                value = parseConstraintList();
+            }
+            expect(OF);
+            return new SequenceOfType(parseType(), (Constraint) value);
+        case CHOICE:
+            next();
+            expect(LEFT_BRACE);
+            ArrayList<ElementType> elements = parseElementTypeList();
+            expect(RIGHT_BRACE);
+            return new ChoiceType(elements);
+        case LEFT_BRACKET:
+            return parseTaggedType();
+        case MODULE_IDENTITY:
+            return parseModuleIdentity();
+        case OBJECT_IDENTITY:
+            return parseObjectIdentity();
+        case OBJECT_TYPE:
+            return parseObjectType();
+        case NOTIFICATION_TYPE:
+            return parseNotificationType();
+        case TRAP_TYPE:
+            return parseTrapType();
+        case TEXTUAL_CONVENTION:
+            return parseTextualConvention();
+        case OBJECT_GROUP:
+            return parseObjectGroup();
+        case NOTIFICATION_GROUP:
+            return parseNotificationGroup();
+        case MODULE_COMPLIANCE:
+            return parseModuleCompliance();
+        case AGENT_CAPABILITIES:
+            return parseAgentCapabilities();
+        default:
+            throw unsupported(peek(0));
+        }
+    }
+
+    /**
+     * Parses a defined type, i.e. a type reference.
+     *
+     * @return the type reference created
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseDefinedType() throws ParseException {
+        Token first = peek(0);
+        if (peekId(1) == LESS_THAN) {
+            throw unsupported(first);
+        }
+        MibContext local = parseModuleReference();
+        String name = expect(IDENTIFIER_STRING).getImage();
+        Object value = null;
+        if (peekId(0) == LEFT_BRACE || peekId(0) == LEFT_PAREN) {
+            value = parseValueOrConstraintList();
+        }
+        MibFileRef ref = getFileRef(first, last);
+        if (value instanceof Constraint) {
+            return new TypeReference(ref, local, name, (Constraint) value);
+        } else if (value instanceof ArrayList<?>) {
+            return new TypeReference(ref, local, name, (ArrayList<?>) value);
+        } else {
+            return new TypeReference(ref, local, name);
+        }
+    }
+
+    /**
+     * Parses an optional module reference prefix (i.e. a module name
+     * followed by a dot).
+     *
+     * @return the referenced MIB import, or
+     *         the current context if no module was referenced
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibContext parseModuleReference() throws ParseException {
+        if (peekId(1) != DOT) {
+            return getContext();
+        }
+        Token token = expect(IDENTIFIER_STRING);
+        next();
+        MibContext local = currentMib.getImport(token.getImage());
+        if (local == null) {
+            throw unsupported(token);
+        }
+        return local;
+    }
+
+    /**
+     * Parses a tagged type.
+     *
+     * @return the MIB type found (with the tag set)
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseTaggedType() throws ParseException {
+        expect(LEFT_BRACKET);
+        int category = MibTypeTag.CONTEXT_SPECIFIC_CATEGORY;
+        if (peekId(0) == UNIVERSAL) {
+            category = MibTypeTag.UNIVERSAL_CATEGORY;
+            next();
+        } else if (peekId(0) == APPLICATION) {
+            category = MibTypeTag.APPLICATION_CATEGORY;
+            next();
+        } else if (peekId(0) == PRIVATE) {
+            category = MibTypeTag.PRIVATE_CATEGORY;
+            next();
+        }
+        Token token = expect(NUMBER_STRING);
+        int value = MibAnalyzerUtil.parseNumber(token.getImage()).intValue();
+        expect(RIGHT_BRACKET);
+        boolean implicit = implicitTags;
+        if (peekId(0) == EXPLICIT || peekId(0) == IMPLICIT) {
+            implicit = (next().getId() == IMPLICIT);
+        }
+        MibType type = parseType();
+        type.setTag(implicit, new MibTypeTag(category, value));
+        return type;
+    }
+
+    /**
+     * Parses a comma-separated list of element types.
+     *
+     * @return the list of element types
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private ArrayList<ElementType> parseElementTypeList()
+        throws ParseException {
+
+        ArrayList<ElementType> elements = new ArrayList<>();
+        while (true) {
+            Token first = peek(0);
+            String name = null;
+            if (peekId(0) == IDENTIFIER_STRING) {
+                switch (peekId(1)) {
+                case COMMA:
+                case RIGHT_BRACE:
+                case LEFT_PAREN:
+                case LEFT_BRACE:
+                case DOT:
+                case LESS_THAN:
+                    throw unsupported(first);
+                default:
+                    name = next().getImage();
+                }
+            }
+            MibType type = new ElementType(name, parseType());
+            peek(0); // Check for OPTIONAL or DEFAULT, as in ASN.1 parser
+            type.setComment(getComments(first, last));
+            elements.add((ElementType) type);
+            if (peekId(0) != COMMA) {
+                return elements;
+            }
+            next();
+        }
+    }
+
+    /**
+     * Parses either a named number list or a constraint list.
+     *
+     * @return the list of value symbols, or
+     *         the constraint found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private Object parseValueOrConstraintList() throws ParseException {
+        if (peekId(0) == LEFT_BRACE) {
+            return parseNamedNumberList();
+        } else {
+            return parseConstraintList();
+        }
+    }
+
+    /**
+     * Parses a named number list.
+     *
+     * @return the list of value symbols
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private ArrayList<MibValueSymbol> parseNamedNumberList()
+        throws ParseException {
+
+        ArrayList<MibValueSymbol> symbols = new ArrayList<>();
+        ArrayList<Token> tokens = new ArrayList<>();
+        expect(LEFT_BRACE);
+        while (true) {
+            tokens.add(peek(0));
+            symbols.add(parseNamedNumber());
+            tokens.add(last);
+            if (peekId(0) != COMMA) {
+                break;
+            }
+            next();
+        }
+        expect(RIGHT_BRACE);
+        for (int i = 0; i < symbols.size(); i++) {
+            Token first = tokens.get(2 * i);
+            Token end = tokens.get(2 * i + 1);
+            symbols.get(i).setComment(getComments(first, end));
+        }
+        return symbols;
+    }
+
+    /**
+     * Parses a named number.
+     *
+     * @return the value symbol created
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibValueSymbol parseNamedNumber() throws ParseException {
+        Token first = expect(IDENTIFIER_STRING);
+        expect(LEFT_PAREN);
+        MibValue value;
+        switch (peekId(0)) {
+        case MINUS:
+        case NUMBER_STRING:
+        case BINARY_STRING:
+        case HEXADECIMAL_STRING:
+        case IDENTIFIER_STRING:
+            value = parseValue();
+            break;
+        default:
+            throw unsupported(peek(0));
+        }
+        expect(RIGHT_PAREN);
+        MibFileRef ref = getFileRef(first, last);
+        return new MibValueSymbol(ref, null, first.getImage(), null, value);
+    }
+
+    /**
+     * Parses a constraint list.
+     *
+     * @return the constraint found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private Constraint parseConstraintList() throws ParseException {
+        ArrayList<Constraint> list = new ArrayList<>();
+        expect(LEFT_PAREN);
+        while (true) {
+            if (peekId(0) == SIZE) {
+                Token first = next();
+                Constraint c = parseValueConstraintList();
+                list.add(new SizeConstraint(getFileRef(first, last), c));
+            } else {
+                list.add(parseValueConstraint());
+            }
+            if (peekId(0) != VERTICAL_BAR) {
+                break;
+            }
+            next();
+        }
+        expect(RIGHT_PAREN);
+        return createConstraint(list);
+    }
+
+    /**
+     * Parses a value constraint list.
+     *
+     * @return the constraint found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private Constraint parseValueConstraintList() throws ParseException {
+        ArrayList<Constraint> list = new ArrayList<>();
+        expect(LEFT_PAREN);
+        list.add(parseValueConstraint());
+        while (peekId(0) == VERTICAL_BAR) {
+            next();
+            list.add(parseValueConstraint());
+        }
+        expect(RIGHT_PAREN);
+        return createConstraint(list);
+    }
+
+    /**
+     * Parses a value or value range constraint.
+     *
+     * @return the constraint found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private Constraint parseValueConstraint() throws ParseException {
+        Token first = peek(0);
+        MibValue lower = null;
+        switch (peekId(0)) {
+        case FROM:
+        case INCLUDES:
+        case WITH:
+            throw unsupported(first);
+        case MIN:
+            next();
+            break;
+        default:
+            lower = parseValue();
+        }
+        if (peekId(0) == LESS_THAN || peekId(0) == DOUBLE_DOT) {
+            boolean strictLower = false;
+            boolean strictUpper = false;
+            MibValue upper = null;
+            if (peekId(0) == LESS_THAN) {
+                next();
+                strictLower = true;
+            }
+            expect(DOUBLE_DOT);
+            if (peekId(0) == LESS_THAN) {
+                next();
+                strictUpper = true;
+            }
+            if (peekId(0) == MAX) {
+                next();
+            } else {
+                upper = parseValue();
+            }
+            return new ValueRangeConstraint(getFileRef(first, last),
+                                            lower,
+                                            strictLower,
+                                            upper,
+                                            strictUpper);
+        } else if (lower == null) {
+            throw unsupported(first);
+        } else {
+            return new ValueConstraint(getFileRef(first, last), lower);
+        }
+    }
+
+    /**
+     * Creates a compound constraint from a list of constraints.
+     *
+     * @param list           the list of constraints
+     *
+     * @return the compound constraint
+     */
+    private Constraint createConstraint(ArrayList<Constraint> list) {
+        Constraint result = null;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            Constraint c = list.get(i);
+            if (result == null) {
+                result = c;
+            } else {
+                result = new CompoundConstraint(c, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses a value.
+     *
+     * @return the MIB value found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibValue parseValue() throws ParseException {
+        Token token = peek(0);
+        String str;
+        switch (peekId(0)) {
+        case IDENTIFIER_STRING:
+            return parseDefinedValue();
+        case NULL:
+            next();
+            return NullValue.NULL;
+        case TRUE:
+            next();
+            return BooleanValue.TRUE;
+        case FALSE:
+            next();
+            return BooleanValue.FALSE;
+        case PLUS_INFINITY:
+            next();
+            return new NumberValue(Float.valueOf(Float.POSITIVE_INFINITY));
+        case MINUS_INFINITY:
+            next();
+            return new NumberValue(Float.valueOf(Float.NEGATIVE_INFINITY));
+        case MINUS:
+        case NUMBER_STRING:
+            return loader.getPool().getNumberValue(parseNumber());
+        case BINARY_STRING:
+            next();
+            str = token.getImage();
+            str = str.substring(1, str.length() - 2);
+            return new BinaryNumberValue(MibAnalyzerUtil.parseBinaryNumber(str),
+                                         str.length());
+        case HEXADECIMAL_STRING:
+            next();
+            str = token.getImage();
+            str = str.substring(1, str.length() - 2);
+            return new HexNumberValue(MibAnalyzerUtil.parseHexNumber(str),
+                                      str.length());
+        case QUOTED_STRING:
+            next();
+            str = MibAnalyzerUtil.parseQuotedString(token.getImage());
+            return new StringValue(str);
+        case LEFT_BRACE:
+            return parseBitOrObjectIdentifierValue();
+        default:
+            throw unsupported(token);
+        }
+    }
+
+    /**
+     * Parses an optionally negative number.
+     *
+     * @return the number found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private Number parseNumber() throws ParseException {
+        boolean negative = (peekId(0) == MINUS);
+        if (negative) {
+            next();
+        }
+        Token token = expect(NUMBER_STRING);
+        Number number = MibAnalyzerUtil.parseNumber(token.getImage());
+        if (!negative) {
+            return number;
+        } else if (number instanceof Integer) {
+            return Integer.valueOf(-number.intValue());
+        } else if (number instanceof Long) {
+            return Long.valueOf(-number.longValue());
+        } else {
+            return ((BigInteger) number).negate();
+        }
+    }
+
+    /**
+     * Parses a defined value, i.e. a value reference.
+     *
+     * @return the value reference created
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private ValueReference parseDefinedValue() throws ParseException {
+        Token first = peek(0);
+        MibContext local = parseModuleReference();
+        String name = expect(IDENTIFIER_STRING).getImage();
+        return new ValueReference(getFileRef(first, last), local, name);
+    }
+
+    /**
+     * Parses a bit set or object identifier value. Bit set values
+     * are identified by comma separators or by having less than two
+     * components.
+     *
+     * @return the MIB value found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibValue parseBitOrObjectIdentifierValue()
+        throws ParseException {
+
+        Token first = expect(LEFT_BRACE);
+        ArrayList<NamedNumber> components = new ArrayList<>();
+        boolean comma = false;
+        while (peekId(0) != RIGHT_BRACE) {
+            if (peekId(0) == COMMA) {
+                next();
+                comma = true;
+            }
+            components.add(parseNameOrNumber());
+        }
+        next();
+        if (comma || components.size() <= 1) {
+            BitSet bits = new BitSet();
+            ArrayList<ValueReference> values = new ArrayList<>();
+            for (NamedNumber number : components) {
+                if (number.hasNumber()) {
+                    bits.set(number.getNumber().intValue());
+                } else {
+                    values.add(number.getReference());
+                }
+            }
+            return new BitSetValue(bits, values);
+        }
+        MibFileRef ref = getFileRef(first, last);
+        MibValue parent = null;
+        for (NamedNumber number : components) {
+            if (number.hasNumber()) {
+                int value = number.getNumber().intValue();
+                String root = null;
+                if (value == 0) {
+                    root = DefaultContext.CCITT;
+                } else if (value == 1) {
+                    root = DefaultContext.ISO;
+                } else if (value == 2) {
+                    root = DefaultContext.JOINT_ISO_CCITT;
+                }
+                if (parent == null && root != null) {
+                    parent = new ValueReference(ref, getContext(), root);
+                } else if (parent instanceof ObjectIdentifierValue) {
+                    try {
+                        parent = new ObjectIdentifierValue(
+                                        ref,
+                                        (ObjectIdentifierValue) parent,
+                                        number.getName(),
+                                        value);
+                    } catch (MibException e) {
+                        throw unsupported(first);
+                    }
+                } else {
+                    parent = new ObjectIdentifierValue(
+                                        ref,
+                                        (ValueReference) parent,
+                                        number.getName(),
+                                        value);
+                }
+            } else if (parent != null) {
+                throw unsupported(first);
+            } else {
+                parent = number.getReference();
+            }
+        }
+        return parent;
+    }
+
+    /**
+     * Parses a name, number or name and number component.
+     *
+     * @return the named number found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private NamedNumber parseNameOrNumber() throws ParseException {
+        Token token = peek(0);
+        if (peekId(0) == NUMBER_STRING) {
+            next();
+            Number number = MibAnalyzerUtil.parseNumber(token.getImage());
+            return new NamedNumber(number);
+        }
+        expect(IDENTIFIER_STRING);
+        String name = token.getImage();
+        if (peekId(0) != LEFT_PAREN) {
+            ValueReference ref = new ValueReference(getFileRef(token, token),
+                                                    getContext(),
+                                                    name);
+            return new NamedNumber(name, ref);
+        }
+        next();
+        NamedNumber res;
+        if (peekId(0) == NUMBER_STRING) {
+            Number number = MibAnalyzerUtil.parseNumber(next().getImage());
+            res = new NamedNumber(name, number);
+        } else {
+            res = new NamedNumber(name, parseDefinedValue());
+        }
+        expect(RIGHT_PAREN);
+        return res;
+    }
+
+    /**
+     * Parses a comma-separated list of values.
+     *
+     * @return the list of MIB values
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private ArrayList<MibValue> parseValueList() throws ParseException {
+        ArrayList<MibValue> values = new ArrayList<>();
+        values.add(parseValue());
+        while (peekId(0) == COMMA) {
+            next();
+            values.add(parseValue());
+        }
+        return values;
+    }
+
+    /**
+     * Parses a keyword followed by a list of values inside braces.
+     *
+     * @param keyword        the keyword token id
+     *
+     * @return the list of MIB values
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private ArrayList<MibValue> parseValueListPart(int keyword)
+        throws ParseException {
+
+        expect(keyword);
+        expect(LEFT_BRACE);
+        ArrayList<MibValue> values = parseValueList();
+        expect(RIGHT_BRACE);
+        return values;
+    }
+
+    /**
+     * Parses a keyword followed by a single value inside braces.
+     *
+     * @param keyword        the keyword token id
+     *
+     * @return the MIB value found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibValue parseValuePart(int keyword) throws ParseException {
+        expect(keyword);
+        expect(LEFT_BRACE);
+        MibValue value = parseValue();
+        expect(RIGHT_BRACE);
+        return value;
+    }
+
+    /**
+     * Parses a keyword followed by a quoted string.
+     *
+     * @param keyword        the keyword token id
+     *
+     * @return the unquoted string value
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private String parseStringPart(int keyword) throws ParseException {
+        expect(keyword);
+        Token token = expect(QUOTED_STRING);
+        return MibAnalyzerUtil.parseQuotedString(token.getImage());
+    }
+
+    /**
+     * Parses a keyword followed by a description or reference
+     * string. In lean mode, these strings are not stored and an
+     * empty string is returned instead.
+     *
+     * @param keyword        the keyword token id
+     *
+     * @return the unquoted string value, or
+     *         an empty string in lean mode
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private String parseTextPart(int keyword) throws ParseException {
+        expect(keyword);
+        Token token = expect(QUOTED_STRING);
+        if (lean) {
+            return "";
+        }
+        return MibAnalyzerUtil.parseQuotedString(token.getImage());
+    }
+
+    /**
+     * Parses an optional reference string.
+     *
+     * @return the unquoted reference string, or
+     *         null if not present
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private String parseReferPart() throws ParseException {
+        return (peekId(0) == REFERENCE) ? parseTextPart(REFERENCE) : null;
+    }
+
+    /**
+     * Parses an SNMP status part.
+     *
+     * @return the SNMP status found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private SnmpStatus parseStatusPart() throws ParseException {
+        expect(STATUS);
+        Token token = expect(IDENTIFIER_STRING);
+        String name = token.getImage();
+        if (name.equals("mandatory")) {
+            return SnmpStatus.MANDATORY;
+        } else if (name.equals("optional")) {
+            return SnmpStatus.OPTIONAL;
+        } else if (name.equals("current")) {
+            return SnmpStatus.CURRENT;
+        } else if (name.equals("deprecated")) {
+            return SnmpStatus.DEPRECATED;
+        } else if (name.equals("obsolete")) {
+            return SnmpStatus.OBSOLETE;
+        } else {
+            throw unsupported(token);
+        }
+    }
+
+    /**
+     * Parses an SNMP access part.
+     *
+     * @return the SNMP access found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private SnmpAccess parseAccessPart() throws ParseException {
+        int id = peekId(0);
+        if (id != ACCESS && id != MAX_ACCESS && id != MIN_ACCESS) {
+            throw unsupported(peek(0));
+        }
+        next();
+        Token token = expect(IDENTIFIER_STRING);
+        String name = token.getImage();
+        SnmpAccess access;
+        if (name.equals("read-only")) {
+            access = SnmpAccess.READ_ONLY;
+        } else if (name.equals("read-write")) {
+            access = SnmpAccess.READ_WRITE;
+        } else if (name.equals("read-create")) {
+            access = SnmpAccess.READ_CREATE;
+        } else if (name.equals("write-only")) {
+            access = SnmpAccess.WRITE_ONLY;
+        } else if (name.equals("not-implemented")) {
+            access = SnmpAccess.NOT_IMPLEMENTED;
+        } else if (name.equals("not-accessible")) {
+            access = SnmpAccess.NOT_ACCESSIBLE;
+        } else if (name.equals("accessible-for-notify")) {
+            access = SnmpAccess.ACCESSIBLE_FOR_NOTIFY;
+        } else {
+            throw unsupported(token);
+        }
+        if (id != ACCESS) {
+            currentMib.setSmiVersion(2);
+        }
+        return access;
+    }
+
+    /**
+     * Parses an SNMP module identity macro type.
+     *
+     * @return the SNMP module identity
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseModuleIdentity() throws ParseException {
+        expect(MODULE_IDENTITY);
+        String update = parseStringPart(LAST_UPDATED);
+        String org = parseStringPart(ORGANIZATION);
+        String contact = parseStringPart(CONTACT_INFO);
+        String desc = parseTextPart(DESCRIPTION);
+        ArrayList<SnmpRevision> revisions = new ArrayList<>();
+        while (peekId(0) == REVISION) {
+            Token first = next();
+            MibValue value = parseValue();
+            SnmpRevision rev = new SnmpRevision(value,
+                                                parseTextPart(DESCRIPTION));
+            rev.setComment(getComments(first, last));
+            revisions.add(rev);
+        }
+        currentMib.setSmiVersion(2);
+        return new SnmpModuleIdentity(update, org, contact, desc, revisions);
+    }
+
+    /**
+     * Parses an SNMP object identity macro type.
+     *
+     * @return the SNMP object identity
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseObjectIdentity() throws ParseException {
+        expect(OBJECT_IDENTITY);
+        SnmpStatus status = parseStatusPart();
+        String desc = parseTextPart(DESCRIPTION);
+        String ref = parseReferPart();
+        currentMib.setSmiVersion(2);
+        return new SnmpObjectIdentity(status, desc, ref);
+    }
+
+    /**
+     * Parses an SNMP object type macro type. The syntax type is
+     * added to the MIB context stack while parsing the remaining
+     * parts (if possible).
+     *
+     * @return the SNMP object type
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseObjectType() throws ParseException {
+        expect(OBJECT_TYPE);
+        Token first = expect(SYNTAX);
+        MibType syntax = parseType();
+        Token end = last;
+        if (syntax instanceof MibContext) {
+            pushContextExtension((MibContext) syntax);
+        }
+        String units = null;
+        if (peekId(0) == UNITS) {
+            units = loader.getPool().intern(parseStringPart(UNITS));
+        }
+        SnmpAccess access = parseAccessPart();
+        SnmpStatus status = parseStatusPart();
+        String desc = null;
+        if (peekId(0) == DESCRIPTION) {
+            desc = parseTextPart(DESCRIPTION);
+        }
+        String ref = parseReferPart();
+        ArrayList<SnmpIndex> index = null;
+        MibValue augments = null;
+        if (peekId(0) == INDEX) {
+            next();
+            expect(LEFT_BRACE);
+            index = new ArrayList<>();
+            while (true) {
+                index.add(parseIndexValue());
+                if (peekId(0) != COMMA) {
+                    break;
+                }
+                next();
+            }
+            expect(RIGHT_BRACE);
+        } else if (peekId(0) == AUGMENTS) {
+            augments = parseValuePart(AUGMENTS);
+        }
+        MibValue defVal = null;
+        if (peekId(0) == DEFVAL) {
+            defVal = parseValuePart(DEFVAL);
+        }
+        if (syntax instanceof MibContext) {
+            popContext();
+        }
+        syntax.setComment(getComments(first, end));
+        if (index != null) {
+            return new SnmpObjectType(syntax,
+                                      units,
+                                      access,
+                                      status,
+                                      desc,
+                                      ref,
+                                      index,
+                                      defVal);
+        } else {
+            return new SnmpObjectType(syntax,
+                                      units,
+                                      access,
+                                      status,
+                                      desc,
+                                      ref,
+                                      augments,
+                                      defVal);
+        }
+    }
+
+    /**
+     * Parses an SNMP index value.
+     *
+     * @return the SNMP index found
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private SnmpIndex parseIndexValue() throws ParseException {
+        switch (peekId(0)) {
+        case IMPLIED:
+            next();
+            return new SnmpIndex(true, parseValue(), null);
+        case INTEGER:
+        case OCTET:
+        case OBJECT:
+            return new SnmpIndex(false, null, parseType());
+        default:
+            return new SnmpIndex(false, parseValue(), null);
+        }
+    }
+
+    /**
+     * Parses an SNMP notification type macro type.
+     *
+     * @return the SNMP notification type
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseNotificationType() throws ParseException {
+        expect(NOTIFICATION_TYPE);
+        ArrayList<MibValue> objects = new ArrayList<>();
+        if (peekId(0) == OBJECTS) {
+            objects = parseValueListPart(OBJECTS);
+        }
+        SnmpStatus status = parseStatusPart();
+        String desc = parseTextPart(DESCRIPTION);
+        String ref = parseReferPart();
+        currentMib.setSmiVersion(2);
+        return new SnmpNotificationType(objects, status, desc, ref);
+    }
+
+    /**
+     * Parses an SNMP trap type macro type.
+     *
+     * @return the SNMP trap type
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseTrapType() throws ParseException {
+        expect(TRAP_TYPE);
+        expect(ENTERPRISE);
+        MibValue enterprise = parseValue();
+        ArrayList<MibValue> vars = new ArrayList<>();
+        if (peekId(0) == VARIABLES) {
+            vars = parseValueListPart(VARIABLES);
+        }
+        String desc = null;
+        if (peekId(0) == DESCRIPTION) {
+            desc = parseTextPart(DESCRIPTION);
+        }
+        String ref = parseReferPart();
+        return new SnmpTrapType(enterprise, vars, desc, ref);
+    }
+
+    /**
+     * Parses an SNMP textual convention macro type.
+     *
+     * @return the SNMP textual convention
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseTextualConvention() throws ParseException {
+        expect(TEXTUAL_CONVENTION);
+        String display = null;
+        if (peekId(0) == DISPLAY_HINT) {
+            display = loader.getPool().intern(parseStringPart(DISPLAY_HINT));
+        }
+        SnmpStatus status = parseStatusPart();
+        String desc = parseTextPart(DESCRIPTION);
+        String ref = parseReferPart();
+        Token first = expect(SYNTAX);
+        MibType syntax = parseType();
+        syntax.setComment(getComments(first, last));
+        currentMib.setSmiVersion(2);
+        return new SnmpTextualConvention(display, status, desc, ref, syntax);
+    }
+
+    /**
+     * Parses an SNMP object group macro type.
+     *
+     * @return the SNMP object group
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseObjectGroup() throws ParseException {
+        expect(OBJECT_GROUP);
+        ArrayList<MibValue> objects = parseValueListPart(OBJECTS);
+        SnmpStatus status = parseStatusPart();
+        String desc = parseTextPart(DESCRIPTION);
+        String ref = parseReferPart();
+        currentMib.setSmiVersion(2);
+        return new SnmpObjectGroup(objects, status, desc, ref);
+    }
+
+    /**
+     * Parses an SNMP notification group macro type.
+     *
+     * @return the SNMP notification group
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseNotificationGroup() throws ParseException {
+        expect(NOTIFICATION_GROUP);
+        ArrayList<MibValue> notifications = parseValueListPart(NOTIFICATIONS);
+        SnmpStatus status = parseStatusPart();
+        String desc = parseTextPart(DESCRIPTION);
+        String ref = parseReferPart();
+        currentMib.setSmiVersion(2);
+        return new SnmpNotificationGroup(notifications, status, desc, ref);
+    }
+
+    /**
+     * Parses an SNMP module compliance macro type.
+     *
+     * @return the SNMP module compliance
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseModuleCompliance() throws ParseException {
+        expect(MODULE_COMPLIANCE);
+        SnmpStatus status = parseStatusPart();
+        String desc = parseTextPart(DESCRIPTION);
+        String ref = parseReferPart();
+        ArrayList<SnmpModule> modules = new ArrayList<>();
+        do {
+            modules.add(parseModulePart());
+        } while (peekId(0) == MODULE);
+        currentMib.setSmiVersion(2);
+        return new SnmpModuleCompliance(status, desc, ref, modules);
+    }
+
+    /**
+     * Parses an SNMP module part. The referenced module (if any)
+     * is added to the MIB context stack while parsing the part.
+     *
+     * @return the SNMP module
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private SnmpModule parseModulePart() throws ParseException {
+        Token token = expect(MODULE);
+        String name = null;
+        if (peekId(0) == IDENTIFIER_STRING) {
+            name = parseModuleImport();
+        }
+        ArrayList<MibValue> groups = new ArrayList<>();
+        if (peekId(0) == MANDATORY_GROUPS) {
+            groups = parseValueListPart(MANDATORY_GROUPS);
+        }
+        ArrayList<SnmpCompliance> compliances = new ArrayList<>();
+        while (peekId(0) == GROUP || peekId(0) == OBJECT) {
+            compliances.add(parseCompliance());
+        }
+        String comment = getComments(token, token);
+        if (name != null) {
+            popContext();
+        }
+        SnmpModule module = new SnmpModule(name, groups, compliances);
+        module.setComment(comment);
+        return module;
+    }
+
+    /**
+     * Parses an SNMP module import. The module import is added to
+     * the MIB context stack, and must be removed by the caller.
+     *
+     * @return the module name
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private String parseModuleImport() throws ParseException {
+        Token token = parseModuleIdentifier();
+        String module = token.getImage();
+        importNames.add(module);
+        MibFileRef ref = getFileRef(token, token);
+        MibImport imp = new MibImport(loader, ref, module, null);
+        currentMib.addImport(imp);
+        pushContextExtension(imp);
+        return module;
+    }
+
+    /**
+     * Parses an SNMP compliance group or object.
+     *
+     * @return the SNMP compliance
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private SnmpCompliance parseCompliance() throws ParseException {
+        Token first = next();
+        MibValue value = parseValue();
+        SnmpCompliance comp;
+        if (first.getId() == GROUP) {
+            String desc = parseTextPart(DESCRIPTION);
+            comp = new SnmpCompliance(true, value, null, null, null, desc);
+        } else {
+            MibType syntax = null;
+            Token syntaxFirst = null;
+            Token syntaxLast = null;
+            if (peekId(0) == SYNTAX) {
+                syntaxFirst = next();
+                syntax = parseType();
+                syntaxLast = last;
+            }
+            MibType write = null;
+            Token writeFirst = null;
+            Token writeLast = null;
+            if (peekId(0) == WRITE_SYNTAX) {
+                writeFirst = next();
+                write = parseType();
+                writeLast = last;
+            }
+            SnmpAccess access = null;
+            if (isAccess(peekId(0))) {
+                access = parseAccessPart();
+            }
+            String desc = parseTextPart(DESCRIPTION);
+            if (syntax != null) {
+                syntax.setComment(getComments(syntaxFirst, syntaxLast));
+            }
+            if (write != null) {
+                write.setComment(getComments(writeFirst, writeLast));
+            }
+            comp = new SnmpCompliance(false,
+                                      value,
+                                      syntax,
+                                      write,
+                                      access,
+                                      desc);
+        }
+        comp.setComment(getComments(first, last));
+        return comp;
+    }
+
+    /**
+     * Parses an SNMP agent capabilities macro type.
+     *
+     * @return the SNMP agent capabilities
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private MibType parseAgentCapabilities() throws ParseException {
+        expect(AGENT_CAPABILITIES);
+        String prod = parseStringPart(PRODUCT_RELEASE);
+        SnmpStatus status = parseStatusPart();
+        String desc = parseTextPart(DESCRIPTION);
+        String ref = parseReferPart();
+        ArrayList<SnmpModuleSupport> modules = new ArrayList<>();
+        while (peekId(0) == SUPPORTS) {
+            next();
+            String module = parseModuleImport();
+            ArrayList<MibValue> groups = parseValueListPart(INCLUDES);
+            ArrayList<SnmpVariation> vars = new ArrayList<>();
+            while (peekId(0) == VARIATION) {
+                vars.add(parseVariation());
+            }
+            popContext();
+            modules.add(new SnmpModuleSupport(module, groups, vars));
+        }
+        currentMib.setSmiVersion(2);
+        return new SnmpAgentCapabilities(prod, status, desc, ref, modules);
+    }
+
+    /**
+     * Parses an SNMP variation part. The variation value and syntax
+     * type are added to the MIB context stack while parsing the
+     * remaining parts (if possible).
+     *
+     * @return the SNMP variation
+     *
+     * @throws ParseException if the input couldn't be parsed
+     */
+    private SnmpVariation parseVariation() throws ParseException {
+        expect(VARIATION);
+        MibValue value = parseValue();
+        pushContextExtension(new MibTypeContext(value));
+        MibType syntax = null;
+        Token syntaxFirst = null;
+        Token syntaxLast = null;
+        if (peekId(0) == SYNTAX) {
+            syntaxFirst = next();
+            syntax = parseType();
+            syntaxLast = last;
+            if (syntax instanceof MibContext) {
+                pushContextExtension((MibContext) syntax);
+            }
+        }
+        MibType write = null;
+        Token writeFirst = null;
+        Token writeLast = null;
+        if (peekId(0) == WRITE_SYNTAX) {
+            writeFirst = next();
+            write = parseType();
+            writeLast = last;
+        }
+        SnmpAccess access = null;
+        if (isAccess(peekId(0))) {
+            access = parseAccessPart();
+        }
+        ArrayList<MibValue> reqs = new ArrayList<>();
+        if (peekId(0) == CREATION_REQUIRES) {
+            reqs = parseValueListPart(CREATION_REQUIRES);
+        }
+        MibValue defVal = null;
+        if (peekId(0) == DEFVAL) {
+            defVal = parseValuePart(DEFVAL);
+        }
+        String desc = parseTextPart(DESCRIPTION);
+        popContext();
+        if (syntax != null) {
+            if (syntax instanceof MibContext) {
+                popContext();
+            }
+            syntax.setComment(getComments(syntaxFirst, syntaxLast));
+        }
+        if (write != null) {
+            write.setComment(getComments(writeFirst, writeLast));
+        }
+        return new SnmpVariation(value,
+                                 syntax,
+                                 write,
+                                 access,
+                                 reqs,
+                                 defVal,
+                                 desc);
+    }
+
+    /**
+     * Checks that a symbol name isn't already present in the current
+     * MIB module.
+     *
+     * @param name           the symbol name
+     * @param token          the symbol name token
+     *
+     * @throws ParseException if the symbol was already present
+     */
+    private void checkSymbolName(String name, Token token)
+        throws ParseException {
+
+        if (currentMib.getSymbol(name) != null) {
+            throw unsupported(token);
+        }
+    }
+
+    /**
+     * Returns the top context on the context stack.
+     *
+     * @return the top context on the context stack
+     */
+    private MibContext getContext() {
+        return contextStack.get(contextStack.size() - 1);
+    }
+
+    /**
+     * Adds a new context to the top of the context stack.
+     *
+     * @param context        the context to add
+     */
+    private void pushContext(MibContext context) {
+        contextStack.add(context);
+    }
+
+    /**
+     * Adds an extension to the current context to the top of the
+     * context stack.
+     *
+     * @param context        the context extension to add
+     */
+    private void pushContextExtension(MibContext context) {
+        pushContext(new CompoundContext(context, getContext()));
+    }
+
+    /**
+     * Removes the top context on the context stack.
+     */
+    private void popContext() {
+        contextStack.remove(contextStack.size() - 1);
+    }
+
+    /**
+     * Returns the MIB file reference for a sequence of tokens.
+     *
+     * @param first          the first token
+     * @param end            the last token
+     *
+     * @return the MIB file reference
+     */
+    private MibFileRef getFileRef(Token first, Token end) {
+        return MibAnalyzerUtil.getFileRef(file, first, end);
+    }
+
+    /**
+     * Returns all the comments associated with a sequence of tokens.
+     * In lean mode, comments are not processed and null is always
+     * returned. Note that trailing comments are only found if the
+     * following token has been read by the tokenizer, which mirrors
+     * the look-ahead used by the ASN.1 parser.
+     *
+     * @param first          the first token
+     * @param end            the last token
+     *
+     * @return the comment string, or
+     *         null if no comments were found
+     */
+    private String getComments(Token first, Token end) {
+        if (lean) {
+            return null;
+        }
+        return MibAnalyzerUtil.getComments(first, end, commentTokens);
+    }
+
+    /**
+     * Returns a look-ahead token.
+     *
+     * @param pos            the look-ahead position, from 0
+     *
+     * @return the look-ahead token, or
+     *         null if end of file was reached
+     *
+     * @throws ParseException if the input couldn't be read
+     */
+    private Token peek(int pos) throws ParseException {
+        while (lookaheadCount <= pos) {
+            lookahead[lookaheadCount++] = tokenizer.next();
+        }
+        return lookahead[pos];
+    }
+
+    /**
+     * Returns a look-ahead token id.
+     *
+     * @param pos            the look-ahead position, from 0
+     *
+     * @return the look-ahead token id, or
+     *         -1 if end of file was reached
+     *
+     * @throws ParseException if the input couldn't be read
+     */
+    private int peekId(int pos) throws ParseException {
+        Token token = peek(pos);
+        return (token == null) ? -1 : token.getId();
+    }
+
+    /**
+     * Consumes the next token.
+     *
+     * @return the token consumed
+     *
+     * @throws ParseException if the input couldn't be read or end
+     *             of file was reached
+     */
+    private Token next() throws ParseException {
+        Token token = peek(0);
+        if (token == null) {
+            throw unsupported(null);
+        }
+        lookaheadCount--;
+        System.arraycopy(lookahead, 1, lookahead, 0, lookaheadCount);
+        last = token;
+        return token;
+    }
+
+    /**
+     * Consumes the next token if it has the expected id.
+     *
+     * @param id             the expected token id
+     *
+     * @return the token consumed
+     *
+     * @throws ParseException if the input couldn't be read or if
+     *             the token didn't match
+     */
+    private Token expect(int id) throws ParseException {
+        if (peekId(0) != id) {
+            throw unsupported(peek(0));
+        }
+        return next();
+    }
+
+    /**
+     * Creates a parse exception for an unsupported token.
+     *
+     * @param token          the unsupported token, or null
+     *
+     * @return the new parse exception
+     */
+    private ParseException unsupported(Token token) {
+        if (token == null) {
+            return new ParseException(ParseException.UNEXPECTED_EOF_ERROR,
+                                      null,
+                                      tokenizer.getCurrentLine(),
+                                      tokenizer.getCurrentColumn());
+        }
+        return new ParseException(ParseException.UNEXPECTED_TOKEN_ERROR,
+                                  token.toShortString(),
+                                  token.getStartLine(),
+                                  token.getStartColumn());
+    }
+
+    /**
+     * Checks if a token id can be used as a symbol name. This is
+     * either an identifier or one of the SNMP macro names.
+     *
+     * @param id             the token id
+     *
+     * @return true if the token id is a symbol name, or
+     *         false otherwise
+     */
+    private static boolean isSymbolName(int id) {
+        return id == IDENTIFIER_STRING ||
+               (id >= MODULE_IDENTITY && id <= AGENT_CAPABILITIES);
+    }
+
+    /**
+     * Checks if a token id starts an SNMP access part.
+     *
+     * @param id             the token id
+     *
+     * @return true if the token id starts an access part, or
+     *         false otherwise
+     */
+    private static boolean isAccess(int id) {
+        return id == ACCESS || id == MAX_ACCESS || id == MIN_ACCESS;
+    }
+
+    /**
+     * Checks if a token id is allowed inside a macro body.
+     *
+     * @param id             the token id
+     *
+     * @return true if the token id is allowed, or
+     *         false otherwise
+     */
+    private static boolean isMacroBodyElement(int id) {
+        switch (id) {
+        case LEFT_PAREN:
+        case RIGHT_PAREN:
+        case VERTICAL_BAR:
+        case DEFINITION:
+        case INTEGER:
+        case REAL:
+        case BOOLEAN:
+        case NULL:
+        case BIT:
+        case OCTET:
+        case STRING:
+        case OBJECT:
+        case IDENTIFIER:
+        case IDENTIFIER_STRING:
+        case QUOTED_STRING:
+            return true;
+        default:
+            return false;
+        }
+    }
+}
@@ -0,0 +1,2261 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import net.percederberg.mibble.snmp.SnmpAccess;
+import net.percederberg.mibble.snmp.SnmpAgentCapabilities;
+import net.percederberg.mibble.snmp.SnmpCompliance;
+import net.percederberg.mibble.snmp.SnmpIndex;
+import net.percederberg.mibble.snmp.SnmpModule;
+import net.percederberg.mibble.snmp.SnmpModuleCompliance;
+import net.percederberg.mibble.snmp.SnmpModuleIdentity;
+import net.percederberg.mibble.snmp.SnmpModuleSupport;
+import net.percederberg.mibble.snmp.SnmpNotificationGroup;
+import net.percederberg.mibble.snmp.SnmpNotificationType;
+import net.percederberg.mibble.snmp.SnmpObjectGroup;
+import net.percederberg.mibble.snmp.SnmpObjectIdentity;
+import net.percederberg.mibble.snmp.SnmpObjectType;
+import net.percederberg.mibble.snmp.SnmpRevision;
+import net.percederberg.mibble.snmp.SnmpStatus;
+import net.percederberg.mibble.snmp.SnmpTextualConvention;
+import net.percederberg.mibble.snmp.SnmpTrapType;
+import net.percederberg.mibble.snmp.SnmpType;
+import net.percederberg.mibble.snmp.SnmpVariation;
+import net.percederberg.mibble.type.BitSetType;
+import net.percederberg.mibble.type.BooleanType;
+import net.percederberg.mibble.type.ChoiceType;
+import net.percederberg.mibble.type.CompoundConstraint;
+import net.percederberg.mibble.type.Constraint;
+import net.percederberg.mibble.type.ElementType;
+import net.percederberg.mibble.type.IntegerType;
+import net.percederberg.mibble.type.NullType;
+import net.percederberg.mibble.type.ObjectIdentifierType;
+import net.percederberg.mibble.type.RealType;
+import net.percederberg.mibble.type.SequenceOfType;
+import net.percederberg.mibble.type.SequenceType;
+import net.percederberg.mibble.type.SizeConstraint;
+import net.percederberg.mibble.type.StringType;
+import net.percederberg.mibble.type.ValueConstraint;
+import net.percederberg.mibble.type.ValueRangeConstraint;
+import net.percederberg.mibble.value.BinaryNumberValue;
+import net.percederberg.mibble.value.BitSetValue;
+import net.percederberg.mibble.value.BooleanValue;
+import net.percederberg.mibble.value.HexNumberValue;
+import net.percederberg.mibble.value.NullValue;
+import net.percederberg.mibble.value.NumberValue;
+import net.percederberg.mibble.value.ObjectIdentifierValue;
+import net.percederberg.mibble.value.StringValue;
+
+/**
+ * A MIB loader snapshot file. A snapshot contains a binary image of
+ * all the MIB modules in a MIB loader, including all symbols, types,
+ * values and the object identifier tree. The snapshot is stored in a
+ * compressed file and can later be restored without parsing the MIB
+ * files again.<p>
+ *
+ * The snapshot file format is versioned and consists of a header,
+ * a string table, a MIB module table, a flat list of OID arcs and
+ * finally the MIB symbols. All strings, symbols and OID values are
+ * referenced by their table index, so the file is both written and
+ * read without following the references between the MIB objects.
+ * Types, constraints and basic values are written as nested records
+ * inside each symbol, as their depth is limited by the MIB syntax.
+ * Shared constraints are written once and referenced by index, and
+ * SNMP descriptions are copied in their compressed form. The
+ * objects are recreated with the same constructors as used by the
+ * MIB analyzer, and the symbol references are resolved once all
+ * symbols have been read.<p>
+ *
+ * Each snapshot is keyed by a digest of the MIB source file contents.
+ * If any of the MIB source files have been changed, the snapshot is
+ * considered outdated and will not be restored. The same applies to
+ * snapshots written in another format version.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+class MibSnapshot {
+
+    /**
+     * The snapshot file magic number.
+     */
+    private static final int MAGIC = 0x4D494253;
+
+    /**
+     * The snapshot file format version.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The number of root OID values (and symbols) in the default
+     * context. These are never written to the snapshot, but have
+     * the first table indices reserved.
+     */
+    private static final int ROOTS = 3;
+
+    /**
+     * The MIB type symbol kind.
+     */
+    private static final int SYMBOL_TYPE = 1;
+
+    /**
+     * The MIB value symbol kind.
+     */
+    private static final int SYMBOL_VALUE = 2;
+
+    /**
+     * The MIB macro symbol kind.
+     */
+    private static final int SYMBOL_MACRO = 3;
+
+    /**
+     * The null (missing) type, value or constraint kind.
+     */
+    private static final int NONE = 0;
+
+    /**
+     * The boolean type kind.
+     */
+    private static final int TYPE_BOOLEAN = 1;
+
+    /**
+     * The null type kind.
+     */
+    private static final int TYPE_NULL = 2;
+
+    /**
+     * The object identifier type kind.
+     */
+    private static final int TYPE_OID = 3;
+
+    /**
+     * The real type kind.
+     */
+    private static final int TYPE_REAL = 4;
+
+    /**
+     * The integer type kind.
+     */
+    private static final int TYPE_INTEGER = 5;
+
+    /**
+     * The bit set type kind.
+     */
+    private static final int TYPE_BITS = 6;
+
+    /**
+     * The string type kind.
+     */
+    private static final int TYPE_STRING = 7;
+
+    /**
+     * The sequence type kind.
+     */
+    private static final int TYPE_SEQUENCE = 8;
+
+    /**
+     * The sequence of type kind.
+     */
+    private static final int TYPE_SEQUENCE_OF = 9;
+
+    /**
+     * The choice type kind.
+     */
+    private static final int TYPE_CHOICE = 10;
+
+    /**
+     * The element type kind.
+     */
+    private static final int TYPE_ELEMENT = 11;
+
+    /**
+     * The SNMP object type kind.
+     */
+    private static final int TYPE_OBJECT_TYPE = 20;
+
+    /**
+     * The SNMP module identity kind.
+     */
+    private static final int TYPE_MODULE_IDENTITY = 21;
+
+    /**
+     * The SNMP object identity kind.
+     */
+    private static final int TYPE_OBJECT_IDENTITY = 22;
+
+    /**
+     * The SNMP notification type kind.
+     */
+    private static final int TYPE_NOTIFICATION_TYPE = 23;
+
+    /**
+     * The SNMP trap type kind.
+     */
+    private static final int TYPE_TRAP_TYPE = 24;
+
+    /**
+     * The SNMP textual convention kind.
+     */
+    private static final int TYPE_TEXTUAL_CONVENTION = 25;
+
+    /**
+     * The SNMP object group kind.
+     */
+    private static final int TYPE_OBJECT_GROUP = 26;
+
+    /**
+     * The SNMP notification group kind.
+     */
+    private static final int TYPE_NOTIFICATION_GROUP = 27;
+
+    /**
+     * The SNMP module compliance kind.
+     */
+    private static final int TYPE_MODULE_COMPLIANCE = 28;
+
+    /**
+     * The SNMP agent capabilities kind.
+     */
+    private static final int TYPE_AGENT_CAPABILITIES = 29;
+
+    /**
+     * The object identifier value kind.
+     */
+    private static final int VALUE_OID = 1;
+
+    /**
+     * The number value kind.
+     */
+    private static final int VALUE_NUMBER = 2;
+
+    /**
+     * The binary number value kind.
+     */
+    private static final int VALUE_BINARY = 3;
+
+    /**
+     * The hexadecimal number value kind.
+     */
+    private static final int VALUE_HEX = 4;
+
+    /**
+     * The string value kind.
+     */
+    private static final int VALUE_STRING = 5;
+
+    /**
+     * The bit set value kind.
+     */
+    private static final int VALUE_BITS = 6;
+
+    /**
+     * The boolean true value kind.
+     */
+    private static final int VALUE_TRUE = 7;
+
+    /**
+     * The boolean false value kind.
+     */
+    private static final int VALUE_FALSE = 8;
+
+    /**
+     * The null value kind.
+     */
+    private static final int VALUE_NULL = 9;
+
+    /**
+     * The value constraint kind.
+     */
+    private static final int CONSTRAINT_VALUE = 1;
+
+    /**
+     * The value range constraint kind.
+     */
+    private static final int CONSTRAINT_RANGE = 2;
+
+    /**
+     * The size constraint kind.
+     */
+    private static final int CONSTRAINT_SIZE = 3;
+
+    /**
+     * The compound constraint kind.
+     */
+    private static final int CONSTRAINT_COMPOUND = 4;
+
+    /**
+     * The SNMP access modes, in snapshot index order.
+     */
+    private static final SnmpAccess[] ACCESS = {
+        SnmpAccess.NOT_IMPLEMENTED,
+        SnmpAccess.NOT_ACCESSIBLE,
+        SnmpAccess.ACCESSIBLE_FOR_NOTIFY,
+        SnmpAccess.READ_ONLY,
+        SnmpAccess.READ_WRITE,
+        SnmpAccess.READ_CREATE,
+        SnmpAccess.WRITE_ONLY
+    };
+
+    /**
+     * The SNMP status values, in snapshot index order.
+     */
+    private static final SnmpStatus[] STATUS = {
+        SnmpStatus.MANDATORY,
+        SnmpStatus.OPTIONAL,
+        SnmpStatus.CURRENT,
+        SnmpStatus.DEPRECATED,
+        SnmpStatus.OBSOLETE
+    };
+
+    /**
+     * The MIB loader to restore MIB modules into, or null when
+     * writing a snapshot.
+     */
+    private MibLoader loader;
+
+    /**
+     * The default MIB context (with the OID tree roots).
+     */
+    private DefaultContext context;
+
+    /**
+     * The MIB modules, in load order. Any MIB modules referenced but
+     * no longer present in the MIB loader are added last.
+     */
+    private ArrayList<Mib> mibs = new ArrayList<>();
+
+    /**
+     * The number of MIB modules present in the MIB loader. These are
+     * the first MIB modules in the list.
+     */
+    private int published = 0;
+
+    /**
+     * The MIB table index map. Only used when writing.
+     */
+    private IdentityHashMap<Mib,Integer> mibIds = new IdentityHashMap<>();
+
+    /**
+     * The string table index map. Only used when writing.
+     */
+    private HashMap<String,Integer> stringIds = new HashMap<>();
+
+    /**
+     * The string table. When writing, the strings are added in the
+     * order first referenced.
+     */
+    private ArrayList<String> strings = new ArrayList<>();
+
+    /**
+     * The symbol table index map. Only used when writing.
+     */
+    private IdentityHashMap<MibSymbol,Integer> symbolIds =
+        new IdentityHashMap<>();
+
+    /**
+     * The symbol table. Only used when reading. The MIB symbols are
+     * created after their types and values, so references to them
+     * are resolved at the end.
+     */
+    private ArrayList<MibSymbol> symbols = new ArrayList<>();
+
+    /**
+     * The OID value table index map. Only used when writing.
+     */
+    private IdentityHashMap<ObjectIdentifierValue,Integer> oidIds =
+        new IdentityHashMap<>();
+
+    /**
+     * The OID value table. Only used when reading.
+     */
+    private ObjectIdentifierValue[] oids;
+
+    /**
+     * The constraint table index map. Only used when writing.
+     */
+    private IdentityHashMap<Constraint,Integer> constraintIds =
+        new IdentityHashMap<>();
+
+    /**
+     * The constraint table. Only used when reading.
+     */
+    private ArrayList<Constraint> constraints = new ArrayList<>();
+
+    /**
+     * The named type table index map, indexed by the constraint
+     * created from the named numbers. Only used when writing.
+     */
+    private IdentityHashMap<Constraint,Integer> namedIds =
+        new IdentityHashMap<>();
+
+    /**
+     * The named type table. Only used when reading. Each entry is
+     * the primitive type with the named numbers.
+     */
+    private ArrayList<MibType> namedTypes = new ArrayList<>();
+
+    /**
+     * The named types not yet returned as primitive types. Only used
+     * when reading. These were created to be referenced by other
+     * types, and may still be returned once as the primitive type.
+     */
+    private Set<MibType> unclaimed =
+        Collections.newSetFromMap(new IdentityHashMap<MibType,Boolean>());
+
+    /**
+     * The objects with unresolved symbol references. Only used when
+     * reading. Each object has a symbol table index at the same
+     * position in the referenceIds list.
+     */
+    private ArrayList<Object> references = new ArrayList<>();
+
+    /**
+     * The symbol table indices for the unresolved references. Only
+     * used when reading.
+     */
+    private ArrayList<Integer> referenceIds = new ArrayList<>();
+
+    /**
+     * The file objects created, indexed by path. Only used when
+     * reading, to share the file objects between the file
+     * references.
+     */
+    private HashMap<String,File> files = new HashMap<>();
+
+    /**
+     * The MIB log for the restored MIB modules. Only used when
+     * reading.
+     */
+    private MibLoaderLog log = new MibLoaderLog();
+
+    /**
+     * Creates a new MIB loader snapshot.
+     *
+     * @param loader         the MIB loader, or null when writing
+     * @param context        the default MIB context
+     */
+    private MibSnapshot(MibLoader loader, DefaultContext context) {
+        this.loader = loader;
+        this.context = context;
+    }
+
+    /**
+     * Reads a MIB loader snapshot from file. The MIB modules are
+     * restored into a new default context, which isn't modified
+     * unless the whole snapshot could be read. If the file doesn't
+     * exist, was written in another format version, or if the MIB
+     * source files have been modified, null will be returned.
+     *
+     * @param file           the snapshot file
+     * @param loader         the MIB loader for the restored MIBs
+     * @param context        the new default MIB context
+     *
+     * @return the list of MIB modules read (in load order), or
+     *         null if not found or outdated
+     *
+     * @throws IOException if the snapshot file couldn't be read
+     */
+    public static ArrayList<Mib> read(File file,
+                                      MibLoader loader,
+                                      DefaultContext context)
+        throws IOException {
+
+        try (
+            InputStream is = new FileInputStream(file);
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(is, 8192)));
+        ) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            MibSnapshot snapshot = new MibSnapshot(loader, context);
+            if (!snapshot.readContent(in)) {
+                return null;
+            }
+            List<Mib> list = snapshot.mibs.subList(0, snapshot.published);
+            return new ArrayList<>(list);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (EOFException | ZipException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a MIB loader snapshot to file. The file is written
+     * atomically, by first writing a temporary file in the same
+     * directory and then renaming it.
+     *
+     * @param file           the snapshot file
+     * @param context        the default MIB context
+     * @param mibs           the MIB modules, in load order
+     *
+     * @throws IOException if the snapshot file couldn't be written,
+     *             or if some MIB source couldn't be read
+     */
+    public static void write(File file,
+                             DefaultContext context,
+                             Collection<Mib> mibs)
+        throws IOException {
+
+        MibSnapshot snapshot = new MibSnapshot(null, context);
+        for (Mib mib : mibs) {
+            snapshot.addMib(mib);
+        }
+        snapshot.published = mibs.size();
+        snapshot.addReferencedMibs();
+        ArrayList<MibSource> sources = snapshot.getSources();
+        byte[] digest = digest(sources);
+        if (digest == null) {
+            throw new IOException("couldn't read MIB sources for snapshot");
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        snapshot.writeContent(new DataOutputStream(body), sources);
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (
+                FileOutputStream os = new FileOutputStream(tmp);
+                DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new GZIPOutputStream(os, 8192)));
+            ) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeSources(out, sources);
+                out.writeInt(digest.length);
+                out.write(digest);
+                out.writeInt(snapshot.strings.size());
+                for (String str : snapshot.strings) {
+                    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                body.writeTo(out);
+            }
+            Files.move(tmp.toPath(),
+                       file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Adds a MIB module to the list of MIB modules to write. If the
+     * MIB module was already added, this method does nothing.
+     *
+     * @param mib            the MIB module, or null
+     */
+    private void addMib(Mib mib) {
+        if (mib != null && !mibIds.containsKey(mib)) {
+            mibIds.put(mib, mibs.size());
+            mibs.add(mib);
+        }
+    }
+
+    /**
+     * Adds the MIB modules referenced by the OID tree or by imports,
+     * but no longer present in the MIB loader. This happens when an
+     * implicitly loaded MIB is replaced by an explicitly loaded one
+     * with the same name, as the previous symbols remain in use.
+     */
+    private void addReferencedMibs() {
+        ArrayDeque<ObjectIdentifierValue> stack = new ArrayDeque<>();
+        stack.addAll(Arrays.asList(getRoots(context)));
+        while (!stack.isEmpty()) {
+            ObjectIdentifierValue oid = stack.pop();
+            if (oid.getSymbol() != null) {
+                addMib(oid.getSymbol().getMib());
+            }
+            for (int i = 0; i < oid.getChildCount(); i++) {
+                stack.push(oid.getChild(i));
+            }
+        }
+        for (int i = 0; i < mibs.size(); i++) {
+            for (MibImport imp : mibs.get(i).getImports()) {
+                addMib(imp.getMib());
+            }
+        }
+    }
+
+    /**
+     * Returns the MIB sources for the MIB modules. Each source is
+     * only included once.
+     *
+     * @return the list of MIB sources
+     */
+    private ArrayList<MibSource> getSources() {
+        ArrayList<MibSource> res = new ArrayList<>();
+        for (Mib mib : mibs) {
+            MibSource src = mib.getSource();
+            boolean readable = src != null &&
+                               (src.getFile() != null || src.getURL() != null);
+            if (readable && !res.contains(src)) {
+                res.add(src);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Writes the MIB source table.
+     *
+     * @param out            the output stream
+     * @param sources        the list of MIB sources
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private static void writeSources(DataOutputStream out,
+                                     ArrayList<MibSource> sources)
+        throws IOException {
+
+        out.writeInt(sources.size());
+        for (MibSource src : sources) {
+            File file = src.getFile();
+            URL url = src.getURL();
+            out.writeBoolean(file != null);
+            if (file != null) {
+                out.writeUTF(file.getPath());
+            }
+            out.writeBoolean(url != null);
+            if (url != null) {
+                out.writeUTF(url.toExternalForm());
+            }
+        }
+    }
+
+    /**
+     * Reads the MIB source table.
+     *
+     * @param in             the input stream
+     *
+     * @return the list of MIB sources
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private static ArrayList<MibSource> readSources(DataInputStream in)
+        throws IOException {
+
+        int count = in.readInt();
+        ArrayList<MibSource> res = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String path = in.readBoolean() ? in.readUTF() : null;
+            URL url = in.readBoolean() ? new URL(in.readUTF()) : null;
+            if (url == null) {
+                res.add(new MibSource(new File(path)));
+            } else if (path == null) {
+                res.add(new MibSource(url));
+            } else {
+                res.add(new MibSource(path, url));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Writes the snapshot content (except the header and the string
+     * table). The string table is filled in while writing.
+     *
+     * @param out            the output stream
+     * @param sources        the list of MIB sources
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeContent(DataOutputStream out,
+                              ArrayList<MibSource> sources)
+        throws IOException {
+
+        // Reserve symbol and OID table indices
+        ArrayList<ObjectIdentifierValue> tree = new ArrayList<>();
+        for (ObjectIdentifierValue root : getRoots(context)) {
+            symbolIds.put(root.getSymbol(), symbolIds.size());
+            oidIds.put(root, tree.size());
+            tree.add(root);
+        }
+        for (Mib mib : mibs) {
+            for (MibSymbol sym : mib.getAllSymbols()) {
+                symbolIds.put(sym, symbolIds.size());
+            }
+        }
+
+        // Write MIB modules
+        out.writeInt(published);
+        out.writeInt(mibs.size());
+        for (Mib mib : mibs) {
+            writeString(out, mib.getName());
+            out.writeInt(mib.getSmiVersion());
+            out.writeBoolean(mib.isLoaded());
+            writeString(out, mib.getHeaderComment());
+            writeString(out, mib.getFooterComment());
+            writeFileRef(out, mib.getFileRef());
+            out.writeInt(sources.indexOf(mib.getSource()));
+            MibText text = mib.getMibText();
+            out.writeBoolean(text != null);
+            if (text != null) {
+                text.write(out);
+            }
+            List<MibImport> imports = mib.getImports();
+            out.writeInt(imports.size());
+            for (MibImport imp : imports) {
+                writeString(out, imp.getName());
+                writeFileRef(out, imp.getFileRef());
+                Integer mibId = mibIds.get(imp.getMib());
+                out.writeInt((mibId == null) ? -1 : mibId.intValue());
+                writeStrings(out, imp.getAllSymbolNames());
+            }
+            out.writeInt(mib.getAllSymbols().size());
+        }
+
+        // Write OID arcs (breadth-first, so parents come first)
+        for (int i = 0; i < tree.size(); i++) {
+            ObjectIdentifierValue oid = tree.get(i);
+            for (int j = 0; j < oid.getChildCount(); j++) {
+                ObjectIdentifierValue child = oid.getChild(j);
+                oidIds.put(child, tree.size());
+                tree.add(child);
+            }
+        }
+        out.writeInt(tree.size() - ROOTS);
+        for (int i = ROOTS; i < tree.size(); i++) {
+            ObjectIdentifierValue oid = tree.get(i);
+            out.writeInt(oidIds.get(oid.getParent()));
+            out.writeInt(oid.getValue());
+            writeString(out, oid.getName());
+            writeSymbolRef(out, oid.getSymbol());
+        }
+
+        // Write MIB symbols
+        for (Mib mib : mibs) {
+            for (MibSymbol sym : mib.getAllSymbols()) {
+                writeSymbol(out, sym);
+            }
+        }
+    }
+
+    /**
+     * Reads the snapshot content. The MIB sources are first read and
+     * compared with the snapshot digest. If the digest doesn't match,
+     * the rest of the snapshot isn't read.
+     *
+     * @param in             the input stream
+     *
+     * @return true if the snapshot content was read, or
+     *         false if the snapshot was outdated
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private boolean readContent(DataInputStream in) throws IOException {
+
+        // Read MIB sources & check digest
+        ArrayList<MibSource> sources = readSources(in);
+        byte[] digest = new byte[in.readInt()];
+        in.readFully(digest);
+        byte[] current = digest(sources);
+        if (current == null || !Arrays.equals(digest, current)) {
+            return false;
+        }
+
+        // Read string table
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            strings.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        // Read MIB modules
+        ObjectIdentifierValue[] roots = getRoots(context);
+        for (ObjectIdentifierValue root : roots) {
+            symbols.add(root.getSymbol());
+        }
+        ArrayList<Integer> importIds = new ArrayList<>();
+        ArrayList<Integer> symbolCounts = new ArrayList<>();
+        published = in.readInt();
+        count = in.readInt();
+        if (published < 0 || published > count) {
+            throw new IOException("invalid MIB count in snapshot: " +
+                                  published);
+        }
+        for (int i = 0; i < count; i++) {
+            Mib mib = new Mib(loader, log);
+            mib.setName(readString(in));
+            mib.setSmiVersion(in.readInt());
+            mib.setLoaded(in.readBoolean());
+            mib.setHeaderComment(readString(in));
+            mib.setFooterComment(readString(in));
+            mib.setFileRef(readFileRef(in));
+            int pos = in.readInt();
+            MibSource src = (pos < 0) ? null : sources.get(pos);
+            mib.setSource(src);
+            if (in.readBoolean()) {
+                mib.setMibText(MibText.read(in, src));
+            }
+            int imports = in.readInt();
+            for (int j = 0; j < imports; j++) {
+                String name = readString(in);
+                MibFileRef fileRef = readFileRef(in);
+                importIds.add(in.readInt());
+                List<String> names = readStrings(in);
+                mib.addImport(new MibImport(loader, fileRef, name, names));
+            }
+            symbolCounts.add(in.readInt());
+            mibs.add(mib);
+        }
+        for (int symbolCount : symbolCounts) {
+            for (int i = 0; i < symbolCount; i++) {
+                symbols.add(null);
+            }
+        }
+
+        // Read OID arcs
+        oids = Arrays.copyOf(roots, ROOTS + in.readInt());
+        for (int i = ROOTS; i < oids.length; i++) {
+            ObjectIdentifierValue parent = oids[in.readInt()];
+            int value = in.readInt();
+            String name = readString(in);
+            try {
+                oids[i] = new ObjectIdentifierValue(null, parent, name, value);
+            } catch (MibException e) {
+                throw new IOException(e.getMessage());
+            }
+            addReference(oids[i], readSymbolRef(in));
+        }
+
+        // Read MIB symbols
+        int id = ROOTS;
+        for (int i = 0; i < mibs.size(); i++) {
+            for (int j = 0; j < symbolCounts.get(i); j++) {
+                symbols.set(id++, readSymbol(in, mibs.get(i)));
+            }
+        }
+
+        // Resolve symbol references & imports
+        for (int i = 0; i < references.size(); i++) {
+            resolveReference(references.get(i), referenceIds.get(i));
+        }
+        int pos = 0;
+        for (Mib mib : mibs) {
+            for (MibImport imp : mib.getImports()) {
+                int mibId = importIds.get(pos++);
+                imp.setMib((mibId < 0) ? null : mibs.get(mibId));
+            }
+            for (MibSymbol sym : mib.getAllSymbols()) {
+                if (sym instanceof MibValueSymbol) {
+                    mib.addSymbolValue((MibValueSymbol) sym);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the root OID values in a default MIB context.
+     *
+     * @param context        the default MIB context
+     *
+     * @return the root OID values
+     */
+    private static ObjectIdentifierValue[] getRoots(DefaultContext context) {
+        String[] names = {
+            DefaultContext.CCITT,
+            DefaultContext.ISO,
+            DefaultContext.JOINT_ISO_CCITT
+        };
+        ObjectIdentifierValue[] res = new ObjectIdentifierValue[ROOTS];
+        for (int i = 0; i < ROOTS; i++) {
+            MibSymbol sym = context.findSymbol(names[i], false);
+            res[i] = (ObjectIdentifierValue) ((MibValueSymbol) sym).getValue();
+        }
+        return res;
+    }
+
+    /**
+     * Writes a MIB symbol.
+     *
+     * @param out            the output stream
+     * @param sym            the MIB symbol
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeSymbol(DataOutputStream out, MibSymbol sym)
+        throws IOException {
+
+        if (sym instanceof MibTypeSymbol) {
+            out.writeByte(SYMBOL_TYPE);
+        } else if (sym instanceof MibValueSymbol) {
+            out.writeByte(SYMBOL_VALUE);
+        } else {
+            out.writeByte(SYMBOL_MACRO);
+        }
+        writeString(out, sym.getName());
+        writeFileRef(out, sym.getFileRef());
+        writeString(out, sym.getComment());
+        if (sym instanceof MibTypeSymbol) {
+            writeType(out, ((MibTypeSymbol) sym).getType());
+        } else if (sym instanceof MibValueSymbol) {
+            writeType(out, ((MibValueSymbol) sym).getType());
+            writeValue(out, ((MibValueSymbol) sym).getValue());
+        }
+    }
+
+    /**
+     * Reads a MIB symbol. The symbol is also added to the MIB.
+     *
+     * @param in             the input stream
+     * @param mib            the MIB containing the symbol
+     *
+     * @return the MIB symbol read
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private MibSymbol readSymbol(DataInputStream in, Mib mib)
+        throws IOException {
+
+        int kind = in.readByte();
+        String name = readString(in);
+        MibFileRef fileRef = readFileRef(in);
+        String comment = readString(in);
+        MibSymbol sym;
+        if (kind == SYMBOL_TYPE) {
+            sym = new MibTypeSymbol(fileRef, mib, name, readType(in));
+        } else if (kind == SYMBOL_VALUE) {
+            MibType type = readType(in);
+            MibValue value = readValue(in);
+            sym = new MibValueSymbol(fileRef, mib, name, type, value);
+        } else if (kind == SYMBOL_MACRO) {
+            sym = new MibMacroSymbol(fileRef, mib, name);
+        } else {
+            throw new IOException("invalid symbol kind in snapshot: " + kind);
+        }
+        sym.setComment(comment);
+        return sym;
+    }
+
+    /**
+     * Writes a symbol reference. A symbol without a MIB (such as a
+     * named number in a type) is written in full the first time it
+     * is referenced.
+     *
+     * @param out            the output stream
+     * @param sym            the MIB symbol, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeSymbolRef(DataOutputStream out, MibSymbol sym)
+        throws IOException {
+
+        Integer id = (sym == null) ? Integer.valueOf(-1) : symbolIds.get(sym);
+        if (id != null) {
+            out.writeInt(id.intValue());
+        } else if (sym.getMib() == null && sym instanceof MibValueSymbol) {
+            id = symbolIds.size();
+            symbolIds.put(sym, id);
+            out.writeInt(id.intValue());
+            writeString(out, sym.getName());
+            writeFileRef(out, sym.getFileRef());
+            writeString(out, sym.getComment());
+            writeValue(out, ((MibValueSymbol) sym).getValue());
+        } else {
+            throw new IOException("symbol '" + sym.getName() + "' in " +
+                                  sym.getMib() + " isn't loaded");
+        }
+    }
+
+    /**
+     * Reads a symbol reference. A symbol without a MIB is created
+     * the first time it is referenced. References to MIB symbols are
+     * only returned as table indices, since the symbols may not have
+     * been created yet.
+     *
+     * @param in             the input stream
+     *
+     * @return the symbol table index, or
+     *         -1 for a null reference
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private int readSymbolRef(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        if (id == symbols.size()) {
+            String name = readString(in);
+            MibFileRef fileRef = readFileRef(in);
+            String comment = readString(in);
+            MibValue value = readValue(in);
+            MibSymbol sym;
+            sym = new MibValueSymbol(fileRef, null, name, null, value);
+            sym.setComment(comment);
+            symbols.add(sym);
+        } else if (id < -1 || id > symbols.size()) {
+            throw new IOException("invalid symbol index in snapshot: " + id);
+        }
+        return id;
+    }
+
+    /**
+     * Adds an unresolved symbol reference. The reference is resolved
+     * once all the MIB symbols have been read.
+     *
+     * @param obj            the referencing type or value
+     * @param id             the symbol table index, or -1 for none
+     */
+    private void addReference(Object obj, int id) {
+        if (id >= 0) {
+            references.add(obj);
+            referenceIds.add(id);
+        }
+    }
+
+    /**
+     * Resolves a symbol reference. For OID values, this sets the
+     * value symbol. For other types and values, this sets the
+     * reference symbol.
+     *
+     * @param obj            the referencing type or value
+     * @param id             the symbol table index
+     *
+     * @throws IOException if the symbol was of an invalid kind
+     */
+    private void resolveReference(Object obj, int id) throws IOException {
+        MibSymbol sym = symbols.get(id);
+        if (obj instanceof ObjectIdentifierValue &&
+            sym instanceof MibValueSymbol) {
+
+            ((ObjectIdentifierValue) obj).setSymbol((MibValueSymbol) sym);
+        } else if (obj instanceof MibValue && sym instanceof MibValueSymbol) {
+            ((MibValue) obj).setReferenceSymbol((MibValueSymbol) sym);
+        } else if (obj instanceof MibType && sym instanceof MibTypeSymbol) {
+            ((MibType) obj).setReferenceSymbol((MibTypeSymbol) sym);
+        } else {
+            throw new IOException("invalid symbol reference in snapshot: " +
+                                  id);
+        }
+    }
+
+    /**
+     * Writes a MIB type. The type kind and content are written first,
+     * followed by the properties common to all types.
+     *
+     * @param out            the output stream
+     * @param type           the MIB type, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeType(DataOutputStream out, MibType type)
+        throws IOException {
+
+        if (type == null) {
+            out.writeByte(NONE);
+            return;
+        } else if (type instanceof BooleanType) {
+            writeTypeKind(out, TYPE_BOOLEAN, type);
+        } else if (type instanceof NullType) {
+            writeTypeKind(out, TYPE_NULL, type);
+        } else if (type instanceof ObjectIdentifierType) {
+            writeTypeKind(out, TYPE_OID, type);
+        } else if (type instanceof RealType) {
+            writeTypeKind(out, TYPE_REAL, type);
+        } else if (type instanceof IntegerType) {
+            IntegerType t = (IntegerType) type;
+            writeTypeKind(out, TYPE_INTEGER, type);
+            writeNamedNumbers(out, t.getAllSymbols(), t.getConstraint());
+        } else if (type instanceof BitSetType) {
+            BitSetType t = (BitSetType) type;
+            writeTypeKind(out, TYPE_BITS, type);
+            writeNamedNumbers(out, t.getAllSymbols(), t.getConstraint());
+        } else if (type instanceof StringType) {
+            writeTypeKind(out, TYPE_STRING, type);
+            writeConstraint(out, ((StringType) type).getConstraint());
+        } else if (type instanceof SequenceType) {
+            writeTypeKind(out, TYPE_SEQUENCE, type);
+            writeTypes(out, ((SequenceType) type).getAllElements());
+        } else if (type instanceof SequenceOfType) {
+            SequenceOfType t = (SequenceOfType) type;
+            writeTypeKind(out, TYPE_SEQUENCE_OF, type);
+            writeType(out, t.getElementType());
+            writeConstraint(out, t.getConstraint());
+        } else if (type instanceof ChoiceType) {
+            writeTypeKind(out, TYPE_CHOICE, type);
+            writeTypes(out, ((ChoiceType) type).getAllElements());
+        } else if (type instanceof ElementType) {
+            ElementType t = (ElementType) type;
+            writeTypeKind(out, TYPE_ELEMENT, type);
+            writeString(out, t.getName());
+            writeType(out, t.getType());
+        } else if (type instanceof SnmpObjectType) {
+            SnmpObjectType t = (SnmpObjectType) type;
+            writeTypeKind(out, TYPE_OBJECT_TYPE, type);
+            writeType(out, t.getSyntax());
+            writeString(out, t.getUnits());
+            writeAccess(out, t.getAccess());
+            writeStatus(out, t.getStatus());
+            writeString(out, t.getReference());
+            writeValue(out, t.getAugments());
+            out.writeInt(t.getIndex().size());
+            for (SnmpIndex index : t.getIndex()) {
+                out.writeBoolean(index.isImplied());
+                writeValue(out, index.getValue());
+                writeType(out, index.getType());
+            }
+            writeValue(out, t.getDefaultValue());
+        } else if (type instanceof SnmpModuleIdentity) {
+            SnmpModuleIdentity t = (SnmpModuleIdentity) type;
+            writeTypeKind(out, TYPE_MODULE_IDENTITY, type);
+            writeString(out, t.getLastUpdated());
+            writeString(out, t.getOrganization());
+            writeString(out, t.getUnformattedContactInfo());
+            out.writeInt(t.getRevisions().size());
+            for (SnmpRevision rev : t.getRevisions()) {
+                writeValue(out, rev.getValue());
+                rev.writeDescription(out);
+                writeString(out, rev.getComment());
+            }
+        } else if (type instanceof SnmpObjectIdentity) {
+            SnmpObjectIdentity t = (SnmpObjectIdentity) type;
+            writeTypeKind(out, TYPE_OBJECT_IDENTITY, type);
+            writeStatus(out, t.getStatus());
+            writeString(out, t.getReference());
+        } else if (type instanceof SnmpNotificationType) {
+            SnmpNotificationType t = (SnmpNotificationType) type;
+            writeTypeKind(out, TYPE_NOTIFICATION_TYPE, type);
+            writeValues(out, t.getObjects());
+            writeStatus(out, t.getStatus());
+            writeString(out, t.getReference());
+        } else if (type instanceof SnmpTrapType) {
+            SnmpTrapType t = (SnmpTrapType) type;
+            writeTypeKind(out, TYPE_TRAP_TYPE, type);
+            writeValue(out, t.getEnterprise());
+            writeValues(out, t.getVariables());
+            writeString(out, t.getReference());
+        } else if (type instanceof SnmpTextualConvention) {
+            SnmpTextualConvention t = (SnmpTextualConvention) type;
+            writeTypeKind(out, TYPE_TEXTUAL_CONVENTION, type);
+            writeString(out, t.getDisplayHint());
+            writeStatus(out, t.getStatus());
+            writeString(out, t.getReference());
+            writeType(out, t.getSyntax());
+        } else if (type instanceof SnmpObjectGroup) {
+            SnmpObjectGroup t = (SnmpObjectGroup) type;
+            writeTypeKind(out, TYPE_OBJECT_GROUP, type);
+            writeValues(out, t.getObjects());
+            writeStatus(out, t.getStatus());
+            writeString(out, t.getReference());
+        } else if (type instanceof SnmpNotificationGroup) {
+            SnmpNotificationGroup t = (SnmpNotificationGroup) type;
+            writeTypeKind(out, TYPE_NOTIFICATION_GROUP, type);
+            writeValues(out, t.getNotifications());
+            writeStatus(out, t.getStatus());
+            writeString(out, t.getReference());
+        } else if (type instanceof SnmpModuleCompliance) {
+            SnmpModuleCompliance t = (SnmpModuleCompliance) type;
+            writeTypeKind(out, TYPE_MODULE_COMPLIANCE, type);
+            writeStatus(out, t.getStatus());
+            writeString(out, t.getReference());
+            out.writeInt(t.getModules().size());
+            for (SnmpModule module : t.getModules()) {
+                writeModule(out, module);
+            }
+        } else if (type instanceof SnmpAgentCapabilities) {
+            SnmpAgentCapabilities t = (SnmpAgentCapabilities) type;
+            writeTypeKind(out, TYPE_AGENT_CAPABILITIES, type);
+            writeString(out, t.getProductRelease());
+            writeStatus(out, t.getStatus());
+            writeString(out, t.getReference());
+            out.writeInt(t.getModules().size());
+            for (SnmpModuleSupport module : t.getModules()) {
+                writeModuleSupport(out, module);
+            }
+        } else {
+            throw new IOException("unsupported type in snapshot: " +
+                                  type.getClass().getName());
+        }
+        if (type instanceof SnmpType) {
+            ((SnmpType) type).writeDescription(out);
+        }
+        int tags = 0;
+        for (MibTypeTag tag = type.getTag(); tag != null; tag = tag.getNext()) {
+            tags++;
+        }
+        out.writeInt(tags);
+        for (MibTypeTag tag = type.getTag(); tag != null; tag = tag.getNext()) {
+            out.writeInt(tag.getCategory());
+            out.writeInt(tag.getValue());
+        }
+        writeSymbolRef(out, type.getReferenceSymbol());
+        writeString(out, type.getComment());
+    }
+
+    /**
+     * Writes a MIB type kind and primitive flag.
+     *
+     * @param out            the output stream
+     * @param kind           the type kind
+     * @param type           the MIB type
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeTypeKind(DataOutputStream out, int kind, MibType type)
+        throws IOException {
+
+        out.writeByte(kind);
+        out.writeBoolean(type.isPrimitive());
+    }
+
+    /**
+     * Reads a MIB type. Non-primitive types are recreated as a
+     * reference to the primitive type, in the same way as when the
+     * type was initialized.
+     *
+     * @param in             the input stream
+     *
+     * @return the MIB type read, or null
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private MibType readType(DataInputStream in) throws IOException {
+        MibType type;
+        int kind = in.readByte();
+        if (kind == NONE) {
+            return null;
+        }
+        boolean primitive = in.readBoolean();
+        switch (kind) {
+        case TYPE_BOOLEAN:
+            type = new BooleanType();
+            break;
+        case TYPE_NULL:
+            type = new NullType();
+            break;
+        case TYPE_OID:
+            type = new ObjectIdentifierType();
+            break;
+        case TYPE_REAL:
+            type = new RealType();
+            break;
+        case TYPE_INTEGER:
+        case TYPE_BITS:
+            if (in.readBoolean()) {
+                type = readNamedType(in, kind, primitive);
+            } else if (kind == TYPE_INTEGER) {
+                type = new IntegerType(readConstraint(in));
+            } else {
+                type = new BitSetType(readConstraint(in));
+            }
+            break;
+        case TYPE_STRING:
+            type = new StringType(readConstraint(in));
+            break;
+        case TYPE_SEQUENCE:
+            type = new SequenceType(readElements(in));
+            break;
+        case TYPE_SEQUENCE_OF:
+            type = readType(in);
+            type = new SequenceOfType(type, readConstraint(in));
+            break;
+        case TYPE_CHOICE:
+            type = new ChoiceType(readElements(in));
+            break;
+        case TYPE_ELEMENT:
+            type = new ElementType(readString(in), readType(in));
+            break;
+        default:
+            type = readSnmpType(in, kind);
+            ((SnmpType) type).readDescription(in);
+        }
+        if (!primitive && type.isPrimitive()) {
+            type = type.createReference();
+        }
+        int tags = in.readInt();
+        MibTypeTag[] list = new MibTypeTag[tags];
+        for (int i = 0; i < tags; i++) {
+            list[i] = new MibTypeTag(in.readInt(), in.readInt());
+        }
+        for (int i = tags - 1; i >= 0; i--) {
+            type.setTag(i == tags - 1, list[i]);
+        }
+        addReference(type, readSymbolRef(in));
+        type.setComment(readString(in));
+        return type;
+    }
+
+    /**
+     * Reads an SNMP macro type.
+     *
+     * @param in             the input stream
+     * @param kind           the type kind
+     *
+     * @return the MIB type read
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private MibType readSnmpType(DataInputStream in, int kind)
+        throws IOException {
+
+        MibType syntax;
+        MibValue value;
+        ArrayList<MibValue> values;
+        SnmpAccess access;
+        SnmpStatus status;
+        int count;
+
+        switch (kind) {
+        case TYPE_OBJECT_TYPE:
+            syntax = readType(in);
+            String units = readString(in);
+            access = readAccess(in);
+            status = readStatus(in);
+            String ref = readString(in);
+            MibValue augments = readValue(in);
+            count = in.readInt();
+            ArrayList<SnmpIndex> index = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                boolean implied = in.readBoolean();
+                value = readValue(in);
+                index.add(new SnmpIndex(implied, value, readType(in)));
+            }
+            value = readValue(in);
+            if (augments != null) {
+                return new SnmpObjectType(syntax, units, access, status, null,
+                                          ref, augments, value);
+            } else {
+                return new SnmpObjectType(syntax, units, access, status, null,
+                                          ref, index, value);
+            }
+        case TYPE_MODULE_IDENTITY:
+            String updated = readString(in);
+            String org = readString(in);
+            String contact = readString(in);
+            count = in.readInt();
+            ArrayList<SnmpRevision> revisions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                SnmpRevision rev = new SnmpRevision(readValue(in), null);
+                rev.readDescription(in);
+                rev.setComment(readString(in));
+                revisions.add(rev);
+            }
+            return new SnmpModuleIdentity(updated, org, contact, null,
+                                          revisions);
+        case TYPE_OBJECT_IDENTITY:
+            status = readStatus(in);
+            return new SnmpObjectIdentity(status, null, readString(in));
+        case TYPE_NOTIFICATION_TYPE:
+            values = readValues(in);
+            status = readStatus(in);
+            return new SnmpNotificationType(values, status, null,
+                                            readString(in));
+        case TYPE_TRAP_TYPE:
+            value = readValue(in);
+            values = readValues(in);
+            return new SnmpTrapType(value, values, null, readString(in));
+        case TYPE_TEXTUAL_CONVENTION:
+            String hint = readString(in);
+            status = readStatus(in);
+            String reference = readString(in);
+            syntax = readType(in);
+            return new SnmpTextualConvention(hint, status, null, reference,
+                                             syntax);
+        case TYPE_OBJECT_GROUP:
+            values = readValues(in);
+            status = readStatus(in);
+            return new SnmpObjectGroup(values, status, null, readString(in));
+        case TYPE_NOTIFICATION_GROUP:
+            values = readValues(in);
+            status = readStatus(in);
+            return new SnmpNotificationGroup(values, status, null,
+                                             readString(in));
+        case TYPE_MODULE_COMPLIANCE:
+            status = readStatus(in);
+            reference = readString(in);
+            count = in.readInt();
+            ArrayList<SnmpModule> modules = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                modules.add(readModule(in));
+            }
+            return new SnmpModuleCompliance(status, null, reference, modules);
+        case TYPE_AGENT_CAPABILITIES:
+            String release = readString(in);
+            status = readStatus(in);
+            reference = readString(in);
+            count = in.readInt();
+            ArrayList<SnmpModuleSupport> supports = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                supports.add(readModuleSupport(in));
+            }
+            return new SnmpAgentCapabilities(release, status, null, reference,
+                                             supports);
+        default:
+            throw new IOException("invalid type kind in snapshot: " + kind);
+        }
+    }
+
+    /**
+     * Writes an array of element types.
+     *
+     * @param out            the output stream
+     * @param elems          the element types
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeTypes(DataOutputStream out, ElementType[] elems)
+        throws IOException {
+
+        out.writeInt(elems.length);
+        for (ElementType elem : elems) {
+            writeType(out, elem);
+        }
+    }
+
+    /**
+     * Reads a list of element types.
+     *
+     * @param in             the input stream
+     *
+     * @return the list of element types
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private ArrayList<ElementType> readElements(DataInputStream in)
+        throws IOException {
+
+        int count = in.readInt();
+        ArrayList<ElementType> res = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MibType type = readType(in);
+            if (!(type instanceof ElementType)) {
+                throw new IOException("invalid element type in snapshot");
+            }
+            res.add((ElementType) type);
+        }
+        return res;
+    }
+
+    /**
+     * Writes the named numbers or the constraint for an integer or
+     * bit set type. The constraint for named numbers is created from
+     * the symbols, and is shared with any references to the type. So
+     * the named numbers are only written the first time, and are
+     * thereafter referenced by the named type table index.
+     *
+     * @param out            the output stream
+     * @param named          the named number symbols
+     * @param constraint     the type constraint, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeNamedNumbers(DataOutputStream out,
+                                   MibValueSymbol[] named,
+                                   Constraint constraint)
+        throws IOException {
+
+        out.writeBoolean(named.length > 0);
+        if (named.length <= 0) {
+            writeConstraint(out, constraint);
+            return;
+        }
+        Integer id = namedIds.get(constraint);
+        if (id != null) {
+            out.writeInt(id.intValue());
+            return;
+        }
+        id = namedIds.size();
+        namedIds.put(constraint, id);
+        out.writeInt(id.intValue());
+        out.writeInt(named.length);
+        for (MibValueSymbol sym : named) {
+            writeSymbolRef(out, sym);
+        }
+    }
+
+    /**
+     * Reads an integer or bit set type with named numbers. The first
+     * time the named numbers are read, a new primitive type is
+     * created. Other types with the same named numbers are created
+     * as references to it, sharing both symbols and constraint.
+     *
+     * @param in             the input stream
+     * @param kind           the type kind
+     * @param primitive      the primitive type flag
+     *
+     * @return the MIB type read
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private MibType readNamedType(DataInputStream in,
+                                  int kind,
+                                  boolean primitive)
+        throws IOException {
+
+        int id = in.readInt();
+        if (id < 0 || id > namedTypes.size()) {
+            throw new IOException("invalid named type in snapshot: " + id);
+        } else if (id < namedTypes.size()) {
+            MibType base = namedTypes.get(id);
+            if (primitive && unclaimed.remove(base)) {
+                return base;
+            } else {
+                return base.createReference();
+            }
+        }
+        int count = in.readInt();
+        ArrayList<MibValueSymbol> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MibSymbol sym = symbols.get(readSymbolRef(in));
+            if (!(sym instanceof MibValueSymbol) || sym.getMib() != null) {
+                throw new IOException("invalid named number in snapshot");
+            }
+            list.add((MibValueSymbol) sym);
+        }
+        MibType base;
+        if (kind == TYPE_INTEGER) {
+            base = new IntegerType(list);
+        } else {
+            base = new BitSetType(list);
+        }
+        namedTypes.add(base);
+        if (!primitive) {
+            unclaimed.add(base);
+        }
+        return base;
+    }
+
+    /**
+     * Writes an SNMP module compliance module.
+     *
+     * @param out            the output stream
+     * @param module         the SNMP module
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeModule(DataOutputStream out, SnmpModule module)
+        throws IOException {
+
+        writeString(out, module.getModule());
+        writeValues(out, module.getGroups());
+        out.writeInt(module.getCompliances().size());
+        for (SnmpCompliance comp : module.getCompliances()) {
+            out.writeBoolean(comp.isGroup());
+            writeValue(out, comp.getValue());
+            writeType(out, comp.getSyntax());
+            writeType(out, comp.getWriteSyntax());
+            writeAccess(out, comp.getAccess());
+            comp.writeDescription(out);
+            writeString(out, comp.getComment());
+        }
+        writeString(out, module.getComment());
+    }
+
+    /**
+     * Reads an SNMP module compliance module.
+     *
+     * @param in             the input stream
+     *
+     * @return the SNMP module read
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private SnmpModule readModule(DataInputStream in) throws IOException {
+        String name = readString(in);
+        ArrayList<MibValue> groups = readValues(in);
+        int count = in.readInt();
+        ArrayList<SnmpCompliance> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean group = in.readBoolean();
+            MibValue value = readValue(in);
+            MibType syntax = readType(in);
+            MibType writeSyntax = readType(in);
+            SnmpAccess access = readAccess(in);
+            SnmpCompliance comp = new SnmpCompliance(group, value, syntax,
+                                                     writeSyntax, access,
+                                                     null);
+            comp.readDescription(in);
+            comp.setComment(readString(in));
+            list.add(comp);
+        }
+        SnmpModule module = new SnmpModule(name, groups, list);
+        module.setComment(readString(in));
+        return module;
+    }
+
+    /**
+     * Writes an SNMP agent capabilities module.
+     *
+     * @param out            the output stream
+     * @param module         the SNMP module support
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeModuleSupport(DataOutputStream out,
+                                    SnmpModuleSupport module)
+        throws IOException {
+
+        writeString(out, module.getModule());
+        writeValues(out, module.getGroups());
+        out.writeInt(module.getVariations().size());
+        for (SnmpVariation var : module.getVariations()) {
+            writeValue(out, var.getValue());
+            writeType(out, var.getSyntax());
+            writeType(out, var.getWriteSyntax());
+            writeAccess(out, var.getAccess());
+            writeValues(out, var.getRequiredCells());
+            writeValue(out, var.getDefaultValue());
+            var.writeDescription(out);
+        }
+    }
+
+    /**
+     * Reads an SNMP agent capabilities module.
+     *
+     * @param in             the input stream
+     *
+     * @return the SNMP module support read
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private SnmpModuleSupport readModuleSupport(DataInputStream in)
+        throws IOException {
+
+        String name = readString(in);
+        ArrayList<MibValue> groups = readValues(in);
+        int count = in.readInt();
+        ArrayList<SnmpVariation> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MibValue value = readValue(in);
+            MibType syntax = readType(in);
+            MibType writeSyntax = readType(in);
+            SnmpAccess access = readAccess(in);
+            ArrayList<MibValue> cells = readValues(in);
+            MibValue defaultValue = readValue(in);
+            SnmpVariation var = new SnmpVariation(value, syntax, writeSyntax,
+                                                  access, cells,
+                                                  defaultValue, null);
+            var.readDescription(in);
+            list.add(var);
+        }
+        return new SnmpModuleSupport(name, groups, list);
+    }
+
+    /**
+     * Writes a type constraint. Each constraint is written in full
+     * the first time, and is thereafter referenced by the constraint
+     * table index. This preserves constraints shared between a type
+     * and its references. Compound constraints are written as a flat
+     * list of the base constraints.
+     *
+     * @param out            the output stream
+     * @param c              the constraint, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeConstraint(DataOutputStream out, Constraint c)
+        throws IOException {
+
+        Integer id = (c == null) ? Integer.valueOf(-1) : constraintIds.get(c);
+        if (id != null) {
+            out.writeInt(id.intValue());
+            return;
+        }
+        id = constraintIds.size();
+        constraintIds.put(c, id);
+        out.writeInt(id.intValue());
+        if (c instanceof ValueConstraint) {
+            out.writeByte(CONSTRAINT_VALUE);
+            writeValue(out, ((ValueConstraint) c).getValue());
+        } else if (c instanceof ValueRangeConstraint) {
+            ValueRangeConstraint range = (ValueRangeConstraint) c;
+            out.writeByte(CONSTRAINT_RANGE);
+            writeValue(out, range.getLowerBound());
+            out.writeBoolean(range.isStrictLower());
+            writeValue(out, range.getUpperBound());
+            out.writeBoolean(range.isStrictUpper());
+        } else if (c instanceof SizeConstraint) {
+            out.writeByte(CONSTRAINT_SIZE);
+            writeConstraints(out, ((SizeConstraint) c).getValues());
+        } else if (c instanceof CompoundConstraint) {
+            out.writeByte(CONSTRAINT_COMPOUND);
+            writeConstraints(out, ((CompoundConstraint) c).getConstraintList());
+        } else {
+            throw new IOException("unsupported constraint in snapshot: " +
+                                  c.getClass().getName());
+        }
+    }
+
+    /**
+     * Writes a list of alternative type constraints.
+     *
+     * @param out            the output stream
+     * @param list           the list of constraints
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeConstraints(DataOutputStream out,
+                                  ArrayList<Constraint> list)
+        throws IOException {
+
+        out.writeInt(list.size());
+        for (Constraint c : list) {
+            writeConstraint(out, c);
+        }
+    }
+
+    /**
+     * Reads a type constraint.
+     *
+     * @param in             the input stream
+     *
+     * @return the constraint read, or null
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private Constraint readConstraint(DataInputStream in)
+        throws IOException {
+
+        int id = in.readInt();
+        if (id < -1 || id > constraints.size()) {
+            throw new IOException("invalid constraint index in snapshot: " +
+                                  id);
+        } else if (id < 0) {
+            return null;
+        } else if (id < constraints.size()) {
+            return constraints.get(id);
+        }
+        constraints.add(null);
+        Constraint res;
+        int kind = in.readByte();
+        switch (kind) {
+        case CONSTRAINT_VALUE:
+            res = new ValueConstraint(null, readValue(in));
+            break;
+        case CONSTRAINT_RANGE:
+            MibValue lower = readValue(in);
+            boolean strictLower = in.readBoolean();
+            MibValue upper = readValue(in);
+            boolean strictUpper = in.readBoolean();
+            res = new ValueRangeConstraint(null, lower, strictLower,
+                                           upper, strictUpper);
+            break;
+        case CONSTRAINT_SIZE:
+            res = new SizeConstraint(null, readConstraints(in));
+            break;
+        case CONSTRAINT_COMPOUND:
+            res = readConstraints(in);
+            break;
+        default:
+            throw new IOException("invalid constraint kind in snapshot: " +
+                                  kind);
+        }
+        constraints.set(id, res);
+        return res;
+    }
+
+    /**
+     * Reads a list of alternative type constraints. The constraints
+     * are combined into compound constraints.
+     *
+     * @param in             the input stream
+     *
+     * @return the combined constraint
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private Constraint readConstraints(DataInputStream in)
+        throws IOException {
+
+        int count = in.readInt();
+        Constraint res = null;
+        for (int i = 0; i < count; i++) {
+            Constraint c = readConstraint(in);
+            res = (res == null) ? c : new CompoundConstraint(res, c);
+        }
+        return res;
+    }
+
+    /**
+     * Writes a list of MIB values.
+     *
+     * @param out            the output stream
+     * @param values         the list of values, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeValues(DataOutputStream out,
+                             ArrayList<MibValue> values)
+        throws IOException {
+
+        out.writeInt((values == null) ? -1 : values.size());
+        if (values != null) {
+            for (MibValue value : values) {
+                writeValue(out, value);
+            }
+        }
+    }
+
+    /**
+     * Reads a list of MIB values.
+     *
+     * @param in             the input stream
+     *
+     * @return the list of values, or null
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private ArrayList<MibValue> readValues(DataInputStream in)
+        throws IOException {
+
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        ArrayList<MibValue> res = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            res.add(readValue(in));
+        }
+        return res;
+    }
+
+    /**
+     * Writes a MIB value. OID values are written as an index into
+     * the OID arc list. Other values are written in full, followed
+     * by the value reference symbol (except for the shared constant
+     * values).
+     *
+     * @param out            the output stream
+     * @param value          the MIB value, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeValue(DataOutputStream out, MibValue value)
+        throws IOException {
+
+        if (value == null) {
+            out.writeByte(NONE);
+            return;
+        } else if (value instanceof ObjectIdentifierValue) {
+            Integer id = oidIds.get(value);
+            if (id == null) {
+                throw new IOException("OID value " + value + " isn't in " +
+                                      "the OID tree");
+            }
+            out.writeByte(VALUE_OID);
+            out.writeInt(id.intValue());
+            return;
+        } else if (value == BooleanValue.TRUE) {
+            out.writeByte(VALUE_TRUE);
+            return;
+        } else if (value == BooleanValue.FALSE) {
+            out.writeByte(VALUE_FALSE);
+            return;
+        } else if (value == NullValue.NULL) {
+            out.writeByte(VALUE_NULL);
+            return;
+        } else if (value instanceof BinaryNumberValue) {
+            out.writeByte(VALUE_BINARY);
+            writeNumber(out, (Number) value.toObject());
+            out.writeInt(((BinaryNumberValue) value).getMinLength());
+        } else if (value instanceof HexNumberValue) {
+            out.writeByte(VALUE_HEX);
+            writeNumber(out, (Number) value.toObject());
+            out.writeInt(((HexNumberValue) value).getMinLength());
+        } else if (value instanceof NumberValue) {
+            out.writeByte(VALUE_NUMBER);
+            writeNumber(out, (Number) value.toObject());
+        } else if (value instanceof StringValue) {
+            out.writeByte(VALUE_STRING);
+            writeString(out, value.toString());
+        } else if (value instanceof BitSetValue) {
+            byte[] bytes = ((BitSet) value.toObject()).toByteArray();
+            out.writeByte(VALUE_BITS);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            throw new IOException("unsupported value in snapshot: " +
+                                  value.getClass().getName());
+        }
+        writeSymbolRef(out, value.getReferenceSymbol());
+    }
+
+    /**
+     * Reads a MIB value. Plain number values without a reference
+     * symbol are shared with other MIBs via the MIB loader pool.
+     *
+     * @param in             the input stream
+     *
+     * @return the MIB value read, or null
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private MibValue readValue(DataInputStream in) throws IOException {
+        MibValue value;
+        int kind = in.readByte();
+        switch (kind) {
+        case NONE:
+            return null;
+        case VALUE_OID:
+            int id = in.readInt();
+            if (id < 0 || id >= oids.length) {
+                throw new IOException("invalid OID index in snapshot: " + id);
+            }
+            return oids[id];
+        case VALUE_TRUE:
+            return BooleanValue.TRUE;
+        case VALUE_FALSE:
+            return BooleanValue.FALSE;
+        case VALUE_NULL:
+            return NullValue.NULL;
+        case VALUE_BINARY:
+            value = new BinaryNumberValue(readNumber(in), in.readInt());
+            break;
+        case VALUE_HEX:
+            value = new HexNumberValue(readNumber(in), in.readInt());
+            break;
+        case VALUE_NUMBER:
+            Number num = readNumber(in);
+            int ref = readSymbolRef(in);
+            if (ref < 0) {
+                return loader.getPool().getNumberValue(num);
+            }
+            value = new NumberValue(num);
+            addReference(value, ref);
+            return value;
+        case VALUE_STRING:
+            value = new StringValue(readString(in));
+            break;
+        case VALUE_BITS:
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            value = new BitSetValue(BitSet.valueOf(bytes));
+            break;
+        default:
+            throw new IOException("invalid value kind in snapshot: " + kind);
+        }
+        addReference(value, readSymbolRef(in));
+        return value;
+    }
+
+    /**
+     * Writes a number.
+     *
+     * @param out            the output stream
+     * @param num            the number
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private static void writeNumber(DataOutputStream out, Number num)
+        throws IOException {
+
+        if (num instanceof Integer) {
+            out.writeByte('I');
+            out.writeInt(num.intValue());
+        } else if (num instanceof Long) {
+            out.writeByte('L');
+            out.writeLong(num.longValue());
+        } else if (num instanceof Float) {
+            out.writeByte('F');
+            out.writeFloat(num.floatValue());
+        } else if (num instanceof Double) {
+            out.writeByte('D');
+            out.writeDouble(num.doubleValue());
+        } else if (num instanceof BigInteger) {
+            byte[] bytes = ((BigInteger) num).toByteArray();
+            out.writeByte('B');
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            throw new IOException("unsupported number in snapshot: " +
+                                  num.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads a number.
+     *
+     * @param in             the input stream
+     *
+     * @return the number read
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private static Number readNumber(DataInputStream in) throws IOException {
+        int kind = in.readByte();
+        switch (kind) {
+        case 'I':
+            return Integer.valueOf(in.readInt());
+        case 'L':
+            return Long.valueOf(in.readLong());
+        case 'F':
+            return Float.valueOf(in.readFloat());
+        case 'D':
+            return Double.valueOf(in.readDouble());
+        case 'B':
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new BigInteger(bytes);
+        default:
+            throw new IOException("invalid number kind in snapshot: " + kind);
+        }
+    }
+
+    /**
+     * Writes an SNMP access mode.
+     *
+     * @param out            the output stream
+     * @param access         the access mode, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private static void writeAccess(DataOutputStream out, SnmpAccess access)
+        throws IOException {
+
+        out.writeByte(Arrays.asList(ACCESS).indexOf(access));
+    }
+
+    /**
+     * Reads an SNMP access mode.
+     *
+     * @param in             the input stream
+     *
+     * @return the access mode, or null
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private static SnmpAccess readAccess(DataInputStream in)
+        throws IOException {
+
+        int pos = in.readByte();
+        return (pos < 0) ? null : ACCESS[pos];
+    }
+
+    /**
+     * Writes an SNMP status.
+     *
+     * @param out            the output stream
+     * @param status         the status, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private static void writeStatus(DataOutputStream out, SnmpStatus status)
+        throws IOException {
+
+        out.writeByte(Arrays.asList(STATUS).indexOf(status));
+    }
+
+    /**
+     * Reads an SNMP status.
+     *
+     * @param in             the input stream
+     *
+     * @return the status, or null
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private static SnmpStatus readStatus(DataInputStream in)
+        throws IOException {
+
+        int pos = in.readByte();
+        return (pos < 0) ? null : STATUS[pos];
+    }
+
+    /**
+     * Writes a MIB file reference.
+     *
+     * @param out            the output stream
+     * @param ref            the MIB file reference, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeFileRef(DataOutputStream out, MibFileRef ref)
+        throws IOException {
+
+        out.writeBoolean(ref != null);
+        if (ref != null) {
+            writeString(out, (ref.file == null) ? null : ref.file.getPath());
+            out.writeInt(ref.line);
+            out.writeInt(ref.column);
+            out.writeInt(ref.lineCommentStart);
+            out.writeInt(ref.lineEnd);
+        }
+    }
+
+    /**
+     * Reads a MIB file reference.
+     *
+     * @param in             the input stream
+     *
+     * @return the MIB file reference, or null
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private MibFileRef readFileRef(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String path = readString(in);
+        File file = null;
+        if (path != null) {
+            file = files.get(path);
+            if (file == null) {
+                file = new File(path);
+                files.put(path, file);
+            }
+        }
+        MibFileRef ref = new MibFileRef(file, in.readInt(), in.readInt());
+        ref.lineCommentStart = in.readInt();
+        ref.lineEnd = in.readInt();
+        return ref;
+    }
+
+    /**
+     * Writes a list of strings.
+     *
+     * @param out            the output stream
+     * @param list           the list of strings, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeStrings(DataOutputStream out, List<String> list)
+        throws IOException {
+
+        out.writeInt((list == null) ? -1 : list.size());
+        if (list != null) {
+            for (String str : list) {
+                writeString(out, str);
+            }
+        }
+    }
+
+    /**
+     * Reads a list of strings.
+     *
+     * @param in             the input stream
+     *
+     * @return the list of strings, or null
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private ArrayList<String> readStrings(DataInputStream in)
+        throws IOException {
+
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        ArrayList<String> res = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            res.add(readString(in));
+        }
+        return res;
+    }
+
+    /**
+     * Writes a string as a string table index. The string is added
+     * to the string table if not already present.
+     *
+     * @param out            the output stream
+     * @param str            the string, or null
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    private void writeString(DataOutputStream out, String str)
+        throws IOException {
+
+        if (str == null) {
+            out.writeInt(-1);
+            return;
+        }
+        Integer id = stringIds.get(str);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(str, id);
+            strings.add(str);
+        }
+        out.writeInt(id.intValue());
+    }
+
+    /**
+     * Reads a string from a string table index.
+     *
+     * @param in             the input stream
+     *
+     * @return the string read, or null
+     *
+     * @throws IOException if the data couldn't be read
+     */
+    private String readString(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        if (id < -1 || id >= strings.size()) {
+            throw new IOException("invalid string index in snapshot: " + id);
+        }
+        return (id < 0) ? null : strings.get(id);
+    }
+
+    /**
+     * Calculates a digest of the MIB source contents.
+     *
+     * @param sources        the list of MIB sources
+     *
+     * @return the digest of the MIB source contents, or
+     *         null if some source couldn't be read
+     */
+    private static byte[] digest(ArrayList<MibSource> sources) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+        byte[] buffer = new byte[8192];
+        for (MibSource src : sources) {
+            try (
+                InputStream in = (src.getURL() != null) ?
+                                 src.getURL().openStream() :
+                                 new FileInputStream(src.getFile());
+            ) {
+                int count;
+                while ((count = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, count);
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return digest.digest();
+    }
+}
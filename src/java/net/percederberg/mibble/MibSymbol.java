@@ -14,7 +14,7 @@ package net.percederberg.mibble;
  * unique within the MIB file. All symbols also have a data type.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public abstract class MibSymbol {
@@ -127,9 +127,13 @@ public abstract class MibSymbol {
     }
 
     /**
-     * Returns the unparsed input MIB text.
+     * Returns the unparsed input MIB text. The text isn't available
+     * if the MIB was loaded in lean mode.
      *
-     * @return the raw MIB file text
+     * @return the raw MIB file text, or
+     *         null if not available
+     *
+     * @see MibLoader#setLeanMode(boolean)
      *
      * @since 2.10
      */
@@ -0,0 +1,275 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * The unparsed MIB source text. The text is initially stored in
+ * memory (split into lines), but can be released once the MIB source
+ * is known to be readable again. The text is thereafter re-read
+ * from the MIB source when requested, and kept in a soft reference
+ * until the garbage collector needs the memory.<p>
+ *
+ * The text position and length in the MIB source is recorded
+ * together with a checksum, so that a modified MIB file is
+ * detected. In that case, the text is no longer available.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+class MibText {
+
+    /**
+     * The MIB source to re-read the text from, or null if the text
+     * is stored in memory.
+     */
+    private MibSource source = null;
+
+    /**
+     * The MIB source text lines, or null if not stored in memory.
+     */
+    private ArrayList<String> lines;
+
+    /**
+     * The MIB source text lines last read from the MIB source, or
+     * null if never read. The lines are only softly reachable, so
+     * they are released when memory is needed.
+     */
+    private volatile SoftReference<ArrayList<String>> cache = null;
+
+    /**
+     * The first text line in the MIB source.
+     */
+    private int line;
+
+    /**
+     * The first text column in the MIB source.
+     */
+    private int column;
+
+    /**
+     * The text length (in characters).
+     */
+    private int length;
+
+    /**
+     * The text checksum.
+     */
+    private long checksum;
+
+    /**
+     * Creates a new MIB text.
+     *
+     * @param text           the raw MIB source text
+     * @param line           the first text line in the MIB source
+     * @param column         the first text column in the MIB source
+     */
+    MibText(String text, int line, int column) {
+        this.lines = split(text);
+        this.line = line;
+        this.column = column;
+        this.length = text.length();
+        this.checksum = checksum(text);
+    }
+
+    /**
+     * Creates a new MIB text from a MIB snapshot.
+     *
+     * @param source         the MIB source, or null
+     * @param lines          the MIB source text lines, or null
+     */
+    private MibText(MibSource source, ArrayList<String> lines) {
+        this.source = source;
+        this.lines = lines;
+    }
+
+    /**
+     * Reads a MIB text from a MIB snapshot.
+     *
+     * @param in             the snapshot input stream
+     * @param source         the MIB source, or null
+     *
+     * @return the MIB text read
+     *
+     * @throws IOException if the snapshot couldn't be read
+     *
+     * @see #write(DataOutputStream)
+     */
+    static MibText read(DataInputStream in, MibSource source)
+        throws IOException {
+
+        MibText text;
+        int count = in.readInt();
+        if (count < 0) {
+            text = new MibText(source, null);
+        } else {
+            ArrayList<String> lines = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                lines.add(in.readUTF());
+            }
+            text = new MibText(null, lines);
+        }
+        text.line = in.readInt();
+        text.column = in.readInt();
+        text.length = in.readInt();
+        text.checksum = in.readLong();
+        return text;
+    }
+
+    /**
+     * Writes this MIB text to a MIB snapshot. If the text is stored
+     * in memory, all the text lines are written. Otherwise only the
+     * text position and checksum are written, as the text will be
+     * re-read from the MIB source.
+     *
+     * @param out            the snapshot output stream
+     *
+     * @throws IOException if the snapshot couldn't be written
+     */
+    synchronized void write(DataOutputStream out) throws IOException {
+        if (lines == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(lines.size());
+            for (String str : lines) {
+                out.writeUTF(str);
+            }
+        }
+        out.writeInt(line);
+        out.writeInt(column);
+        out.writeInt(length);
+        out.writeLong(checksum);
+    }
+
+    /**
+     * Sets the MIB source for the text. If the source can be read
+     * again, the text stored in memory will be released.
+     *
+     * @param source         the MIB source
+     */
+    void setSource(MibSource source) {
+        if (source.getURL() != null ||
+            (source.getFile() != null && source.getFile().isFile())) {
+
+            synchronized (this) {
+                this.source = source;
+                this.lines = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the MIB text lines. If the text isn't stored in memory,
+     * it will be re-read from the MIB source (unless still cached).
+     *
+     * @return the MIB text lines, or
+     *         null if the text couldn't be read
+     */
+    ArrayList<String> getLines() {
+        MibSource src;
+        synchronized (this) {
+            if (lines != null) {
+                return lines;
+            }
+            src = source;
+        }
+        SoftReference<ArrayList<String>> ref = cache;
+        ArrayList<String> res = (ref == null) ? null : ref.get();
+        if (res == null && src != null) {
+            String text = read(src);
+            if (text != null) {
+                res = split(text);
+                cache = new SoftReference<>(res);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Reads the text from the MIB source. The text checksum is
+     * verified after reading.
+     *
+     * @param src            the MIB source
+     *
+     * @return the MIB source text, or
+     *         null if the text couldn't be read or was modified
+     */
+    private String read(MibSource src) {
+        StringBuilder buffer = new StringBuilder(length);
+        try (
+            Reader in = src.getReader();
+        ) {
+            int curLine = 1;
+            int curColumn = 1;
+            while (curLine < line || curColumn < column) {
+                int c = in.read();
+                if (c < 0) {
+                    return null;
+                } else if (c == '\n') {
+                    curLine++;
+                    curColumn = 1;
+                } else {
+                    curColumn++;
+                }
+            }
+            char[] chars = new char[4096];
+            while (buffer.length() < length) {
+                int max = Math.min(chars.length, length - buffer.length());
+                int count = in.read(chars, 0, max);
+                if (count < 0) {
+                    return null;
+                }
+                buffer.append(chars, 0, count);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        String text = buffer.toString();
+        return checksum(text) == checksum ? text : null;
+    }
+
+    /**
+     * Splits a MIB text into lines. Any trailing whitespace on each
+     * line is removed.
+     *
+     * @param text           the MIB text
+     *
+     * @return the list of MIB text lines
+     */
+    private static ArrayList<String> split(String text) {
+        String[] lines = text.split("[ \\t\\r]*\\n");
+        ArrayList<String> res = new ArrayList<>(lines.length);
+        for (String str : lines) {
+            res.add(str);
+        }
+        return res;
+    }
+
+    /**
+     * Calculates a checksum for a MIB text.
+     *
+     * @param text           the MIB text
+     *
+     * @return the text checksum
+     */
+    private static long checksum(String text) {
+        CRC32 crc = new CRC32();
+        crc.update(text.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.util.HashSet;
+
+import net.percederberg.grammatica.parser.Token;
+import net.percederberg.mibble.asn1.Asn1Constants;
+
+/**
+ * A MIB module text collector. This class collects the raw MIB text
+ * and any remaining comments for a MIB module from the parser token
+ * list. Each time a MIB symbol has been created, all tokens before
+ * the last symbol token are collected and removed from the token
+ * list. Memory usage while parsing is thereby bounded by the largest
+ * symbol definition, instead of growing with the whole MIB file.<p>
+ *
+ * The collected text and comments are identical to those returned
+ * by MibAnalyzerUtil for the whole module, provided that the comments
+ * for each symbol have been processed before the tokens are
+ * released.
+ *
+ * @see MibAnalyzerUtil#getText(Token, Token)
+ * @see MibAnalyzerUtil#getComments(Token, Token, HashSet)
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+class MibTextCollector {
+
+    /**
+     * The set of processed comment tokens.
+     */
+    private HashSet<Token> marked;
+
+    /**
+     * The first token in the module, or null if not started.
+     */
+    private Token first = null;
+
+    /**
+     * The first token in the module text. This is the first comment
+     * token before the module, if any.
+     */
+    private Token textStart = null;
+
+    /**
+     * The first token not yet collected, or null if no tokens have
+     * been collected.
+     */
+    private Token pos = null;
+
+    /**
+     * The collected module text.
+     */
+    private StringBuilder text = new StringBuilder();
+
+    /**
+     * The collected unprocessed comments inside the module.
+     */
+    private StringBuilder comments = new StringBuilder();
+
+    /**
+     * Creates a new MIB module text collector.
+     *
+     * @param marked         the processed token set (modified)
+     */
+    MibTextCollector(HashSet<Token> marked) {
+        this.marked = marked;
+    }
+
+    /**
+     * Checks if a module has been started.
+     *
+     * @return true if a module has been started, or
+     *         false otherwise
+     */
+    boolean isStarted() {
+        return first != null;
+    }
+
+    /**
+     * Starts collecting text for a new module.
+     *
+     * @param first          the first token in the module
+     */
+    void start(Token first) {
+        this.first = first;
+        this.textStart = MibAnalyzerUtil.getTextStart(first);
+        this.pos = null;
+        this.text = new StringBuilder();
+        this.comments = new StringBuilder();
+    }
+
+    /**
+     * Collects and releases all tokens before the specified one.
+     * The token will be unlinked from the previous token in the
+     * token list. All comments for the tokens released must already
+     * have been processed.
+     *
+     * @param last           the last token in a symbol definition
+     */
+    void release(Token last) {
+        collect(last);
+        MibTokenizer.unlinkPrevious(last);
+        pos = last;
+    }
+
+    /**
+     * Collects all remaining tokens in the module.
+     *
+     * @param end            the last token in the module
+     */
+    void finish(Token end) {
+        collect(end);
+        text.append(end.getImage());
+        pos = end;
+    }
+
+    /**
+     * Resets this collector, releasing all collected data.
+     */
+    void reset() {
+        first = null;
+        textStart = null;
+        pos = null;
+        text = new StringBuilder();
+        comments = new StringBuilder();
+    }
+
+    /**
+     * Returns the first token in the module text.
+     *
+     * @return the first token in the module text
+     */
+    Token getTextStart() {
+        return textStart;
+    }
+
+    /**
+     * Returns the collected module text.
+     *
+     * @return the collected module text
+     */
+    String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Returns all the comments associated with the module. This
+     * includes comments before and after the module, and any
+     * unprocessed comments inside it.
+     *
+     * @param end            the last token in the module
+     *
+     * @return the comment string, or
+     *         null if no comments were found
+     */
+    String getComments(Token end) {
+        String inside = comments.toString().trim();
+        if (inside.length() <= 0) {
+            inside = null;
+        }
+        return MibAnalyzerUtil.getComments(first, inside, end, marked);
+    }
+
+    /**
+     * Collects the text and unprocessed comments up to a token.
+     * Processed comment tokens are removed from the marked set, as
+     * they can no longer be reached from the remaining tokens.
+     *
+     * @param end            the end token (not collected)
+     */
+    private void collect(Token end) {
+        Token token = (pos == null) ? textStart : pos;
+        boolean inside = (pos != null);
+        while (token != null && token != end) {
+            text.append(token.getImage());
+            inside |= (token == first);
+            if (inside &&
+                token.getId() == Asn1Constants.COMMENT &&
+                !marked.remove(token)) {
+
+                comments.append(token.getImage().substring(2).trim());
+                comments.append("\n");
+            }
+            token = token.getNextToken();
+        }
+    }
+}
@@ -0,0 +1,813 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import net.percederberg.grammatica.parser.ParseException;
+import net.percederberg.grammatica.parser.ParserCreationException;
+import net.percederberg.grammatica.parser.Token;
+import net.percederberg.grammatica.parser.TokenPattern;
+import net.percederberg.grammatica.parser.Tokenizer;
+import net.percederberg.mibble.asn1.Asn1Analyzer;
+import net.percederberg.mibble.asn1.Asn1Constants;
+import net.percederberg.mibble.asn1.Asn1Parser;
+import net.percederberg.mibble.asn1.Asn1Tokenizer;
+
+/**
+ * A hand-written MIB file tokenizer. This tokenizer produces exactly
+ * the same token stream as the generated ASN.1 tokenizer, but avoids
+ * the generic pattern matching automata. The whole input is read
+ * into a character buffer, and each token is matched by a simple
+ * switch on the first character. Keywords are recognized with a
+ * perfect hash table. Whitespace and comment tokens are only created
+ * if the token list is enabled.<p>
+ *
+ * The token patterns (and keywords) are inherited from the generated
+ * tokenizer, which is also used for error message descriptions.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+class MibTokenizer extends Asn1Tokenizer {
+
+    /**
+     * The first token pattern identifier.
+     */
+    private static final int FIRST_ID = Asn1Constants.DOT;
+
+    /**
+     * The token patterns, indexed by pattern id (minus FIRST_ID).
+     * Note that this field is assigned from the superclass
+     * constructor, so it must not have an initializer.
+     */
+    private TokenPattern[] patterns;
+
+    /**
+     * The keyword perfect hash table. Each keyword (token pattern)
+     * is stored at the position given by its hash value.
+     */
+    private TokenPattern[] keywords;
+
+    /**
+     * The keyword hash multiplier.
+     */
+    private int hashMultiplier;
+
+    /**
+     * The input reader, or null if already read.
+     */
+    private Reader input;
+
+    /**
+     * The input character buffer.
+     */
+    private char[] buffer = new char[0];
+
+    /**
+     * The number of characters in the input buffer.
+     */
+    private int length;
+
+    /**
+     * The current buffer position.
+     */
+    private int pos;
+
+    /**
+     * The current line number.
+     */
+    private int line;
+
+    /**
+     * The current column number.
+     */
+    private int column;
+
+    /**
+     * The length of the last token pattern match.
+     */
+    private int matchLength;
+
+    /**
+     * The number of tokens matched in the input stream.
+     */
+    private int tokenCount;
+
+    /**
+     * The previous token (only used with the token list).
+     */
+    private LinkedToken previous;
+
+    /**
+     * The pool of shared identifier strings, or null for none.
+     */
+    private MibPool pool;
+
+    /**
+     * Creates a new ASN.1 parser using this tokenizer.
+     *
+     * @param in             the input stream to read from
+     * @param analyzer       the analyzer to use while parsing
+     *
+     * @return the new ASN.1 parser
+     *
+     * @throws ParserCreationException if the parser couldn't be
+     *             initialized correctly
+     */
+    static Asn1Parser createParser(Reader in, Asn1Analyzer analyzer)
+        throws ParserCreationException {
+
+        return new Asn1Parser(in, analyzer) {
+            protected Tokenizer newTokenizer(Reader in)
+                throws ParserCreationException {
+
+                return new MibTokenizer(in);
+            }
+        };
+    }
+
+    /**
+     * Creates a new tokenizer for the specified input stream.
+     *
+     * @param input          the input stream to read
+     *
+     * @throws ParserCreationException if the tokenizer couldn't be
+     *             initialized correctly
+     */
+    MibTokenizer(Reader input) throws ParserCreationException {
+        super(input);
+        createKeywords();
+        init(input);
+    }
+
+    /**
+     * Sets the pool of shared identifier strings. All identifier
+     * token images will be taken from the pool, so that identical
+     * names in different MIB files share the same string.
+     *
+     * @param pool           the string pool, or null for none
+     */
+    void setPool(MibPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Removes the link between a token and the previous token in the
+     * token list. This allows the previous tokens to be garbage
+     * collected once no longer referenced elsewhere.
+     *
+     * @param token          the token to unlink
+     */
+    static void unlinkPrevious(Token token) {
+        if (token instanceof LinkedToken) {
+            LinkedToken linked = (LinkedToken) token;
+            if (linked.previous != null) {
+                linked.previous.next = null;
+                linked.previous = null;
+            }
+        }
+    }
+
+    /**
+     * Adds a new token pattern to the tokenizer. The pattern is also
+     * stored locally for use when creating tokens. Note that this
+     * method is called from the superclass constructor.
+     *
+     * @param pattern        the pattern to add
+     *
+     * @throws ParserCreationException if the pattern couldn't be
+     *             added to the tokenizer
+     */
+    public void addPattern(TokenPattern pattern)
+        throws ParserCreationException {
+
+        super.addPattern(pattern);
+        int index = pattern.getId() - FIRST_ID;
+        if (patterns == null) {
+            patterns = new TokenPattern[Asn1Constants.COMMENT - FIRST_ID + 1];
+        }
+        if (index < 0 || index >= patterns.length) {
+            throw new ParserCreationException(
+                ParserCreationException.INTERNAL_ERROR,
+                "unexpected token pattern id: " + pattern.getId());
+        }
+        patterns[index] = pattern;
+    }
+
+    /**
+     * Creates the keyword perfect hash table. All string patterns
+     * that could also be identifiers are considered keywords. The
+     * hash multiplier is chosen so that no keywords collide.
+     *
+     * @throws ParserCreationException if no perfect hash could be
+     *             created
+     */
+    private void createKeywords() throws ParserCreationException {
+        int size = 1024;
+        while (size <= 65536) {
+            for (int mult = 31; mult < 100000; mult += 2) {
+                TokenPattern[] table = new TokenPattern[size];
+                boolean collision = false;
+                for (TokenPattern p : patterns) {
+                    if (p != null && isKeyword(p)) {
+                        String str = p.getPattern();
+                        int h = 0;
+                        for (int i = 0; i < str.length(); i++) {
+                            h = h * mult + str.charAt(i);
+                        }
+                        int index = hashIndex(h, size);
+                        if (table[index] != null) {
+                            collision = true;
+                            break;
+                        }
+                        table[index] = p;
+                    }
+                }
+                if (!collision) {
+                    keywords = table;
+                    hashMultiplier = mult;
+                    return;
+                }
+            }
+            size *= 2;
+        }
+        throw new ParserCreationException(
+            ParserCreationException.INTERNAL_ERROR,
+            "couldn't create keyword hash table");
+    }
+
+    /**
+     * Checks if a token pattern is a keyword. Keywords are string
+     * patterns that could also be matched as identifiers.
+     *
+     * @param pattern        the token pattern
+     *
+     * @return true if the pattern is a keyword, or
+     *         false otherwise
+     */
+    private static boolean isKeyword(TokenPattern pattern) {
+        String str = pattern.getPattern();
+        if (pattern.getType() != TokenPattern.STRING_TYPE ||
+            str.length() == 0 || !isLetter(str.charAt(0))) {
+
+            return false;
+        }
+        for (int i = 1; i < str.length(); i++) {
+            if (!isIdentifierChar(str.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash table index for a hash value.
+     *
+     * @param hash           the hash value
+     * @param size           the hash table size (a power of two)
+     *
+     * @return the hash table index
+     */
+    private static int hashIndex(int hash, int size) {
+        return (hash ^ (hash >>> 15)) & (size - 1);
+    }
+
+    /**
+     * Resets this tokenizer for usage with another input stream.
+     *
+     * @param input          the new input stream to read
+     */
+    public void reset(Reader input) {
+        super.reset(input);
+        init(input);
+    }
+
+    /**
+     * Initializes this tokenizer for reading from an input stream.
+     *
+     * @param input          the input stream to read
+     */
+    private void init(Reader input) {
+        this.input = input;
+        this.length = 0;
+        this.pos = 0;
+        this.line = 1;
+        this.column = 1;
+        this.previous = null;
+        this.tokenCount = 0;
+    }
+
+    /**
+     * Returns the current line number.
+     *
+     * @return the current line number
+     */
+    public int getCurrentLine() {
+        return line;
+    }
+
+    /**
+     * Returns the current column number.
+     *
+     * @return the current column number
+     */
+    public int getCurrentColumn() {
+        return column;
+    }
+
+    /**
+     * Returns the number of characters read from the input stream.
+     * The full input stream is read when the first token is
+     * requested.
+     *
+     * @return the number of characters read
+     */
+    int getCharCount() {
+        return length;
+    }
+
+    /**
+     * Returns the number of tokens matched in the input stream. This
+     * includes whitespace and comment tokens.
+     *
+     * @return the number of tokens matched
+     */
+    int getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Finds the next token on the stream. Whitespace and comment
+     * tokens are skipped (but added to the token list if enabled).
+     *
+     * @return the next token found, or
+     *         null if end of file was encountered
+     *
+     * @throws ParseException if the input stream couldn't be read or
+     *             parsed correctly
+     */
+    public Token next() throws ParseException {
+        if (input != null) {
+            readInput();
+        }
+        boolean useTokenList = getUseTokenList();
+        while (pos < length) {
+            int startLine = line;
+            int startColumn = column;
+            TokenPattern pattern = match();
+            if (pattern == null) {
+                String str = String.valueOf(buffer[pos]);
+                advance(1);
+                throw new ParseException(
+                    ParseException.UNEXPECTED_CHAR_ERROR,
+                    str,
+                    startLine,
+                    startColumn);
+            }
+            tokenCount++;
+            if (pattern.isIgnore() && !useTokenList) {
+                advance(matchLength);
+                continue;
+            }
+            String image;
+            if (pattern.getType() == TokenPattern.STRING_TYPE) {
+                image = pattern.getPattern();
+            } else if (pool != null &&
+                       pattern.getId() == Asn1Constants.IDENTIFIER_STRING) {
+                image = pool.intern(new String(buffer, pos, matchLength));
+            } else {
+                image = new String(buffer, pos, matchLength);
+            }
+            advance(matchLength);
+            if (useTokenList) {
+                LinkedToken token = new LinkedToken(pattern,
+                                                    image,
+                                                    startLine,
+                                                    startColumn);
+                if (previous != null) {
+                    previous.next = token;
+                    token.previous = previous;
+                }
+                previous = token;
+                if (!pattern.isIgnore()) {
+                    return token;
+                }
+            } else {
+                return new Token(pattern, image, startLine, startColumn);
+            }
+        }
+        previous = null;
+        return null;
+    }
+
+    /**
+     * Reads the whole input stream into the character buffer.
+     *
+     * @throws ParseException if the input stream couldn't be read
+     */
+    private void readInput() throws ParseException {
+        try {
+            if (buffer.length < 4096) {
+                buffer = new char[4096];
+            }
+            int count;
+            length = 0;
+            while (true) {
+                count = input.read(buffer, length, buffer.length - length);
+                if (count < 0) {
+                    break;
+                }
+                length += count;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+        } catch (IOException e) {
+            throw new ParseException(ParseException.IO_ERROR,
+                                     e.getMessage(),
+                                     -1,
+                                     -1);
+        } finally {
+            input = null;
+        }
+    }
+
+    /**
+     * Advances the current buffer position. The line and column
+     * numbers are updated accordingly.
+     *
+     * @param count          the number of characters to advance
+     */
+    private void advance(int count) {
+        int end = pos + count;
+        for (; pos < end; pos++) {
+            if (buffer[pos] == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+    }
+
+    /**
+     * Returns the character at a buffer position.
+     *
+     * @param index          the buffer position
+     *
+     * @return the character found, or
+     *         -1 if the position is after the end of the buffer
+     */
+    private int peek(int index) {
+        return (index < length) ? buffer[index] : -1;
+    }
+
+    /**
+     * Returns the token pattern with the specified id.
+     *
+     * @param id             the token pattern id
+     *
+     * @return the token pattern
+     */
+    private TokenPattern pattern(int id) {
+        return patterns[id - FIRST_ID];
+    }
+
+    /**
+     * Matches the next token at the current buffer position. The
+     * length of the match is stored in the matchLength field.
+     *
+     * @return the token pattern matched, or
+     *         null if no pattern matched
+     */
+    private TokenPattern match() {
+        char c = buffer[pos];
+        if (isLetter(c)) {
+            return matchIdentifier();
+        }
+        switch (c) {
+        case '0': case '1': case '2': case '3': case '4':
+        case '5': case '6': case '7': case '8': case '9':
+            int end = pos + 1;
+            while (end < length && buffer[end] >= '0' && buffer[end] <= '9') {
+                end++;
+            }
+            return matched(end, Asn1Constants.NUMBER_STRING);
+        case ' ': case '\t': case '\n': case '\r': case '\f':
+        case '\u000b': case '\u0017': case '\u0018': case '\u0019':
+        case '\u001a':
+            end = pos + 1;
+            while (end < length && isWhitespace(buffer[end])) {
+                end++;
+            }
+            return matched(end, Asn1Constants.WHITESPACE);
+        case '"':
+            return matchQuotedString();
+        case '\'':
+            return matchBinaryOrHexString();
+        case '-':
+            end = matchComment();
+            if (end > 0) {
+                return matched(end, Asn1Constants.COMMENT);
+            }
+            return matched(pos + 1, Asn1Constants.MINUS);
+        case '.':
+            if (peek(pos + 1) != '.') {
+                return matched(pos + 1, Asn1Constants.DOT);
+            } else if (peek(pos + 2) != '.') {
+                return matched(pos + 2, Asn1Constants.DOUBLE_DOT);
+            } else {
+                return matched(pos + 3, Asn1Constants.TRIPLE_DOT);
+            }
+        case ':':
+            if (peek(pos + 1) == ':' && peek(pos + 2) == '=') {
+                return matched(pos + 3, Asn1Constants.DEFINITION);
+            }
+            return null;
+        case ',':
+            return matched(pos + 1, Asn1Constants.COMMA);
+        case ';':
+            return matched(pos + 1, Asn1Constants.SEMI_COLON);
+        case '(':
+            return matched(pos + 1, Asn1Constants.LEFT_PAREN);
+        case ')':
+            return matched(pos + 1, Asn1Constants.RIGHT_PAREN);
+        case '{':
+            return matched(pos + 1, Asn1Constants.LEFT_BRACE);
+        case '}':
+            return matched(pos + 1, Asn1Constants.RIGHT_BRACE);
+        case '[':
+            return matched(pos + 1, Asn1Constants.LEFT_BRACKET);
+        case ']':
+            return matched(pos + 1, Asn1Constants.RIGHT_BRACKET);
+        case '<':
+            return matched(pos + 1, Asn1Constants.LESS_THAN);
+        case '|':
+            return matched(pos + 1, Asn1Constants.VERTICAL_BAR);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Records a token pattern match ending at a buffer position.
+     *
+     * @param end            the end buffer position (exclusive)
+     * @param id             the token pattern id
+     *
+     * @return the token pattern matched
+     */
+    private TokenPattern matched(int end, int id) {
+        matchLength = end - pos;
+        return pattern(id);
+    }
+
+    /**
+     * Matches an identifier or a keyword at the current position.
+     * Keywords take precedence over identifiers of the same length.
+     *
+     * @return the token pattern matched
+     */
+    private TokenPattern matchIdentifier() {
+        int h = buffer[pos];
+        int end = pos + 1;
+        while (end < length && isIdentifierChar(buffer[end])) {
+            h = h * hashMultiplier + buffer[end];
+            end++;
+        }
+        matchLength = end - pos;
+        TokenPattern p = keywords[hashIndex(h, keywords.length)];
+        if (p != null && isMatch(p.getPattern())) {
+            return p;
+        }
+        return pattern(Asn1Constants.IDENTIFIER_STRING);
+    }
+
+    /**
+     * Checks if the current match equals a string.
+     *
+     * @param str            the string to compare with
+     *
+     * @return true if the current match is equal, or
+     *         false otherwise
+     */
+    private boolean isMatch(String str) {
+        if (str.length() != matchLength) {
+            return false;
+        }
+        for (int i = 0; i < matchLength; i++) {
+            if (buffer[pos + i] != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Matches a quoted string at the current position. Double quote
+     * characters inside the string are treated as escaped quotes.
+     * The longest possible match is returned.
+     *
+     * @return the token pattern matched, or
+     *         null if the string wasn't terminated
+     */
+    private TokenPattern matchQuotedString() {
+        int end = -1;
+        int i = pos + 1;
+        while (i < length) {
+            if (buffer[i] == '"') {
+                end = i + 1;
+                if (peek(i + 1) != '"') {
+                    break;
+                }
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        return (end < 0) ? null : matched(end, Asn1Constants.QUOTED_STRING);
+    }
+
+    /**
+     * Matches a binary or hexadecimal string at the current position.
+     *
+     * @return the token pattern matched, or
+     *         null if no string was matched
+     */
+    private TokenPattern matchBinaryOrHexString() {
+        boolean binary = true;
+        int i = pos + 1;
+        while (i < length && isHexDigit(buffer[i])) {
+            if (buffer[i] != '0' && buffer[i] != '1') {
+                binary = false;
+            }
+            i++;
+        }
+        if (peek(i) != '\'') {
+            return null;
+        }
+        int c = peek(i + 1);
+        if (binary && (c == 'B' || c == 'b')) {
+            return matched(i + 2, Asn1Constants.BINARY_STRING);
+        } else if (c == 'H' || c == 'h') {
+            return matched(i + 2, Asn1Constants.HEXADECIMAL_STRING);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Matches a comment at the current position. A comment starts
+     * with "--" and ends with either "--" or a line break. Note that
+     * a comment must be terminated, so a comment at the end of the
+     * input without a final line break isn't matched.
+     *
+     * @return the end buffer position (exclusive), or
+     *         -1 if no comment was matched
+     */
+    private int matchComment() {
+        if (peek(pos + 1) != '-') {
+            return -1;
+        }
+        int i = pos + 2;
+        while (i < length) {
+            char c = buffer[i];
+            if (c == '\n' || c == '\r') {
+                return i + 1;
+            } else if (c == '-') {
+                int next = peek(i + 1);
+                if (next == '-' || next == '\n' || next == '\r') {
+                    return i + 2;
+                } else if (next < 0) {
+                    return -1;
+                }
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if a character is an ASCII letter.
+     *
+     * @param c              the character to check
+     *
+     * @return true if the character is a letter, or
+     *         false otherwise
+     */
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Checks if a character is valid inside an identifier.
+     *
+     * @param c              the character to check
+     *
+     * @return true if the character is an identifier character, or
+     *         false otherwise
+     */
+    private static boolean isIdentifierChar(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+
+    /**
+     * Checks if a character is a hexadecimal digit.
+     *
+     * @param c              the character to check
+     *
+     * @return true if the character is a hexadecimal digit, or
+     *         false otherwise
+     */
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') ||
+               (c >= 'a' && c <= 'f') ||
+               (c >= 'A' && c <= 'F');
+    }
+
+    /**
+     * Checks if a character is a whitespace character.
+     *
+     * @param c              the character to check
+     *
+     * @return true if the character is whitespace, or
+     *         false otherwise
+     */
+    private static boolean isWhitespace(char c) {
+        switch (c) {
+        case ' ': case '\t': case '\n': case '\r': case '\f':
+        case '\u000b': case '\u0017': case '\u0018': case '\u0019':
+        case '\u001a':
+            return true;
+        default:
+            return false;
+        }
+    }
+
+
+    /**
+     * A token with separate links to the previous and next tokens.
+     * The token links in the base class cannot be modified outside
+     * the parser package, so they are replaced by this class.
+     */
+    private static class LinkedToken extends Token {
+
+        /**
+         * The previous token in the token list.
+         */
+        private LinkedToken previous = null;
+
+        /**
+         * The next token in the token list.
+         */
+        private LinkedToken next = null;
+
+        /**
+         * Creates a new token.
+         *
+         * @param pattern        the token pattern
+         * @param image          the token image (i.e. characters)
+         * @param line           the line number of the first character
+         * @param col            the column number of the first character
+         */
+        public LinkedToken(TokenPattern pattern,
+                           String image,
+                           int line,
+                           int col) {
+
+            super(pattern, image, line, col);
+        }
+
+        /**
+         * Returns the previous token in the token list.
+         *
+         * @return the previous token, or
+         *         null if no such token is available
+         */
+        public Token getPreviousToken() {
+            return previous;
+        }
+
+        /**
+         * Returns the next token in the token list.
+         *
+         * @return the next token, or
+         *         null if no such token is available
+         */
+        public Token getNextToken() {
+            return next;
+        }
+    }
+}
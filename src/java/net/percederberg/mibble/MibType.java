@@ -11,6 +11,7 @@ package net.percederberg.mibble;
 import java.util.ArrayList;
 
 import net.percederberg.mibble.type.Constraint;
+import net.percederberg.mibble.type.ConstraintChecker;
 
 /**
  * The base MIB type class. There are two categories of MIB types
@@ -56,7 +57,7 @@ import net.percederberg.mibble.type.Constraint;
  *    }</pre>
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public abstract class MibType {
@@ -209,6 +210,23 @@ public abstract class MibType {
      */
     public abstract boolean isCompatible(MibValue value);
 
+    /**
+     * Returns the compiled constraint checker for this type. The
+     * checker validates primitive integer values and value sizes
+     * without creating any value objects, making it suitable for
+     * validating large numbers of values. The default
+     * implementation returns a checker accepting all values.
+     *
+     * @return the compiled constraint checker
+     *
+     * @see #isCompatible(MibValue)
+     *
+     * @since 2.11
+     */
+    public ConstraintChecker getConstraintChecker() {
+        return ConstraintChecker.NONE;
+    }
+
     /**
      * Checks if this type represents a primitive type. The primitive
      * types are the basic building blocks of the ASN.1 type system.
@@ -19,7 +19,7 @@ import net.percederberg.mibble.value.ObjectIdentifierValue;
  * an object identifier.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class MibValueSymbol extends MibSymbol {
@@ -98,7 +98,7 @@ public class MibValueSymbol extends MibSymbol {
             ObjectIdentifierValue oid = (ObjectIdentifierValue) value;
             if (oid.getSymbol() == null) {
                 oid.setSymbol(this);
-            } else {
+            } else if (!getMib().getLoader().isReplaced(oid.getMib())) {
                 boolean loaded = getMib().isLoaded() || oid.getMib().isLoaded();
                 if (oid.getSymbol() != this && loaded) {
                     log.addWarning(getFileRef(),
@@ -111,15 +111,42 @@ public class MibValueSymbol extends MibSymbol {
         }
     }
 
+    /**
+     * Unlinks the OID value of this symbol from the OID tree. The
+     * OID value removal is staged until the OID tree is published,
+     * and the symbol is otherwise left unmodified. OID values
+     * connected to another symbol (i.e. defined in more than one MIB)
+     * are left untouched.
+     *
+     * @see #clear()
+     *
+     * @since 2.11
+     */
+    void unlink() {
+        if (value instanceof ObjectIdentifierValue) {
+            ObjectIdentifierValue oid = (ObjectIdentifierValue) value;
+            MibValueSymbol owner = oid.getSymbol();
+            if (owner == this || owner == null) {
+                oid.unlink();
+            }
+        }
+    }
+
     /**
      * Clears and prepares this MIB symbol for garbage collection.
      * This method will recursively clear any associated types or
      * values, making sure that no data structures references this
-     * symbol.
+     * symbol. OID values connected to another symbol (i.e. defined
+     * in more than one MIB) are left untouched.
      */
     void clear() {
         type = null;
-        if (value != null) {
+        if (value instanceof ObjectIdentifierValue) {
+            MibValueSymbol owner = ((ObjectIdentifierValue) value).getSymbol();
+            if (owner == this || owner == null) {
+                value.clear();
+            }
+        } else if (value != null) {
             value.clear();
         }
         value = null;
@@ -688,12 +688,15 @@ public class MibWriter {
     }
 
     /**
-     * Prints an SNMP description.
+     * Prints an SNMP description. Nothing is printed if the
+     * description is null.
      *
-     * @param descr          the description to print
+     * @param descr          the description to print, or null
      */
     private void printDescription(String descr) {
-        if (descr.length() < 50 && descr.indexOf("\n") < 0) {
+        if (descr == null) {
+            return;
+        } else if (descr.length() < 50 && descr.indexOf("\n") < 0) {
             os.print("    DESCRIPTION     ");
             os.print(getQuote(descr));
         } else {
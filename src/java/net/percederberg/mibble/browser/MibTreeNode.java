@@ -146,13 +146,13 @@ public class MibTreeNode extends DefaultMutableTreeNode {
     public String getDescription() {
         MibSymbol symbol = getSymbol();
         Mib mib = getMib();
+        String text = null;
         if (symbol != null) {
-            return symbol.getText();
+            text = symbol.getText();
         } else if (mib != null) {
-            return mib.getText();
-        } else {
-            return "";
+            text = mib.getText();
         }
+        return (text == null) ? "" : text;
     }
 
     /**
@@ -171,7 +171,9 @@ public class MibTreeNode extends DefaultMutableTreeNode {
         }
         if (type instanceof SnmpType) {
             String str = ((SnmpType) type).getDescription();
-            if (str.indexOf('.') > 0) {
+            if (str == null || str.isEmpty()) {
+                return null;
+            } else if (str.indexOf('.') > 0) {
                 str = str.substring(0, str.indexOf('.') + 1);
             }
             if (str.length() > 150) {
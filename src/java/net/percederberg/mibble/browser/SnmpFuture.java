@@ -0,0 +1,192 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.browser;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+import uk.co.westhawk.snmp.stack.Pdu;
+
+/**
+ * A pending asynchronous SNMP request. The request is queued in the
+ * SNMP manager until a slot in the request window is available, and
+ * then sent to the agent. The response can either be waited for
+ * with one of the get() methods, be handled by a listener, or be
+ * chained with the usual CompletableFuture methods. A failed request
+ * completes exceptionally with an SnmpException.<p>
+ *
+ * Cancelling or completing the request from outside releases the
+ * request window slot, and any later response is ignored.
+ *
+ * @see SnmpManager#getAsync(String)
+ * @see SnmpResponseListener
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class SnmpFuture extends CompletableFuture<SnmpResponse> {
+
+    /**
+     * The SNMP manager handling the request.
+     */
+    private SnmpManager manager;
+
+    /**
+     * The request PDU.
+     */
+    private Pdu pdu;
+
+    /**
+     * Creates a new pending SNMP request.
+     *
+     * @param manager        the SNMP manager handling the request
+     * @param pdu            the request PDU
+     */
+    SnmpFuture(SnmpManager manager, Pdu pdu) {
+        this.manager = manager;
+        this.pdu = pdu;
+    }
+
+    /**
+     * Returns the request PDU.
+     *
+     * @return the request PDU
+     */
+    Pdu getPdu() {
+        return pdu;
+    }
+
+    /**
+     * Returns the SNMP request identifier. The request identifier is
+     * used to correlate the response with the request.
+     *
+     * @return the SNMP request identifier
+     */
+    public int getRequestId() {
+        return pdu.getReqId();
+    }
+
+    /**
+     * Adds a response listener. If the request has already
+     * completed, the listener is called immediately from the
+     * current thread. Otherwise it is called from the thread
+     * completing the request.
+     *
+     * @param listener       the listener to add
+     */
+    public void addListener(final SnmpResponseListener listener) {
+        whenComplete(new BiConsumer<SnmpResponse,Throwable>() {
+            public void accept(SnmpResponse response, Throwable error) {
+                if (error == null) {
+                    listener.responseReceived(response);
+                } else if (error instanceof SnmpException) {
+                    listener.requestFailed((SnmpException) error);
+                } else if (error instanceof CancellationException) {
+                    String msg = "Request cancelled";
+                    listener.requestFailed(new SnmpException(msg));
+                } else {
+                    String msg = error.getMessage();
+                    listener.requestFailed(new SnmpException(msg));
+                }
+            }
+        });
+    }
+
+    /**
+     * Attempts to cancel the request. A request that has already
+     * been sent will still be processed by the agent, but the
+     * response is ignored and the request window slot is released.
+     *
+     * @param mayInterruptIfRunning  ignored for SNMP requests
+     *
+     * @return true if the request was cancelled, or
+     *         false if it had already completed
+     */
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return release(super.cancel(mayInterruptIfRunning));
+    }
+
+    /**
+     * Completes the request with a response from outside the SNMP
+     * manager. The request window slot is released, and any later
+     * response from the agent is ignored.
+     *
+     * @param response       the SNMP response to use
+     *
+     * @return true if the request was completed, or
+     *         false if it had already completed
+     */
+    public boolean complete(SnmpResponse response) {
+        return release(super.complete(response));
+    }
+
+    /**
+     * Completes the request with an error from outside the SNMP
+     * manager. The request window slot is released, and any later
+     * response from the agent is ignored.
+     *
+     * @param error          the error to use
+     *
+     * @return true if the request was completed, or
+     *         false if it had already completed
+     */
+    public boolean completeExceptionally(Throwable error) {
+        return release(super.completeExceptionally(error));
+    }
+
+    /**
+     * Releases the request from the SNMP manager if it was just
+     * completed from outside.
+     *
+     * @param completed      the completed flag
+     *
+     * @return the completed flag
+     */
+    private boolean release(boolean completed) {
+        if (completed) {
+            manager.cancel(this);
+        }
+        return completed;
+    }
+
+    /**
+     * Completes the request from the SNMP manager. All waiting
+     * threads and listeners are notified. Any calls after the first
+     * are ignored.
+     *
+     * @param response       the SNMP response, or null on failure
+     * @param error          the SNMP error, or null on success
+     */
+    void finish(SnmpResponse response, SnmpException error) {
+        if (error != null) {
+            super.completeExceptionally(error);
+        } else {
+            super.complete(response);
+        }
+    }
+
+    /**
+     * Returns a string representation of this object.
+     *
+     * @return a string representation of this object
+     */
+    public String toString() {
+        if (!isDone()) {
+            return "SNMP request " + getRequestId() + ": pending";
+        } else if (isCancelled()) {
+            return "SNMP request " + getRequestId() + ": cancelled";
+        } else if (isCompletedExceptionally()) {
+            return "SNMP request " + getRequestId() + ": failed";
+        } else {
+            return "SNMP request " + getRequestId() + ": completed";
+        }
+    }
+}
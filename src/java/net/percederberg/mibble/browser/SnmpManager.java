@@ -10,6 +10,9 @@ package net.percederberg.mibble.browser;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
 
 import uk.co.westhawk.snmp.pdu.BlockPdu;
 import uk.co.westhawk.snmp.stack.AsnInteger;
@@ -18,28 +21,43 @@ import uk.co.westhawk.snmp.stack.AsnObjectId;
 import uk.co.westhawk.snmp.stack.AsnOctets;
 import uk.co.westhawk.snmp.stack.AsnUnsInteger;
 import uk.co.westhawk.snmp.stack.AsnUnsInteger64;
+import uk.co.westhawk.snmp.stack.GetNextPdu;
+import uk.co.westhawk.snmp.stack.GetPdu;
+import uk.co.westhawk.snmp.stack.Pdu;
 import uk.co.westhawk.snmp.stack.PduException;
+import uk.co.westhawk.snmp.stack.SetPdu;
 import uk.co.westhawk.snmp.stack.SnmpConstants;
 import uk.co.westhawk.snmp.stack.SnmpContextBasisFace;
 import uk.co.westhawk.snmp.stack.SnmpContextPool;
 import uk.co.westhawk.snmp.stack.SnmpContextv2cPool;
 import uk.co.westhawk.snmp.stack.SnmpContextv3Face;
 import uk.co.westhawk.snmp.stack.SnmpContextv3Pool;
+import uk.co.westhawk.snmp.stack.varbind;
 
 import net.percederberg.mibble.MibType;
 import net.percederberg.mibble.MibTypeTag;
 
 /**
- * An SNMPv1 manager. This class handles the GET, GETNEXT and SET
+ * An SNMP manager. This class handles the GET, GETNEXT and SET
  * SNMP operations. It is a wrapper class over the Westhawk SNMP
- * stack.
+ * stack.<p>
+ *
+ * Each operation is available both as a blocking method and as an
+ * asynchronous method returning an SnmpFuture (a CompletableFuture
+ * for the SNMP response). The asynchronous requests are pipelined,
+ * i.e. up to a configurable window of requests are sent to the
+ * agent without waiting for the responses.
+ * Further requests are queued until a response (or timeout) frees a
+ * slot in the window. Responses are correlated with requests by the
+ * SNMP request identifier.
  *
  * @see uk.co.westhawk.snmp.pdu.BlockPdu
  * @see uk.co.westhawk.snmp.stack.SnmpContextPool
+ * @see SnmpFuture
  *
  * @author   Watsh Rajneesh
  * @author   Per Cederberg
- * @version  2.5
+ * @version  2.11
  * @since    2.5
  */
 public class SnmpManager {
@@ -49,11 +67,38 @@ public class SnmpManager {
      */
     public static final int DEFAULT_PORT = SnmpContextBasisFace.DEFAULT_PORT;
 
+    /**
+     * The default asynchronous request window size.
+     *
+     * @since 2.11
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 8;
+
     /**
      * The SNMP context pool.
      */
     private SnmpContextBasisFace context = null;
 
+    /**
+     * The maximum number of asynchronous requests in flight.
+     */
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+
+    /**
+     * The queue of asynchronous requests not yet sent.
+     */
+    private LinkedList<SnmpFuture> queue = new LinkedList<>();
+
+    /**
+     * The asynchronous requests in flight, indexed by request id.
+     */
+    private HashMap<Integer,SnmpFuture> inFlight = new HashMap<>();
+
+    /**
+     * The asynchronous response observer.
+     */
+    private ResponseObserver observer = new ResponseObserver();
+
     /**
      * Creates a new SNMPv1 manager.
      *
@@ -192,12 +237,76 @@ public class SnmpManager {
 
     /**
      * Destroys the encapsulated SNMP context. This will free all
-     * resources used by this instance. After calling this method,
-     * no other methods should be called on this instance.
+     * resources used by this instance. Any pending asynchronous
+     * requests will fail. After calling this method, no other
+     * methods should be called on this instance.
      */
     public void destroy() {
-        context.destroy();
-        context = null;
+        SnmpContextBasisFace   ctx;
+        ArrayList<SnmpFuture>  pending;
+
+        synchronized (this) {
+            ctx = context;
+            context = null;
+            pending = new ArrayList<>(queue);
+            pending.addAll(inFlight.values());
+            queue.clear();
+            inFlight.clear();
+        }
+        if (ctx != null) {
+            ctx.destroy();
+        }
+        for (SnmpFuture future : pending) {
+            future.finish(null, new SnmpException("SNMP manager closed"));
+        }
+    }
+
+    /**
+     * Returns the asynchronous request window size. This is the
+     * maximum number of asynchronous requests sent to the agent
+     * without waiting for a response.
+     *
+     * @return the request window size
+     *
+     * @since 2.11
+     */
+    public synchronized int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Sets the asynchronous request window size. This is the
+     * maximum number of asynchronous requests sent to the agent
+     * without waiting for a response. Increasing the window size
+     * immediately sends any queued requests that fit.
+     *
+     * @param size           the new window size, must be positive
+     *
+     * @throws IllegalArgumentException if the size wasn't positive
+     *
+     * @since 2.11
+     */
+    public void setWindowSize(int size) throws IllegalArgumentException {
+        if (size < 1) {
+            throw new IllegalArgumentException("invalid window size: " +
+                                               size);
+        }
+        synchronized (this) {
+            windowSize = size;
+        }
+        dispatch();
+    }
+
+    /**
+     * Returns the number of pending asynchronous requests. This
+     * includes both queued requests and requests in flight.
+     *
+     * @return the number of pending asynchronous requests
+     *
+     * @since 2.11
+     */
+    public synchronized int getPendingCount() {
+        return queue.size() + inFlight.size();
     }
 
     /**
@@ -308,6 +417,205 @@ public class SnmpManager {
         return send(pdu);
     }
 
+    /**
+     * Sends an asynchronous SNMP get request for a single OID.
+     *
+     * @param oid            the OID to get
+     *
+     * @return the pending SNMP request
+     *
+     * @throws SnmpException if the OID was invalid, or if the
+     *             SNMP manager has been destroyed
+     *
+     * @since 2.11
+     */
+    public SnmpFuture getAsync(String oid) throws SnmpException {
+        return getAsync(new String[] { oid });
+    }
+
+    /**
+     * Sends an asynchronous SNMP get request for multiple OIDs.
+     *
+     * @param oids           the OIDs to get
+     *
+     * @return the pending SNMP request
+     *
+     * @throws SnmpException if one of the OIDs was invalid, or if
+     *             the SNMP manager has been destroyed
+     *
+     * @since 2.11
+     */
+    public SnmpFuture getAsync(String[] oids) throws SnmpException {
+        Pdu  pdu = new GetPdu(getContext());
+
+        for (String oid : oids) {
+            addOid(pdu, oid, null);
+        }
+        return sendAsync(pdu);
+    }
+
+    /**
+     * Sends an asynchronous SNMP get next request for a single OID.
+     *
+     * @param oid            the OID whose successor will be returned
+     *
+     * @return the pending SNMP request
+     *
+     * @throws SnmpException if the OID was invalid, or if the
+     *             SNMP manager has been destroyed
+     *
+     * @since 2.11
+     */
+    public SnmpFuture getNextAsync(String oid) throws SnmpException {
+        return getNextAsync(new String[] { oid });
+    }
+
+    /**
+     * Sends an asynchronous SNMP get next request for multiple OIDs.
+     *
+     * @param oids           the OIDs whose successors will be returned
+     *
+     * @return the pending SNMP request
+     *
+     * @throws SnmpException if one of the OIDs was invalid, or if
+     *             the SNMP manager has been destroyed
+     *
+     * @since 2.11
+     */
+    public SnmpFuture getNextAsync(String[] oids) throws SnmpException {
+        Pdu  pdu = new GetNextPdu(getContext());
+
+        for (String oid : oids) {
+            addOid(pdu, oid, null);
+        }
+        return sendAsync(pdu);
+    }
+
+    /**
+     * Sends an asynchronous SNMP set request for a single OID.
+     *
+     * @param request        the request object
+     *
+     * @return the pending SNMP request
+     *
+     * @throws SnmpException if the OID or value was invalid, or if
+     *             the SNMP manager has been destroyed
+     *
+     * @since 2.11
+     */
+    public SnmpFuture setAsync(SnmpRequest request) throws SnmpException {
+        return setAsync(new SnmpRequest[] { request });
+    }
+
+    /**
+     * Sends an asynchronous SNMP set request for multiple OIDs.
+     *
+     * @param requests       the request objects
+     *
+     * @return the pending SNMP request
+     *
+     * @throws SnmpException if one of the OIDs or values was
+     *             invalid, or if the SNMP manager has been destroyed
+     *
+     * @since 2.11
+     */
+    public SnmpFuture setAsync(SnmpRequest[] requests) throws SnmpException {
+        Pdu  pdu = new SetPdu(getContext());
+
+        for (SnmpRequest req : requests) {
+            addOid(pdu, req.getOid(), createAsnValue(req));
+        }
+        return sendAsync(pdu);
+    }
+
+    /**
+     * Returns the SNMP context for a new asynchronous request.
+     *
+     * @return the SNMP context
+     *
+     * @throws SnmpException if the SNMP manager has been destroyed
+     */
+    private synchronized SnmpContextBasisFace getContext()
+        throws SnmpException {
+
+        if (context == null) {
+            throw new SnmpException("SNMP manager closed");
+        }
+        return context;
+    }
+
+    /**
+     * An asynchronous SNMP request dispatch method. The request is
+     * queued and sent as soon as the request window allows.
+     *
+     * @param pdu            the asynchronous pdu
+     *
+     * @return the pending SNMP request
+     */
+    private SnmpFuture sendAsync(Pdu pdu) {
+        SnmpFuture  future = new SnmpFuture(this, pdu);
+
+        pdu.addObserver(observer);
+        synchronized (this) {
+            queue.add(future);
+        }
+        dispatch();
+        return future;
+    }
+
+    /**
+     * Sends queued asynchronous requests until the request window is
+     * full or the queue is empty. Each request is registered by its
+     * request id before being sent, so that the response can always
+     * be correlated. The SNMP stack is called without holding the
+     * manager lock, as responses are delivered from another thread.
+     */
+    private void dispatch() {
+        while (true) {
+            SnmpFuture  future;
+            Pdu         pdu;
+
+            synchronized (this) {
+                if (context == null ||
+                    inFlight.size() >= windowSize ||
+                    queue.isEmpty()) {
+
+                    return;
+                }
+                future = queue.removeFirst();
+                pdu = future.getPdu();
+                inFlight.put(pdu.getReqId(), future);
+            }
+            try {
+                pdu.send();
+            } catch (IOException | PduException e) {
+                synchronized (this) {
+                    inFlight.remove(pdu.getReqId());
+                }
+                future.finish(null, new SnmpException(e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Removes a cancelled asynchronous request. If the request was
+     * in flight, the window slot is released and any response will
+     * be ignored.
+     *
+     * @param future         the cancelled request
+     */
+    void cancel(SnmpFuture future) {
+        synchronized (this) {
+            if (!queue.remove(future)) {
+                Integer id = future.getPdu().getReqId();
+                if (inFlight.get(id) == future) {
+                    inFlight.remove(id);
+                }
+            }
+        }
+        dispatch();
+    }
+
     /**
      * A synchronous SNMP request dispatch method.
      *
@@ -363,6 +671,29 @@ public class SnmpManager {
         }
     }
 
+    /**
+     * Adds an OID to an asynchronous PDU.
+     *
+     * @param pdu            the asynchronous PDU
+     * @param oid            the OID to add
+     * @param value          the associated value, or null
+     *
+     * @throws SnmpException if the OID couldn't be added correctly
+     */
+    private void addOid(Pdu pdu, String oid, AsnObject value)
+        throws SnmpException {
+
+        try {
+            if (value == null) {
+                pdu.addOid(oid);
+            } else {
+                pdu.addOid(oid, value);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new SnmpException(e.getMessage());
+        }
+    }
+
     /**
      * Creates an ASN.1 value object for an SNMP set request. The
      * value object will be created based on the MibType and string
@@ -473,4 +804,41 @@ public class SnmpManager {
                                     value);
         }
     }
+
+
+    /**
+     * The asynchronous response observer. The observer is notified
+     * by the SNMP stack receiver thread when a response has been
+     * received or a request has timed out.
+     */
+    @SuppressWarnings("deprecation")
+    private class ResponseObserver implements java.util.Observer {
+
+        /**
+         * Handles a response or timeout for an asynchronous request.
+         *
+         * @param obj            the observed PDU
+         * @param arg            the notification argument (ignored)
+         */
+        public void update(java.util.Observable obj, Object arg) {
+            Pdu         pdu = (Pdu) obj;
+            SnmpFuture  future;
+
+            synchronized (SnmpManager.this) {
+                future = inFlight.remove(pdu.getReqId());
+            }
+            if (future == null) {
+                // Cancelled, closed or unknown request
+                return;
+            }
+            try {
+                varbind[] vars = pdu.getResponseVarbinds();
+                future.finish(new SnmpResponse(pdu, vars), null);
+            } catch (PduException e) {
+                // Timeout and agent errors end up here
+                future.finish(null, new SnmpException(e.getMessage()));
+            }
+            dispatch();
+        }
+    }
 }
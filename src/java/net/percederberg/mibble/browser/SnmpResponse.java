@@ -13,6 +13,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 
 import uk.co.westhawk.snmp.pdu.BlockPdu;
+import uk.co.westhawk.snmp.stack.Pdu;
 import uk.co.westhawk.snmp.stack.varbind;
 
 /**
@@ -20,7 +21,7 @@ import uk.co.westhawk.snmp.stack.varbind;
  *
  * @author   Watsh Rajneesh
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.5
  */
 public class SnmpResponse {
@@ -60,6 +61,30 @@ public class SnmpResponse {
         errorStatus = pdu.getErrorStatus();
         errorStatusString = pdu.getErrorStatusString();
         errorIndex = pdu.getErrorIndex();
+        addVariables(variables);
+    }
+
+    /**
+     * Creates a new SNMP response container.
+     *
+     * @param pdu            the asynchronous PDU that was used
+     * @param variables      the variable bindings (or null)
+     *
+     * @since 2.11
+     */
+    public SnmpResponse(Pdu pdu, varbind[] variables) {
+        errorStatus = pdu.getErrorStatus();
+        errorStatusString = pdu.getErrorStatusString();
+        errorIndex = pdu.getErrorIndex();
+        addVariables(variables);
+    }
+
+    /**
+     * Adds the response variable bindings.
+     *
+     * @param variables      the variable bindings (or null)
+     */
+    private void addVariables(varbind[] variables) {
         if (variables != null) {
             for (varbind bind : variables) {
                 oids.add(bind.getOid().toString());
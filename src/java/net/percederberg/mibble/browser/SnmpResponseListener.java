@@ -0,0 +1,39 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.browser;
+
+/**
+ * An asynchronous SNMP response listener. The listener methods are
+ * called from the SNMP stack receiver thread, so implementations
+ * should return quickly and avoid blocking. Exactly one of the
+ * methods is called for each request.
+ *
+ * @see SnmpFuture#addListener(SnmpResponseListener)
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public interface SnmpResponseListener {
+
+    /**
+     * Called when an SNMP response has been received.
+     *
+     * @param response       the SNMP response
+     */
+    void responseReceived(SnmpResponse response);
+
+    /**
+     * Called when an SNMP request failed. This includes timeouts,
+     * agent errors and cancelled requests.
+     *
+     * @param error          the SNMP error
+     */
+    void requestFailed(SnmpException error);
+}
@@ -8,6 +8,10 @@
 
 package net.percederberg.mibble.snmp;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import net.percederberg.mibble.MibException;
 import net.percederberg.mibble.MibLoaderLog;
 import net.percederberg.mibble.MibType;
@@ -20,7 +24,7 @@ import net.percederberg.mibble.MibValue;
  * @see SnmpModule
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class SnmpCompliance {
@@ -53,7 +57,7 @@ public class SnmpCompliance {
     /**
      * The compliance description.
      */
-    private String description;
+    private SnmpText description;
 
     /**
      * The compliance comment.
@@ -82,7 +86,7 @@ public class SnmpCompliance {
         this.syntax = syntax;
         this.writeSyntax = writeSyntax;
         this.access = access;
-        this.description = description;
+        this.description = SnmpText.create(description);
     }
 
     /**
@@ -177,12 +181,13 @@ public class SnmpCompliance {
      * will be removed from the description, and it also replaces all
      * tab characters with 8 spaces.
      *
-     * @return the compliance description
+     * @return the compliance description, or
+     *         an empty string if loaded in lean mode
      *
      * @see #getUnformattedDescription()
      */
     public String getDescription() {
-        return SnmpType.removeIndent(description);
+        return SnmpType.removeIndent(getUnformattedDescription());
     }
 
     /**
@@ -191,6 +196,7 @@ public class SnmpCompliance {
      * indentation or similar.
      *
      * @return the unformatted compliance description, or
+     *         an empty string if loaded in lean mode, or
      *         null if no description has been set
      *
      * @see #getDescription()
@@ -198,7 +204,41 @@ public class SnmpCompliance {
      * @since 2.6
      */
     public String getUnformattedDescription() {
-        return description;
+        return SnmpText.toString(description);
+    }
+
+    /**
+     * Reads the compliance description from a MIB snapshot. This
+     * replaces any description set by the constructor.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @param in             the snapshot input stream
+     *
+     * @throws IOException if the snapshot couldn't be read
+     *
+     * @since 2.11
+     */
+    public void readDescription(DataInputStream in) throws IOException {
+        description = SnmpText.read(in);
+    }
+
+    /**
+     * Writes the compliance description to a MIB snapshot. The
+     * description is written as-is, without decompressing it.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @param out            the snapshot output stream
+     *
+     * @throws IOException if the snapshot couldn't be written
+     *
+     * @since 2.11
+     */
+    public void writeDescription(DataOutputStream out) throws IOException {
+        SnmpText.write(out, description);
     }
 
     /**
@@ -245,7 +285,7 @@ public class SnmpCompliance {
             buffer.append(access);
         }
         buffer.append("\n      Description: ");
-        buffer.append(description);
+        buffer.append(SnmpText.toString(description));
         return buffer.toString();
     }
 }
@@ -0,0 +1,329 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.snmp;
+
+import java.math.BigInteger;
+
+import net.percederberg.mibble.MibOidMatch;
+import net.percederberg.mibble.MibValueSymbol;
+
+/**
+ * A decoded SNMP variable value. The value is decoded using the MIB
+ * information for the object type, so that enumeration labels, bit
+ * names and display hints are applied. The raw value is also
+ * available, using one of the typed accessor methods depending on
+ * the value syntax.
+ *
+ * @see SnmpValueDecoder
+ * @see SnmpVarbindDecoder
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class SnmpDecodedValue {
+
+    /**
+     * The empty array of bit names.
+     */
+    private static final String[] NO_BITS = new String[0];
+
+    /**
+     * The OID match for the variable, or null if not available.
+     */
+    private MibOidMatch match;
+
+    /**
+     * The value syntax (one of the SnmpValueDecoder constants).
+     */
+    private int syntax;
+
+    /**
+     * The integer value (for integer syntaxes).
+     */
+    private long number;
+
+    /**
+     * The octet string data (for octet string syntaxes), or null.
+     */
+    private byte[] bytes;
+
+    /**
+     * The object identifier arcs, or null.
+     */
+    private int[] oid;
+
+    /**
+     * The enumeration label (or exception name), or null.
+     */
+    private String label;
+
+    /**
+     * The names of the bits set, or null.
+     */
+    private String[] bits;
+
+    /**
+     * The display hint to apply, or null.
+     */
+    private SnmpDisplayHint hint;
+
+    /**
+     * Creates a new decoded value.
+     *
+     * @param match          the OID match, or null
+     * @param syntax         the value syntax
+     * @param number         the integer value
+     * @param bytes          the octet string data, or null
+     * @param oid            the object identifier arcs, or null
+     * @param label          the enumeration label, or null
+     * @param bits           the names of the bits set, or null
+     * @param hint           the display hint, or null
+     */
+    SnmpDecodedValue(MibOidMatch match,
+                     int syntax,
+                     long number,
+                     byte[] bytes,
+                     int[] oid,
+                     String label,
+                     String[] bits,
+                     SnmpDisplayHint hint) {
+
+        this.match = match;
+        this.syntax = syntax;
+        this.number = number;
+        this.bytes = bytes;
+        this.oid = oid;
+        this.label = label;
+        this.bits = bits;
+        this.hint = hint;
+    }
+
+    /**
+     * Returns the OID match for the variable. This contains both the
+     * MIB symbol and the instance suffix.
+     *
+     * @return the OID match, or
+     *         null if not decoded from a variable binding
+     */
+    public MibOidMatch getMatch() {
+        return match;
+    }
+
+    /**
+     * Returns the MIB symbol for the variable.
+     *
+     * @return the MIB value symbol, or
+     *         null if not available
+     */
+    public MibValueSymbol getSymbol() {
+        return (match == null) ? null : match.getSymbol();
+    }
+
+    /**
+     * Returns the value syntax. This is one of the syntax constants
+     * in SnmpValueDecoder, as found in the decoded data.
+     *
+     * @return the value syntax
+     *
+     * @see SnmpValueDecoder#INTEGER
+     */
+    public int getSyntax() {
+        return syntax;
+    }
+
+    /**
+     * Checks if the value is an integer. This is true for INTEGER,
+     * Counter32, Gauge32, TimeTicks and Counter64 values.
+     *
+     * @return true if the value is an integer, or
+     *         false otherwise
+     */
+    public boolean isNumber() {
+        return bytes == null && oid == null &&
+               syntax != SnmpValueDecoder.NULL;
+    }
+
+    /**
+     * Returns the integer value. Counter64 values are returned as
+     * unsigned 64-bit values, so large values may appear negative.
+     *
+     * @return the integer value, or
+     *         zero (0) if not an integer
+     */
+    public long getLong() {
+        return number;
+    }
+
+    /**
+     * Returns the octet string data. This is used for OCTET STRING,
+     * BITS, IpAddress and Opaque values. The returned array must not
+     * be modified.
+     *
+     * @return the octet string data, or
+     *         null if not an octet string
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the object identifier value. The returned array must
+     * not be modified.
+     *
+     * @return the object identifier arcs, or
+     *         null if not an object identifier
+     */
+    public int[] getOid() {
+        return oid;
+    }
+
+    /**
+     * Returns the enumeration label. For NULL values, this is the
+     * SNMP exception name (such as "noSuchObject"), if any.
+     *
+     * @return the enumeration label, or
+     *         null if not available
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the names of the bits set. Bits without names in the
+     * MIB are named by their position.
+     *
+     * @return the names of the bits set, or
+     *         an empty array if not a BITS value
+     */
+    public String[] getBits() {
+        return (bits == null) ? NO_BITS : bits.clone();
+    }
+
+    /**
+     * Returns the display hint used for formatting.
+     *
+     * @return the display hint, or
+     *         null if no display hint is applied
+     */
+    public SnmpDisplayHint getDisplayHint() {
+        return hint;
+    }
+
+    /**
+     * Returns the formatted value text. This applies enumeration
+     * labels, bit names or display hints as applicable.
+     *
+     * @return the formatted value text
+     */
+    public String getText() {
+        StringBuilder buffer = new StringBuilder();
+        appendText(buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * Appends the formatted value text to a buffer.
+     *
+     * @param buffer         the string buffer to append to
+     */
+    private void appendText(StringBuilder buffer) {
+        if (label != null) {
+            buffer.append(label);
+            if (syntax != SnmpValueDecoder.NULL) {
+                buffer.append('(');
+                buffer.append(number);
+                buffer.append(')');
+            }
+        } else if (bits != null) {
+            buffer.append('{');
+            for (int i = 0; i < bits.length; i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+                buffer.append(bits[i]);
+            }
+            buffer.append('}');
+        } else if (oid != null) {
+            for (int i = 0; i < oid.length; i++) {
+                if (i > 0) {
+                    buffer.append('.');
+                }
+                buffer.append(oid[i]);
+            }
+        } else if (bytes != null && hint != null) {
+            hint.format(bytes, 0, bytes.length, buffer);
+        } else if (bytes != null && syntax == SnmpValueDecoder.IP_ADDRESS) {
+            for (int i = 0; i < bytes.length; i++) {
+                if (i > 0) {
+                    buffer.append('.');
+                }
+                buffer.append(bytes[i] & 0xFF);
+            }
+        } else if (bytes != null && isPrintable(bytes)) {
+            for (byte b : bytes) {
+                buffer.append((char) b);
+            }
+        } else if (bytes != null) {
+            for (int i = 0; i < bytes.length; i++) {
+                if (i > 0) {
+                    buffer.append(':');
+                }
+                String hex = Integer.toHexString(bytes[i] & 0xFF);
+                if (hex.length() < 2) {
+                    buffer.append('0');
+                }
+                buffer.append(hex);
+            }
+        } else if (syntax == SnmpValueDecoder.NULL) {
+            buffer.append("NULL");
+        } else if (hint != null) {
+            hint.format(number, buffer);
+        } else if (syntax == SnmpValueDecoder.COUNTER64 && number < 0) {
+            BigInteger unsigned = BigInteger.valueOf(number);
+            buffer.append(unsigned.add(BigInteger.ONE.shiftLeft(64)));
+        } else {
+            buffer.append(number);
+        }
+    }
+
+    /**
+     * Checks if all octets are printable ASCII characters.
+     *
+     * @param data           the octet string data
+     *
+     * @return true if all octets are printable, or
+     *         false otherwise
+     */
+    private static boolean isPrintable(byte[] data) {
+        for (byte b : data) {
+            boolean space = (b == '\r' || b == '\n' || b == '\t');
+            if ((b < 0x20 || b > 0x7E) && !space) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a string representation of this object. This includes
+     * the symbol name and instance suffix if available.
+     *
+     * @return a string representation of this object
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        if (match != null) {
+            buffer.append(match);
+            buffer.append(" = ");
+        }
+        appendText(buffer);
+        return buffer.toString();
+    }
+}
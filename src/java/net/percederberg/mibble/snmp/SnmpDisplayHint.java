@@ -0,0 +1,633 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.snmp;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * A compiled SNMP display hint. The display hint string from a
+ * textual convention is parsed once, and may then be used to format
+ * any number of values (and to parse formatted values back). Both
+ * integer hints (such as "d-2" or "x") and octet string hints (such
+ * as "1x:" or "2d-1d-1d,1d:1d:1d.1d,1a1d:1d") are supported.
+ * Instances are immutable and safe for use by concurrent threads.
+ *
+ * @see SnmpTextualConvention#getDisplayFormat()
+ * @see <a href="http://www.ietf.org/rfc/rfc2579.txt">RFC 2579 (SNMPv2-TC)</a>
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class SnmpDisplayHint {
+
+    /**
+     * The hexadecimal digit characters.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * The ASCII (ISO-8859-1) character set.
+     */
+    private static final Charset ASCII = Charset.forName("ISO-8859-1");
+
+    /**
+     * The UTF-8 character set.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The display hint string.
+     */
+    private String hint;
+
+    /**
+     * The integer display format, or zero (0) for octet string
+     * hints.
+     */
+    private char intFormat = 0;
+
+    /**
+     * The number of implied decimals for integer hints.
+     */
+    private int decimals = 0;
+
+    /**
+     * The octet string display specifications, or null for integer
+     * hints.
+     */
+    private Spec[] specs = null;
+
+    /**
+     * Creates a new compiled display hint.
+     *
+     * @param hint           the display hint string
+     *
+     * @throws IllegalArgumentException if the display hint string
+     *             was malformed
+     */
+    public SnmpDisplayHint(String hint) throws IllegalArgumentException {
+        this.hint = hint;
+        char c = (hint.length() > 0) ? hint.charAt(0) : 0;
+        if (c == 'd' || c == 'x' || c == 'o' || c == 'b') {
+            parseIntegerHint(hint);
+        } else {
+            parseOctetHint(hint);
+        }
+    }
+
+    /**
+     * Parses an integer display hint.
+     *
+     * @param hint           the display hint string
+     *
+     * @throws IllegalArgumentException if the display hint string
+     *             was malformed
+     */
+    private void parseIntegerHint(String hint)
+        throws IllegalArgumentException {
+
+        intFormat = hint.charAt(0);
+        if (hint.length() == 1) {
+            return;
+        } else if (intFormat == 'd' && hint.length() > 2 &&
+                   hint.charAt(1) == '-') {
+
+            try {
+                decimals = Integer.parseInt(hint.substring(2));
+            } catch (NumberFormatException e) {
+                decimals = -1;
+            }
+            if (decimals >= 0 && decimals <= 18) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("malformed display hint: " +
+                                           hint);
+    }
+
+    /**
+     * Parses an octet string display hint.
+     *
+     * @param hint           the display hint string
+     *
+     * @throws IllegalArgumentException if the display hint string
+     *             was malformed
+     */
+    private void parseOctetHint(String hint)
+        throws IllegalArgumentException {
+
+        ArrayList<Spec> list = new ArrayList<>();
+        int pos = 0;
+        while (pos < hint.length()) {
+            Spec spec = new Spec();
+            if (hint.charAt(pos) == '*') {
+                spec.repeat = true;
+                pos++;
+            }
+            int start = pos;
+            while (pos < hint.length() && isDigit(hint.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos || pos >= hint.length()) {
+                break;
+            }
+            spec.length = Integer.parseInt(hint.substring(start, pos));
+            spec.format = hint.charAt(pos++);
+            if ("xdoat".indexOf(spec.format) < 0) {
+                break;
+            }
+            if (pos < hint.length() && isSeparator(hint.charAt(pos))) {
+                spec.separator = hint.charAt(pos++);
+            }
+            if (spec.repeat && pos < hint.length() &&
+                isSeparator(hint.charAt(pos))) {
+
+                spec.terminator = hint.charAt(pos++);
+            }
+            list.add(spec);
+        }
+        if (pos < hint.length() || list.isEmpty()) {
+            throw new IllegalArgumentException("malformed display hint: " +
+                                               hint);
+        }
+        specs = list.toArray(new Spec[list.size()]);
+    }
+
+    /**
+     * Returns the display hint string.
+     *
+     * @return the display hint string
+     */
+    public String getHint() {
+        return hint;
+    }
+
+    /**
+     * Checks if this is an integer display hint. Integer display
+     * hints are used for INTEGER and Integer32 syntaxes, while all
+     * other hints are used for OCTET STRING syntaxes.
+     *
+     * @return true if this is an integer display hint, or
+     *         false otherwise
+     */
+    public boolean isIntegerHint() {
+        return specs == null;
+    }
+
+    /**
+     * Formats an integer value.
+     *
+     * @param value          the integer value
+     *
+     * @return the formatted value
+     */
+    public String format(long value) {
+        StringBuilder buffer = new StringBuilder();
+        format(value, buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * Formats an integer value. If this isn't an integer display
+     * hint, the value is formatted as a plain decimal number.
+     *
+     * @param value          the integer value
+     * @param buffer         the string buffer to append to
+     */
+    public void format(long value, StringBuilder buffer) {
+        if (intFormat == 'x') {
+            appendSigned(value, 16, buffer);
+        } else if (intFormat == 'o') {
+            appendSigned(value, 8, buffer);
+        } else if (intFormat == 'b') {
+            appendSigned(value, 2, buffer);
+        } else if (decimals > 0) {
+            String digits = Long.toString(Math.abs(value));
+            if (value == Long.MIN_VALUE) {
+                digits = digits.substring(1);
+            }
+            if (value < 0) {
+                buffer.append('-');
+            }
+            int point = digits.length() - decimals;
+            if (point > 0) {
+                buffer.append(digits, 0, point);
+                buffer.append('.');
+                buffer.append(digits, point, digits.length());
+            } else {
+                buffer.append("0.");
+                for (int i = point; i < 0; i++) {
+                    buffer.append('0');
+                }
+                buffer.append(digits);
+            }
+        } else {
+            buffer.append(value);
+        }
+    }
+
+    /**
+     * Appends a signed integer value in a specified radix. Negative
+     * values are prefixed with a minus sign.
+     *
+     * @param value          the integer value
+     * @param radix          the radix (2, 8 or 16)
+     * @param buffer         the string buffer to append to
+     */
+    private static void appendSigned(long value,
+                                     int radix,
+                                     StringBuilder buffer) {
+
+        if (value < 0) {
+            buffer.append('-');
+            value = -value;
+        }
+        if (radix == 16) {
+            buffer.append(Long.toHexString(value));
+        } else if (radix == 8) {
+            buffer.append(Long.toOctalString(value));
+        } else {
+            buffer.append(Long.toBinaryString(value));
+        }
+    }
+
+    /**
+     * Formats an octet string value.
+     *
+     * @param data           the octet string data
+     *
+     * @return the formatted value
+     */
+    public String format(byte[] data) {
+        StringBuilder buffer = new StringBuilder(data.length * 3);
+        format(data, 0, data.length, buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * Formats an octet string value. The display specifications are
+     * applied in order until all the data has been consumed, with the
+     * last specification being reused as needed. Specifications with
+     * a zero octet length only output their separator. If this is an
+     * integer display hint, the data is formatted as colon-separated
+     * hexadecimal octets.
+     *
+     * @param data           the octet string data
+     * @param offset         the first data position
+     * @param length         the number of octets
+     * @param buffer         the string buffer to append to
+     */
+    public void format(byte[] data,
+                       int offset,
+                       int length,
+                       StringBuilder buffer) {
+
+        if (specs == null) {
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    buffer.append(':');
+                }
+                appendHex(data, offset + i, 1, buffer);
+            }
+            return;
+        }
+        int pos = offset;
+        int end = offset + length;
+        for (int i = 0; pos < end; i++) {
+            Spec spec = specs[Math.min(i, specs.length - 1)];
+            if (spec.length == 0 && i >= specs.length) {
+                break;
+            }
+            int count = 1;
+            if (spec.repeat) {
+                count = data[pos++] & 0xFF;
+            }
+            for (int j = 0; j < count && pos < end; j++) {
+                int len = Math.min(spec.length, end - pos);
+                appendValue(spec.format, data, pos, len, buffer);
+                pos += len;
+                boolean last = spec.repeat && j + 1 == count;
+                if (spec.separator != 0 && pos < end &&
+                    !(last && spec.terminator != 0)) {
+
+                    buffer.append(spec.separator);
+                }
+            }
+            if (spec.terminator != 0 && pos < end) {
+                buffer.append(spec.terminator);
+            }
+        }
+    }
+
+    /**
+     * Appends a single formatted octet string value.
+     *
+     * @param format         the display format character
+     * @param data           the octet string data
+     * @param pos            the first data position
+     * @param len            the number of octets
+     * @param buffer         the string buffer to append to
+     */
+    private static void appendValue(char format,
+                                    byte[] data,
+                                    int pos,
+                                    int len,
+                                    StringBuilder buffer) {
+
+        switch (format) {
+        case 'x':
+            appendHex(data, pos, len, buffer);
+            break;
+        case 'a':
+            for (int i = 0; i < len; i++) {
+                buffer.append((char) (data[pos + i] & 0xFF));
+            }
+            break;
+        case 't':
+            buffer.append(new String(data, pos, len, UTF8));
+            break;
+        default:
+            int radix = (format == 'o') ? 8 : 10;
+            if (len < 8) {
+                long value = 0;
+                for (int i = 0; i < len; i++) {
+                    value = (value << 8) | (data[pos + i] & 0xFF);
+                }
+                buffer.append(Long.toString(value, radix));
+            } else {
+                byte[] bytes = new byte[len + 1];
+                System.arraycopy(data, pos, bytes, 1, len);
+                buffer.append(new BigInteger(bytes).toString(radix));
+            }
+        }
+    }
+
+    /**
+     * Appends octets as hexadecimal digits (two per octet).
+     *
+     * @param data           the octet string data
+     * @param pos            the first data position
+     * @param len            the number of octets
+     * @param buffer         the string buffer to append to
+     */
+    private static void appendHex(byte[] data,
+                                  int pos,
+                                  int len,
+                                  StringBuilder buffer) {
+
+        for (int i = 0; i < len; i++) {
+            int b = data[pos + i] & 0xFF;
+            buffer.append(HEX[b >> 4]);
+            buffer.append(HEX[b & 0x0F]);
+        }
+    }
+
+    /**
+     * Parses a formatted integer value. This is the reverse of
+     * format(long).
+     *
+     * @param text           the formatted value
+     *
+     * @return the integer value
+     *
+     * @throws IllegalArgumentException if the text couldn't be parsed
+     *             with this display hint
+     */
+    public long parseLong(String text) throws IllegalArgumentException {
+        int radix = 10;
+        if (intFormat == 'x') {
+            radix = 16;
+        } else if (intFormat == 'o') {
+            radix = 8;
+        } else if (intFormat == 'b') {
+            radix = 2;
+        } else if (decimals > 0) {
+            int point = text.indexOf('.');
+            if (point >= 0) {
+                int frac = text.length() - point - 1;
+                if (frac > decimals) {
+                    throw new NumberFormatException("too many decimals: " +
+                                                    text);
+                }
+                StringBuilder buffer = new StringBuilder(text.length());
+                buffer.append(text, 0, point);
+                buffer.append(text, point + 1, text.length());
+                for (int i = frac; i < decimals; i++) {
+                    buffer.append('0');
+                }
+                text = buffer.toString();
+            } else {
+                StringBuilder buffer = new StringBuilder(text);
+                for (int i = 0; i < decimals; i++) {
+                    buffer.append('0');
+                }
+                text = buffer.toString();
+            }
+        }
+        return Long.parseLong(text, radix);
+    }
+
+    /**
+     * Parses a formatted octet string value. This is the reverse of
+     * format(byte[]). Numeric values are always encoded in the full
+     * octet length of the display specification.
+     *
+     * @param text           the formatted value
+     *
+     * @return the octet string data
+     *
+     * @throws IllegalArgumentException if the text couldn't be parsed
+     *             with this display hint
+     */
+    public byte[] parseBytes(String text) throws IllegalArgumentException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (specs == null) {
+            for (String part : text.split(":")) {
+                if (part.length() > 0) {
+                    out.write(Integer.parseInt(part, 16));
+                }
+            }
+            return out.toByteArray();
+        }
+        int pos = 0;
+        for (int i = 0; pos < text.length(); i++) {
+            Spec spec = specs[Math.min(i, specs.length - 1)];
+            if (spec.length == 0 && i >= specs.length) {
+                break;
+            }
+            if (spec.repeat) {
+                ByteArrayOutputStream group = new ByteArrayOutputStream();
+                int count = 0;
+                while (pos < text.length() && count < 255) {
+                    pos = parseValue(spec, text, pos, group);
+                    count++;
+                    if (pos < text.length() &&
+                        text.charAt(pos) == spec.terminator) {
+
+                        pos++;
+                        break;
+                    }
+                    if (pos < text.length() &&
+                        text.charAt(pos) == spec.separator) {
+
+                        pos++;
+                    }
+                }
+                out.write(count);
+                byte[] bytes = group.toByteArray();
+                out.write(bytes, 0, bytes.length);
+            } else {
+                pos = parseValue(spec, text, pos, out);
+                if (pos < text.length() && text.charAt(pos) == spec.separator) {
+                    pos++;
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Parses a single formatted octet string value.
+     *
+     * @param spec           the display specification
+     * @param text           the formatted value
+     * @param pos            the text position to start at
+     * @param out            the output stream for the octets
+     *
+     * @return the text position after the value
+     *
+     * @throws IllegalArgumentException if the text couldn't be parsed
+     */
+    private static int parseValue(Spec spec,
+                                  String text,
+                                  int pos,
+                                  ByteArrayOutputStream out)
+        throws IllegalArgumentException {
+
+        int end = pos;
+        if (spec.length == 0) {
+            return pos;
+        } else if (spec.format == 'a' || spec.format == 't') {
+            Charset charset = (spec.format == 'a') ? ASCII : UTF8;
+            int size = 0;
+            while (end < text.length() && size < spec.length) {
+                char c = text.charAt(end);
+                if (c == spec.separator || c == spec.terminator) {
+                    break;
+                }
+                if (spec.format == 'a' || c < 0x80) {
+                    size += 1;
+                } else if (c < 0x800 || Character.isSurrogate(c)) {
+                    size += 2;
+                } else {
+                    size += 3;
+                }
+                end++;
+            }
+            byte[] bytes = text.substring(pos, end).getBytes(charset);
+            out.write(bytes, 0, bytes.length);
+            return end;
+        }
+        int radix = (spec.format == 'x') ? 16 : (spec.format == 'o') ? 8 : 10;
+        int max = (spec.format == 'x') ? spec.length * 2 : Integer.MAX_VALUE;
+        while (end < text.length() && end - pos < max &&
+               Character.digit(text.charAt(end), radix) >= 0) {
+
+            end++;
+        }
+        if (end == pos) {
+            throw new IllegalArgumentException("invalid value at position " +
+                                               pos + ": " + text);
+        }
+        BigInteger value = new BigInteger(text.substring(pos, end), radix);
+        if (value.bitLength() > spec.length * 8) {
+            throw new IllegalArgumentException("value too large at " +
+                                               "position " + pos + ": " +
+                                               text);
+        }
+        byte[] bytes = value.toByteArray();
+        int skip = bytes.length - spec.length;
+        for (int i = skip; i < 0; i++) {
+            out.write(0);
+        }
+        skip = Math.max(skip, 0);
+        out.write(bytes, skip, bytes.length - skip);
+        return end;
+    }
+
+    /**
+     * Checks if a character is a decimal digit.
+     *
+     * @param c              the character to check
+     *
+     * @return true if the character is a digit, or
+     *         false otherwise
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Checks if a character may be used as a separator or terminator.
+     *
+     * @param c              the character to check
+     *
+     * @return true if the character is a valid separator, or
+     *         false otherwise
+     */
+    private static boolean isSeparator(char c) {
+        return !isDigit(c) && c != '*';
+    }
+
+    /**
+     * Returns a string representation of this object.
+     *
+     * @return a string representation of this object
+     */
+    public String toString() {
+        return hint;
+    }
+
+
+    /**
+     * An octet string display specification.
+     */
+    private static class Spec {
+
+        /**
+         * The repeat indicator flag.
+         */
+        public boolean repeat = false;
+
+        /**
+         * The number of octets per value. This may be zero (0), in
+         * which case only the separator is output.
+         */
+        public int length = 0;
+
+        /**
+         * The display format character.
+         */
+        public char format = 0;
+
+        /**
+         * The separator character, or zero (0) for none.
+         */
+        public char separator = 0;
+
+        /**
+         * The terminator character, or zero (0) for none.
+         */
+        public char terminator = 0;
+    }
+}
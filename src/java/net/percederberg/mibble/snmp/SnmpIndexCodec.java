@@ -0,0 +1,421 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.snmp;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import net.percederberg.mibble.MibType;
+import net.percederberg.mibble.MibValue;
+import net.percederberg.mibble.MibValueSymbol;
+import net.percederberg.mibble.type.Constraint;
+import net.percederberg.mibble.type.SizeConstraint;
+import net.percederberg.mibble.type.StringType;
+import net.percederberg.mibble.type.ValueConstraint;
+import net.percederberg.mibble.type.ValueRangeConstraint;
+import net.percederberg.mibble.value.ObjectIdentifierValue;
+
+/**
+ * An SNMP table index codec. This class converts between the OID
+ * instance suffix of a table row and the typed index values, as
+ * specified by the INDEX (or AUGMENTS) clause of the row object
+ * type. The rules from RFC 2578 section 7.7 are applied once when
+ * the codec is created, so decoding and encoding only loops over
+ * the index components.<p>
+ *
+ * The index values are decoded with the value decoder for each
+ * index object, so enumeration labels and display hints are
+ * available in the decoded values.
+ *
+ * @see SnmpObjectType#getIndexCodec()
+ * @see <a href="http://www.ietf.org/rfc/rfc2578.txt">RFC 2578 (SNMPv2-SMI)</a>
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class SnmpIndexCodec {
+
+    /**
+     * The integer index encoding (a single OID arc).
+     */
+    private static final int NUMBER = 0;
+
+    /**
+     * The fixed-length string index encoding (no length prefix).
+     */
+    private static final int FIXED = 1;
+
+    /**
+     * The variable-length index encoding (with length prefix).
+     */
+    private static final int VARIABLE = 2;
+
+    /**
+     * The implied-length index encoding (remaining OID arcs).
+     */
+    private static final int IMPLIED = 3;
+
+    /**
+     * The ISO-8859-1 character set (for string index values).
+     */
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+    /**
+     * The index object symbols (or null for SMIv1 index types).
+     */
+    private MibValueSymbol[] symbols;
+
+    /**
+     * The index encoding for each component.
+     */
+    private int[] encodings;
+
+    /**
+     * The fixed length for each component (for FIXED encoding).
+     */
+    private int[] sizes;
+
+    /**
+     * The object identifier flag for each component.
+     */
+    private boolean[] oids;
+
+    /**
+     * The value decoder for each component.
+     */
+    private SnmpValueDecoder[] decoders;
+
+    /**
+     * Creates a new index codec for a table row object type.
+     *
+     * @param type           the table row object type
+     */
+    SnmpIndexCodec(SnmpObjectType type) {
+        ArrayList<SnmpIndex> index = type.getIndex();
+        for (int i = 0; index.isEmpty() && type.getAugments() != null; i++) {
+            MibValue augments = type.getAugments();
+            MibValueSymbol sym = null;
+            if (augments instanceof ObjectIdentifierValue) {
+                sym = ((ObjectIdentifierValue) augments).getSymbol();
+            }
+            if (sym == null || !(sym.getType() instanceof SnmpObjectType) ||
+                i > 10) {
+
+                break;
+            }
+            type = (SnmpObjectType) sym.getType();
+            index = type.getIndex();
+        }
+        int count = index.size();
+        symbols = new MibValueSymbol[count];
+        encodings = new int[count];
+        sizes = new int[count];
+        oids = new boolean[count];
+        decoders = new SnmpValueDecoder[count];
+        for (int i = 0; i < count; i++) {
+            SnmpIndex idx = index.get(i);
+            MibType syntax = idx.getType();
+            MibValue value = idx.getValue();
+            if (value instanceof ObjectIdentifierValue) {
+                symbols[i] = ((ObjectIdentifierValue) value).getSymbol();
+            }
+            if (symbols[i] != null &&
+                symbols[i].getType() instanceof SnmpObjectType) {
+
+                SnmpObjectType t = (SnmpObjectType) symbols[i].getType();
+                syntax = t.getSyntax();
+                decoders[i] = t.getValueDecoder();
+            } else if (syntax != null) {
+                decoders[i] = new SnmpValueDecoder(syntax);
+            } else {
+                decoders[i] = SnmpValueDecoder.GENERIC;
+            }
+            int kind = decoders[i].getSyntax();
+            boolean last = (i + 1 == count);
+            if (kind == SnmpValueDecoder.IP_ADDRESS) {
+                encodings[i] = FIXED;
+                sizes[i] = 4;
+            } else if (kind == SnmpValueDecoder.OBJECT_IDENTIFIER) {
+                encodings[i] = (last && idx.isImplied()) ? IMPLIED : VARIABLE;
+                oids[i] = true;
+            } else if (kind == SnmpValueDecoder.OCTET_STRING ||
+                       kind == SnmpValueDecoder.BITS ||
+                       kind == SnmpValueDecoder.OPAQUE) {
+
+                sizes[i] = fixedSize(syntax);
+                if (sizes[i] >= 0) {
+                    encodings[i] = FIXED;
+                } else if (last && idx.isImplied()) {
+                    encodings[i] = IMPLIED;
+                } else {
+                    encodings[i] = VARIABLE;
+                }
+            } else {
+                encodings[i] = NUMBER;
+            }
+        }
+    }
+
+    /**
+     * Returns the fixed size of a string type. A string type has a
+     * fixed size if it has a size constraint with a single value.
+     *
+     * @param type           the MIB type
+     *
+     * @return the fixed size, or
+     *         -1 if the size isn't fixed
+     */
+    private static int fixedSize(MibType type) {
+        type = (type == null) ? null : SnmpValueDecoder.baseTypeOf(type);
+        if (!(type instanceof StringType)) {
+            return -1;
+        }
+        Constraint c = ((StringType) type).getConstraint();
+        if (!(c instanceof SizeConstraint)) {
+            return -1;
+        }
+        ArrayList<Constraint> values = ((SizeConstraint) c).getValues();
+        if (values.size() != 1) {
+            return -1;
+        }
+        Object lower = null;
+        Object upper = null;
+        if (values.get(0) instanceof ValueConstraint) {
+            lower = ((ValueConstraint) values.get(0)).getValue().toObject();
+            upper = lower;
+        } else if (values.get(0) instanceof ValueRangeConstraint) {
+            ValueRangeConstraint range = (ValueRangeConstraint) values.get(0);
+            lower = range.getLowerBound().toObject();
+            upper = range.getUpperBound().toObject();
+        }
+        if (lower instanceof Number && lower.equals(upper)) {
+            return ((Number) lower).intValue();
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of index components.
+     *
+     * @return the number of index components
+     */
+    public int getIndexCount() {
+        return symbols.length;
+    }
+
+    /**
+     * Returns the MIB symbol for an index component.
+     *
+     * @param pos            the index component position
+     *
+     * @return the index object symbol, or
+     *         null if the index was specified by type (SMIv1)
+     */
+    public MibValueSymbol getIndexSymbol(int pos) {
+        return symbols[pos];
+    }
+
+    /**
+     * Decodes an OID instance suffix into index values.
+     *
+     * @param oid            the numeric OID arcs
+     * @param offset         the first instance suffix position
+     * @param length         the number of instance suffix arcs
+     *
+     * @return the array of decoded index values, or
+     *         null if the suffix didn't match the index
+     */
+    public SnmpDecodedValue[] decode(int[] oid, int offset, int length) {
+        SnmpDecodedValue[] res = new SnmpDecodedValue[symbols.length];
+        int pos = offset;
+        int end = offset + length;
+        for (int i = 0; i < res.length; i++) {
+            if (pos >= end && encodings[i] != IMPLIED) {
+                return null;
+            }
+            int size;
+            switch (encodings[i]) {
+            case NUMBER:
+                long value = oid[pos++] & 0xFFFFFFFFL;
+                res[i] = decoders[i].decodeNumber(null,
+                                                  numberSyntax(i),
+                                                  value);
+                continue;
+            case FIXED:
+                size = sizes[i];
+                break;
+            case VARIABLE:
+                size = oid[pos++];
+                break;
+            default:
+                size = end - pos;
+            }
+            if (size < 0 || size > end - pos) {
+                return null;
+            }
+            if (oids[i]) {
+                res[i] = decoders[i].decode(Arrays.copyOfRange(oid, pos,
+                                                               pos + size));
+            } else {
+                byte[] data = new byte[size];
+                for (int j = 0; j < size; j++) {
+                    if ((oid[pos + j] & ~0xFF) != 0) {
+                        return null;
+                    }
+                    data[j] = (byte) oid[pos + j];
+                }
+                res[i] = decoders[i].decodeBytes(null, bytesSyntax(i), data);
+            }
+            pos += size;
+        }
+        return (pos == end) ? res : null;
+    }
+
+    /**
+     * Encodes index values into an OID instance suffix. Each value
+     * may be a Number, a byte array, a String (for octet strings),
+     * an int array (for object identifiers) or a decoded value.
+     *
+     * @param values         the index values
+     *
+     * @return the OID instance suffix arcs
+     *
+     * @throws IllegalArgumentException if the values didn't match
+     *             the index
+     */
+    public int[] encode(Object... values) throws IllegalArgumentException {
+        if (values.length != symbols.length) {
+            throw new IllegalArgumentException("expected " + symbols.length +
+                                               " index values, found " +
+                                               values.length);
+        }
+        int total = 0;
+        for (int i = 0; i < values.length; i++) {
+            int size = sizeOf(i, values[i]);
+            total += (encodings[i] == VARIABLE) ? size + 1 : size;
+        }
+        int[] res = new int[total];
+        int pos = 0;
+        for (int i = 0; i < values.length; i++) {
+            Object obj = values[i];
+            if (obj instanceof SnmpDecodedValue) {
+                SnmpDecodedValue dv = (SnmpDecodedValue) obj;
+                obj = dv.getOid();
+                if (obj == null) {
+                    obj = dv.getBytes();
+                }
+                if (obj == null) {
+                    obj = Long.valueOf(dv.getLong());
+                }
+            }
+            if (encodings[i] == NUMBER) {
+                res[pos++] = (int) ((Number) obj).longValue();
+                continue;
+            }
+            int size = sizeOf(i, obj);
+            if (encodings[i] == VARIABLE) {
+                res[pos++] = size;
+            }
+            if (obj instanceof int[]) {
+                System.arraycopy(obj, 0, res, pos, size);
+            } else {
+                byte[] data = (obj instanceof String) ?
+                    ((String) obj).getBytes(LATIN1) : (byte[]) obj;
+                for (int j = 0; j < size; j++) {
+                    res[pos + j] = data[j] & 0xFF;
+                }
+            }
+            pos += size;
+        }
+        return res;
+    }
+
+    /**
+     * Returns the number of arcs for an index value (excluding any
+     * length prefix).
+     *
+     * @param pos            the index component position
+     * @param obj            the index value
+     *
+     * @return the number of OID arcs
+     *
+     * @throws IllegalArgumentException if the value type didn't
+     *             match the index component
+     */
+    private int sizeOf(int pos, Object obj) throws IllegalArgumentException {
+        int size;
+        if (obj instanceof SnmpDecodedValue) {
+            SnmpDecodedValue dv = (SnmpDecodedValue) obj;
+            if (dv.getOid() != null) {
+                obj = dv.getOid();
+            } else if (dv.getBytes() != null) {
+                obj = dv.getBytes();
+            } else {
+                obj = Long.valueOf(dv.getLong());
+            }
+        }
+        if (encodings[pos] == NUMBER && obj instanceof Number) {
+            return 1;
+        } else if (oids[pos] && obj instanceof int[]) {
+            size = ((int[]) obj).length;
+        } else if (!oids[pos] && obj instanceof byte[]) {
+            size = ((byte[]) obj).length;
+        } else if (!oids[pos] && obj instanceof String) {
+            size = ((String) obj).length();
+        } else {
+            throw new IllegalArgumentException("invalid value for index " +
+                                               (pos + 1) + ": " + obj);
+        }
+        if (encodings[pos] == FIXED && size != sizes[pos]) {
+            throw new IllegalArgumentException("index " + (pos + 1) +
+                                               " must have length " +
+                                               sizes[pos] + ", found " +
+                                               size);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the integer syntax for an index component.
+     *
+     * @param pos            the index component position
+     *
+     * @return the integer syntax constant
+     */
+    private int numberSyntax(int pos) {
+        int syntax = decoders[pos].getSyntax();
+        if (syntax == SnmpValueDecoder.COUNTER32 ||
+            syntax == SnmpValueDecoder.GAUGE32 ||
+            syntax == SnmpValueDecoder.TIME_TICKS) {
+
+            return syntax;
+        }
+        return SnmpValueDecoder.INTEGER;
+    }
+
+    /**
+     * Returns the octet string syntax for an index component.
+     *
+     * @param pos            the index component position
+     *
+     * @return the octet string syntax constant
+     */
+    private int bytesSyntax(int pos) {
+        int syntax = decoders[pos].getSyntax();
+        if (syntax == SnmpValueDecoder.BITS ||
+            syntax == SnmpValueDecoder.IP_ADDRESS ||
+            syntax == SnmpValueDecoder.OPAQUE) {
+
+            return syntax;
+        }
+        return SnmpValueDecoder.OCTET_STRING;
+    }
+}
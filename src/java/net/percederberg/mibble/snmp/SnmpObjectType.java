@@ -18,6 +18,7 @@ import net.percederberg.mibble.MibType;
 import net.percederberg.mibble.MibTypeSymbol;
 import net.percederberg.mibble.MibValue;
 import net.percederberg.mibble.MibValueSymbol;
+import net.percederberg.mibble.type.ConstraintChecker;
 import net.percederberg.mibble.type.ElementType;
 import net.percederberg.mibble.type.SequenceOfType;
 import net.percederberg.mibble.type.SequenceType;
@@ -33,7 +34,7 @@ import net.percederberg.mibble.value.ObjectIdentifierValue;
  * @see <a href="http://www.ietf.org/rfc/rfc2578.txt">RFC 2578 (SNMPv2-SMI)</a>
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class SnmpObjectType extends SnmpType {
@@ -78,6 +79,16 @@ public class SnmpObjectType extends SnmpType {
      */
     private MibValue defaultValue;
 
+    /**
+     * The value decoder. This is created on first use.
+     */
+    private volatile SnmpValueDecoder decoder = null;
+
+    /**
+     * The table index codec. This is created on first use.
+     */
+    private volatile SnmpIndexCodec indexCodec = null;
+
     /**
      * Creates a new SNMP object type.
      *
@@ -299,6 +310,61 @@ public class SnmpObjectType extends SnmpType {
         return syntax;
     }
 
+    /**
+     * Returns the compiled constraint checker for the object type
+     * syntax.
+     *
+     * @return the compiled constraint checker
+     *
+     * @see #getSyntax()
+     *
+     * @since 2.11
+     */
+    public ConstraintChecker getConstraintChecker() {
+        if (syntax == null) {
+            return ConstraintChecker.NONE;
+        }
+        return syntax.getConstraintChecker();
+    }
+
+    /**
+     * Returns the value decoder for this object type. The decoder is
+     * only created once, so the returned object can be used to
+     * decode any number of values efficiently.
+     *
+     * @return the value decoder for this object type
+     *
+     * @since 2.11
+     */
+    public SnmpValueDecoder getValueDecoder() {
+        SnmpValueDecoder res = decoder;
+        if (res == null) {
+            res = new SnmpValueDecoder(syntax);
+            decoder = res;
+        }
+        return res;
+    }
+
+    /**
+     * Returns the table index codec for this object type. The codec
+     * is only created once, so the returned object can be used to
+     * decode any number of instance suffixes efficiently. Only table
+     * rows (with an INDEX or AUGMENTS clause) have an index codec.
+     *
+     * @return the table index codec, or
+     *         null if this object type has no index
+     *
+     * @since 2.11
+     */
+    public SnmpIndexCodec getIndexCodec() {
+        SnmpIndexCodec res = indexCodec;
+        if (res == null && (!index.isEmpty() || augments != null)) {
+            res = new SnmpIndexCodec(this);
+            indexCodec = res;
+        }
+        return res;
+    }
+
     /**
      * Returns the units description.
      *
@@ -8,6 +8,10 @@
 
 package net.percederberg.mibble.snmp;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import net.percederberg.mibble.MibException;
 import net.percederberg.mibble.MibLoaderLog;
 import net.percederberg.mibble.MibValue;
@@ -19,7 +23,7 @@ import net.percederberg.mibble.MibValue;
  * @see SnmpModuleIdentity
  *
  * @author   Per Cederberg
- * @version  2.9
+ * @version  2.11
  * @since    2.0
  */
 public class SnmpRevision {
@@ -32,7 +36,7 @@ public class SnmpRevision {
     /**
      * The revision description.
      */
-    private String description;
+    private SnmpText description;
 
     /**
      * The revision comment.
@@ -47,7 +51,7 @@ public class SnmpRevision {
      */
     public SnmpRevision(MibValue value, String description) {
         this.value = value;
-        this.description = description;
+        this.description = SnmpText.create(description);
     }
 
     /**
@@ -79,12 +83,13 @@ public class SnmpRevision {
      * will be removed from the description, and it also replaces
      * all tab characters with 8 spaces.
      *
-     * @return the revision description
+     * @return the revision description, or
+     *         an empty string if loaded in lean mode
      *
      * @see #getUnformattedDescription()
      */
     public String getDescription() {
-        return SnmpType.removeIndent(description);
+        return SnmpType.removeIndent(getUnformattedDescription());
     }
 
     /**
@@ -92,14 +97,49 @@ public class SnmpRevision {
      * returns the original MIB file description, without removing
      * unneeded indentation or similar.
      *
-     * @return the revision description
+     * @return the revision description, or
+     *         an empty string if loaded in lean mode
      *
      * @see #getDescription()
      *
      * @since 2.6
      */
     public String getUnformattedDescription() {
-        return description;
+        return SnmpText.toString(description);
+    }
+
+    /**
+     * Reads the revision description from a MIB snapshot. This
+     * replaces any description set by the constructor.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @param in             the snapshot input stream
+     *
+     * @throws IOException if the snapshot couldn't be read
+     *
+     * @since 2.11
+     */
+    public void readDescription(DataInputStream in) throws IOException {
+        description = SnmpText.read(in);
+    }
+
+    /**
+     * Writes the revision description to a MIB snapshot. The
+     * description is written as-is, without decompressing it.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @param out            the snapshot output stream
+     *
+     * @throws IOException if the snapshot couldn't be written
+     *
+     * @since 2.11
+     */
+    public void writeDescription(DataOutputStream out) throws IOException {
+        SnmpText.write(out, description);
     }
 
     /**
@@ -131,6 +171,6 @@ public class SnmpRevision {
      * @return a string representation of this object
      */
     public String toString() {
-        return value.toString() + " (" + description + ")";
+        return value.toString() + " (" + SnmpText.toString(description) + ")";
     }
 }
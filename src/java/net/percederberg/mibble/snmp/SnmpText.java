@@ -0,0 +1,266 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.snmp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A compressed SNMP text string. This class is used for storing
+ * descriptions and similar long texts that are rarely accessed. The
+ * text is stored as compressed UTF-8 data, and is only decompressed
+ * when requested. The decompressed text is then kept in a soft
+ * reference until the garbage collector needs the memory.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+final class SnmpText {
+
+    /**
+     * The minimum text length to compress. Shorter texts are stored
+     * as plain UTF-8 data.
+     */
+    private static final int MIN_COMPRESS_LENGTH = 64;
+
+    /**
+     * The shared empty text. Empty descriptions are common when
+     * loading MIB files in lean mode.
+     */
+    private static final SnmpText EMPTY = new SnmpText("");
+
+    /**
+     * The per-thread text compressor. The compressor is reused for
+     * all texts created by the same thread (normally a MIB parser),
+     * avoiding the native deflater setup for each text.
+     */
+    private static final ThreadLocal<Compressor> COMPRESSOR =
+        new ThreadLocal<Compressor>() {
+            protected Compressor initialValue() {
+                return new Compressor();
+            }
+        };
+
+    /**
+     * The text data (UTF-8 encoded and possibly compressed).
+     */
+    private byte[] data;
+
+    /**
+     * The compressed data flag.
+     */
+    private boolean compressed;
+
+    /**
+     * The decompressed text string, or null if never decompressed.
+     * The string is only softly reachable, so it is released when
+     * memory is needed.
+     */
+    private volatile SoftReference<String> cache = null;
+
+    /**
+     * Creates a new compressed text.
+     *
+     * @param str            the text string, or null
+     *
+     * @return the compressed text, or
+     *         null if the string was null
+     */
+    static SnmpText create(String str) {
+        if (str == null) {
+            return null;
+        } else if (str.isEmpty()) {
+            return EMPTY;
+        } else {
+            return new SnmpText(str);
+        }
+    }
+
+    /**
+     * Reads a compressed text from a MIB snapshot. The text data is
+     * read as-is, without decompressing or compressing it again.
+     *
+     * @param in             the snapshot input stream
+     *
+     * @return the compressed text read, or null
+     *
+     * @throws IOException if the snapshot couldn't be read
+     *
+     * @see #write(DataOutputStream, SnmpText)
+     */
+    static SnmpText read(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        } else if (length == 0) {
+            return EMPTY;
+        }
+        boolean compressed = in.readBoolean();
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return new SnmpText(data, compressed);
+    }
+
+    /**
+     * Writes a compressed text to a MIB snapshot.
+     *
+     * @param out            the snapshot output stream
+     * @param text           the compressed text, or null
+     *
+     * @throws IOException if the snapshot couldn't be written
+     */
+    static void write(DataOutputStream out, SnmpText text)
+        throws IOException {
+
+        if (text == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(text.data.length);
+            if (text.data.length > 0) {
+                out.writeBoolean(text.compressed);
+                out.write(text.data);
+            }
+        }
+    }
+
+    /**
+     * Returns the text string for a compressed text.
+     *
+     * @param text           the compressed text, or null
+     *
+     * @return the text string, or
+     *         null if the compressed text was null
+     */
+    static String toString(SnmpText text) {
+        return (text == null) ? null : text.toString();
+    }
+
+    /**
+     * Creates a new compressed text.
+     *
+     * @param str            the text string
+     */
+    private SnmpText(String str) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        byte[] packed = null;
+        if (bytes.length >= MIN_COMPRESS_LENGTH) {
+            packed = COMPRESSOR.get().compress(bytes);
+        }
+        this.data = (packed == null) ? bytes : packed;
+        this.compressed = (packed != null);
+    }
+
+    /**
+     * Creates a new compressed text from existing text data.
+     *
+     * @param data           the text data
+     * @param compressed     the compressed data flag
+     */
+    private SnmpText(byte[] data, boolean compressed) {
+        this.data = data;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Returns the text string. The text is decompressed if it isn't
+     * still cached from a previous call.
+     *
+     * @return the text string
+     */
+    public String toString() {
+        if (!compressed) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        SoftReference<String> ref = cache;
+        String str = (ref == null) ? null : ref.get();
+        if (str == null) {
+            str = decompress();
+            cache = new SoftReference<>(str);
+        }
+        return str;
+    }
+
+    /**
+     * Decompresses the text data.
+     *
+     * @return the text string
+     */
+    private String decompress() {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        try {
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && inflater.needsInput()) {
+                    break;
+                }
+                out.write(buffer, 0, count);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * A reusable text compressor. The deflater uses the fastest
+     * compression level, as MIB descriptions are short and the higher
+     * levels only give a marginal size reduction.
+     */
+    private static class Compressor {
+
+        /**
+         * The deflater, reset before each use.
+         */
+        private Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        /**
+         * The deflater output buffer.
+         */
+        private byte[] buffer = new byte[1024];
+
+        /**
+         * The compressed data output stream, reset before each use.
+         */
+        private ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        /**
+         * Compresses the text data.
+         *
+         * @param bytes          the UTF-8 encoded text data
+         *
+         * @return the compressed data, or
+         *         null if compression didn't reduce the size
+         */
+        public byte[] compress(byte[] bytes) {
+            deflater.reset();
+            out.reset();
+            deflater.setInput(bytes);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return (out.size() < bytes.length) ? out.toByteArray() : null;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import net.percederberg.mibble.MibType;
 import net.percederberg.mibble.MibTypeSymbol;
 import net.percederberg.mibble.MibValue;
 import net.percederberg.mibble.type.Constraint;
+import net.percederberg.mibble.type.ConstraintChecker;
 
 /**
  * The SNMP textual convention macro type. This macro type was added
@@ -26,7 +27,7 @@ import net.percederberg.mibble.type.Constraint;
  * @see <a href="http://www.ietf.org/rfc/rfc2579.txt">RFC 2579 (SNMPv2-TC)</a>
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class SnmpTextualConvention extends SnmpType implements MibContext {
@@ -36,6 +37,11 @@ public class SnmpTextualConvention extends SnmpType implements MibContext {
      */
     private String displayHint;
 
+    /**
+     * The compiled display hint. This is created on first use.
+     */
+    private volatile SnmpDisplayHint displayFormat = null;
+
     /**
      * The type status.
      */
@@ -220,6 +226,31 @@ public class SnmpTextualConvention extends SnmpType implements MibContext {
         return displayHint;
     }
 
+    /**
+     * Returns the compiled display hint. The display hint is only
+     * compiled once, so the returned object can be used to format
+     * any number of values efficiently.
+     *
+     * @return the compiled display hint, or
+     *         null if no (valid) display hint has been set
+     *
+     * @see #getDisplayHint()
+     *
+     * @since 2.11
+     */
+    public SnmpDisplayHint getDisplayFormat() {
+        SnmpDisplayHint res = displayFormat;
+        if (res == null && displayHint != null) {
+            try {
+                res = new SnmpDisplayHint(displayHint);
+                displayFormat = res;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return res;
+    }
+
     /**
      * Returns the type status.
      *
@@ -248,6 +279,23 @@ public class SnmpTextualConvention extends SnmpType implements MibContext {
         return syntax;
     }
 
+    /**
+     * Returns the compiled constraint checker for the textual convention
+     * syntax.
+     *
+     * @return the compiled constraint checker
+     *
+     * @see #getSyntax()
+     *
+     * @since 2.11
+     */
+    public ConstraintChecker getConstraintChecker() {
+        if (syntax == null) {
+            return ConstraintChecker.NONE;
+        }
+        return syntax.getConstraintChecker();
+    }
+
     /**
      * Searches for a named MIB symbol. This method may search outside
      * the normal (or strict) scope, thereby allowing a form of
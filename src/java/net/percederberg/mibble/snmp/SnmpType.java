@@ -8,6 +8,10 @@
 
 package net.percederberg.mibble.snmp;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import net.percederberg.mibble.MibType;
 
 /**
@@ -16,7 +20,7 @@ import net.percederberg.mibble.MibType;
  * that are valid across all SNMP macro types.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.5
  */
 public abstract class SnmpType extends MibType {
@@ -24,7 +28,7 @@ public abstract class SnmpType extends MibType {
     /**
      * The type description.
      */
-    private String description;
+    private SnmpText description;
 
     /**
      * Returns a string with any unneeded indentation removed. This
@@ -148,7 +152,7 @@ public abstract class SnmpType extends MibType {
      */
     protected SnmpType(String name, String description) {
         super(name, false);
-        this.description = description;
+        this.description = SnmpText.create(description);
     }
 
     /**
@@ -157,12 +161,14 @@ public abstract class SnmpType extends MibType {
      * characters with 8 spaces.
      *
      * @return the type description, or
+     *         an empty string if loaded in lean mode, or
      *         null if no description has been set
      *
      * @see #getUnformattedDescription()
+     * @see net.percederberg.mibble.MibLoader#setLeanMode(boolean)
      */
     public String getDescription() {
-        return removeIndent(description);
+        return removeIndent(getUnformattedDescription());
     }
 
     /**
@@ -171,6 +177,7 @@ public abstract class SnmpType extends MibType {
      * indentation or similar.
      *
      * @return the unformatted type description, or
+     *         an empty string if loaded in lean mode, or
      *         null if no description has been set
      *
      * @see #getDescription()
@@ -178,7 +185,41 @@ public abstract class SnmpType extends MibType {
      * @since 2.5
      */
     public String getUnformattedDescription() {
-        return description;
+        return SnmpText.toString(description);
+    }
+
+    /**
+     * Reads the type description from a MIB snapshot. This
+     * replaces any description set by the constructor.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @param in             the snapshot input stream
+     *
+     * @throws IOException if the snapshot couldn't be read
+     *
+     * @since 2.11
+     */
+    public void readDescription(DataInputStream in) throws IOException {
+        description = SnmpText.read(in);
+    }
+
+    /**
+     * Writes the type description to a MIB snapshot. The
+     * description is written as-is, without decompressing it.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @param out            the snapshot output stream
+     *
+     * @throws IOException if the snapshot couldn't be written
+     *
+     * @since 2.11
+     */
+    public void writeDescription(DataOutputStream out) throws IOException {
+        SnmpText.write(out, description);
     }
 
     /**
@@ -0,0 +1,608 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.snmp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import net.percederberg.mibble.MibOidMatch;
+import net.percederberg.mibble.MibType;
+import net.percederberg.mibble.MibTypeTag;
+import net.percederberg.mibble.MibValueSymbol;
+import net.percederberg.mibble.type.BitSetType;
+import net.percederberg.mibble.type.IntegerType;
+import net.percederberg.mibble.type.ObjectIdentifierType;
+import net.percederberg.mibble.type.StringType;
+import net.percederberg.mibble.value.NumberValue;
+
+/**
+ * An SNMP value decoder for an object type syntax. The decoder is
+ * created once for each object type, and contains the syntax,
+ * enumeration labels, bit names and display hint in a form suitable
+ * for decoding many values quickly. Values can be decoded either
+ * from primitive values or from BER-encoded data.
+ *
+ * @see SnmpObjectType#getValueDecoder()
+ * @see SnmpVarbindDecoder
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class SnmpValueDecoder {
+
+    /**
+     * The unknown (or unsupported) syntax.
+     */
+    public static final int UNKNOWN = 0;
+
+    /**
+     * The NULL syntax. This is also used for SNMP exceptions.
+     */
+    public static final int NULL = 1;
+
+    /**
+     * The INTEGER (and Integer32) syntax.
+     */
+    public static final int INTEGER = 2;
+
+    /**
+     * The OCTET STRING syntax.
+     */
+    public static final int OCTET_STRING = 3;
+
+    /**
+     * The OBJECT IDENTIFIER syntax.
+     */
+    public static final int OBJECT_IDENTIFIER = 4;
+
+    /**
+     * The BITS syntax (encoded as an OCTET STRING).
+     */
+    public static final int BITS = 5;
+
+    /**
+     * The IpAddress syntax.
+     */
+    public static final int IP_ADDRESS = 6;
+
+    /**
+     * The Counter32 syntax.
+     */
+    public static final int COUNTER32 = 7;
+
+    /**
+     * The Gauge32 (and Unsigned32) syntax.
+     */
+    public static final int GAUGE32 = 8;
+
+    /**
+     * The TimeTicks syntax.
+     */
+    public static final int TIME_TICKS = 9;
+
+    /**
+     * The Opaque syntax.
+     */
+    public static final int OPAQUE = 10;
+
+    /**
+     * The Counter64 syntax.
+     */
+    public static final int COUNTER64 = 11;
+
+    /**
+     * The generic decoder, used for values without MIB information.
+     */
+    static final SnmpValueDecoder GENERIC = new SnmpValueDecoder();
+
+    /**
+     * The maximum range for dense enumeration label arrays.
+     */
+    private static final int MAX_DENSE_RANGE = 256;
+
+    /**
+     * The SNMP exception names (indexed by tag - 0x80).
+     */
+    private static final String[] EXCEPTIONS = {
+        "noSuchObject", "noSuchInstance", "endOfMibView"
+    };
+
+    /**
+     * The object type syntax.
+     */
+    private int syntax = UNKNOWN;
+
+    /**
+     * The display hint, or null for none.
+     */
+    private SnmpDisplayHint hint = null;
+
+    /**
+     * The smallest enumeration value.
+     */
+    private long labelBase = 0;
+
+    /**
+     * The enumeration values, or null for a dense label array.
+     */
+    private long[] labelValues = null;
+
+    /**
+     * The enumeration labels, or null for none. If the enumeration
+     * values are null, this array is indexed by value - labelBase.
+     * Otherwise, this array has the same order as the values.
+     */
+    private String[] labels = null;
+
+    /**
+     * The bit names, indexed by bit position, or null for none.
+     */
+    private String[] bitNames = null;
+
+    /**
+     * Creates a new generic value decoder.
+     */
+    private SnmpValueDecoder() {
+        // Nothing to do here
+    }
+
+    /**
+     * Creates a new value decoder for an object type syntax.
+     *
+     * @param base           the object type syntax
+     */
+    SnmpValueDecoder(MibType base) {
+        SnmpTextualConvention tc;
+        tc = SnmpTextualConvention.findReference(base);
+        if (tc != null) {
+            hint = tc.getDisplayFormat();
+        }
+        base = baseTypeOf(base);
+        syntax = syntaxOf(base);
+        if (base instanceof IntegerType) {
+            initLabels(((IntegerType) base).getAllSymbols());
+        } else if (base instanceof BitSetType) {
+            initBits(((BitSetType) base).getAllSymbols());
+        }
+        if (hint != null && hint.isIntegerHint() != isNumeric(syntax)) {
+            hint = null;
+        }
+    }
+
+    /**
+     * Returns the base type for an object type syntax. This removes
+     * any textual convention wrappers.
+     *
+     * @param type           the object type syntax
+     *
+     * @return the base MIB type
+     */
+    static MibType baseTypeOf(MibType type) {
+        while (type instanceof SnmpTextualConvention) {
+            type = ((SnmpTextualConvention) type).getSyntax();
+        }
+        return type;
+    }
+
+    /**
+     * Returns the syntax for a MIB type.
+     *
+     * @param type           the MIB type
+     *
+     * @return the syntax constant
+     */
+    private static int syntaxOf(MibType type) {
+        int app = MibTypeTag.APPLICATION_CATEGORY;
+        if (type.hasTag(app, 0)) {
+            return IP_ADDRESS;
+        } else if (type.hasTag(app, 1)) {
+            return COUNTER32;
+        } else if (type.hasTag(app, 2)) {
+            return GAUGE32;
+        } else if (type.hasTag(app, 3)) {
+            return TIME_TICKS;
+        } else if (type.hasTag(app, 4)) {
+            return OPAQUE;
+        } else if (type.hasTag(app, 6)) {
+            return COUNTER64;
+        } else if (type instanceof BitSetType) {
+            return BITS;
+        } else if (type instanceof IntegerType) {
+            return INTEGER;
+        } else if (type instanceof StringType) {
+            return OCTET_STRING;
+        } else if (type instanceof ObjectIdentifierType) {
+            return OBJECT_IDENTIFIER;
+        } else {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Checks if a syntax is numeric.
+     *
+     * @param syntax         the syntax constant
+     *
+     * @return true if the syntax is numeric, or
+     *         false otherwise
+     */
+    private static boolean isNumeric(int syntax) {
+        return syntax == INTEGER || syntax == COUNTER32 ||
+               syntax == GAUGE32 || syntax == TIME_TICKS ||
+               syntax == COUNTER64;
+    }
+
+    /**
+     * Initializes the enumeration labels. Small value ranges are
+     * stored in a dense array, while other values are stored in
+     * sorted order for binary search.
+     *
+     * @param symbols        the enumeration value symbols
+     */
+    private void initLabels(MibValueSymbol[] symbols) {
+        ArrayList<Long> values = new ArrayList<>(symbols.length);
+        ArrayList<String> names = new ArrayList<>(symbols.length);
+        for (MibValueSymbol sym : symbols) {
+            if (sym.getValue() instanceof NumberValue) {
+                Number num = (Number) sym.getValue().toObject();
+                values.add(num.longValue());
+                names.add(sym.getName());
+            }
+        }
+        if (values.isEmpty()) {
+            return;
+        }
+        long[] sorted = new long[values.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = values.get(i);
+        }
+        Arrays.sort(sorted);
+        long min = sorted[0];
+        long max = sorted[sorted.length - 1];
+        if (max - min < MAX_DENSE_RANGE) {
+            labelBase = min;
+            labels = new String[(int) (max - min + 1)];
+            for (int i = 0; i < values.size(); i++) {
+                labels[(int) (values.get(i) - min)] = names.get(i);
+            }
+        } else {
+            labelValues = sorted;
+            labels = new String[sorted.length];
+            for (int i = 0; i < values.size(); i++) {
+                labels[Arrays.binarySearch(sorted, values.get(i))] =
+                    names.get(i);
+            }
+        }
+    }
+
+    /**
+     * Initializes the bit names.
+     *
+     * @param symbols        the bit value symbols
+     */
+    private void initBits(MibValueSymbol[] symbols) {
+        int max = -1;
+        for (MibValueSymbol sym : symbols) {
+            if (sym.getValue() instanceof NumberValue) {
+                Number num = (Number) sym.getValue().toObject();
+                max = Math.max(max, num.intValue());
+            }
+        }
+        if (max >= 0) {
+            bitNames = new String[max + 1];
+            for (MibValueSymbol sym : symbols) {
+                if (sym.getValue() instanceof NumberValue) {
+                    Number num = (Number) sym.getValue().toObject();
+                    if (num.intValue() >= 0) {
+                        bitNames[num.intValue()] = sym.getName();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the object type syntax.
+     *
+     * @return the syntax constant (for example INTEGER)
+     */
+    public int getSyntax() {
+        return syntax;
+    }
+
+    /**
+     * Returns the display hint for the object type.
+     *
+     * @return the display hint, or
+     *         null if none is available
+     */
+    public SnmpDisplayHint getDisplayHint() {
+        return hint;
+    }
+
+    /**
+     * Returns the enumeration label for an integer value.
+     *
+     * @param value          the integer value
+     *
+     * @return the enumeration label, or
+     *         null if none was found
+     */
+    public String getLabel(long value) {
+        if (labels == null) {
+            return null;
+        } else if (labelValues == null) {
+            long pos = value - labelBase;
+            if (pos >= 0 && pos < labels.length) {
+                return labels[(int) pos];
+            }
+            return null;
+        } else {
+            int pos = Arrays.binarySearch(labelValues, value);
+            return (pos >= 0) ? labels[pos] : null;
+        }
+    }
+
+    /**
+     * Decodes an integer value.
+     *
+     * @param value          the integer value
+     *
+     * @return the decoded value
+     */
+    public SnmpDecodedValue decode(long value) {
+        int type = isNumeric(syntax) ? syntax : INTEGER;
+        return decodeNumber(null, type, value);
+    }
+
+    /**
+     * Decodes an octet string value. If the object type syntax is
+     * BITS, the bit names will be decoded.
+     *
+     * @param data           the octet string data
+     *
+     * @return the decoded value
+     */
+    public SnmpDecodedValue decode(byte[] data) {
+        int type = OCTET_STRING;
+        if (syntax == BITS || syntax == IP_ADDRESS || syntax == OPAQUE) {
+            type = syntax;
+        }
+        return decodeBytes(null, type, data);
+    }
+
+    /**
+     * Decodes an object identifier value.
+     *
+     * @param oid            the object identifier arcs
+     *
+     * @return the decoded value
+     */
+    public SnmpDecodedValue decode(int[] oid) {
+        return new SnmpDecodedValue(null, OBJECT_IDENTIFIER, 0, null, oid,
+                                    null, null, null);
+    }
+
+    /**
+     * Decodes a BER-encoded value. The value syntax is determined by
+     * the BER type tag, and the MIB information is applied if
+     * compatible with the syntax.
+     *
+     * @param ber            the BER-encoded data
+     * @param offset         the first data position
+     * @param length         the number of bytes available
+     *
+     * @return the decoded value
+     *
+     * @throws IllegalArgumentException if the data couldn't be
+     *             decoded
+     */
+    public SnmpDecodedValue decodeBer(byte[] ber, int offset, int length)
+        throws IllegalArgumentException {
+
+        return decodeBer(null, ber, offset, length);
+    }
+
+    /**
+     * Decodes a BER-encoded value for a variable.
+     *
+     * @param match          the OID match, or null
+     * @param ber            the BER-encoded data
+     * @param offset         the first data position
+     * @param length         the number of bytes available
+     *
+     * @return the decoded value
+     *
+     * @throws IllegalArgumentException if the data couldn't be
+     *             decoded
+     */
+    SnmpDecodedValue decodeBer(MibOidMatch match,
+                               byte[] ber,
+                               int offset,
+                               int length)
+        throws IllegalArgumentException {
+
+        int end = offset + length;
+        if (length < 2) {
+            throw new IllegalArgumentException("BER data too short");
+        }
+        int tag = ber[offset] & 0xFF;
+        int pos = offset + 1;
+        int len = ber[pos++] & 0xFF;
+        if ((len & 0x80) != 0) {
+            int count = len & 0x7F;
+            len = 0;
+            for (int i = 0; i < count && pos < end; i++) {
+                len = (len << 8) | (ber[pos++] & 0xFF);
+            }
+        }
+        if (len < 0 || pos + len > end) {
+            throw new IllegalArgumentException("BER length out of bounds");
+        }
+        switch (tag) {
+        case 0x02:
+            long value = readLong(ber, pos, len, true);
+            return decodeNumber(match, INTEGER, value);
+        case 0x41:
+            value = readLong(ber, pos, len, false);
+            return decodeNumber(match, COUNTER32, value);
+        case 0x42:
+            value = readLong(ber, pos, len, false);
+            return decodeNumber(match, GAUGE32, value);
+        case 0x43:
+            value = readLong(ber, pos, len, false);
+            return decodeNumber(match, TIME_TICKS, value);
+        case 0x46:
+            value = readLong(ber, pos, len, false);
+            return decodeNumber(match, COUNTER64, value);
+        case 0x04:
+            int type = (syntax == BITS) ? BITS : OCTET_STRING;
+            byte[] data = Arrays.copyOfRange(ber, pos, pos + len);
+            return decodeBytes(match, type, data);
+        case 0x40:
+            data = Arrays.copyOfRange(ber, pos, pos + len);
+            return decodeBytes(match, IP_ADDRESS, data);
+        case 0x44:
+            data = Arrays.copyOfRange(ber, pos, pos + len);
+            return decodeBytes(match, OPAQUE, data);
+        case 0x06:
+            return new SnmpDecodedValue(match, OBJECT_IDENTIFIER, 0, null,
+                                        readOid(ber, pos, len), null, null,
+                                        null);
+        case 0x05:
+        case 0x80:
+        case 0x81:
+        case 0x82:
+            String label = (tag >= 0x80) ? EXCEPTIONS[tag - 0x80] : null;
+            return new SnmpDecodedValue(match, NULL, 0, null, null, label,
+                                        null, null);
+        default:
+            throw new IllegalArgumentException("unsupported BER type tag: " +
+                                               tag);
+        }
+    }
+
+    /**
+     * Creates a decoded integer value.
+     *
+     * @param match          the OID match, or null
+     * @param type           the value syntax
+     * @param value          the integer value
+     *
+     * @return the decoded value
+     */
+    SnmpDecodedValue decodeNumber(MibOidMatch match, int type, long value) {
+        SnmpDisplayHint h = isNumeric(type) ? hint : null;
+        return new SnmpDecodedValue(match, type, value, null, null,
+                                    getLabel(value), null, h);
+    }
+
+    /**
+     * Creates a decoded octet string value.
+     *
+     * @param match          the OID match, or null
+     * @param type           the value syntax
+     * @param data           the octet string data
+     *
+     * @return the decoded value
+     */
+    SnmpDecodedValue decodeBytes(MibOidMatch match, int type, byte[] data) {
+        String[] bits = null;
+        if (type == BITS) {
+            bits = decodeBits(data);
+        }
+        SnmpDisplayHint h = (type == OCTET_STRING) ? hint : null;
+        return new SnmpDecodedValue(match, type, 0, data, null, null, bits, h);
+    }
+
+    /**
+     * Returns the names of the bits set in an octet string. Bit zero
+     * is the most significant bit of the first octet.
+     *
+     * @param data           the octet string data
+     *
+     * @return the names of the bits set
+     */
+    private String[] decodeBits(byte[] data) {
+        int count = 0;
+        for (byte b : data) {
+            count += Integer.bitCount(b & 0xFF);
+        }
+        String[] res = new String[count];
+        int pos = 0;
+        for (int i = 0; i < data.length * 8; i++) {
+            if ((data[i >> 3] & (0x80 >> (i & 7))) != 0) {
+                String name = null;
+                if (bitNames != null && i < bitNames.length) {
+                    name = bitNames[i];
+                }
+                res[pos++] = (name == null) ? String.valueOf(i) : name;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Reads a BER-encoded integer.
+     *
+     * @param ber            the BER-encoded data
+     * @param pos            the first content position
+     * @param len            the content length
+     * @param signed         the signed integer flag
+     *
+     * @return the integer value
+     */
+    private static long readLong(byte[] ber,
+                                 int pos,
+                                 int len,
+                                 boolean signed) {
+
+        long value = (signed && len > 0 && ber[pos] < 0) ? -1 : 0;
+        for (int i = 0; i < len; i++) {
+            value = (value << 8) | (ber[pos + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a BER-encoded object identifier.
+     *
+     * @param ber            the BER-encoded data
+     * @param pos            the first content position
+     * @param len            the content length
+     *
+     * @return the object identifier arcs
+     */
+    private static int[] readOid(byte[] ber, int pos, int len) {
+        int count = 1;
+        for (int i = 0; i < len; i++) {
+            if ((ber[pos + i] & 0x80) == 0) {
+                count++;
+            }
+        }
+        int[] res = new int[(len == 0) ? 0 : count];
+        int idx = 0;
+        int value = 0;
+        for (int i = 0; i < len; i++) {
+            value = (value << 7) | (ber[pos + i] & 0x7F);
+            if ((ber[pos + i] & 0x80) == 0) {
+                if (idx == 0) {
+                    int first = Math.min(value / 40, 2);
+                    res[idx++] = first;
+                    res[idx++] = value - first * 40;
+                } else {
+                    res[idx++] = value;
+                }
+                value = 0;
+            }
+        }
+        return (idx == res.length) ? res : Arrays.copyOf(res, idx);
+    }
+}
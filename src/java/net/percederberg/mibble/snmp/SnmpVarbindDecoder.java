@@ -0,0 +1,169 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.snmp;
+
+import net.percederberg.mibble.MibLoader;
+import net.percederberg.mibble.MibOidMatch;
+import net.percederberg.mibble.MibValueSymbol;
+
+/**
+ * An SNMP variable binding decoder. This class decodes the values in
+ * SNMP responses and traps using the MIB information from a loader.
+ * For each variable, the OID is resolved to the MIB symbol and
+ * instance suffix, and the value is decoded with the value decoder
+ * for the object type. Variables not found in the loaded MIB files
+ * are decoded without any MIB information.<p>
+ *
+ * This class doesn't depend on any SNMP stack, so the variable
+ * values must be provided either as primitive values or in BER
+ * encoding. It is safe for use by concurrent threads.
+ *
+ * @see SnmpValueDecoder
+ * @see SnmpDecodedValue
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class SnmpVarbindDecoder {
+
+    /**
+     * The MIB loader used for OID lookups.
+     */
+    private MibLoader loader;
+
+    /**
+     * Creates a new variable binding decoder.
+     *
+     * @param loader         the MIB loader with the MIB files to use
+     */
+    public SnmpVarbindDecoder(MibLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the value decoder for a variable OID.
+     *
+     * @param oid            the numeric OID arcs
+     *
+     * @return the value decoder for the variable
+     */
+    public SnmpValueDecoder getDecoder(int[] oid) {
+        return getDecoder(loader.getSymbolByOid(oid, 0, oid.length));
+    }
+
+    /**
+     * Returns the value decoder for an OID match.
+     *
+     * @param match          the OID match, or null
+     *
+     * @return the value decoder for the variable
+     */
+    private SnmpValueDecoder getDecoder(MibOidMatch match) {
+        if (match != null &&
+            match.getSymbol().getType() instanceof SnmpObjectType) {
+
+            SnmpObjectType type = (SnmpObjectType) match.getSymbol().getType();
+            return type.getValueDecoder();
+        }
+        return SnmpValueDecoder.GENERIC;
+    }
+
+    /**
+     * Decodes the table index values for a variable. The variable
+     * must be a table column, and the instance suffix is decoded
+     * with the index codec for the table row.
+     *
+     * @param match          the OID match for the variable
+     *
+     * @return the array of decoded index values, or
+     *         null if the variable isn't a table column or the
+     *         instance suffix didn't match the index
+     *
+     * @see SnmpDecodedValue#getMatch()
+     */
+    public SnmpDecodedValue[] decodeIndex(MibOidMatch match) {
+        MibValueSymbol row = match.getSymbol().getParent();
+        if (row == null || !(row.getType() instanceof SnmpObjectType)) {
+            return null;
+        }
+        SnmpIndexCodec codec = ((SnmpObjectType) row.getType()).getIndexCodec();
+        if (codec == null) {
+            return null;
+        }
+        int[] suffix = match.getSuffix();
+        return codec.decode(suffix, 0, suffix.length);
+    }
+
+    /**
+     * Decodes an integer variable value.
+     *
+     * @param oid            the numeric OID arcs
+     * @param value          the integer value
+     *
+     * @return the decoded value
+     */
+    public SnmpDecodedValue decode(int[] oid, long value) {
+        MibOidMatch match = loader.getSymbolByOid(oid, 0, oid.length);
+        SnmpValueDecoder decoder = getDecoder(match);
+        int syntax = decoder.getSyntax();
+        if (syntax != SnmpValueDecoder.COUNTER32 &&
+            syntax != SnmpValueDecoder.GAUGE32 &&
+            syntax != SnmpValueDecoder.TIME_TICKS &&
+            syntax != SnmpValueDecoder.COUNTER64) {
+
+            syntax = SnmpValueDecoder.INTEGER;
+        }
+        return decoder.decodeNumber(match, syntax, value);
+    }
+
+    /**
+     * Decodes an octet string variable value.
+     *
+     * @param oid            the numeric OID arcs
+     * @param data           the octet string data
+     *
+     * @return the decoded value
+     */
+    public SnmpDecodedValue decode(int[] oid, byte[] data) {
+        MibOidMatch match = loader.getSymbolByOid(oid, 0, oid.length);
+        SnmpValueDecoder decoder = getDecoder(match);
+        int syntax = decoder.getSyntax();
+        if (syntax != SnmpValueDecoder.BITS &&
+            syntax != SnmpValueDecoder.IP_ADDRESS &&
+            syntax != SnmpValueDecoder.OPAQUE) {
+
+            syntax = SnmpValueDecoder.OCTET_STRING;
+        }
+        return decoder.decodeBytes(match, syntax, data);
+    }
+
+    /**
+     * Decodes a BER-encoded variable value.
+     *
+     * @param oid            the numeric OID arcs
+     * @param ber            the BER-encoded value data
+     * @param offset         the first data position
+     * @param length         the number of bytes available
+     *
+     * @return the decoded value
+     *
+     * @throws IllegalArgumentException if the data couldn't be
+     *             decoded
+     */
+    public SnmpDecodedValue decodeBer(int[] oid,
+                                      byte[] ber,
+                                      int offset,
+                                      int length)
+        throws IllegalArgumentException {
+
+        MibOidMatch match = loader.getSymbolByOid(oid, 0, oid.length);
+        return getDecoder(match).decodeBer(match, ber, offset, length);
+    }
+}
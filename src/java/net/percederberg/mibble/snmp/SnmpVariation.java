@@ -8,6 +8,9 @@
 
 package net.percederberg.mibble.snmp;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 
 import net.percederberg.mibble.MibException;
@@ -24,7 +27,7 @@ import net.percederberg.mibble.value.ObjectIdentifierValue;
  * @see SnmpModuleSupport
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class SnmpVariation {
@@ -62,7 +65,7 @@ public class SnmpVariation {
     /**
      * The variation description.
      */
-    private String description;
+    private SnmpText description;
 
     /**
      * Creates a new SNMP module variation.
@@ -89,7 +92,7 @@ public class SnmpVariation {
         this.access = access;
         this.requiredCells = requiredCells;
         this.defaultValue = defaultValue;
-        this.description = description;
+        this.description = SnmpText.create(description);
     }
 
     /**
@@ -210,10 +213,45 @@ public class SnmpVariation {
     /**
      * Returns the variation description.
      *
-     * @return the variation description
+     * @return the variation description, or
+     *         an empty string if loaded in lean mode
      */
     public String getDescription() {
-        return description;
+        return SnmpText.toString(description);
+    }
+
+    /**
+     * Reads the variation description from a MIB snapshot. This
+     * replaces any description set by the constructor.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @param in             the snapshot input stream
+     *
+     * @throws IOException if the snapshot couldn't be read
+     *
+     * @since 2.11
+     */
+    public void readDescription(DataInputStream in) throws IOException {
+        description = SnmpText.read(in);
+    }
+
+    /**
+     * Writes the variation description to a MIB snapshot. The
+     * description is written as-is, without decompressing it.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @param out            the snapshot output stream
+     *
+     * @throws IOException if the snapshot couldn't be written
+     *
+     * @since 2.11
+     */
+    public void writeDescription(DataOutputStream out) throws IOException {
+        SnmpText.write(out, description);
     }
 
     /**
@@ -245,7 +283,7 @@ public class SnmpVariation {
             buffer.append(defaultValue);
         }
         buffer.append("\n      Description: ");
-        buffer.append(description);
+        buffer.append(SnmpText.toString(description));
         return buffer.toString();
     }
 }
@@ -28,7 +28,7 @@ import net.percederberg.mibble.value.NumberValue;
  * a set of bit values
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class BitSetType extends MibType implements MibContext {
@@ -38,6 +38,12 @@ public class BitSetType extends MibType implements MibContext {
      */
     private Constraint constraint = null;
 
+    /**
+     * The compiled constraint checker. This field is set when the
+     * type is initialized, or when first requested.
+     */
+    private volatile ConstraintChecker checker = null;
+
     /**
      * The additional defined symbols.
      */
@@ -116,6 +122,7 @@ public class BitSetType extends MibType implements MibContext {
         if (constraint != null) {
             constraint.initialize(this, log);
         }
+        checker = new ConstraintChecker(constraint);
         Iterator<MibValueSymbol> iter = symbols.values().iterator();
         while (iter.hasNext()) {
             MibValueSymbol sym = iter.next();
@@ -285,6 +292,26 @@ public class BitSetType extends MibType implements MibContext {
         return constraint;
     }
 
+    /**
+     * Returns the compiled constraint checker for this type. The
+     * checker is created from the type constraint when the type is
+     * initialized.
+     *
+     * @return the compiled constraint checker
+     *
+     * @see #getConstraint()
+     *
+     * @since 2.11
+     */
+    public ConstraintChecker getConstraintChecker() {
+        ConstraintChecker res = checker;
+        if (res == null) {
+            res = new ConstraintChecker(constraint);
+            checker = res;
+        }
+        return res;
+    }
+
     /**
      * Returns a named bit value. The value will be returned as a
      * value symbol, containing a numeric MIB value. The symbol
@@ -0,0 +1,347 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.type;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import net.percederberg.mibble.MibValue;
+import net.percederberg.mibble.value.NumberValue;
+
+/**
+ * A compiled type constraint checker. The value and size constraints
+ * of a type are compiled into sorted tables of primitive ranges (or
+ * a bit mask for small value sets), so that values can be checked
+ * without creating any objects. Instances are immutable and safe
+ * for use by concurrent threads.<p>
+ *
+ * Constraints that cannot be compiled (such as constraints on
+ * non-numeric values) are ignored, i.e. all values or sizes are
+ * considered valid. Integer values outside the 64-bit range are
+ * limited to the nearest 64-bit value.
+ *
+ * @see net.percederberg.mibble.MibType#getConstraintChecker()
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class ConstraintChecker {
+
+    /**
+     * The constraint checker accepting all values and sizes.
+     */
+    public static final ConstraintChecker NONE =
+        new ConstraintChecker(null);
+
+    /**
+     * The maximum span of value sets stored as a bit mask.
+     */
+    private static final int MASK_BITS = 64;
+
+    /**
+     * The merged and sorted value ranges, or null for any value.
+     * Each range is stored as a pair of inclusive bounds.
+     */
+    private long[] values = null;
+
+    /**
+     * The smallest value in the bit mask, if used.
+     */
+    private long maskBase = 0;
+
+    /**
+     * The value bit mask, or zero (0) if not used.
+     */
+    private long mask = 0;
+
+    /**
+     * The merged and sorted size ranges, or null for any size. Each
+     * range is stored as a pair of inclusive bounds.
+     */
+    private long[] sizes = null;
+
+    /**
+     * Creates a new constraint checker.
+     *
+     * @param constraint     the type constraint, or null for none
+     */
+    public ConstraintChecker(Constraint constraint) {
+        if (constraint != null) {
+            ArrayList<long[]> valueList = new ArrayList<>();
+            ArrayList<long[]> sizeList = new ArrayList<>();
+            boolean[] unknown = new boolean[2];
+            collect(constraint, false, valueList, sizeList, unknown);
+            if (!unknown[0] && !valueList.isEmpty()) {
+                values = merge(valueList);
+                initMask();
+            }
+            if (!unknown[1] && !sizeList.isEmpty()) {
+                sizes = merge(sizeList);
+            }
+        }
+    }
+
+    /**
+     * Collects the value and size ranges from a constraint.
+     *
+     * @param c              the constraint
+     * @param size           the size constraint flag
+     * @param valueList      the list of value ranges
+     * @param sizeList       the list of size ranges
+     * @param unknown        the unsupported constraint flags (for
+     *                       values and sizes)
+     */
+    private static void collect(Constraint c,
+                                boolean size,
+                                ArrayList<long[]> valueList,
+                                ArrayList<long[]> sizeList,
+                                boolean[] unknown) {
+
+        ArrayList<long[]> list = size ? sizeList : valueList;
+        if (c instanceof CompoundConstraint) {
+            CompoundConstraint compound = (CompoundConstraint) c;
+            for (Constraint elem : compound.getConstraintList()) {
+                collect(elem, size, valueList, sizeList, unknown);
+            }
+        } else if (c instanceof SizeConstraint && !size) {
+            for (Constraint elem : ((SizeConstraint) c).getValues()) {
+                collect(elem, true, valueList, sizeList, unknown);
+            }
+        } else if (c instanceof ValueConstraint) {
+            MibValue value = ((ValueConstraint) c).getValue();
+            if (value instanceof NumberValue) {
+                long num = toLong((Number) value.toObject());
+                list.add(new long[] { num, num });
+            } else {
+                unknown[size ? 1 : 0] = true;
+            }
+        } else if (c instanceof ValueRangeConstraint) {
+            ValueRangeConstraint range = (ValueRangeConstraint) c;
+            MibValue lower = range.getLowerBound();
+            MibValue upper = range.getUpperBound();
+            if ((lower != null && !(lower instanceof NumberValue)) ||
+                (upper != null && !(upper instanceof NumberValue))) {
+
+                unknown[size ? 1 : 0] = true;
+                return;
+            }
+            long min = Long.MIN_VALUE;
+            if (lower != null) {
+                min = toLong((Number) lower.toObject());
+                if (range.isStrictLower() && min < Long.MAX_VALUE) {
+                    min++;
+                }
+            }
+            long max = Long.MAX_VALUE;
+            if (upper != null) {
+                max = toLong((Number) upper.toObject());
+                if (range.isStrictUpper() && max > Long.MIN_VALUE) {
+                    max--;
+                }
+            }
+            if (min <= max) {
+                list.add(new long[] { min, max });
+            }
+        } else {
+            unknown[size ? 1 : 0] = true;
+        }
+    }
+
+    /**
+     * Converts a number to a long value. Values outside the range
+     * (including the ASN.1 infinity markers) are limited to the
+     * smallest or largest long value.
+     *
+     * @param num            the number to convert
+     *
+     * @return the long value
+     */
+    private static long toLong(Number num) {
+        if (num instanceof Float || num instanceof Double) {
+            double d = num.doubleValue();
+            if (d == Double.NEGATIVE_INFINITY) {
+                return Long.MIN_VALUE;
+            } else if (d == Double.POSITIVE_INFINITY) {
+                return Long.MAX_VALUE;
+            }
+        } else if (num instanceof BigInteger) {
+            BigInteger big = (BigInteger) num;
+            if (big.bitLength() >= 64) {
+                return (big.signum() < 0) ? Long.MIN_VALUE : Long.MAX_VALUE;
+            }
+        }
+        return num.longValue();
+    }
+
+    /**
+     * Sorts and merges a list of ranges. Overlapping and adjacent
+     * ranges are merged into a single range.
+     *
+     * @param list           the list of ranges
+     *
+     * @return the array of merged range bounds
+     */
+    private static long[] merge(ArrayList<long[]> list) {
+        long[][] ranges = list.toArray(new long[list.size()][]);
+        Arrays.sort(ranges, new Comparator<long[]>() {
+            public int compare(long[] a, long[] b) {
+                return (a[0] < b[0]) ? -1 : ((a[0] == b[0]) ? 0 : 1);
+            }
+        });
+        long[] res = new long[ranges.length * 2];
+        int pos = 0;
+        for (long[] r : ranges) {
+            if (pos > 0 && (r[0] <= res[pos - 1] ||
+                            r[0] - 1 == res[pos - 1])) {
+
+                res[pos - 1] = Math.max(res[pos - 1], r[1]);
+            } else {
+                res[pos++] = r[0];
+                res[pos++] = r[1];
+            }
+        }
+        return Arrays.copyOf(res, pos);
+    }
+
+    /**
+     * Initializes the value bit mask. The bit mask is used when more
+     * than one value range exists, but all values are within a small
+     * span.
+     */
+    private void initMask() {
+        long min = values[0];
+        long max = values[values.length - 1];
+        if (values.length > 2 && max - min >= 0 && max - min < MASK_BITS) {
+            maskBase = min;
+            for (int i = 0; i < values.length; i += 2) {
+                for (long v = values[i]; v <= values[i + 1]; v++) {
+                    mask |= 1L << (v - min);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if this checker has any value constraints.
+     *
+     * @return true if some values are invalid, or
+     *         false otherwise
+     */
+    public boolean hasValueConstraint() {
+        return values != null;
+    }
+
+    /**
+     * Checks if this checker has any size constraints.
+     *
+     * @return true if some sizes are invalid, or
+     *         false otherwise
+     */
+    public boolean hasSizeConstraint() {
+        return sizes != null;
+    }
+
+    /**
+     * Checks if an integer value is valid.
+     *
+     * @param value          the value to check
+     *
+     * @return true if the value is valid, or
+     *         false otherwise
+     */
+    public boolean isValid(long value) {
+        if (values == null) {
+            return true;
+        } else if (mask != 0) {
+            long bit = value - maskBase;
+            return bit >= 0 && bit < MASK_BITS && (mask & (1L << bit)) != 0;
+        } else {
+            return inRanges(values, value);
+        }
+    }
+
+    /**
+     * Checks if a value size (or length) is valid.
+     *
+     * @param length         the size to check
+     *
+     * @return true if the size is valid, or
+     *         false otherwise
+     */
+    public boolean isValidLength(int length) {
+        return sizes == null || inRanges(sizes, length);
+    }
+
+    /**
+     * Checks if a value is in a sorted array of ranges.
+     *
+     * @param ranges         the sorted range bounds
+     * @param value          the value to check
+     *
+     * @return true if the value is in one of the ranges, or
+     *         false otherwise
+     */
+    private static boolean inRanges(long[] ranges, long value) {
+        if (ranges.length == 2) {
+            return ranges[0] <= value && value <= ranges[1];
+        }
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (value < ranges[mid * 2]) {
+                high = mid - 1;
+            } else if (value > ranges[mid * 2 + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a string representation of this object.
+     *
+     * @return a string representation of this object
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        appendRanges(buffer, values);
+        if (sizes != null) {
+            buffer.append(" SIZE");
+            appendRanges(buffer, sizes);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Appends a range table to a string buffer.
+     *
+     * @param buffer         the string buffer to append to
+     * @param ranges         the sorted range bounds, or null
+     */
+    private static void appendRanges(StringBuilder buffer, long[] ranges) {
+        buffer.append("(");
+        for (int i = 0; ranges != null && i < ranges.length; i += 2) {
+            if (i > 0) {
+                buffer.append(" | ");
+            }
+            buffer.append(ranges[i]);
+            if (ranges[i] != ranges[i + 1]) {
+                buffer.append("..");
+                buffer.append(ranges[i + 1]);
+            }
+        }
+        buffer.append(")");
+    }
+}
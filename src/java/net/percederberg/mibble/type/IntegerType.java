@@ -26,7 +26,7 @@ import net.percederberg.mibble.value.NumberValue;
  * An integer MIB type.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class IntegerType extends MibType implements MibContext {
@@ -36,6 +36,12 @@ public class IntegerType extends MibType implements MibContext {
      */
     private Constraint constraint = null;
 
+    /**
+     * The compiled constraint checker. This field is set when the
+     * type is initialized, or when first requested.
+     */
+    private volatile ConstraintChecker checker = null;
+
     /**
      * The additional defined symbols.
      */
@@ -114,6 +120,7 @@ public class IntegerType extends MibType implements MibContext {
         if (constraint != null) {
             constraint.initialize(this, log);
         }
+        checker = new ConstraintChecker(constraint);
         Iterator<MibValueSymbol> iter = symbols.values().iterator();
         while (iter.hasNext()) {
             MibValueSymbol sym = iter.next();
@@ -275,6 +282,26 @@ public class IntegerType extends MibType implements MibContext {
         return constraint;
     }
 
+    /**
+     * Returns the compiled constraint checker for this type. The
+     * checker is created from the type constraint when the type is
+     * initialized.
+     *
+     * @return the compiled constraint checker
+     *
+     * @see #getConstraint()
+     *
+     * @since 2.11
+     */
+    public ConstraintChecker getConstraintChecker() {
+        ConstraintChecker res = checker;
+        if (res == null) {
+            res = new ConstraintChecker(constraint);
+            checker = res;
+        }
+        return res;
+    }
+
     /**
      * Returns a named integer value. The value will be returned as a
      * value symbol, containing a numeric MIB value. The symbol
@@ -20,7 +20,7 @@ import net.percederberg.mibble.value.StringValue;
  * A string MIB type.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class StringType extends MibType {
@@ -30,6 +30,12 @@ public class StringType extends MibType {
      */
     private Constraint constraint = null;
 
+    /**
+     * The compiled constraint checker. This field is set when the
+     * type is initialized, or when first requested.
+     */
+    private volatile ConstraintChecker checker = null;
+
     /**
      * Creates a new string MIB type.
      */
@@ -84,6 +90,7 @@ public class StringType extends MibType {
         if (constraint != null) {
             constraint.initialize(this, log);
         }
+        checker = new ConstraintChecker(constraint);
         return this;
     }
 
@@ -179,6 +186,26 @@ public class StringType extends MibType {
         return constraint;
     }
 
+    /**
+     * Returns the compiled constraint checker for this type. The
+     * checker is created from the type constraint when the type is
+     * initialized.
+     *
+     * @return the compiled constraint checker
+     *
+     * @see #getConstraint()
+     *
+     * @since 2.11
+     */
+    public ConstraintChecker getConstraintChecker() {
+        ConstraintChecker res = checker;
+        if (res == null) {
+            res = new ConstraintChecker(constraint);
+            checker = res;
+        }
+        return res;
+    }
+
     /**
      * Returns a string representation of this type.
      *
@@ -23,7 +23,7 @@ import net.percederberg.mibble.value.StringValue;
  * range in a set of value constraints.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class ValueRangeConstraint implements Constraint {
@@ -276,6 +276,30 @@ public class ValueRangeConstraint implements Constraint {
         return upper;
     }
 
+    /**
+     * Checks if the lower bound is strict (excluded from the range).
+     *
+     * @return true if the lower bound is strict, or
+     *         false otherwise
+     *
+     * @since 2.11
+     */
+    public boolean isStrictLower() {
+        return strictLower;
+    }
+
+    /**
+     * Checks if the upper bound is strict (excluded from the range).
+     *
+     * @return true if the upper bound is strict, or
+     *         false otherwise
+     *
+     * @since 2.11
+     */
+    public boolean isStrictUpper() {
+        return strictUpper;
+    }
+
     /**
      * Returns a string representation of this object.
      *
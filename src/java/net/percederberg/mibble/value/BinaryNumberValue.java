@@ -18,7 +18,7 @@ import net.percederberg.mibble.MibValue;
  * A binary numeric MIB value.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.6
  */
 public class BinaryNumberValue extends NumberValue {
@@ -75,6 +75,18 @@ public class BinaryNumberValue extends NumberValue {
         return this;
     }
 
+    /**
+     * Returns the minimum print length. This is the minimum number
+     * of bits to print.
+     *
+     * @return the minimum print length
+     *
+     * @since 2.11
+     */
+    public int getMinLength() {
+        return minLength;
+    }
+
     /**
      * Returns a string representation of this value.
      *
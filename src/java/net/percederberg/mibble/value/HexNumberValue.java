@@ -17,7 +17,7 @@ import net.percederberg.mibble.MibValue;
  * A hexadecimal numeric MIB value.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.6
  */
 public class HexNumberValue extends NumberValue {
@@ -74,6 +74,18 @@ public class HexNumberValue extends NumberValue {
         return this;
     }
 
+    /**
+     * Returns the minimum print length. This is the minimum number
+     * of hexadecimal characters to print.
+     *
+     * @return the minimum print length
+     *
+     * @since 2.11
+     */
+    public int getMinLength() {
+        return minLength;
+    }
+
     /**
      * Returns a string representation of this value.
      *
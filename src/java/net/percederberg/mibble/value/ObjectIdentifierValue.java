@@ -8,7 +8,7 @@
 
 package net.percederberg.mibble.value;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import net.percederberg.mibble.Mib;
 import net.percederberg.mibble.MibException;
@@ -20,10 +20,23 @@ import net.percederberg.mibble.MibValueSymbol;
 
 /**
  * An object identifier value. This class stores the component
- * identifier values in a tree hierarchy.
+ * identifier values in a tree hierarchy.<p>
+ *
+ * The OID tree may be read by other threads while MIB files are
+ * being loaded or unloaded. Changes to the children of an OID value
+ * are staged by the MIB loader and only become visible once the
+ * load or unload operation has completed. Each child array is then
+ * replaced as a whole, with new subtrees published before their
+ * parent. The parent references are not staged, however, so the
+ * parent of an OID value may be replaced by an equivalent OID value
+ * (with the same numeric value) while loading. When unloading, the
+ * OID values are first unlinked from the tree and published, and
+ * only then cleared. The symbol and parent references of an OID
+ * value in an unloaded MIB may therefore become null, but only once
+ * the value can no longer be found from the tree root.
  *
  * @author   Per Cederberg
- * @version  2.10
+ * @version  2.11
  * @since    2.0
  */
 public class ObjectIdentifierValue extends MibValue {
@@ -44,9 +57,53 @@ public class ObjectIdentifierValue extends MibValue {
     private MibValue parent;
 
     /**
-     * The component children.
+     * The empty array of component children.
+     */
+    private static final ObjectIdentifierValue[] NO_CHILDREN =
+        new ObjectIdentifierValue[0];
+
+    /**
+     * The minimum number of children for using a child value index.
+     * Smaller child arrays are searched directly.
+     */
+    private static final int MIN_INDEX_SIZE = 16;
+
+    /**
+     * The published component children. The array is never
+     * modified once set, but instead replaced when staged changes
+     * are published. This allows other threads to safely read the
+     * OID tree while new MIB files are being loaded or unloaded.
+     */
+    private volatile ObjectIdentifierValue[] children = NO_CHILDREN;
+
+    /**
+     * The child value index, or null if not yet created. The index
+     * is created when publishing large child arrays, and is only
+     * valid for the children array it was created from.
+     */
+    private volatile ChildIndex index = null;
+
+    /**
+     * The staged component children, or null if unmodified. This
+     * array is used as a growable buffer by the MIB loader, and is
+     * only accessed while holding the loader lock. The number of
+     * staged children is kept separately.
+     *
+     * @see #publishChildren()
+     */
+    private ObjectIdentifierValue[] staged = null;
+
+    /**
+     * The number of staged component children.
+     */
+    private int stagedCount = 0;
+
+    /**
+     * The unpublished changes flag. This flag is set if the staged
+     * children of this value or any descendant value haven't been
+     * published.
      */
-    private ArrayList<ObjectIdentifierValue> children = new ArrayList<>();
+    private boolean dirty = false;
 
     /**
      * The object identifier component name.
@@ -66,12 +123,14 @@ public class ObjectIdentifierValue extends MibValue {
     /**
      * The cached numeric string representation of this value. This
      * variable is set when calling the toString() method the first
-     * time and is used to optimize performance by avoiding any
-     * subsequent recursive calls.
+     * time on a node with a symbol, and is used to speed up
+     * subsequent calls. Nodes without a symbol never cache the
+     * string, so that large OID trees don't keep a string in each
+     * node. It is reset whenever the parent value is changed.
      *
      * @see #toString()
      */
-    private String cachedNumericValue = null;
+    private volatile String cachedNumericValue = null;
 
     /**
      * Creates a new root object identifier value.
@@ -107,7 +166,7 @@ public class ObjectIdentifierValue extends MibValue {
         this.parent = parent;
         this.name = name;
         this.value = value;
-        if (parent.getChildByValue(value) != null) {
+        if (parent.findStagedChild(value) != null) {
             throw new MibException(fileRef,
                                    "cannot add duplicate OID " +
                                    "children with value " + value);
@@ -163,6 +222,7 @@ public class ObjectIdentifierValue extends MibValue {
             ref = (ValueReference) parent;
         }
         parent = parent.initialize(log, type);
+        cachedNumericValue = null;
         if (ref != null) {
             if (parent instanceof ObjectIdentifierValue) {
                 ObjectIdentifierValue oid = (ObjectIdentifierValue) parent;
@@ -174,9 +234,8 @@ public class ObjectIdentifierValue extends MibValue {
             }
         }
         fileRef = null;
-        cachedNumericValue = null;
         if (parent instanceof ObjectIdentifierValue) {
-            return ((ObjectIdentifierValue) parent).getChildByValue(value);
+            return ((ObjectIdentifierValue) parent).findStagedChild(value);
         } else {
             return this;
         }
@@ -199,33 +258,73 @@ public class ObjectIdentifierValue extends MibValue {
         return this;
     }
 
+    /**
+     * Unlinks this value from the OID tree. This method will
+     * recursively unlink all children in the same MIB, and then
+     * remove this value from its parent unless some children remain.
+     * The removals are staged until the children are published, and
+     * no other value data is modified. After publishing, the value
+     * can be cleared without affecting concurrent readers of the OID
+     * tree.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @see #publishChildren()
+     * @see #clear()
+     *
+     * @since 2.11
+     */
+    public void unlink() {
+
+        // Recursively unlink all children in same MIB (backwards, as
+        // unlinked children are removed from the staged children)
+        Mib mib = getMib();
+        for (int i = getStagedCount() - 1; i >= 0; i--) {
+            ObjectIdentifierValue child = getStagedChild(i);
+            if (mib == null || mib == child.getMib()) {
+                child.unlink();
+            }
+        }
+
+        // Remove from parent if all children were unlinked
+        if (getStagedCount() <= 0 && parent instanceof ObjectIdentifierValue) {
+            getParent().removeChild(this);
+        }
+    }
+
     /**
      * Clears and prepares this value for garbage collection. This
      * method will recursively clear any associated types or values,
-     * making sure that no data structures references this object.<p>
+     * making sure that no data structures references this object.
+     * The value should normally be unlinked from the OID tree (and
+     * the tree published) before being cleared, as the symbol and
+     * parent references are modified directly.<p>
      *
      * <strong>NOTE:</strong> This is an internal method that should
      * only be called by the MIB loader.
+     *
+     * @see #unlink()
      */
     protected void clear() {
 
-        // Recursively clear all children in same MIB
-        if (children != null) {
-            Mib mib = getMib();
-            for (ObjectIdentifierValue child : new ArrayList<>(children)) {
-                if (mib == null || mib == child.getMib()) {
-                    child.clear();
-                }
+        // Recursively clear all children in same MIB (backwards, as
+        // cleared children are removed from the staged children)
+        Mib mib = getMib();
+        for (int i = getStagedCount() - 1; i >= 0; i--) {
+            ObjectIdentifierValue child = getStagedChild(i);
+            if (mib == null || mib == child.getMib()) {
+                child.clear();
             }
         }
 
         // Remove parent reference if all children were cleared
-        if (getChildCount() <= 0) {
-            if (parent != null) {
-                getParent().children.remove(this);
-                parent = null;
+        if (getStagedCount() <= 0) {
+            if (parent instanceof ObjectIdentifierValue) {
+                getParent().removeChild(this);
             }
-            children = new ArrayList<>();
+            parent = null;
+            cachedNumericValue = null;
         }
 
         // Clear other value data
@@ -237,7 +336,8 @@ public class ObjectIdentifierValue extends MibValue {
      * Compares this object with the specified object for order. This
      * method will only attempt to compare each numerical OID part with
      * the other value, but may fall back to comparing the string
-     * representations.
+     * representations. OID values are ordered numerically by each
+     * OID part (i.e. "1.2" is less than "1.10").
      *
      * @param obj            the object to compare to
      *
@@ -267,21 +367,52 @@ public class ObjectIdentifierValue extends MibValue {
      * @since 2.10
      */
     private int compareToOid(ObjectIdentifierValue oid) {
-        int[] one = getParentValues();
-        int[] two = oid.getParentValues();
-        for (int i = 0; i < one.length; i++) {
-            if (i >= two.length) {
-                return 1;
-            } else if (one[i] != two[i]) {
-                return one[i] - two[i];
+        ObjectIdentifierValue one = this;
+        ObjectIdentifierValue two = oid;
+        int diff = getDepth() - oid.getDepth();
+        for (int i = diff; i > 0; i--) {
+            one = one.getParent();
+        }
+        for (int i = diff; i < 0; i++) {
+            two = two.getParent();
+        }
+        int res = one.compareToSameDepth(two);
+        return (res != 0) ? res : diff;
+    }
+
+    /**
+     * Compares this object with the specified OID for order. Both
+     * OIDs must have the same depth in the OID tree, which allows
+     * comparing the OID parts pairwise without creating any arrays.
+     *
+     * @param oid            the OID to compare to
+     *
+     * @return less than zero if this OID is less than the specified,
+     *         zero if the OIDs are equal, or
+     *         greater than zero otherwise
+     *
+     * @since 2.11
+     */
+    private int compareToSameDepth(ObjectIdentifierValue oid) {
+        if (this == oid) {
+            return 0;
+        }
+        ObjectIdentifierValue one = getParent();
+        ObjectIdentifierValue two = oid.getParent();
+        if (one != null && two != null) {
+            int res = one.compareToSameDepth(two);
+            if (res != 0) {
+                return res;
             }
         }
-        return (one.length == two.length) ? 0 : -1;
+        return Integer.compare(value, oid.value);
     }
 
     /**
-     * Checks if this object equals another object. This method will
-     * compare the string representations for equality.
+     * Checks if this object equals another object. Two OID values
+     * are equal if all their numerical OID parts are equal. For any
+     * other object, this method will compare the string
+     * representations for equality.
      *
      * @param obj            the object to compare with
      *
@@ -289,16 +420,31 @@ public class ObjectIdentifierValue extends MibValue {
      *         false otherwise
      */
     public boolean equals(Object obj) {
-        return toString().equals(obj.toString());
+        if (obj instanceof ObjectIdentifierValue) {
+            ObjectIdentifierValue oid = (ObjectIdentifierValue) obj;
+            return getDepth() == oid.getDepth()
+                && compareToSameDepth(oid) == 0;
+        } else {
+            return obj != null && toString().equals(obj.toString());
+        }
     }
 
     /**
-     * Returns a hash code for this object.
+     * Returns a hash code for this object. The hash code is
+     * calculated from the numerical OID parts.
      *
      * @return a hash code for this object
      */
     public int hashCode() {
-        return toString().hashCode();
+        int hash = value;
+        int factor = 31;
+        ObjectIdentifierValue parent = getParent();
+        while (parent != null) {
+            hash += factor * parent.value;
+            factor *= 31;
+            parent = parent.getParent();
+        }
+        return hash;
     }
 
     /**
@@ -411,7 +557,7 @@ public class ObjectIdentifierValue extends MibValue {
      * @return the number of child object identifier values
      */
     public int getChildCount() {
-        return children == null ? 0 : children.size();
+        return children.length;
     }
 
     /**
@@ -425,7 +571,7 @@ public class ObjectIdentifierValue extends MibValue {
      *         null if not found
      */
     public ObjectIdentifierValue getChild(int index) {
-        return children.get(index);
+        return children[index];
     }
 
     /**
@@ -457,7 +603,8 @@ public class ObjectIdentifierValue extends MibValue {
      * search and therefore has time complexity O(log(n)) for the
      * worst case. Special handling of the common case (a child
      * array without numeric gaps), allow for O(1) performance most
-     * of the time.
+     * of the time. Large child arrays are searched with a separate
+     * index of the child values.
      *
      * @param value          the child value
      *
@@ -467,17 +614,27 @@ public class ObjectIdentifierValue extends MibValue {
      * @since 2.5
      */
     public ObjectIdentifierValue getChildByValue(int value) {
-        if (value > 0 && value <= children.size()) {
-            ObjectIdentifierValue child = children.get(value - 1);
+        ObjectIdentifierValue[] list = children;
+        if (value > 0 && value <= list.length) {
+            ObjectIdentifierValue child = list[value - 1];
             if (child.value == value) {
                 return child;
             }
         }
+        if (list.length >= MIN_INDEX_SIZE) {
+            ChildIndex idx = index;
+            if (idx == null || idx.children != list) {
+                idx = new ChildIndex(list);
+                index = idx;
+            }
+            int pos = Arrays.binarySearch(idx.values, value);
+            return (pos < 0) ? null : list[pos];
+        }
         int low = 0;
-        int high = children.size();
+        int high = list.length;
         int pos = (low + high) / 2;
         while (low < high) {
-            ObjectIdentifierValue child = children.get(pos);
+            ObjectIdentifierValue child = list[pos];
             if (child.value == value) {
                 return child;
             } else if (child.value < value) {
@@ -500,11 +657,7 @@ public class ObjectIdentifierValue extends MibValue {
      * @since 2.3
      */
     public ObjectIdentifierValue[] getAllChildren() {
-        ObjectIdentifierValue[]  values;
-
-        values = new ObjectIdentifierValue[children.size()];
-        children.toArray(values);
-        return values;
+        return children.clone();
     }
 
     /**
@@ -521,15 +674,11 @@ public class ObjectIdentifierValue extends MibValue {
      * @since 2.10
      */
     public ObjectIdentifierValue find(String oid) {
-        if (oid.startsWith(".")) {
-            oid = oid.substring(1);
-        }
-        if (oid.length() > 0 && toString().startsWith(oid)) {
-            return findAncestor(oid);
-        } else if (oid.startsWith(toString())) {
+        int[] arcs = parseOid(oid, false);
+        if (arcs == null) {
             return findDescendant(oid);
         } else {
-            return null;
+            return find(arcs, 0, arcs.length);
         }
     }
 
@@ -547,14 +696,12 @@ public class ObjectIdentifierValue extends MibValue {
      * @since 2.10
      */
     public ObjectIdentifierValue findAncestor(String oid) {
-        if (oid.startsWith(".")) {
-            oid = oid.substring(1);
-        }
-        ObjectIdentifierValue ancestor = this;
-        while (ancestor != null && !ancestor.toString().equals(oid)) {
-            ancestor = ancestor.getParent();
+        int[] arcs = parseOid(oid, false);
+        if (arcs == null || arcs.length == 0) {
+            return null;
+        } else {
+            return findAncestor(arcs, 0, arcs.length);
         }
-        return ancestor;
     }
 
     /**
@@ -571,43 +718,328 @@ public class ObjectIdentifierValue extends MibValue {
      * @since 2.10
      */
     public ObjectIdentifierValue findDescendant(String oid) {
-        if (oid.startsWith(".")) {
-            oid = oid.substring(1);
+        int[] arcs = parseOid(oid, true);
+        return findDescendant(arcs, 0, arcs.length);
+    }
+
+    /**
+     * Searches the OID tree for the best match. The returned OID
+     * value may be either an ancestor or a descendant node (or this
+     * node itself). The search requires the full numeric OID value
+     * (from the root). This method doesn't create any objects, and
+     * is normally faster than the string-based version.
+     *
+     * @param oid            the numeric OID arcs to search for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the best matching OID value, or
+     *         null if no partial match was found
+     *
+     * @see #find(String)
+     *
+     * @since 2.11
+     */
+    public ObjectIdentifierValue find(int[] oid, int offset, int length) {
+        Object event = OidLookupRecorder.begin();
+        ObjectIdentifierValue res;
+        if (length > 0 && length < getDepth()) {
+            res = searchAncestor(oid, offset, length);
+        } else {
+            res = searchDescendant(oid, offset, length);
         }
-        if (!oid.startsWith(toString())) {
+        OidLookupRecorder.end(event, "find", oid, offset, length, res);
+        return res;
+    }
+
+    /**
+     * Searches the OID tree for the best matching ancestor. The
+     * returned OID will be an exact match of this node or one of its
+     * parents. The search requires the full numeric OID value (from
+     * the root). This method doesn't create any objects, and is
+     * normally faster than the string-based version.
+     *
+     * @param oid            the numeric OID arcs to search for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the matching ancestor OID value, or
+     *         null if no match was found
+     *
+     * @see #findAncestor(String)
+     *
+     * @since 2.11
+     */
+    public ObjectIdentifierValue findAncestor(int[] oid,
+                                              int offset,
+                                              int length) {
+
+        Object event = OidLookupRecorder.begin();
+        ObjectIdentifierValue res = searchAncestor(oid, offset, length);
+        OidLookupRecorder.end(event, "findAncestor", oid, offset, length, res);
+        return res;
+    }
+
+    /**
+     * Searches the OID tree for the best matching ancestor. This
+     * method performs the actual search for findAncestor().
+     *
+     * @param oid            the numeric OID arcs to search for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the matching ancestor OID value, or
+     *         null if no match was found
+     */
+    private ObjectIdentifierValue searchAncestor(int[] oid,
+                                                 int offset,
+                                                 int length) {
+
+        ObjectIdentifierValue ancestor = this;
+        int depth = getDepth();
+        while (ancestor != null && depth > length) {
+            ancestor = ancestor.getParent();
+            depth--;
+        }
+        if (ancestor != null && depth == length &&
+            ancestor.isPrefixOf(oid, offset, length)) {
+
+            return ancestor;
+        }
+        return null;
+    }
+
+    /**
+     * Searches the OID tree for the best matching descendant. The
+     * returned OID value will be the longest matching child node (or
+     * this node itself), but doesn't have to be an exact match. The
+     * search requires the full numeric OID value (from the root).
+     * This method doesn't create any objects, and is normally faster
+     * than the string-based version.
+     *
+     * @param oid            the numeric OID arcs to search for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the best matching descendant OID value, or
+     *         null if no match was found
+     *
+     * @see #findDescendant(String)
+     *
+     * @since 2.11
+     */
+    public ObjectIdentifierValue findDescendant(int[] oid,
+                                                int offset,
+                                                int length) {
+
+        Object event = OidLookupRecorder.begin();
+        ObjectIdentifierValue res = searchDescendant(oid, offset, length);
+        OidLookupRecorder.end(event, "findDescendant", oid, offset, length,
+                              res);
+        return res;
+    }
+
+    /**
+     * Searches the OID tree for the best matching descendant. This
+     * method performs the actual search for findDescendant().
+     *
+     * @param oid            the numeric OID arcs to search for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return the best matching descendant OID value, or
+     *         null if no match was found
+     */
+    private ObjectIdentifierValue searchDescendant(int[] oid,
+                                                   int offset,
+                                                   int length) {
+
+        int depth = getDepth();
+        if (depth > length || !isPrefixOf(oid, offset, depth)) {
             return null;
         }
-        oid = oid.substring(toString().length());
-        if (oid.startsWith(".")) {
-            oid = oid.substring(1);
+        ObjectIdentifierValue match = this;
+        for (int i = depth; i < length; i++) {
+            int value = oid[offset + i];
+            ObjectIdentifierValue child = match.getChildByValue(value);
+            if (child == null) {
+                break;
+            }
+            match = child;
+        }
+        return match;
+    }
+
+    /**
+     * Parses a numeric OID string into an array of OID arcs. Any
+     * leading dot ('.') character is ignored.
+     *
+     * @param oid            the numeric OID string
+     * @param partial        the partial parse flag, if set any valid
+     *                       leading OID arcs will be returned
+     *
+     * @return the array of numeric OID arcs, or
+     *         null if the string wasn't a valid numeric OID
+     *
+     * @since 2.11
+     */
+    private static int[] parseOid(String oid, boolean partial) {
+        int start = oid.startsWith(".") ? 1 : 0;
+        int count = 0;
+        for (int i = start; i < oid.length(); i++) {
+            if (oid.charAt(i) == '.') {
+                count++;
+            }
         }
-        ObjectIdentifierValue parent = this;
-        ObjectIdentifierValue child = this;
-        while (child != null && oid.length() > 0) {
-            int value = -1;
+        int[] arcs = new int[(oid.length() > start) ? count + 1 : 0];
+        for (int i = 0; i < arcs.length; i++) {
+            int end = oid.indexOf('.', start);
+            if (end < 0) {
+                end = oid.length();
+            }
             try {
-                int pos = oid.indexOf('.');
-                if (pos > 0) {
-                    value = Integer.parseInt(oid.substring(0, pos));
-                    oid = oid.substring(pos + 1);
-                } else {
-                    value = Integer.parseInt(oid);
-                    oid = "";
-                }
-            } catch (NumberFormatException ignore) {
-                oid = "";
+                arcs[i] = Integer.parseInt(oid.substring(start, end));
+            } catch (NumberFormatException e) {
+                return partial ? Arrays.copyOf(arcs, i) : null;
+            }
+            start = end + 1;
+        }
+        return arcs;
+    }
+
+    /**
+     * Returns the depth of this node in the OID tree. The depth is
+     * the same as the number of numeric values in the OID chain.
+     *
+     * @return the number of numeric OID values
+     *
+     * @since 2.11
+     */
+    int getDepth() {
+        int depth = 1;
+        ObjectIdentifierValue parent = getParent();
+        while (parent != null) {
+            depth++;
+            parent = parent.getParent();
+        }
+        return depth;
+    }
+
+    /**
+     * Checks if this OID value matches the specified numeric OID
+     * values. The number of OID arcs must be equal to the depth of
+     * this node.
+     *
+     * @param oid            the numeric OID arcs to compare with
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     *
+     * @return true if the OID arcs match this node, or
+     *         false otherwise
+     *
+     * @since 2.11
+     */
+    private boolean isPrefixOf(int[] oid, int offset, int length) {
+        ObjectIdentifierValue node = this;
+        for (int i = length - 1; i >= 0; i--) {
+            if (node == null || node.value != oid[offset + i]) {
+                return false;
+            }
+            node = node.getParent();
+        }
+        return node == null;
+    }
+
+    /**
+     * Returns the number of staged child components. If no changes
+     * have been staged, the published children are counted.
+     *
+     * @return the number of staged child components
+     *
+     * @since 2.11
+     */
+    private int getStagedCount() {
+        return (staged == null) ? children.length : stagedCount;
+    }
+
+    /**
+     * Returns a staged child component. If no changes have been
+     * staged, the published children are used.
+     *
+     * @param index          the child position, starting from 0
+     *
+     * @return the staged child component
+     *
+     * @since 2.11
+     */
+    private ObjectIdentifierValue getStagedChild(int index) {
+        return (staged == null) ? children[index] : staged[index];
+    }
+
+    /**
+     * Returns a staged child component. The staged children are
+     * searched by their numerical value using binary search. If no
+     * changes have been staged, the published children are used.
+     *
+     * @param value          the child value
+     *
+     * @return the staged child component, or
+     *         null if not found
+     *
+     * @since 2.11
+     */
+    private ObjectIdentifierValue findStagedChild(int value) {
+        if (staged == null) {
+            return getChildByValue(value);
+        }
+        int low = 0;
+        int high = stagedCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midValue = staged[mid].value;
+            if (midValue < value) {
+                low = mid + 1;
+            } else if (midValue > value) {
+                high = mid - 1;
+            } else {
+                return staged[mid];
             }
-            parent = child;
-            child = child.getChildByValue(value);
         }
-        return (child == null) ? parent : child;
+        return null;
+    }
+
+    /**
+     * Prepares the staged children for modification. The staged
+     * children buffer is created from the published children if
+     * needed, and grown to fit at least one more child. This value
+     * and all its ancestors are also marked as having unpublished
+     * changes.
+     *
+     * @return the staged children buffer
+     *
+     * @since 2.11
+     */
+    private ObjectIdentifierValue[] stage() {
+        if (staged == null) {
+            stagedCount = children.length;
+            staged = Arrays.copyOf(children, Math.max(4, stagedCount * 2));
+        } else if (stagedCount >= staged.length) {
+            staged = Arrays.copyOf(staged, Math.max(4, stagedCount * 2));
+        }
+        ObjectIdentifierValue node = this;
+        while (node != null && !node.dirty) {
+            node.dirty = true;
+            node = node.getParent();
+        }
+        return staged;
     }
 
     /**
      * Adds a child component. The children will be inserted in the
      * value order. If a child with the same value has already been
      * added, the new child will be merged with the previous one (if
-     * possible) and the resulting child will be returned.
+     * possible) and the resulting child will be returned. The change
+     * is staged until the children are published.
      *
      * @param log            the MIB loader log
      * @param fileRef        the definition MIB file reference
@@ -625,22 +1057,85 @@ public class ObjectIdentifierValue extends MibValue {
 
         // Insert child in value order, searching backwards to
         // optimize the most common case (ordered insertion)
-        int i = children.size();
+        ObjectIdentifierValue[] list = stage();
+        int i = stagedCount;
         while (i > 0) {
-            ObjectIdentifierValue value = children.get(i - 1);
+            ObjectIdentifierValue value = list[i - 1];
             if (value.getValue() == child.getValue()) {
                 value = value.merge(log, fileRef, child);
-                children.set(i - 1, value);
+                list[i - 1] = value;
                 return value;
             } else if (value.getValue() < child.getValue()) {
                 break;
             }
             i--;
         }
-        children.add(i, child);
+        System.arraycopy(list, i, list, i + 1, stagedCount - i);
+        list[i] = child;
+        stagedCount++;
         return child;
     }
 
+    /**
+     * Removes a child component. The child is identified by object
+     * identity, not by value. The change is staged until the
+     * children are published. If the child has already been
+     * removed, nothing is staged.
+     *
+     * @param child          the child component
+     *
+     * @since 2.11
+     */
+    private void removeChild(ObjectIdentifierValue child) {
+        if (findStagedChild(child.value) != child) {
+            return;
+        }
+        ObjectIdentifierValue[] list = stage();
+        for (int i = 0; i < stagedCount; i++) {
+            if (list[i] == child) {
+                stagedCount--;
+                System.arraycopy(list, i + 1, list, i, stagedCount - i);
+                list[stagedCount] = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publishes all staged child components. The staged children of
+     * this value and all descendant values are copied to exact-size
+     * arrays, replacing the previously published children. Each
+     * subtree is published before its parent, so that new OID
+     * values only become visible once all their descendants have
+     * been published.<p>
+     *
+     * <strong>NOTE:</strong> This is an internal method that should
+     * only be called by the MIB loader.
+     *
+     * @since 2.11
+     */
+    public void publishChildren() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        for (int i = 0; i < getStagedCount(); i++) {
+            getStagedChild(i).publishChildren();
+        }
+        if (staged != null) {
+            ObjectIdentifierValue[] list = NO_CHILDREN;
+            if (stagedCount > 0) {
+                list = Arrays.copyOf(staged, stagedCount);
+            }
+            staged = null;
+            stagedCount = 0;
+            if (list.length >= MIN_INDEX_SIZE) {
+                index = new ChildIndex(list);
+            }
+            children = list;
+        }
+    }
+
     /**
      * Adds all the children from another object identifier value.
      * The children are not copied, but actually transfered from the
@@ -678,11 +1173,13 @@ public class ObjectIdentifierValue extends MibValue {
                                    "INTERNAL ERROR: OID merge with " +
                                    "symbol reference already set");
         }
-        for (ObjectIdentifierValue child : parent.children) {
+        for (int i = 0; i < parent.getStagedCount(); i++) {
+            ObjectIdentifierValue child = parent.getStagedChild(i);
             child.parent = this;
             addChild(log, fileRef, child);
         }
-        parent.children = new ArrayList<>();
+        parent.staged = NO_CHILDREN;
+        parent.stagedCount = 0;
     }
 
     /**
@@ -708,7 +1205,9 @@ public class ObjectIdentifierValue extends MibValue {
                                         ObjectIdentifierValue value)
         throws MibException {
 
-        if (symbol != null || (value.symbol == null && children.size() > 0)) {
+        if (symbol != null ||
+            (value.symbol == null && getStagedCount() > 0)) {
+
             addChildren(log, fileRef, value);
             return this;
         } else {
@@ -731,21 +1230,52 @@ public class ObjectIdentifierValue extends MibValue {
     /**
      * Returns a string representation of this value. The string will
      * contain the full numeric object identifier value with each
-     * component separated with a dot ('.').
+     * component separated with a dot ('.'). For values with a
+     * symbol, the string is created on the first call and then
+     * cached. Other values create a new string on each call.
      *
      * @return a string representation of this value
+     *
+     * @see #appendTo(StringBuilder)
      */
     public String toString() {
-        if (cachedNumericValue == null) {
+        String res = cachedNumericValue;
+        if (res == null) {
             StringBuilder buffer = new StringBuilder();
-            if (parent != null) {
-                buffer.append(parent.toString());
-                buffer.append(".");
+            appendTo(buffer);
+            res = buffer.toString();
+            if (symbol != null) {
+                cachedNumericValue = res;
             }
-            buffer.append(value);
-            cachedNumericValue = buffer.toString();
         }
-        return cachedNumericValue;
+        return res;
+    }
+
+    /**
+     * Appends the numeric string representation of this value to a
+     * buffer. The result is identical to toString(), but no string
+     * is cached in this value or its parents.
+     *
+     * @param buffer         the string buffer to append to
+     *
+     * @see #toString()
+     *
+     * @since 2.11
+     */
+    public void appendTo(StringBuilder buffer) {
+        String res = cachedNumericValue;
+        if (res != null) {
+            buffer.append(res);
+            return;
+        }
+        if (parent instanceof ObjectIdentifierValue) {
+            ((ObjectIdentifierValue) parent).appendTo(buffer);
+            buffer.append(".");
+        } else if (parent != null) {
+            buffer.append(parent.toString());
+            buffer.append(".");
+        }
+        buffer.append(value);
     }
 
     /**
@@ -801,4 +1331,36 @@ public class ObjectIdentifierValue extends MibValue {
         }
         return buffer.toString();
     }
+
+    /**
+     * An index of child values. The values are stored in a separate
+     * array, in the same order as the children array. This makes
+     * binary search by value faster for large child arrays, since
+     * the child objects don't have to be read.
+     */
+    private static class ChildIndex {
+
+        /**
+         * The children array indexed.
+         */
+        private ObjectIdentifierValue[] children;
+
+        /**
+         * The child values, in the same order as the children.
+         */
+        private int[] values;
+
+        /**
+         * Creates a new child value index.
+         *
+         * @param children       the children array to index
+         */
+        ChildIndex(ObjectIdentifierValue[] children) {
+            this.children = children;
+            this.values = new int[children.length];
+            for (int i = 0; i < children.length; i++) {
+                values[i] = children[i].value;
+            }
+        }
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.value;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A sampling recorder for OID tree lookups. This class emits Java
+ * Flight Recorder (JFR) events for a sample of the OID lookups made
+ * while the event is enabled in a running recording. Otherwise, the
+ * cost of each lookup is a single check. If the JFR API isn't
+ * available in the Java runtime, no events are ever emitted.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+class OidLookupRecorder {
+
+    /**
+     * The sampling interval mask. One in every 1024 lookups is
+     * recorded (per thread, approximately).
+     */
+    private static final int SAMPLE_MASK = 1023;
+
+    /**
+     * The JFR API available flag.
+     */
+    private static final boolean AVAILABLE = isAvailable();
+
+    /**
+     * The lookup counter used for sampling. Updates to this counter
+     * are not synchronized, since an exact count isn't needed.
+     */
+    private static int counter = 0;
+
+    /**
+     * Checks if the JFR API is available in the Java runtime.
+     *
+     * @return true if the JFR API is available, or
+     *         false otherwise
+     */
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Starts recording an OID lookup. If the lookup event is enabled
+     * and the lookup is sampled, a started event is returned.
+     *
+     * @return the started lookup event, or
+     *         null if the lookup shouldn't be recorded
+     */
+    static Object begin() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        LookupEvent event = new LookupEvent();
+        if (!event.isEnabled() || (++counter & SAMPLE_MASK) != 0) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Completes recording of an OID lookup.
+     *
+     * @param obj            the started lookup event, or null
+     * @param method         the lookup method name
+     * @param oid            the numeric OID arcs searched for
+     * @param offset         the first OID arc position
+     * @param length         the number of OID arcs
+     * @param match          the matching OID value, or null
+     */
+    static void end(Object obj,
+                    String method,
+                    int[] oid,
+                    int offset,
+                    int length,
+                    ObjectIdentifierValue match) {
+
+        if (obj != null) {
+            LookupEvent event = (LookupEvent) obj;
+            event.end();
+            if (event.shouldCommit()) {
+                StringBuilder buffer = new StringBuilder();
+                for (int i = 0; i < length; i++) {
+                    if (i > 0) {
+                        buffer.append('.');
+                    }
+                    buffer.append(oid[offset + i]);
+                }
+                event.method = method;
+                event.oid = buffer.toString();
+                event.match = (match == null) ? null : match.getName();
+                event.exact = (match != null && match.getDepth() == length);
+                event.commit();
+            }
+        }
+    }
+
+
+    /**
+     * An OID tree lookup event.
+     */
+    @Name("net.percederberg.mibble.OidLookup")
+    @Label("OID Lookup")
+    @Category("Mibble")
+    @Description("A sampled OID tree lookup (one in 1024 lookups)")
+    static class LookupEvent extends Event {
+
+        /**
+         * The lookup method name.
+         */
+        @Label("Method")
+        String method;
+
+        /**
+         * The numeric OID searched for.
+         */
+        @Label("OID")
+        String oid;
+
+        /**
+         * The name of the matching OID value.
+         */
+        @Label("Match")
+        String match;
+
+        /**
+         * The exact match flag.
+         */
+        @Label("Exact Match")
+        boolean exact;
+    }
+}
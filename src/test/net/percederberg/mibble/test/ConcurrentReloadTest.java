@@ -0,0 +1,275 @@
+/*
+ * Mibble MIB Parser (www.mibble.org)
+ *
+ * See LICENSE.txt for licensing information.
+ *
+ * Copyright (c) 2004-2017 Per Cederberg. All rights reserved.
+ */
+
+package net.percederberg.mibble.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.percederberg.mibble.Mib;
+import net.percederberg.mibble.MibLoader;
+import net.percederberg.mibble.MibSymbol;
+import net.percederberg.mibble.MibValueSymbol;
+import net.percederberg.mibble.value.ObjectIdentifierValue;
+
+/**
+ * A stress test for concurrent OID tree reads. A number of reader
+ * threads search the OID tree while the main thread repeatedly
+ * reloads, unloads and loads MIB modules. Each OID value found by a
+ * reader must have a symbol and a complete parent chain matching
+ * the searched OID. OID values not in the unloaded MIB module must
+ * always be found (as reloaded MIB modules are replaced only once
+ * fully loaded). The number of failed reads is printed and also
+ * returned as the exit code. The test must be run from the project
+ * base directory.
+ *
+ * @author   Per Cederberg
+ * @version  2.11
+ * @since    2.11
+ */
+public class ConcurrentReloadTest {
+
+    /**
+     * The bundled IETF MIB directory.
+     */
+    private static final File IETF_DIR = new File("src/mibs/ietf");
+
+    /**
+     * The MIB module reloaded (together with its importers).
+     */
+    private static final String RELOAD_MIB = "IF-MIB";
+
+    /**
+     * The MIB module importing the reloaded MIB module.
+     */
+    private static final String IMPORTING_MIB = "HOST-RESOURCES-MIB";
+
+    /**
+     * The MIB module unloaded and loaded again.
+     */
+    private static final String UNLOAD_MIB = "UDP-MIB";
+
+    /**
+     * The default number of reload iterations.
+     */
+    private static final int ITERATIONS = 20;
+
+    /**
+     * The default number of reader threads.
+     */
+    private static final int READERS = 4;
+
+    /**
+     * The MIB loader being tested.
+     */
+    private MibLoader loader = new MibLoader();
+
+    /**
+     * The numeric OID values searched for by the readers.
+     */
+    private ArrayList<int[]> oids = new ArrayList<>();
+
+    /**
+     * The exact match flags for the numeric OID values. The OID
+     * values in the unloaded MIB module may only match partially.
+     */
+    private ArrayList<Boolean> exact = new ArrayList<>();
+
+    /**
+     * The stop flag for the reader threads.
+     */
+    private volatile boolean done = false;
+
+    /**
+     * The number of OID searches performed.
+     */
+    private AtomicLong reads = new AtomicLong();
+
+    /**
+     * The number of failed OID searches.
+     */
+    private AtomicLong failures = new AtomicLong();
+
+    /**
+     * The application main entry point.
+     *
+     * @param args           the command-line parameters (number of
+     *                       iterations and reader threads)
+     *
+     * @throws Exception if the MIB modules couldn't be loaded
+     */
+    public static void main(String[] args) throws Exception {
+        int iterations = ITERATIONS;
+        int readers = READERS;
+        if (args.length > 0) {
+            iterations = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            readers = Integer.parseInt(args[1]);
+        }
+        ConcurrentReloadTest test = new ConcurrentReloadTest();
+        long errors = test.run(iterations, readers);
+        System.exit((int) Math.min(errors, 255));
+    }
+
+    /**
+     * Runs the stress test.
+     *
+     * @param iterations     the number of reload iterations
+     * @param readers        the number of reader threads
+     *
+     * @return the number of failed reads
+     *
+     * @throws Exception if the MIB modules couldn't be loaded
+     */
+    public long run(int iterations, int readers) throws Exception {
+        loader.addDir(IETF_DIR);
+        loader.load(RELOAD_MIB);
+        loader.load(IMPORTING_MIB);
+        loader.load(UNLOAD_MIB);
+        for (Mib mib : loader.getAllMibs()) {
+            addOids(mib);
+        }
+        Thread[] threads = new Thread[readers];
+        for (int i = 0; i < readers; i++) {
+            threads[i] = new Thread(new Reader(i % 2 == 0));
+            threads[i].start();
+        }
+        try {
+            for (int i = 0; i < iterations; i++) {
+                loader.reload(loader.getMib(RELOAD_MIB));
+                loader.unload(UNLOAD_MIB);
+                loader.load(UNLOAD_MIB);
+            }
+        } finally {
+            done = true;
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        System.out.println("Reloaded " + iterations + " times with " +
+                           readers + " readers, " + failures.get() +
+                           " of " + reads.get() + " reads failed");
+        return failures.get();
+    }
+
+    /**
+     * Adds the numeric OID values of all symbols in a MIB module.
+     *
+     * @param mib            the MIB module
+     */
+    private void addOids(Mib mib) {
+        for (MibSymbol symbol : mib.getAllSymbols()) {
+            if (symbol instanceof MibValueSymbol) {
+                Object value = ((MibValueSymbol) symbol).getValue();
+                if (value instanceof ObjectIdentifierValue) {
+                    ObjectIdentifierValue oid = (ObjectIdentifierValue) value;
+                    int[] arcs = oid.getParentValues();
+                    if (arcs[0] == loader.getRootOid().getValue()) {
+                        oids.add(arcs);
+                        exact.add(!mib.getName().equals(UNLOAD_MIB));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches the OID tree for a numeric OID value.
+     *
+     * @param oid            the numeric OID value
+     * @param fromRoot       the root OID search flag
+     *
+     * @return the best matching OID value, or
+     *         null if not found
+     */
+    private ObjectIdentifierValue search(int[] oid, boolean fromRoot) {
+        if (fromRoot) {
+            return loader.getRootOid().find(oid, 0, oid.length);
+        } else {
+            return loader.getOid(oid, 0, oid.length);
+        }
+    }
+
+    /**
+     * Checks if an OID value found in the OID tree is valid. The OID
+     * value must have a symbol and a parent chain (up to a root)
+     * matching the start (or all) of the searched numeric OID value.
+     *
+     * @param value          the OID value found, or null
+     * @param oid            the searched numeric OID value
+     * @param exact          the exact match flag
+     *
+     * @return true if the OID value is valid, or
+     *         false otherwise
+     */
+    private static boolean isValid(ObjectIdentifierValue value,
+                                   int[] oid,
+                                   boolean exact) {
+
+        if (value == null || value.getSymbol() == null) {
+            return false;
+        }
+        int depth = 0;
+        for (ObjectIdentifierValue v = value; v != null; v = v.getParent()) {
+            depth++;
+        }
+        if (depth > oid.length || (exact && depth != oid.length)) {
+            return false;
+        }
+        for (ObjectIdentifierValue v = value; v != null; v = v.getParent()) {
+            if (v.getValue() != oid[--depth]) {
+                return false;
+            }
+        }
+        return depth == 0;
+    }
+
+
+    /**
+     * An OID tree reader. The reader searches for all the numeric
+     * OID values until the test is done. A failed search is retried
+     * once, as an OID value found just before being unloaded may
+     * be cleared before the check completes.
+     */
+    private class Reader implements Runnable {
+
+        /**
+         * The root OID search flag.
+         */
+        private boolean fromRoot;
+
+        /**
+         * Creates a new OID tree reader.
+         *
+         * @param fromRoot       the root OID search flag
+         */
+        public Reader(boolean fromRoot) {
+            this.fromRoot = fromRoot;
+        }
+
+        /**
+         * Searches the OID tree until the test is done.
+         */
+        public void run() {
+            while (!done) {
+                for (int i = 0; i < oids.size(); i++) {
+                    int[] oid = oids.get(i);
+                    boolean match = exact.get(i).booleanValue();
+                    if (!isValid(search(oid, fromRoot), oid, match) &&
+                        !isValid(search(oid, fromRoot), oid, match)) {
+
+                        failures.incrementAndGet();
+                    }
+                    reads.incrementAndGet();
+                }
+            }
+        }
+    }
+}